@@ -0,0 +1,119 @@
+package com.esimedia.security;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+
+/**
+ * Coste de {@link AuthenticationSessionFilter} por petición (la etapa que
+ * sustituyó a CookieAuthenticationFilter + SessionTimeoutFilter).
+ *
+ * Token firmado (sin BD) en cabecera o cookie sobre una ruta protegida, y una
+ * ruta pública que solo pasa por el matcher. "requestOnly" construye la
+ * petición y la respuesta simuladas sin filtrar: restarlo de los demás da el
+ * coste (tiempo y bytes con -prof gc) del propio filtro.
+ *
+ * mvn -P benchmarks test-compile exec:exec -Djmh.args=AuthenticationFilterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthenticationFilterBenchmark {
+
+    private static final String PROTECTED_PATH = "/api/content/list";
+    private static final String PUBLIC_PATH = "/api/auth/login";
+
+    private CoarseClock clock;
+    private SecurityAuditLog auditLog;
+    private AuthenticationSessionFilter filter;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SignedTokenCodec codec = new SignedTokenCodec("benchmark-signing-secret-0123456789abcdef");
+        AccessTokenService tokens = new AccessTokenService(null, null, codec, new RevokedTokenRegistry(null));
+        ReflectionTestUtils.setField(tokens, "mode", AccessTokenService.MODE_SIGNED);
+        token = tokens.issue("bench@esimedia.com", "user");
+
+        clock = new CoarseClock(10);
+        InMemorySessionRegistry registry = new InMemorySessionRegistry(new LocalSessionStore(), clock);
+        registry.initLimits();
+        auditLog = new SecurityAuditLog(false, "target/jmh-audit.log", 1024, 64, 1, 1, 200);
+
+        filter = new AuthenticationSessionFilter(tokens, registry, auditLog,
+            List.of("/api/auth/login", "/actuator", "/cover/", "/pfp/"),
+            List.of("/api/public", "/api/auth/login", "/cover/", "/pfp/"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clock.close();
+        auditLog.stop();
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestOnly() {
+        MockHttpServletRequest request = request(PROTECTED_PATH);
+        request.addHeader("Authorization", "Bearer " + token);
+        return new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse bearerToken() throws ServletException, IOException {
+        MockHttpServletRequest request = request(PROTECTED_PATH);
+        request.addHeader("Authorization", "Bearer " + token);
+        return run(request);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse cookieToken() throws ServletException, IOException {
+        MockHttpServletRequest request = request(PROTECTED_PATH);
+        request.setCookies(new Cookie("access_token", token));
+        return run(request);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse publicPath() throws ServletException, IOException {
+        return run(request(PUBLIC_PATH));
+    }
+}
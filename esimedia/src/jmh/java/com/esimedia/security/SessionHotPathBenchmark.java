@@ -0,0 +1,106 @@
+package com.esimedia.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Coste por petición de la etapa de sesión: getOrCreate de una sesión
+ * existente + isAbsoluteExpired + isIdleExpired + touch.
+ *
+ * "legacy" reproduce la versión anterior (Instant/Duration y normalización
+ * del rol en cada comprobación); "current" usa el registro actual.
+ * Con -prof gc (activo por defecto en el perfil) se ve la diferencia de
+ * bytes reservados por operación.
+ *
+ * mvn -P benchmarks test-compile exec:exec -Djmh.args=SessionHotPathBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionHotPathBenchmark {
+
+    private static final String KEY = "v1.bench-session-token";
+    private static final String ROLE = "admin";
+
+    /** Copia de la lógica previa para comparar antes/después. */
+    static final class LegacySession {
+        final String role;
+        final Instant createdAt;
+        volatile Instant lastActivity;
+
+        LegacySession(String role, Instant now) {
+            this.role = role;
+            this.createdAt = now;
+            this.lastActivity = now;
+        }
+    }
+
+    private final Map<String, LegacySession> legacySessions = new ConcurrentHashMap<>();
+    private InMemorySessionRegistry registry;
+    private CoarseClock clock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        clock = new CoarseClock(10);
+        registry = new InMemorySessionRegistry(new LocalSessionStore(), clock);
+        registry.getOrCreate(KEY, ROLE);
+        legacySessions.put(KEY, new LegacySession(ROLE, Instant.now()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clock.close();
+    }
+
+    @Benchmark
+    public boolean current() {
+        InMemorySessionRegistry.SessionInfo s = registry.getOrCreate(KEY, ROLE);
+        boolean expired = registry.isAbsoluteExpired(s) || registry.isIdleExpired(s);
+        registry.touch(s);
+        return expired;
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        LegacySession s = legacySessions.computeIfAbsent(KEY, k -> new LegacySession(ROLE, Instant.now()));
+        boolean expired = Duration.between(s.createdAt, Instant.now()).compareTo(legacyAbsolute(s.role)) > 0
+            || Duration.between(s.lastActivity, Instant.now()).compareTo(legacyIdle(s.role)) > 0;
+        s.lastActivity = Instant.now();
+        return expired;
+    }
+
+    private static Duration legacyIdle(String role) {
+        switch (role == null ? "user" : role.trim().toLowerCase()) {
+            case "admin":   return Duration.ofMinutes(15);
+            case "creator": return Duration.ofMinutes(15);
+            default:        return Duration.ofMinutes(20);
+        }
+    }
+
+    private static Duration legacyAbsolute(String role) {
+        switch (role == null ? "user" : role.trim().toLowerCase()) {
+            case "admin":   return Duration.ofHours(7);
+            case "creator": return Duration.ofHours(7);
+            default:        return Duration.ofHours(8);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.esimedia.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * hashPassword y verifyPassword completos (pre-hash + bcrypt, pasando por el
+ * pool de hashing) para varios costes. Sirve para elegir
+ * security.bcrypt.target-ms / rounds con datos de la máquina real.
+ *
+ * mvn -P benchmarks test-compile exec:exec -Djmh.args=PasswordBcryptBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordBcryptBenchmark {
+
+    private static final String PASSWORD = "Sup3r$ecretPwd!2024";
+
+    @Param({"10", "12"})
+    public int rounds;
+
+    private PasswordHashingExecutor executor;
+    private PasswordUtils passwordUtils;
+    private String storedHash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = new PasswordHashingExecutor(1, 16, 60_000);
+        passwordUtils = PasswordBenchmarkSupport.passwordUtils(rounds, executor);
+        storedHash = passwordUtils.hashPassword(PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return passwordUtils.hashPassword(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verifyPassword() {
+        return passwordUtils.verifyPassword(PASSWORD, storedHash);
+    }
+}
@@ -0,0 +1,31 @@
+package com.esimedia.utils;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.esimedia.config.PasswordSecurityConfig;
+
+/**
+ * PasswordUtils montado sin contexto de Spring para los benchmarks
+ * (sin HIBP: la red no forma parte de lo que se mide).
+ */
+final class PasswordBenchmarkSupport {
+
+    static final String PEPPER = "7KmN9pQr3sT6vXz2BnM5yH8jC4fG7kL0eW3xY9qR2tU5wP8aZ1bV6nM4hJ7gF0dS";
+
+    private PasswordBenchmarkSupport() {
+    }
+
+    static PasswordUtils passwordUtils(int rounds, PasswordHashingExecutor executor) {
+        PasswordSecurityConfig config = new PasswordSecurityConfig();
+        ReflectionTestUtils.setField(config, "passwordPepper", PEPPER);
+        ReflectionTestUtils.setField(config, "bcryptRounds", rounds);
+
+        PasswordUtils utils = new PasswordUtils();
+        ReflectionTestUtils.setField(utils, "securityConfig", config);
+        ReflectionTestUtils.setField(utils, "hashingExecutor", executor);
+        ReflectionTestUtils.setField(utils, "environment", "production");
+        ReflectionTestUtils.setField(utils, "checkHibp", false);
+        utils.initBcryptCost();
+        return utils;
+    }
+}
@@ -0,0 +1,112 @@
+package com.esimedia.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pre-hash SHA-256 + pepper y validación de datos personales.
+ *
+ * "current" es PasswordUtils.preHashPassword tal cual (MessageDigest.getInstance
+ * y getBytes("UTF-8") por llamada). Las variantes reutilizan el digest por
+ * hilo: ThreadLocal, estado JMH de hilo y clone() de un prototipo. Con
+ * -prof gc (activo por defecto en el perfil) se comparan bytes por operación.
+ *
+ * mvn -P benchmarks test-compile exec:exec -Djmh.args=PasswordPreHashBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PasswordPreHashBenchmark {
+
+    private static final String PASSWORD = "Sup3r$ecretPwd!2024";
+    private static final String PEPPERED = PASSWORD + PasswordBenchmarkSupport.PEPPER;
+
+    private static final ThreadLocal<MessageDigest> THREAD_DIGEST = ThreadLocal.withInitial(() -> sha256());
+
+    /** Digest propio de cada hilo de JMH (equivalente a un campo por hilo). */
+    @State(Scope.Thread)
+    public static class ThreadDigest {
+        MessageDigest digest;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            digest = sha256();
+        }
+    }
+
+    private PasswordHashingExecutor executor;
+    private PasswordUtils passwordUtils;
+    private MessageDigest prototype;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = new PasswordHashingExecutor(1, 16, 5000);
+        passwordUtils = PasswordBenchmarkSupport.passwordUtils(4, executor);
+        prototype = sha256();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(MessageDigest digest) {
+        return Base64.getEncoder().encodeToString(digest.digest(PEPPERED.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public String preHashCurrent() {
+        return passwordUtils.preHashPassword(PASSWORD);
+    }
+
+    @Benchmark
+    public String preHashThreadLocal() {
+        return encode(THREAD_DIGEST.get());
+    }
+
+    @Benchmark
+    public String preHashThreadState(ThreadDigest state) {
+        return encode(state.digest);
+    }
+
+    @Benchmark
+    public String preHashClone() throws CloneNotSupportedException {
+        return encode((MessageDigest) prototype.clone());
+    }
+
+    @Benchmark
+    public List<String> validatePersonalInfo() {
+        return passwordUtils.validatePasswordPersonalInfo(
+            PASSWORD, "ana.romero@example.com", "Ana", "Romero", "anita");
+    }
+}
@@ -13,8 +13,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
-import com.esimedia.security.CookieAuthenticationFilter;
-import com.esimedia.security.SessionTimeoutFilter;
+import com.esimedia.security.AuthenticationSessionFilter;
 
 import java.util.Arrays;
 
@@ -29,14 +28,10 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
-    private final SessionTimeoutFilter sessionTimeoutFilter; 
-    private final CookieAuthenticationFilter cookieAuthenticationFilter;
+    private final AuthenticationSessionFilter authenticationSessionFilter;
 
-    public SecurityConfig(
-            SessionTimeoutFilter sessionTimeoutFilter,
-            CookieAuthenticationFilter cookieAuthenticationFilter) {
-        this.sessionTimeoutFilter = sessionTimeoutFilter;
-        this.cookieAuthenticationFilter = cookieAuthenticationFilter;
+    public SecurityConfig(AuthenticationSessionFilter authenticationSessionFilter) {
+        this.authenticationSessionFilter = authenticationSessionFilter;
     }
     
     @Bean
@@ -71,9 +66,8 @@ public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
             // Todos los demás endpoints requieren autenticación
             .anyRequest().authenticated()
         )
-        // ✅ ORDEN IMPORTANTE: CookieAuth ANTES de SessionTimeout
-        .addFilterBefore(cookieAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
-        .addFilterAfter(sessionTimeoutFilter, CookieAuthenticationFilter.class);
+        // ✅ Una sola etapa: autenticación por token + timeouts de sesión
+        .addFilterBefore(authenticationSessionFilter, UsernamePasswordAuthenticationFilter.class);
     
     return http.build();
 }
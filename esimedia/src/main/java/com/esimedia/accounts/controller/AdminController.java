@@ -27,6 +27,7 @@ import com.esimedia.accounts.repository.AdminRepository;
 import com.esimedia.accounts.repository.ContentCreatorRepository;
 import com.esimedia.accounts.repository.UserRepository;
 import com.esimedia.accounts.service.TwoFactorAuthService;
+import com.esimedia.security.AccessTokenService;
 import com.esimedia.utils.PasswordUtils;
 
 @RestController
@@ -56,6 +57,9 @@ public class AdminController {
     
     @Autowired
     private PasswordUtils passwordUtils;
+
+    @Autowired
+    private AccessTokenService accessTokenService;
     
     public AdminController(AdminRepository adminRepository, TwoFactorAuthService twoFactorAuthService, ContentCreatorRepository contentCreatorRepository, UserRepository userRepository) {
         this.adminRepository = adminRepository;
@@ -161,6 +165,7 @@ public class AdminController {
             // BUG: variable 'active' no definida -> usar el valor del DTO
             existing.setActive(body.getActive());
             Admin saved = adminRepository.save(existing);
+            if (!saved.isActive()) accessTokenService.revokeAccount(saved.getEmail());
             saved.setPassword(null);
             return ResponseEntity.ok(saved);
         }).orElse(ResponseEntity.status(404).build());
@@ -216,6 +221,7 @@ public class AdminController {
 		return opt.map(existing -> {
 			existing.setActive(body.getActive());
 				ContentCreator saved = contentCreatorRepository.save(existing);
+				if (!saved.isActive()) accessTokenService.revokeAccount(saved.getEmail());
 				saved.setPassword(null);
 				return ResponseEntity.ok(saved);
 		}).orElse(ResponseEntity.status(404).build());
@@ -246,6 +252,7 @@ public class AdminController {
         updateAdminFields(existing, body);
 
         Admin saved = adminRepository.save(existing);
+        if (!saved.isActive()) accessTokenService.revokeAccount(saved.getEmail());
         saved.setPassword(null);
         return ResponseEntity.ok(saved);
     }
@@ -7,10 +7,15 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
@@ -38,19 +43,27 @@ import com.esimedia.accounts.dto.response.LoginResponseDTO;
 import com.esimedia.accounts.dto.response.ThirdFactorRequiredResponseDTO;
 import com.esimedia.accounts.dto.response.TwoFactorRequiredResponseDTO;
 import com.esimedia.accounts.dto.response.TwoFactorSetupResponseDTO;
+import com.esimedia.accounts.model.Account;
+import com.esimedia.accounts.model.AccountDirectoryEntry;
 import com.esimedia.accounts.model.Admin;
 import com.esimedia.accounts.model.ContentCreator;
+import com.esimedia.accounts.model.PasswordResetToken;
 import com.esimedia.accounts.model.Token;
 import com.esimedia.accounts.model.User;
 import com.esimedia.accounts.repository.AdminRepository;
 import com.esimedia.accounts.repository.ContentCreatorRepository;
-import com.esimedia.accounts.repository.TokenRepository;
 import com.esimedia.accounts.repository.UserRepository;
+import com.esimedia.accounts.service.AccountDirectory;
+import com.esimedia.accounts.service.PasswordResetTokenService;
 import com.esimedia.accounts.service.EmailService;
 import com.esimedia.accounts.service.ThreeFactorAuthService;
 import com.esimedia.accounts.service.TwoFactorAuthService;
+import com.esimedia.exception.ServiceOverloadedException;
 import com.esimedia.security.LoginAttemptService;
 import com.esimedia.security.RateLimitService;
+import com.esimedia.security.RequestAuthContext;
+import com.esimedia.security.AccessTokenService;
+import com.esimedia.security.LoginMetrics;
 import com.esimedia.utils.PasswordUtils;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.WriterException;
@@ -82,36 +95,80 @@ public class AuthController {
     private final AdminRepository adminRepository;
     private final ContentCreatorRepository contentCreatorRepository;
     private final UserRepository userRepository;
-    private final TokenRepository tokenRepository;
     private final TwoFactorAuthService twoFactorAuthService;
     private final ThreeFactorAuthService threeFactorAuthService;
     private final RateLimitService rateLimitService;
+    private final AccessTokenService accessTokenService;
+    private final AccountDirectory accountDirectory;
+    private final LoginMetrics loginMetrics;
+    private final PasswordResetTokenService resetTokens;
+
+    // Tiempo máximo de un login; lo que quede se usa como espera máxima al pool de bcrypt
+    @Value("${security.login.latency-budget-ms:3000}")
+    private long loginLatencyBudgetMs = 3000;
 
     public AuthController(
             AdminRepository adminRepository, 
             ContentCreatorRepository contentCreatorRepository, 
             UserRepository userRepository, 
-            TokenRepository tokenRepository, 
             TwoFactorAuthService twoFactorAuthService, 
             ThreeFactorAuthService threeFactorAuthService,
             EmailService emailService,
             PasswordUtils passwordUtils,
             RateLimitService rateLimitService,
-            LoginAttemptService loginAttemptService) {
+            LoginAttemptService loginAttemptService,
+            AccessTokenService accessTokenService,
+            AccountDirectory accountDirectory,
+            LoginMetrics loginMetrics,
+            PasswordResetTokenService resetTokens) {
         this.adminRepository = adminRepository;
         this.contentCreatorRepository = contentCreatorRepository;
         this.userRepository = userRepository;
-        this.tokenRepository = tokenRepository;
         this.twoFactorAuthService = twoFactorAuthService;
         this.threeFactorAuthService = threeFactorAuthService;
         this.emailService = emailService;
         this.passwordUtils = passwordUtils;
         this.loginAttemptService = loginAttemptService;
         this.rateLimitService = rateLimitService;
+        this.accessTokenService = accessTokenService;
+        this.accountDirectory = accountDirectory;
+        this.loginMetrics = loginMetrics;
+        this.resetTokens = resetTokens;
     }
 
     @PostMapping(path = "/login", consumes = "application/json", produces = "application/json")
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequestDTO loginRequest, HttpServletRequest request) {
+        loginMetrics.begin();
+        ResponseEntity<?> response = null;
+        String failure = LoginMetrics.OUTCOME_ERROR;
+        try {
+            response = doLogin(loginRequest, request);
+            return response;
+        } catch (ServiceOverloadedException e) {
+            failure = LoginMetrics.OUTCOME_OVERLOADED;
+            throw e;
+        } finally {
+            loginMetrics.finish(response != null ? loginOutcome(response.getStatusCode().value()) : failure);
+        }
+    }
+
+    /**
+     * Resultado del login para métricas según el código HTTP (los casos que
+     * comparten código los fija el propio login con loginMetrics.outcome).
+     */
+    private static String loginOutcome(int status) {
+        switch (status) {
+            case 200: return LoginMetrics.OUTCOME_SUCCESS;
+            case 400: return LoginMetrics.OUTCOME_BAD_REQUEST;
+            case 401: return LoginMetrics.OUTCOME_INVALID_CREDENTIALS;
+            case 403: return LoginMetrics.OUTCOME_INACTIVE;
+            case 429: return LoginMetrics.OUTCOME_RATE_LIMITED;
+            default:  return LoginMetrics.OUTCOME_ERROR;
+        }
+    }
+
+    private ResponseEntity<?> doLogin(LoginRequestDTO loginRequest, HttpServletRequest request) {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(loginLatencyBudgetMs);
         String email = loginRequest.getEmail();
         String password = loginRequest.getPassword();
         
@@ -136,9 +193,11 @@ public class AuthController {
         // Rate limiting: 5 intentos / 5 min
         if (!hasTwoFactorCode && !rateLimitService.allowLogin(clientIp, email)) {
             emailService.sendRateLimitExceededEmail(email);
+            loginMetrics.outcome(LoginMetrics.OUTCOME_RATE_LIMITED);
             return ResponseEntity.status(429)
                 .body("Demasiados intentos de login. Intenta de nuevo en 5 minutos.");
         }
+        loginMetrics.mark(LoginMetrics.STAGE_RATE_LIMIT);
 
         // VERIFICAR SI ESTÁ BLOQUEADO (POR EMAIL + IP)
         if (loginAttemptService.isLocked(email, clientIp)) {
@@ -153,34 +212,34 @@ public class AuthController {
             ErrorResponseDTO errorResponse = new ErrorResponseDTO(message);
             errorResponse.setLocked(true);
             errorResponse.setLockoutTime(lockoutTime);
+            loginMetrics.outcome(LoginMetrics.OUTCOME_LOCKED);
             return ResponseEntity
                 .status(HttpStatus.TOO_MANY_REQUESTS)
                 .body(errorResponse);
         }
+        loginMetrics.mark(LoginMetrics.STAGE_LOCKOUT);
 
         // DETECTAR ATAQUE DISTRIBUIDO
         if (loginAttemptService.isDistributedAttack(email)) {
             log.error("🚨 DISTRIBUTED ATTACK: Email '{}' under attack from multiple IPs. Current IP: {}", 
                      email, clientIp);
         }
+        loginMetrics.mark(LoginMetrics.STAGE_DISTRIBUTED_ATTACK);
 
-        // Hash ficticio para comparación constante en tiempo
-        String dummyHash = "$2a$12$dummyHashParaEvitarTimingAttacks1234567890ABC";
-
-        // Try admin login
-        ResponseEntity<?> adminResponse = tryAdminLogin(email, password, loginRequest, clientIp, dummyHash);
-        if (adminResponse != null) return adminResponse;
+        // Hash ficticio (real, con el coste actual) para comparación constante en tiempo
+        String dummyHash = passwordUtils.getDummyHash();
 
-        // Try creator login
-        ResponseEntity<?> creatorResponse = tryCreatorLogin(email, password, loginRequest, clientIp, dummyHash);
-        if (creatorResponse != null) return creatorResponse;
-
-        // Try user login
-        ResponseEntity<?> userResponse = tryUserLogin(email, password, loginRequest, clientIp, dummyHash);
-        if (userResponse != null) return userResponse;
+        // Una búsqueda indexada en el directorio de cuentas (prioridad admin > creator > user)
+        var account = accountDirectory.resolve(email);
+        loginMetrics.mark(LoginMetrics.STAGE_ACCOUNT_LOOKUP);
+        if (account.isPresent()) {
+            ResponseEntity<?> response = tryLogin(account.get(), email, password, loginRequest, clientIp, deadlineNanos);
+            if (response != null) return response;
+        }
 
         // USUARIO NO ENCONTRADO
-        passwordUtils.verifyPassword(password, dummyHash);
+        passwordUtils.verifyPassword(password, dummyHash, remainingBudgetMs(deadlineNanos));
+        loginMetrics.mark(LoginMetrics.STAGE_PASSWORD);
         
         loginAttemptService.recordFailedAttempt(email, clientIp);
         int remaining = loginAttemptService.getRemainingAttempts(email, clientIp);
@@ -197,68 +256,90 @@ public class AuthController {
             .body(errorResponse);
     }
 
-    private ResponseEntity<?> tryAdminLogin(String email, String password, LoginRequestDTO loginRequest, String clientIp, String dummyHash) {
-        var adminOpt = findAdminByEmailIgnoreCase(email);
-        if (adminOpt.isEmpty()) return null;
+    private ResponseEntity<?> tryLogin(AccountDirectoryEntry account, String email, String password, LoginRequestDTO loginRequest, String clientIp, long deadlineNanos) {
+        switch (account.getRole()) {
+            case AccountDirectory.ROLE_ADMIN:
+                return tryAdminLogin(account, email, password, loginRequest, clientIp, deadlineNanos);
+            case AccountDirectory.ROLE_CREATOR:
+                return tryCreatorLogin(account, email, password, loginRequest, clientIp, deadlineNanos);
+            default:
+                return tryUserLogin(account, email, password, loginRequest, clientIp, deadlineNanos);
+        }
+    }
 
-        Admin admin = adminOpt.get();
-        log.info("[AUTH] Found admin for email='{}'", admin.getEmail());
+    private ResponseEntity<?> tryAdminLogin(AccountDirectoryEntry account, String email, String password, LoginRequestDTO loginRequest, String clientIp, long deadlineNanos) {
+        log.info("[AUTH] Found admin for email='{}'", account.getAccountId());
 
+        Admin admin = verifiedAccount(account, password, deadlineNanos, adminRepository::findById);
+        if (admin == null) {
+            return invalidCredentialsResponse(email, clientIp, ADMIN);
+        }
+        // Estado de la cuenta real: la entrada del directorio puede ir atrasada
         if (!admin.isActive()) {
             return inactiveAccountResponse();
         }
-
-        if (!passwordUtils.verifyPassword(password, admin.getPassword())) {
-            return invalidCredentialsResponse(email, clientIp, ADMIN);
-        }
+        rehashIfNeeded(admin.getPassword(), password, deadlineNanos, hash -> {
+            admin.setPassword(hash);
+            adminRepository.save(admin);
+        });
+        loginMetrics.mark(LoginMetrics.STAGE_ACCOUNT_LOAD);
 
         ResponseEntity<?> twoFa = enforceTwoFactorIfNeeded(admin.getEmail(), ADMIN, admin.getTwoFactorSecretKey(), loginRequest, clientIp);
+        loginMetrics.mark(LoginMetrics.STAGE_TWO_FACTOR);
         if (twoFa != null) return twoFa;
 
         ResponseEntity<?> threeFa = enforceThirdFactorIfEnabled(admin.isThirdFactorEnabled(), admin.getEmail(), ADMIN);
+        loginMetrics.mark(LoginMetrics.STAGE_THIRD_FACTOR);
         if (threeFa != null) return threeFa;
 
         loginAttemptService.resetAttempts(email, clientIp);
         return buildLoginSuccessResponseForAdmin(admin, email, clientIp);
     }
 
-    private ResponseEntity<?> tryCreatorLogin(String email, String password, LoginRequestDTO loginRequest, String clientIp, String dummyHash) {
-        var creatorOpt = findCreatorByEmailIgnoreCase(email);
-        if (creatorOpt.isEmpty()) return null;
-
-        ContentCreator creator = creatorOpt.get();
-        log.info("[AUTH] Found creator for email='{}'", creator.getEmail());
+    private ResponseEntity<?> tryCreatorLogin(AccountDirectoryEntry account, String email, String password, LoginRequestDTO loginRequest, String clientIp, long deadlineNanos) {
+        log.info("[AUTH] Found creator for email='{}'", account.getAccountId());
 
+        ContentCreator creator = verifiedAccount(account, password, deadlineNanos, contentCreatorRepository::findById);
+        if (creator == null) {
+            return invalidCredentialsResponse(email, clientIp, CREATOR);
+        }
+        // Estado de la cuenta real: la entrada del directorio puede ir atrasada
         if (!creator.isActive()) {
             return inactiveAccountResponse();
         }
-
-        if (!passwordUtils.verifyPassword(password, creator.getPassword())) {
-            return invalidCredentialsResponse(email, clientIp, CREATOR);
-        }
+        rehashIfNeeded(creator.getPassword(), password, deadlineNanos, hash -> {
+            creator.setPassword(hash);
+            contentCreatorRepository.save(creator);
+        });
+        loginMetrics.mark(LoginMetrics.STAGE_ACCOUNT_LOAD);
 
         ResponseEntity<?> twoFa = enforceTwoFactorIfNeeded(creator.getEmail(), CREATOR, creator.getTwoFactorSecretKey(), loginRequest, clientIp);
+        loginMetrics.mark(LoginMetrics.STAGE_TWO_FACTOR);
         if (twoFa != null) return twoFa;
 
         ResponseEntity<?> threeFa = enforceThirdFactorIfEnabled(creator.isThirdFactorEnabled(), creator.getEmail(), CREATOR);
+        loginMetrics.mark(LoginMetrics.STAGE_THIRD_FACTOR);
         if (threeFa != null) return threeFa;
 
         loginAttemptService.resetAttempts(email, clientIp);
         return buildLoginSuccessResponseForCreator(creator, email, clientIp);
     }
 
-    private ResponseEntity<?> tryUserLogin(String email, String password, LoginRequestDTO loginRequest, String clientIp, String dummyHash) {
-        var userOpt = findUserByEmailIgnoreCase(email);
-        if (userOpt.isEmpty()) return null;
+    private ResponseEntity<?> tryUserLogin(AccountDirectoryEntry account, String email, String password, LoginRequestDTO loginRequest, String clientIp, long deadlineNanos) {
+        log.info("[AUTH] Found user for email='{}'", account.getAccountId());
 
-        User user = userOpt.get();
-        log.info("[AUTH] Found user for email='{}'", user.getEmail());
-
-        if (!passwordUtils.verifyPassword(password, user.getPassword())) {
+        User user = verifiedAccount(account, password, deadlineNanos, userRepository::findById);
+        if (user == null) {
             return invalidCredentialsResponse(email, clientIp, "user");
         }
+        rehashIfNeeded(user.getPassword(), password, deadlineNanos, hash -> {
+            user.setPassword(hash);
+            userRepository.save(user);
+        });
+        loginMetrics.mark(LoginMetrics.STAGE_ACCOUNT_LOAD);
 
         ResponseEntity<?> twoFa = enforceTwoFactorIfNeeded(user.getEmail(), "user", user.getTwoFactorSecretKey(), loginRequest, clientIp);
+        loginMetrics.mark(LoginMetrics.STAGE_TWO_FACTOR);
         if (twoFa != null) return twoFa;
 
         if (!user.isActive()) {
@@ -266,12 +347,70 @@ public class AuthController {
         }
 
         ResponseEntity<?> threeFa = enforceThirdFactorIfEnabled(user.isThirdFactorEnabled(), user.getEmail(), "user");
+        loginMetrics.mark(LoginMetrics.STAGE_THIRD_FACTOR);
         if (threeFa != null) return threeFa;
 
         loginAttemptService.resetAttempts(email, clientIp);
         return buildLoginSuccessResponseForUser(user, email, clientIp);
     }
 
+    /**
+     * Comprueba la contraseña con la copia del hash del directorio y lee la
+     * cuenta completa. Manda siempre el hash vigente de la cuenta: si difiere
+     * del de la entrada (cambio que no pasó por el directorio, o reconciliación
+     * atrasada), se vuelve a comprobar contra el de la cuenta y se corrige la
+     * entrada, así que una contraseña nueva correcta no cuenta como intento fallido.
+     *
+     * La cuenta se lee también cuando la entrada rechaza la contraseña: sin
+     * esa lectura por _id no hay forma de saber si la entrada estaba atrasada,
+     * y es justo el caso en que la contraseña nueva bloquearía al usuario. Es
+     * mucho más barata que el bcrypt ya hecho y solo se repite bcrypt si el
+     * hash vigente es otro.
+     *
+     * @return la cuenta si la contraseña coincide con su hash vigente, o null
+     */
+    private <A extends Account> A verifiedAccount(AccountDirectoryEntry account, String password, long deadlineNanos,
+                                                  Function<String, Optional<A>> loader) {
+        boolean entryMatches = passwordUtils.verifyPassword(password, account.getPasswordHash(), remainingBudgetMs(deadlineNanos));
+        loginMetrics.mark(LoginMetrics.STAGE_PASSWORD);
+
+        A current = loader.apply(account.getAccountId()).orElse(null);
+        String currentHash = current == null ? null : current.getPassword();
+        if (currentHash == null) {
+            return null;
+        }
+        if (currentHash.equals(account.getPasswordHash())) {
+            return entryMatches ? current : null;
+        }
+        log.warn("[AUTH] Stale account directory entry for '{}', re-verifying", account.getAccountId());
+        accountDirectory.register(current);
+        return passwordUtils.verifyPassword(password, currentHash, remainingBudgetMs(deadlineNanos)) ? current : null;
+    }
+
+    /**
+     * Si el hash guardado usa otro coste de bcrypt, lo regenera con el actual
+     * ahora que se conoce la contraseña. Es oportunista: si el pool de hashing
+     * está saturado o no queda presupuesto, se deja para el próximo login.
+     */
+    private void rehashIfNeeded(String storedHash, String password, long deadlineNanos, Consumer<String> update) {
+        if (!passwordUtils.needsRehash(storedHash)) {
+            return;
+        }
+        try {
+            update.accept(passwordUtils.hashPassword(password, remainingBudgetMs(deadlineNanos)));
+            log.info("[AUTH] Password hash upgraded to bcrypt cost {}", passwordUtils.getBcryptRounds());
+        } catch (ServiceOverloadedException e) {
+            log.debug("[AUTH] Password rehash postponed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Milisegundos que quedan del presupuesto del login (0 o negativo si se agotó).
+     */
+    private static long remainingBudgetMs(long deadlineNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
     private String getClientIp(HttpServletRequest request) {
         String ip = request.getHeader("X-Forwarded-For");
         if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
@@ -311,25 +450,17 @@ public class AuthController {
                 .body("Límite diario excedido. Puedes solicitar máximo 10 códigos por día.");
         }
 
-        var opt = userRepository.findById(email);
-        if (opt.isEmpty()) {
-            for (User u : userRepository.findAll()) {
-                if (u.getEmail() != null && u.getEmail().equalsIgnoreCase(email)) { opt = java.util.Optional.of(u); break; }
-            }
-        }
+        var opt = findUserByEmailIgnoreCase(email);
         if (opt.isPresent()) {
             User user = opt.get();
-            String token= java.util.UUID.randomUUID().toString();
-            user.setResetToken(token);
-            user.setTokenExpiration(java.time.LocalDateTime.now().plusMinutes(15)); // token valid for 15 minutes
-            userRepository.save(user);
+            String token = resetTokens.issue(AccountDirectory.ROLE_USER, user.getEmail());
             // Send the user a link to reset their password
-            String resetLink = "http://localhost:3000/reset-password?token=" + user.getResetToken();
+            String resetLink = "http://localhost:3000/reset-password?token=" + token;
             String subject = "Recuperación de contraseña";
             String bodyEmail = "Hola " + user.getName() + ",\n\n" +
                     "Hemos recibido una solicitud para restablecer la contraseña de tu cuenta.\n" +
                     "Por favor, haz clic en el siguiente enlace para restablecer tu contraseña:\n" +
-                    resetLink + "\n" + "Este enlace es válido por 15 minutos." + "\n" +
+                    resetLink + "\n" + "Este enlace es válido por " + resetTokens.getTtlMinutes() + " minutos." + "\n" +
                     "Si no solicitaste este cambio, puedes ignorar este correo electrónico.\n\n" +
                     "Saludos,\nEl equipo de ESIMEDIA";
             
@@ -346,11 +477,10 @@ public class AuthController {
         if (token == null || token.isBlank()) {
             return ResponseEntity.badRequest().build();
         }
-        User user = userRepository.findByResetToken(token);
-        boolean isValid = (user != null && user.getTokenExpiration() != null && user.getTokenExpiration().isAfter(java.time.LocalDateTime.now()));
-        //printea el token y si es valido
-
-        System.out.println("Validating token: " + token + " isValid: " + isValid);
+        boolean isValid = resetTokens.find(token)
+            .map(entry -> !PasswordResetTokenService.isExpired(entry, LocalDateTime.now()))
+            .orElse(false);
+        log.debug("[AUTH] Reset token validated: valid={}", isValid);
         Map<String, Boolean> resp = new HashMap<>();
         resp.put("valid", isValid);
         return ResponseEntity.ok(resp);
@@ -375,8 +505,7 @@ public class AuthController {
         }
 
         if (tokenId != null && !tokenId.isBlank()) {
-            Token token = tokenRepository.findById(tokenId).orElse(null);
-            if (token != null) tokenRepository.delete(token);
+            accessTokenService.revoke(tokenId);
         }
 
         // ✅ MOBILE FIX: Usar mismos flags que en login para limpiar cookies
@@ -394,7 +523,17 @@ public class AuthController {
     @GetMapping("/validate-token")
     public ResponseEntity<?> validateToken(
             @CookieValue(value = "access_token", required = false) String cookieToken,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            HttpServletRequest request) {
+
+        // El filtro de autenticación ya resolvió el token en esta petición
+        RequestAuthContext authContext = RequestAuthContext.from(request);
+        if (authContext != null && authContext.isAuthenticated()) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("role", authContext.getToken().getRole());
+            response.put("email", authContext.getToken().getAccountId());
+            return ResponseEntity.ok(response);
+        }
         
         // ⚠️ HYBRID STRATEGY: Prioridad 1 - Header Bearer (Móvil), Prioridad 2 - Cookie (Web)
         String tokenId = null;
@@ -415,8 +554,8 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token no proporcionado");
         }
 
-        Token token = tokenRepository.findById(tokenId).orElse(null);
-        if (token == null || token.getExpiration().isBefore(LocalDateTime.now())) {
+        Token token = accessTokenService.resolve(tokenId);
+        if (token == null) {
             System.out.println("❌ Token invalid or expired: " + tokenId);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token inválido o expirado");
         }
@@ -553,22 +692,24 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Código inválido o expirado.");
         }
 
-        // Admin
-        var adminOpt = findAdminByEmailIgnoreCase(email);
-        if (adminOpt.isPresent()) {
-            return build3FASuccessResponseForAdmin(adminOpt.get());
-        }
-
-        // Content creator
-        var creatorOpt = findCreatorByEmailIgnoreCase(email);
-        if (creatorOpt.isPresent()) {
-            return build3FASuccessResponseForCreator(creatorOpt.get());
-        }
-
-        // User
-        var userOpt = findUserByEmailIgnoreCase(email);
-        if (userOpt.isPresent()) {
-            return build3FASuccessResponseForUser(userOpt.get());
+        // Admin > creator > user, resuelto con una sola búsqueda en el directorio
+        var account = accountDirectory.resolve(email);
+        if (account.isPresent()) {
+            String accountId = account.get().getAccountId();
+            switch (account.get().getRole()) {
+                case AccountDirectory.ROLE_ADMIN:
+                    var adminOpt = adminRepository.findById(accountId);
+                    if (adminOpt.isPresent()) return build3FASuccessResponseForAdmin(adminOpt.get());
+                    break;
+                case AccountDirectory.ROLE_CREATOR:
+                    var creatorOpt = contentCreatorRepository.findById(accountId);
+                    if (creatorOpt.isPresent()) return build3FASuccessResponseForCreator(creatorOpt.get());
+                    break;
+                default:
+                    var userOpt = userRepository.findById(accountId);
+                    if (userOpt.isPresent()) return build3FASuccessResponseForUser(userOpt.get());
+                    break;
+            }
         }
 
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Cuenta no encontrada");
@@ -580,69 +721,39 @@ public class AuthController {
         String password = request.getPassword();
         LocalDateTime now = LocalDateTime.now();
 
-        // 1. User
-        User user = userRepository.findByResetToken(token);
-        if (user != null) {
-            ResponseEntity<?> resp = handlePasswordResetForUser(user, password, now);
-            if (resp != null) return resp;
-            return ResponseEntity.ok(CONTRASENARESTABLECIDA);
-        }
-
-        // 2. Admin
-        Admin admin = adminRepository.findByResetToken(token);
-        if (admin != null) {
-            ResponseEntity<?> resp = handlePasswordResetForAdmin(admin, password, now);
-            if (resp != null) return resp;
-            return ResponseEntity.ok(CONTRASENARESTABLECIDA);
-        }
-
-        // 3. ContentCreator
-        ContentCreator creator = contentCreatorRepository.findByResetToken(token);
-        if (creator != null) {
-            ResponseEntity<?> resp = handlePasswordResetForCreator(creator, password, now);
-            if (resp != null) return resp;
-            return ResponseEntity.ok(CONTRASENARESTABLECIDA);
-        }
-
-        return ResponseEntity.status(400).body("Token inválido");
+        // Una búsqueda por índice único; el token indica rol y cuenta
+        PasswordResetToken entry = resetTokens.find(token).orElse(null);
+        if (entry == null) {
+            return ResponseEntity.status(400).body("Token inválido");
+        }
+
+        ResponseEntity<?> resp;
+        switch (entry.getRole()) {
+            case AccountDirectory.ROLE_ADMIN:
+                Admin admin = adminRepository.findById(entry.getAccountId()).orElse(null);
+                if (admin == null) return ResponseEntity.status(400).body("Token inválido");
+                resp = handlePasswordResetForAdmin(admin, entry, password, now);
+                break;
+            case AccountDirectory.ROLE_CREATOR:
+                ContentCreator creator = contentCreatorRepository.findById(entry.getAccountId()).orElse(null);
+                if (creator == null) return ResponseEntity.status(400).body("Token inválido");
+                resp = handlePasswordResetForCreator(creator, entry, password, now);
+                break;
+            default:
+                User user = userRepository.findById(entry.getAccountId()).orElse(null);
+                if (user == null) return ResponseEntity.status(400).body("Token inválido");
+                resp = handlePasswordResetForUser(user, entry, password, now);
+                break;
+        }
+        if (resp != null) return resp;
+        return ResponseEntity.ok(CONTRASENARESTABLECIDA);
     }
 
     // ---------- Helpers para reducir complejidad ----------
 
-    private java.util.Optional<Admin> findAdminByEmailIgnoreCase(String email) {
-        var adminOpt = adminRepository.findById(email);
-        if (adminOpt.isEmpty()) {
-            for (Admin a : adminRepository.findAll()) {
-                if (a.getEmail() != null && a.getEmail().equalsIgnoreCase(email)) {
-                    return java.util.Optional.of(a);
-                }
-            }
-        }
-        return adminOpt;
-    }
-
-    private java.util.Optional<ContentCreator> findCreatorByEmailIgnoreCase(String email) {
-        var creatorOpt = contentCreatorRepository.findById(email);
-        if (creatorOpt.isEmpty()) {
-            for (ContentCreator c : contentCreatorRepository.findAll()) {
-                if (c.getEmail() != null && c.getEmail().equalsIgnoreCase(email)) {
-                    return java.util.Optional.of(c);
-                }
-            }
-        }
-        return creatorOpt;
-    }
-
     private java.util.Optional<User> findUserByEmailIgnoreCase(String email) {
-        var userOpt = userRepository.findById(email);
-        if (userOpt.isEmpty()) {
-            for (User u : userRepository.findAll()) {
-                if (u.getEmail() != null && u.getEmail().equalsIgnoreCase(email)) {
-                    return java.util.Optional.of(u);
-                }
-            }
-        }
-        return userOpt;
+        return accountDirectory.find(email, AccountDirectory.ROLE_USER)
+            .flatMap(entry -> userRepository.findById(entry.getAccountId()));
     }
 
     private ResponseEntity<?> inactiveAccountResponse() {
@@ -666,6 +777,7 @@ public class AuthController {
 
         String codeStr = loginRequest.getTwoFactorCode();
         if (codeStr == null) {
+            loginMetrics.outcome(LoginMetrics.OUTCOME_TWO_FACTOR_REQUIRED);
             return ResponseEntity.status(428).body(new TwoFactorRequiredResponseDTO(accountEmail, role));
         }
         try {
@@ -682,6 +794,7 @@ public class AuthController {
 
     private ResponseEntity<?> enforceThirdFactorIfEnabled(boolean enabled, String email, String role) {
         if (!enabled) return null;
+        loginMetrics.outcome(LoginMetrics.OUTCOME_THIRD_FACTOR_REQUIRED);
         return ResponseEntity.status(428).body(new ThirdFactorRequiredResponseDTO(email, role));
     }
 
@@ -695,13 +808,9 @@ public class AuthController {
     }
 
     private TokenResult createTokenAndCookies(String accountId, String role) {
-        String tokenID = UUID.randomUUID().toString();
-        Token token = new Token();
-        token.setId(tokenID);
-        token.setAccountId(accountId);
-        token.setRole(role);
-        token.setExpiration(LocalDateTime.now().plusHours(8));
-        tokenRepository.save(token);
+        // UUID persistido o token firmado según security.token.mode
+        String tokenID = accessTokenService.issue(accountId, role);
+        loginMetrics.mark(LoginMetrics.STAGE_TOKEN);
 
         // ✅ MOBILE FIX: secure=false y sameSite=Lax para desarrollo HTTP
         // TODO: En producción, cambiar a secure=true y sameSite=Strict con HTTPS
@@ -720,6 +829,7 @@ public class AuthController {
             .path("/")
             .maxAge(Duration.ofHours(2))
             .build();
+        loginMetrics.mark(LoginMetrics.STAGE_COOKIE);
 
         return new TokenResult(tokenID, accessCookie, csrfCookie);
     }
@@ -825,8 +935,8 @@ public class AuthController {
             .body(response);
     }
 
-    private ResponseEntity<?> handlePasswordResetForUser(User user, String password, LocalDateTime now) {
-        if (isResetTokenExpired(user.getTokenExpiration(), now)) {
+    private ResponseEntity<?> handlePasswordResetForUser(User user, PasswordResetToken entry, String password, LocalDateTime now) {
+        if (PasswordResetTokenService.isExpired(entry, now)) {
             return ResponseEntity.status(400).body(TOKENEXPIRADO);
         }
         String email = user.getEmail();
@@ -840,15 +950,14 @@ public class AuthController {
         }
 
         user.setPassword(passwordUtils.hashPassword(password));
-        user.setResetToken(null);
-        user.setTokenExpiration(null);
         userRepository.save(user);
+        resetTokens.consume(entry);
         log.info("✅ Contraseña restablecida para Usuario: {}", email);
         return null; // caller devuelve 200 OK con mensaje
     }
 
-    private ResponseEntity<?> handlePasswordResetForAdmin(Admin admin, String password, LocalDateTime now) {
-        if (isResetTokenExpired(admin.getTokenExpiration(), now)) {
+    private ResponseEntity<?> handlePasswordResetForAdmin(Admin admin, PasswordResetToken entry, String password, LocalDateTime now) {
+        if (PasswordResetTokenService.isExpired(entry, now)) {
             return ResponseEntity.status(400).body(TOKENEXPIRADO);
         }
         String email = admin.getEmail();
@@ -862,15 +971,14 @@ public class AuthController {
         }
 
         admin.setPassword(passwordUtils.hashPassword(password));
-        admin.setResetToken(null);
-        admin.setTokenExpiration(null);
         adminRepository.save(admin);
+        resetTokens.consume(entry);
         log.info("✅ Contraseña restablecida para Admin: {}", email);
         return null;
     }
 
-    private ResponseEntity<?> handlePasswordResetForCreator(ContentCreator creator, String password, LocalDateTime now) {
-        if (isResetTokenExpired(creator.getTokenExpiration(), now)) {
+    private ResponseEntity<?> handlePasswordResetForCreator(ContentCreator creator, PasswordResetToken entry, String password, LocalDateTime now) {
+        if (PasswordResetTokenService.isExpired(entry, now)) {
             return ResponseEntity.status(400).body(TOKENEXPIRADO);
         }
         String email = creator.getEmail();
@@ -884,17 +992,12 @@ public class AuthController {
         }
 
         creator.setPassword(passwordUtils.hashPassword(password));
-        creator.setResetToken(null);
-        creator.setTokenExpiration(null);
         contentCreatorRepository.save(creator);
+        resetTokens.consume(entry);
         log.info("✅ Contraseña restablecida para Creador de Contenido: {}", email);
         return null;
     }
 
-    private boolean isResetTokenExpired(LocalDateTime expiration, LocalDateTime now) {
-        return expiration == null || expiration.isBefore(now);
-    }
-
     private java.util.Optional<String> firstPersonalInfoError(String password, String email, String name, String surname, String alias) {
         java.util.List<String> errors = passwordUtils.validatePasswordPersonalInfo(password, email, name, surname, alias);
         if (errors == null || errors.isEmpty()) return java.util.Optional.empty();
@@ -19,13 +19,17 @@ import org.springframework.web.bind.annotation.*;
 
 import com.esimedia.accounts.dto.request.CreateUserRequestDTO;
 import com.esimedia.accounts.dto.response.UserResponseDTO;
+import com.esimedia.accounts.model.PasswordResetToken;
 import com.esimedia.accounts.model.Playlist;
 import com.esimedia.accounts.model.User;
 import com.esimedia.accounts.repository.AdminRepository;
 import com.esimedia.accounts.repository.ContentCreatorRepository;
 import com.esimedia.accounts.repository.PlaylistRepository;
 import com.esimedia.accounts.repository.UserRepository;
+import com.esimedia.accounts.service.AccountDirectory;
 import com.esimedia.accounts.service.EmailService;
+import com.esimedia.accounts.service.PasswordResetTokenService;
+import com.esimedia.security.AccessTokenService;
 import com.esimedia.utils.PasswordUtils;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
@@ -76,6 +80,12 @@ public class UserController {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private AccessTokenService accessTokenService;
+
+    @Autowired
+    private PasswordResetTokenService resetTokens;
+
 
     @PostMapping(consumes = "application/json")
     public ResponseEntity<?> createUser(@Valid @RequestBody CreateUserRequestDTO dto) {
@@ -153,6 +163,7 @@ public class UserController {
         return opt.map(existing -> {
             existing.setActive(active);
             User saved = userRepository.save(existing);
+            if (!active) accessTokenService.revokeAccount(saved.getEmail());
             return ResponseEntity.ok(toUserResponseDTO(saved));
         }).orElse(ResponseEntity.status(404).build());
     }
@@ -167,6 +178,7 @@ public class UserController {
         return opt.map(existing -> {
             updateUserFields(existing, body);
             User saved = userRepository.save(existing);
+            if (!saved.isActive()) accessTokenService.revokeAccount(saved.getEmail());
             return ResponseEntity.ok(toUserResponseDTO(saved));
         }).orElse(ResponseEntity.status(404).build());
     }
@@ -267,21 +279,25 @@ public class UserController {
                 return ResponseEntity.badRequest().body("Missing or invalid 'token' field");
             }
         // find user by token
-
-        User user = userRepository.findByResetToken(token1);
+        PasswordResetToken entry = resetTokens.find(token1)
+            .filter(t -> AccountDirectory.ROLE_USER.equals(t.getRole()))
+            .orElse(null);
+        User user = entry == null ? null : userRepository.findById(entry.getAccountId()).orElse(null);
+        if (user == null) {
+            return ResponseEntity.badRequest().body("Invalid token");
+        }
         // check token expiration
 
-        if (user.getTokenExpiration() == null || user.getTokenExpiration().isBefore(LocalDateTime.now())) {
+        if (PasswordResetTokenService.isExpired(entry, LocalDateTime.now())) {
             return ResponseEntity.status(400).body("Token expired");
         }
 
         //Set the password from the inputs of the method
         password = passwordUtils.hashPassword(password);
         user.setPassword(password);
-        user.setResetToken(null);
-        user.setTokenExpiration(null);
         emailService.sendEmail(user.getEmail(), "Password Reset", "Your password has been reset successfully.");
         userRepository.save(user);
+        resetTokens.consume(entry);
 
         return ResponseEntity.ok(Map.of(MESSAGE, "Password reset"));
     }
@@ -38,15 +38,6 @@ public abstract class Account {
 
     private boolean isThirdFactorEnabled = false;
 
-    private String resetToken;
-
-    private LocalDateTime tokenExpiration;
-
-        public String getResetToken() { return resetToken; }
-    public void setResetToken(String resetToken) { this.resetToken = resetToken; }
-    public LocalDateTime getTokenExpiration() { return tokenExpiration; }
-    public void setTokenExpiration(LocalDateTime tokenExpiration) { this.tokenExpiration = tokenExpiration; }
-
     public boolean isThirdFactorEnabled() {
         return isThirdFactorEnabled;
     }
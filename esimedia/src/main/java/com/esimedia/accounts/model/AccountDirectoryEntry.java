@@ -0,0 +1,92 @@
+package com.esimedia.accounts.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Entrada del directorio de cuentas: email normalizado (trim + minúsculas)
+ * → colección, rol, estado y hash de la cuenta. Una por cuenta; si el mismo
+ * email existe en varias colecciones hay una entrada por rol.
+ * La mantiene AccountDirectory a partir de los guardados/borrados de cuentas.
+ */
+@Document(collection = "account_directory")
+public class AccountDirectoryEntry {
+
+    @Id
+    private String id; // rol + ":" + email normalizado
+
+    @Indexed
+    private String email; // normalizado
+
+    private String accountId; // _id real de la cuenta (email tal cual se registró)
+    private String collection;
+    private String role;
+    private boolean active;
+    private String passwordHash;
+    private long syncedAtMs; // última escritura; la reconciliación solo pisa la entrada si no ha cambiado
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+    }
+
+    public long getSyncedAtMs() {
+        return syncedAtMs;
+    }
+
+    public void setSyncedAtMs(long syncedAtMs) {
+        this.syncedAtMs = syncedAtMs;
+    }
+}
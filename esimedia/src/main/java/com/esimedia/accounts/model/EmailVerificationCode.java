@@ -1,17 +1,27 @@
 package com.esimedia.accounts.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
+/**
+ * Código de tercer factor pendiente. Con security.3fa.store.persist=true es la
+ * fuente de verdad: VerificationCodeStore lo consume o le suma intentos con
+ * operaciones condicionales sobre este documento.
+ */
 @Document(collection = "verification_codes")
 public class EmailVerificationCode {
 
     @Id
-    private String id;
+    private String id; // email normalizado
+    @Indexed
     private String email;
-    private String code;
+    private String code; // solo documentos antiguos (texto plano)
+    private String codeHash; // SHA-256 (hex) de email normalizado + código
+    private int attempts;
+    @Indexed(expireAfterSeconds = 0)
     private LocalDateTime expiration;
 
     // Getters y setters
@@ -46,4 +56,20 @@ public class EmailVerificationCode {
     public void setExpiration(LocalDateTime expiration) {
         this.expiration = expiration;
     }
-}
\ No newline at end of file
+
+    public String getCodeHash() {
+        return codeHash;
+    }
+
+    public void setCodeHash(String codeHash) {
+        this.codeHash = codeHash;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+}
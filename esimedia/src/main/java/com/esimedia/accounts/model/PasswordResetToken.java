@@ -0,0 +1,69 @@
+package com.esimedia.accounts.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Token de restablecimiento de contraseña (colección password_reset_tokens).
+ * Uno por cuenta: emitir otro sustituye al anterior. Solo se guarda el
+ * SHA-256 del token, con índice único para buscarlo; el índice TTL sobre
+ * expiresAt borra los caducados.
+ */
+@Document(collection = "password_reset_tokens")
+public class PasswordResetToken {
+
+    @Id
+    private String id; // rol + ":" + _id de la cuenta
+
+    @Indexed(unique = true)
+    private String tokenHash;
+
+    private String accountId;
+    private String role;
+
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
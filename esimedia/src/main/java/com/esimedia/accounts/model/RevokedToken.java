@@ -0,0 +1,68 @@
+package com.esimedia.accounts.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Revocación de tokens firmados (modo stateless). Puede referirse a un token
+ * concreto (jti) o a todos los tokens de una cuenta emitidos antes de revokedAt.
+ * Mongo borra el documento cuando ya no puede existir ningún token afectado.
+ */
+@Document(collection = "revoked_tokens")
+public class RevokedToken {
+
+    @Id
+    private String id; // jti, o "account:" + accountId
+
+    private String accountId;
+    private boolean wholeAccount;
+    @Indexed
+    private long revokedAtMs; // la recarga periódica pide solo las posteriores a la última vista
+
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expiration;
+
+    // Getters y setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
+
+    public boolean isWholeAccount() {
+        return wholeAccount;
+    }
+
+    public void setWholeAccount(boolean wholeAccount) {
+        this.wholeAccount = wholeAccount;
+    }
+
+    public long getRevokedAtMs() {
+        return revokedAtMs;
+    }
+
+    public void setRevokedAtMs(long revokedAtMs) {
+        this.revokedAtMs = revokedAtMs;
+    }
+
+    public LocalDateTime getExpiration() {
+        return expiration;
+    }
+
+    public void setExpiration(LocalDateTime expiration) {
+        this.expiration = expiration;
+    }
+}
@@ -1,6 +1,7 @@
 package com.esimedia.accounts.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -11,8 +12,12 @@ public class Token {
     @Id
     private String id; // UUID del token
 
+    @Indexed
     private String accountId; // ID del usuario asociado
     private String role; // Rol del usuario (admin, creator, user)
+
+    // Índice TTL: Mongo borra el token en cuanto pasa su expiración
+    @Indexed(expireAfterSeconds = 0)
     private LocalDateTime expiration; // Fecha y hora de expiración del token
 
     // Getters y setters
@@ -6,6 +6,4 @@ import com.esimedia.accounts.model.Admin;
 
 public interface AdminRepository extends MongoRepository<Admin, String> {
 
-    Admin findByResetToken(String resetToken);
-
 }
@@ -10,5 +10,4 @@ public interface ContentCreatorRepository extends MongoRepository<ContentCreator
 	boolean existsByAlias(String alias);
     Optional<ContentCreator> findByEmail(String email);
     Optional<ContentCreator> findByAlias(String alias);
-    ContentCreator findByResetToken(String resetToken);
 }
@@ -0,0 +1,12 @@
+package com.esimedia.accounts.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.esimedia.accounts.model.PasswordResetToken;
+
+public interface PasswordResetTokenRepository extends MongoRepository<PasswordResetToken, String> {
+    Optional<PasswordResetToken> findByTokenHash(String tokenHash);
+    long deleteByTokenHash(String tokenHash);
+}
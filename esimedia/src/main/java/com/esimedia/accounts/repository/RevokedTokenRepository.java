@@ -0,0 +1,13 @@
+package com.esimedia.accounts.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.esimedia.accounts.model.RevokedToken;
+
+@Repository
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+    List<RevokedToken> findByRevokedAtMsGreaterThan(long revokedAtMs);
+}
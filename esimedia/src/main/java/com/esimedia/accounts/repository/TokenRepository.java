@@ -11,4 +11,5 @@ import java.util.Optional;
 public interface TokenRepository extends MongoRepository<Token, String> {
     Optional<Token> findById(String id);
     Optional<Token> findByAccountId(String accountId);
+    void deleteByAccountId(String accountId);
 }
\ No newline at end of file
@@ -8,9 +8,6 @@ import com.esimedia.accounts.model.User;
 import java.util.List;
 
 public interface UserRepository extends MongoRepository<User, String> {
-    //findBytoken
-    User findByResetToken(String resetToken);
-    
     /**
      * Encuentra usuarios que tengan al menos un tag coincidente con la lista proporcionada.
      * Optimización para notificaciones: filtra directamente en MongoDB en lugar de traer todos los usuarios.
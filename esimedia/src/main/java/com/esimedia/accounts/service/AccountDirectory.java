@@ -0,0 +1,426 @@
+package com.esimedia.accounts.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.esimedia.accounts.model.Account;
+import com.esimedia.accounts.model.AccountDirectoryEntry;
+import com.esimedia.accounts.model.Admin;
+import com.esimedia.accounts.model.ContentCreator;
+import com.esimedia.accounts.model.User;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Directorio único de cuentas: email normalizado → (colección, rol, activo,
+ * hash) en la colección {@code account_directory}, con índice sobre el email.
+ *
+ * Sustituye al sondeo de admins, content_creators y users uno detrás de otro
+ * (con findAll() para comparar sin mayúsculas): una búsqueda indexada devuelve
+ * todas las cuentas de ese email y se elige por prioridad admin > creator > user,
+ * el mismo orden que usaba el login.
+ *
+ * Se mantiene sola escuchando los guardados y borrados de cuentas hechos con
+ * los repositorios; al arrancar y periódicamente se reconcilia con las tres
+ * colecciones en un hilo propio (no en el del scheduler). Mientras no ha terminado la primera reconciliación, un fallo se
+ * comprueba directamente por _id en las colecciones.
+ *
+ * La caché en memoria es opcional y corta: otro nodo puede cambiar una
+ * contraseña sin que este se entere hasta que caduque la entrada.
+ */
+@Service
+public class AccountDirectory extends AbstractMongoEventListener<Account> {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountDirectory.class);
+
+    public static final String ROLE_ADMIN = "admin";
+    public static final String ROLE_CREATOR = "creator";
+    public static final String ROLE_USER = "user";
+
+    static final String ADMINS = "admins";
+    static final String CREATORS = "content_creators";
+    static final String USERS = "users";
+
+    private static final List<String> ROLE_PRIORITY = List.of(ROLE_ADMIN, ROLE_CREATOR, ROLE_USER);
+
+    private static final class CachedLookup {
+        final List<AccountDirectoryEntry> entries;
+        final long expiresAtMs;
+
+        CachedLookup(List<AccountDirectoryEntry> entries, long expiresAtMs) {
+            this.entries = entries;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, CachedLookup> cache = new ConcurrentHashMap<>();
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private final ExecutorService reconcileExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "account-directory-reconcile");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean ready;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder syncErrors = new LongAdder();
+    private volatile long lastReconciled = -1;
+    private volatile long lastReconcileWrites = -1;
+
+    @Value("${accounts.directory.cache.enabled:false}")
+    private boolean cacheEnabled;
+
+    @Value("${accounts.directory.cache.max-entries:1000}")
+    private int cacheMaxEntries = 1000;
+
+    @Value("${accounts.directory.cache.ttl-seconds:30}")
+    private long cacheTtlSeconds = 30;
+
+    public AccountDirectory(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Cuenta de mayor prioridad para el email (admin > creator > user).
+     */
+    public Optional<AccountDirectoryEntry> resolve(String email) {
+        return lookup(email).stream().findFirst();
+    }
+
+    /**
+     * Cuenta del email con un rol concreto.
+     */
+    public Optional<AccountDirectoryEntry> find(String email, String role) {
+        return lookup(email).stream().filter(e -> role.equals(e.getRole())).findFirst();
+    }
+
+    /**
+     * Todas las cuentas del email, ordenadas por prioridad de rol.
+     */
+    public List<AccountDirectoryEntry> lookup(String email) {
+        String key = normalize(email);
+        if (key == null || key.isEmpty()) {
+            return List.of();
+        }
+        lookups.increment();
+        long now = System.currentTimeMillis();
+        if (cacheEnabled) {
+            CachedLookup cached = cache.get(key);
+            if (cached != null && cached.expiresAtMs > now) {
+                cacheHits.increment();
+                return cached.entries;
+            }
+        }
+
+        List<AccountDirectoryEntry> entries = mongoTemplate.find(
+            new Query(Criteria.where("email").is(key)), AccountDirectoryEntry.class);
+        if (entries.isEmpty() && !ready) {
+            fallbacks.increment();
+            entries = probeCollections(email.trim());
+        }
+        entries = entries.stream()
+            .sorted(Comparator.comparingInt(e -> ROLE_PRIORITY.indexOf(e.getRole())))
+            .toList();
+
+        if (cacheEnabled) {
+            if (cache.size() >= cacheMaxEntries) {
+                cache.values().removeIf(c -> c.expiresAtMs <= now);
+                if (cache.size() >= cacheMaxEntries) {
+                    cache.clear();
+                }
+            }
+            cache.put(key, new CachedLookup(entries, now + cacheTtlSeconds * 1000L));
+        }
+        return entries;
+    }
+
+    /**
+     * Antes de la primera reconciliación: búsqueda por _id exacto y en
+     * minúsculas en cada colección (nunca un recorrido completo).
+     */
+    private List<AccountDirectoryEntry> probeCollections(String email) {
+        List<AccountDirectoryEntry> found = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(List.of(email, normalize(email)))) {
+            addProbed(found, mongoTemplate.findById(id, Admin.class, ADMINS));
+            addProbed(found, mongoTemplate.findById(id, ContentCreator.class, CREATORS));
+            addProbed(found, mongoTemplate.findById(id, User.class, USERS));
+        }
+        return found;
+    }
+
+    private void addProbed(List<AccountDirectoryEntry> found, Account account) {
+        if (account != null) {
+            AccountDirectoryEntry entry = toEntry(account);
+            upsert(entry);
+            found.add(entry);
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Account> event) {
+        try {
+            register(event.getSource());
+        } catch (RuntimeException e) {
+            syncErrors.increment();
+            log.error("❌ No se pudo actualizar el directorio de cuentas tras guardar {}: {}",
+                      event.getCollectionName(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Account> event) {
+        Document query = event.getSource();
+        String role = roleOfCollection(event.getCollectionName());
+        if (query == null || role == null) {
+            return;
+        }
+        Object id = query.get("_id");
+        try {
+            if (query.isEmpty()) {
+                // deleteAll()
+                mongoTemplate.remove(new Query(Criteria.where("role").is(role)), AccountDirectoryEntry.class);
+                cache.clear();
+            } else if (id instanceof String accountId) {
+                unregister(role, accountId);
+            } else if (id instanceof Document filter && filter.get("$in") instanceof Collection<?> ids) {
+                // deleteAllById()
+                ids.forEach(each -> unregister(role, String.valueOf(each)));
+            }
+            // Otros borrados por consulta los corrige la reconciliación
+        } catch (RuntimeException e) {
+            syncErrors.increment();
+            log.error("❌ No se pudo actualizar el directorio de cuentas tras borrar de {}: {}",
+                      event.getCollectionName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Crea o actualiza la entrada de la cuenta.
+     */
+    public void register(Account account) {
+        if (account == null || account.getEmail() == null || roleOf(account) == null) {
+            return;
+        }
+        upsert(toEntry(account));
+    }
+
+    public void unregister(String role, String accountId) {
+        String email = normalize(accountId);
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(role + ":" + email)), AccountDirectoryEntry.class);
+        invalidate(email);
+    }
+
+    private void upsert(AccountDirectoryEntry entry) {
+        mongoTemplate.save(entry);
+        invalidate(entry.getEmail());
+    }
+
+    private void invalidate(String normalizedEmail) {
+        if (normalizedEmail != null) {
+            cache.remove(normalizedEmail);
+        }
+    }
+
+    private AccountDirectoryEntry toEntry(Account account) {
+        String role = roleOf(account);
+        String email = normalize(account.getEmail());
+        AccountDirectoryEntry entry = new AccountDirectoryEntry();
+        entry.setId(role + ":" + email);
+        entry.setEmail(email);
+        entry.setAccountId(account.getEmail());
+        entry.setRole(role);
+        entry.setCollection(collectionOfRole(role));
+        entry.setActive(account.isActive());
+        entry.setPasswordHash(account.getPassword());
+        entry.setSyncedAtMs(System.currentTimeMillis());
+        return entry;
+    }
+
+    /**
+     * Lanza la reconciliación en su propio hilo, al arrancar y cada
+     * reconcile-interval-ms, para no ocupar el scheduler compartido.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${accounts.directory.reconcile-interval-ms:3600000}",
+               fixedDelayString = "${accounts.directory.reconcile-interval-ms:3600000}")
+    public void scheduleReconcile() {
+        if (!reconciling.get()) {
+            reconcileExecutor.execute(this::reconcile);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        reconcileExecutor.shutdownNow();
+    }
+
+    /**
+     * Rellena y corrige el directorio desde las tres colecciones (solo los
+     * campos necesarios, en streaming) y quita entradas de cuentas borradas.
+     *
+     * Solo escribe las entradas que faltan o cuyo estado o hash no coincide
+     * con la cuenta, y cada escritura exige que la entrada siga como se leyó
+     * (mismo syncedAtMs): si un guardado de la cuenta la actualizó durante la
+     * pasada, gana ese y no se pisa con datos más viejos.
+     */
+    public void reconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            long[] writes = {0};
+            long count = reconcile(Admin.class, ADMINS, ROLE_ADMIN, writes)
+                + reconcile(ContentCreator.class, CREATORS, ROLE_CREATOR, writes)
+                + reconcile(User.class, USERS, ROLE_USER, writes);
+            cache.clear();
+            lastReconciled = count;
+            lastReconcileWrites = writes[0];
+            ready = true;
+            log.info("📇 Directorio de cuentas reconciliado: {} cuentas, {} escrituras en {} ms",
+                     count, writes[0], System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            syncErrors.increment();
+            log.error("❌ Error al reconciliar el directorio de cuentas: {}", e.getMessage());
+        } finally {
+            reconciling.set(false);
+        }
+    }
+
+    private <T extends Account> long reconcile(Class<T> type, String collection, String role, long[] writes) {
+        // Entradas actuales del rol (sin tocar la caché)
+        Query known = new Query(Criteria.where("role").is(role));
+        known.fields().include("_id", "email", "accountId", "active", "passwordHash", "syncedAtMs");
+        Map<String, AccountDirectoryEntry> previous = new HashMap<>();
+        try (Stream<AccountDirectoryEntry> entries = mongoTemplate.stream(known, AccountDirectoryEntry.class)) {
+            entries.forEach(e -> previous.put(e.getId(), e));
+        }
+
+        Query query = new Query();
+        query.fields().include("_id", "password", "isActive");
+        long[] count = {0};
+        try (Stream<T> accounts = mongoTemplate.stream(query, type, collection)) {
+            accounts.forEach(account -> {
+                AccountDirectoryEntry entry = toEntry(account);
+                AccountDirectoryEntry prev = previous.remove(entry.getId());
+                if (prev == null) {
+                    // Alta: solo si nadie la ha creado mientras tanto
+                    mongoTemplate.upsert(new Query(Criteria.where("_id").is(entry.getId())),
+                        sourceFields(entry, true), AccountDirectoryEntry.class);
+                    writes[0]++;
+                } else if (!sameSource(prev, entry)) {
+                    mongoTemplate.updateFirst(unchangedSince(prev), sourceFields(entry, false),
+                        AccountDirectoryEntry.class);
+                    writes[0]++;
+                }
+                count[0]++;
+            });
+        }
+
+        // Las que quedan no tienen cuenta: borradas sin pasar por el repositorio
+        for (AccountDirectoryEntry orphan : previous.values()) {
+            mongoTemplate.remove(unchangedSince(orphan), AccountDirectoryEntry.class);
+            writes[0]++;
+        }
+        return count[0];
+    }
+
+    private static boolean sameSource(AccountDirectoryEntry stored, AccountDirectoryEntry fresh) {
+        return stored.isActive() == fresh.isActive()
+            && Objects.equals(stored.getAccountId(), fresh.getAccountId())
+            && Objects.equals(stored.getPasswordHash(), fresh.getPasswordHash());
+    }
+
+    private static Query unchangedSince(AccountDirectoryEntry stored) {
+        return new Query(Criteria.where("_id").is(stored.getId()).and("syncedAtMs").is(stored.getSyncedAtMs()));
+    }
+
+    private static Update sourceFields(AccountDirectoryEntry entry, boolean insertOnly) {
+        Update update = new Update();
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("email", entry.getEmail());
+        fields.put("accountId", entry.getAccountId());
+        fields.put("role", entry.getRole());
+        fields.put("collection", entry.getCollection());
+        fields.put("active", entry.isActive());
+        fields.put("passwordHash", entry.getPasswordHash());
+        fields.put("syncedAtMs", entry.getSyncedAtMs());
+        fields.forEach(insertOnly ? update::setOnInsert : update::set);
+        return update;
+    }
+
+    private static String roleOf(Account account) {
+        if (account instanceof Admin) return ROLE_ADMIN;
+        if (account instanceof ContentCreator) return ROLE_CREATOR;
+        if (account instanceof User) return ROLE_USER;
+        return null;
+    }
+
+    private static String roleOfCollection(String collection) {
+        if (ADMINS.equals(collection)) return ROLE_ADMIN;
+        if (CREATORS.equals(collection)) return ROLE_CREATOR;
+        if (USERS.equals(collection)) return ROLE_USER;
+        return null;
+    }
+
+    private static String collectionOfRole(String role) {
+        switch (role) {
+            case ROLE_ADMIN:   return ADMINS;
+            case ROLE_CREATOR: return CREATORS;
+            default:           return USERS;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long total = lookups.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("accounts", lastReconciled);
+        stats.put("lastReconcileWrites", lastReconcileWrites);
+        stats.put("lookups", total);
+        stats.put("fallbacks", fallbacks.sum());
+        stats.put("syncErrors", syncErrors.sum());
+        stats.put("cacheEnabled", cacheEnabled);
+        stats.put("cacheSize", cache.size());
+        stats.put("cacheHits", cacheHits.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,393 @@
+package com.esimedia.accounts.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.esimedia.accounts.model.OutboxEmail;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Cola persistente de correos salientes (colección email_outbox).
+ *
+ * Las peticiones solo insertan el correo y responden; un pool de hilos
+ * reserva lotes pendientes (findAndModify, así varios nodos no envían el
+ * mismo) y los manda por {@link MailTransport}. Un fallo deja el correo
+ * pendiente con espera exponencial; tras max-attempts queda como FAILED.
+ * Si un nodo cae a mitad de envío, la reserva caduca tras lease-ms y otro
+ * lo recoge. El TTL sobre expiresAt borra los correos viejos (enviados o no:
+ * un código o enlace de hace una hora ya no sirve).
+ *
+ * Los avisos agrupables (p. ej. límite de intentos) usan como _id
+ * tipo:destinatario:ventana y un upsert: durante un ataque todos los avisos
+ * de la misma ventana se quedan en un único correo. Además cada nodo
+ * recuerda las ventanas ya registradas para no repetir el upsert.
+ */
+@Service
+public class EmailOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutbox.class);
+
+    private static final String STATUS = "status";
+    private static final String NEXT_ATTEMPT_AT = "nextAttemptAt";
+    private static final String LOCKED_UNTIL = "lockedUntil";
+    private static final String ATTEMPTS = "attempts";
+    private static final String COALESCED = "coalesced";
+
+    private final MongoTemplate mongoTemplate;
+    private final MailTransport transport;
+
+    /** _id agrupado -> fin de su ventana, ya registrado desde este nodo. */
+    private final Map<String, Long> recentCoalesced = new ConcurrentHashMap<>();
+    private final AtomicInteger runningWorkers = new AtomicInteger();
+    private ThreadPoolExecutor pool;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder enqueueErrors = new LongAdder();
+
+    @Value("${mail.outbox.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${mail.from:diagonallityllc@gmail.com}")
+    private String from = "diagonallityllc@gmail.com";
+
+    @Value("${mail.outbox.threads:2}")
+    private int threads = 2;
+
+    @Value("${mail.outbox.batch-size:20}")
+    private int batchSize = 20;
+
+    @Value("${mail.outbox.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${mail.outbox.backoff-base-ms:2000}")
+    private long backoffBaseMs = 2000;
+
+    @Value("${mail.outbox.backoff-max-ms:300000}")
+    private long backoffMaxMs = 300_000;
+
+    @Value("${mail.outbox.lease-ms:60000}")
+    private long leaseMs = 60_000;
+
+    @Value("${mail.outbox.max-age-minutes:60}")
+    private long maxAgeMinutes = 60;
+
+    @Value("${mail.outbox.coalesce-window-minutes:15}")
+    private long coalesceWindowMinutes = 15;
+
+    @Value("${mail.outbox.coalesce-max-keys:10000}")
+    private int coalesceMaxKeys = 10_000;
+
+    public EmailOutbox(MongoTemplate mongoTemplate, MailTransport transport) {
+        this.mongoTemplate = mongoTemplate;
+        this.transport = transport;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("📧 Cola de correo desactivada: envío directo por {}", transport.name());
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+                Thread t = new Thread(r, "mail-outbox-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        log.info("📧 Cola de correo: {} hilos, lotes de {}, transporte {}", threads, batchSize, transport.name());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Encola un correo. Con la cola desactivada se envía en el momento.
+     */
+    public void enqueue(String to, String subject, String body) {
+        if (!enabled) {
+            transport.send(message(to, subject, body));
+            sent.increment();
+            return;
+        }
+        Date now = new Date();
+        OutboxEmail email = newEmail(to, subject, body, now);
+        mongoTemplate.insert(email);
+        enqueued.increment();
+        requestDrain();
+    }
+
+    /**
+     * Encola un aviso agrupable: como mucho uno por tipo, destinatario y
+     * ventana de coalesce-window-minutes. Los repetidos solo suman al
+     * contador del existente. Nunca lanza: el aviso es accesorio.
+     */
+    public void enqueueCoalesced(String kind, String to, String subject, String body) {
+        String recipient = AccountDirectory.normalize(to);
+        if (recipient == null || recipient.isEmpty()) {
+            return;
+        }
+        long windowMs = Math.max(1, coalesceWindowMinutes) * 60_000L;
+        long nowMs = System.currentTimeMillis();
+        long window = nowMs / windowMs;
+        String id = kind + ":" + recipient + ":" + window;
+        if (recentCoalesced.containsKey(id)) {
+            coalesced.increment();
+            return;
+        }
+        try {
+            if (!enabled) {
+                transport.send(message(to, subject, body));
+                sent.increment();
+            } else {
+                Date now = new Date(nowMs);
+                OutboxEmail template = newEmail(to, subject, body, now);
+                Update update = new Update()
+                    .setOnInsert("to", template.getTo())
+                    .setOnInsert("subject", subject)
+                    .setOnInsert("body", body)
+                    .setOnInsert("kind", kind)
+                    .setOnInsert(STATUS, OutboxEmail.STATUS_PENDING)
+                    .setOnInsert(ATTEMPTS, 0)
+                    .setOnInsert("createdAt", now)
+                    .setOnInsert(NEXT_ATTEMPT_AT, now)
+                    .setOnInsert("expiresAt", template.getExpiresAt())
+                    .inc(COALESCED, 1);
+                mongoTemplate.upsert(Query.query(Criteria.where("_id").is(id)), update, OutboxEmail.class);
+                enqueued.increment();
+                requestDrain();
+            }
+            if (recentCoalesced.size() < coalesceMaxKeys) {
+                recentCoalesced.put(id, (window + 1) * windowMs);
+            }
+        } catch (Exception e) {
+            enqueueErrors.increment();
+            log.warn("⚠️ No se pudo encolar el aviso '{}': {}", kind, e.getMessage());
+        }
+    }
+
+    private OutboxEmail newEmail(String to, String subject, String body, Date now) {
+        OutboxEmail email = new OutboxEmail();
+        email.setTo(to);
+        email.setSubject(subject);
+        email.setBody(body);
+        email.setStatus(OutboxEmail.STATUS_PENDING);
+        email.setCreatedAt(now);
+        email.setNextAttemptAt(now);
+        email.setExpiresAt(new Date(now.getTime() + maxAgeMinutes * 60_000L));
+        return email;
+    }
+
+    private SimpleMailMessage message(String to, String subject, String body) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(from);
+        message.setTo(to);
+        message.setSubject(subject);
+        message.setText(body);
+        return message;
+    }
+
+    /**
+     * Lanza un hilo de envío si queda alguno libre. Si todos están ocupados
+     * no hace falta: vacían la cola antes de terminar.
+     */
+    public void requestDrain() {
+        if (pool == null || pool.isShutdown()) {
+            return;
+        }
+        int running;
+        while ((running = runningWorkers.get()) < threads) {
+            if (runningWorkers.compareAndSet(running, running + 1)) {
+                try {
+                    pool.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    runningWorkers.decrementAndGet();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Red de seguridad: recoge reintentos cuyo plazo ha vencido, correos de
+     * otros nodos caídos y lo que no llegó a despertar a un hilo.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:2000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < threads; i++) {
+            requestDrain();
+        }
+        long now = System.currentTimeMillis();
+        recentCoalesced.values().removeIf(windowEnd -> windowEnd <= now);
+    }
+
+    private void drain() {
+        try {
+            List<OutboxEmail> batch;
+            while (!pool.isShutdown() && !(batch = claimBatch()).isEmpty()) {
+                process(batch);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Error en la cola de correo: {}", e.getMessage());
+        } finally {
+            runningWorkers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Reserva hasta batch-size correos listos para enviar (pendientes con el
+     * plazo cumplido, o en envío con la reserva caducada).
+     */
+    List<OutboxEmail> claimBatch() {
+        List<OutboxEmail> batch = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            Date now = new Date();
+            Query query = new Query(new Criteria().orOperator(
+                    Criteria.where(STATUS).is(OutboxEmail.STATUS_PENDING).and(NEXT_ATTEMPT_AT).lte(now),
+                    Criteria.where(STATUS).is(OutboxEmail.STATUS_SENDING).and(LOCKED_UNTIL).lte(now)))
+                .with(Sort.by(NEXT_ATTEMPT_AT));
+            Update update = new Update()
+                .set(STATUS, OutboxEmail.STATUS_SENDING)
+                .set(LOCKED_UNTIL, new Date(now.getTime() + leaseMs));
+            OutboxEmail claimed = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), OutboxEmail.class);
+            if (claimed == null) {
+                break;
+            }
+            batch.add(claimed);
+        }
+        return batch;
+    }
+
+    /**
+     * Envía un lote reservado y anota el resultado de cada correo.
+     */
+    void process(List<OutboxEmail> batch) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < messages.length; i++) {
+            OutboxEmail email = batch.get(i);
+            messages[i] = message(email.getTo(), email.getSubject(), email.getBody());
+        }
+        batches.increment();
+
+        Set<Object> failedMessages = Collections.newSetFromMap(new IdentityHashMap<>());
+        String error = null;
+        try {
+            transport.send(messages);
+        } catch (MailSendException e) {
+            error = e.getMessage();
+            failedMessages.addAll(e.getFailedMessages().keySet());
+            if (failedMessages.isEmpty()) {
+                failedMessages.addAll(List.of(messages)); // fallo de conexión: no salió ninguno
+            }
+        } catch (Exception e) {
+            error = e.getMessage();
+            failedMessages.addAll(List.of(messages));
+        }
+
+        for (int i = 0; i < messages.length; i++) {
+            if (failedMessages.contains(messages[i])) {
+                markFailed(batch.get(i), error);
+            } else {
+                markSent(batch.get(i));
+            }
+        }
+    }
+
+    private void markSent(OutboxEmail email) {
+        mongoTemplate.updateFirst(
+            Query.query(Criteria.where("_id").is(email.getId())),
+            new Update()
+                .set(STATUS, OutboxEmail.STATUS_SENT)
+                .set("sentAt", new Date())
+                .set(ATTEMPTS, email.getAttempts() + 1)
+                .unset("body")
+                .unset(LOCKED_UNTIL),
+            OutboxEmail.class);
+        sent.increment();
+    }
+
+    private void markFailed(OutboxEmail email, String error) {
+        int attempts = email.getAttempts() + 1;
+        Update update = new Update()
+            .set(ATTEMPTS, attempts)
+            .set("lastError", error)
+            .unset(LOCKED_UNTIL);
+        if (attempts >= maxAttempts) {
+            update.set(STATUS, OutboxEmail.STATUS_FAILED).unset("body");
+            failed.increment();
+            log.warn("❌ Correo {} descartado tras {} intentos: {}", email.getId(), attempts, error);
+        } else {
+            update.set(STATUS, OutboxEmail.STATUS_PENDING)
+                .set(NEXT_ATTEMPT_AT, new Date(System.currentTimeMillis() + backoffMs(attempts)));
+            retried.increment();
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(email.getId())), update, OutboxEmail.class);
+    }
+
+    /** Espera exponencial con jitter (50-100 %) para no reintentar todos a la vez. */
+    long backoffMs(int attempts) {
+        long exp = backoffBaseMs << Math.min(attempts - 1, 20);
+        long capped = Math.min(backoffMaxMs, exp);
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("transport", transport.name());
+        stats.put("workers", runningWorkers.get());
+        stats.put("enqueued", enqueued.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("sent", sent.sum());
+        stats.put("retried", retried.sum());
+        stats.put("failed", failed.sum());
+        stats.put("batches", batches.sum());
+        stats.put("enqueueErrors", enqueueErrors.sum());
+        stats.put("coalesceKeys", recentCoalesced.size());
+        return stats;
+    }
+}
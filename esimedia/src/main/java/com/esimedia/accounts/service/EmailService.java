@@ -1,30 +1,33 @@
 package com.esimedia.accounts.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+/**
+ * Correos de la aplicación. No envía en la petición: los deja en
+ * {@link EmailOutbox}, que los manda en segundo plano.
+ */
 @Service
 public class EmailService {
 
+    static final String KIND_RATE_LIMIT = "rate-limit";
+
     @Autowired
-    private JavaMailSender mailSender;
+    private EmailOutbox emailOutbox;
 
     public void sendEmail(String to, String subject, String body) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom("diagonallityllc@gmail.com");
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(body);
-        mailSender.send(message);
+        emailOutbox.enqueue(to, subject, body);
     }
+
+    /**
+     * Se dispara en cada intento rechazado; la cola agrupa los repetidos en
+     * un solo correo por destinatario y ventana.
+     */
     public void sendRateLimitExceededEmail(String to) {
         String subject = "Notificación de límite de intentos excedido";
         String body = "Hemos detectado múltiples intentos fallidos de inicio de sesión en su cuenta. " +
                       "Por razones de seguridad, hemos bloqueado temporalmente los intentos adicionales. " +
                       "Si no ha sido usted, le recomendamos cambiar su contraseña.";
-        sendEmail(to, subject, body);
+        emailOutbox.enqueueCoalesced(KIND_RATE_LIMIT, to, subject, body);
     }
 }
-
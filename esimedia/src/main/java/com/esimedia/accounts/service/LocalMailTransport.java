@@ -0,0 +1,57 @@
+package com.esimedia.accounts.service;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sustituto de SMTP para desarrollo y tests: no sale nada a la red, los
+ * mensajes se registran en el log y se guardan los últimos max-messages
+ * para poder consultarlos.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.transport", havingValue = "local")
+public class LocalMailTransport implements MailTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalMailTransport.class);
+
+    private final Deque<SimpleMailMessage> sent = new ArrayDeque<>();
+    private final int maxMessages;
+
+    public LocalMailTransport(@Value("${mail.transport.local.max-messages:100}") int maxMessages) {
+        this.maxMessages = Math.max(1, maxMessages);
+    }
+
+    @Override
+    public synchronized void send(SimpleMailMessage... messages) {
+        for (SimpleMailMessage message : messages) {
+            log.info("📧 [local] Correo para {}: {}", String.join(",", message.getTo()), message.getSubject());
+            if (sent.size() >= maxMessages) {
+                sent.removeFirst();
+            }
+            sent.addLast(message);
+        }
+    }
+
+    /** Mensajes enviados, del más antiguo al más reciente. */
+    public synchronized List<SimpleMailMessage> getSent() {
+        return new ArrayList<>(sent);
+    }
+
+    public synchronized void clear() {
+        sent.clear();
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+}
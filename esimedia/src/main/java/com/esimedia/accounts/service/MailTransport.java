@@ -0,0 +1,22 @@
+package com.esimedia.accounts.service;
+
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+
+/**
+ * Envío real de correos detrás de {@link EmailOutbox}. La versión SMTP usa
+ * el JavaMailSender de Spring; la local guarda los mensajes en memoria para
+ * desarrollo y tests (mail.transport=local).
+ */
+public interface MailTransport {
+
+    /**
+     * Envía el lote (en SMTP, por la misma conexión). Si fallan solo algunos
+     * mensajes lanza {@link org.springframework.mail.MailSendException} con
+     * ellos en getFailedMessages(); el resto se da por enviado.
+     */
+    void send(SimpleMailMessage... messages) throws MailException;
+
+    /** Nombre para métricas. */
+    String name();
+}
@@ -5,15 +5,12 @@ import org.springframework.stereotype.Service;
 import com.esimedia.accounts.model.User;
 import com.esimedia.accounts.repository.UserRepository;
 import com.esimedia.content.model.Content;
+import com.esimedia.content.service.ContentAccessPolicy;
 import com.esimedia.model.UserNotification;
 import com.esimedia.service.NotificationWithAntiSpamService;
 import com.esimedia.service.UserNotificationService;
 
-import java.time.LocalDate;
-import java.time.Period;
-import java.time.format.DateTimeParseException;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Servicio de Notificaciones para HDU 492.
@@ -27,13 +24,16 @@ public class NotificationService {
     private final UserNotificationService userNotificationService;
     private final NotificationWithAntiSpamService notificationWithAntiSpamService;
     private final UserRepository userRepository;
+    private final ContentAccessPolicy accessPolicy;
     
     public NotificationService(UserNotificationService userNotificationService,
                                NotificationWithAntiSpamService notificationWithAntiSpamService,
-                               UserRepository userRepository) {
+                               UserRepository userRepository,
+                               ContentAccessPolicy accessPolicy) {
         this.userNotificationService = userNotificationService;
         this.notificationWithAntiSpamService = notificationWithAntiSpamService;
         this.userRepository = userRepository;
+        this.accessPolicy = accessPolicy;
     }
     
     /**
@@ -51,77 +51,10 @@ public class NotificationService {
         // En lugar de traer TODOS los usuarios y filtrar en memoria
         List<User> candidateUsers = userRepository.findByTagsIn(content.getTags());
         
-        int notificationsCreated = 0;
-        for (User user : candidateUsers) {
-            // Verificar si el usuario tiene tags (aunque ya deberían tenerlos por la query)
-            if (user.getTags() == null || user.getTags().isEmpty()) {
-                continue;
-            }
-            
-            // Aplicar todos los filtros de acceso (incluyendo tags coincidentes)
-            List<String> matchingTags = canUserAccess(user, content);
-            if (matchingTags == null || matchingTags.isEmpty()) {
-                continue;
-            }
-            
-            // Crear notificación
-            createNotification(user, content, matchingTags);
-            notificationsCreated++;
-        }
-    }
-    
-    /**
-     * Encuentra los tags que coinciden entre usuario y contenido (case-insensitive)
-     */
-    private List<String> findMatchingTags(List<String> userTags, List<String> contentTags) {
-        return userTags.stream()
-                .filter(userTag -> contentTags.stream()
-                        .anyMatch(contentTag -> contentTag.equalsIgnoreCase(userTag)))
-                .collect(Collectors.toList());
-    }
-    
-    /**
-     * Verifica si el usuario puede acceder al contenido según filtros de seguridad.
-     * Tarea 507: Filtros de seguridad (Rol, Edad, Suscripción VIP, Tags)
-     * @return Lista de tags coincidentes si el usuario puede acceder, null o lista vacía si no
-     */
-    private List<String> canUserAccess(User user, Content content) {
-        // Filtro 1: Contenido VIP solo para usuarios VIP
-        if (content.isVipOnly() && !user.isVip()) {
-            return null;
-        }
-        
-        // Filtro 2: Edad mínima
-        if (content.getEdadMinima() != null && content.getEdadMinima() > 0) {
-            int userAge = calculateAge(user.getDateOfBirth());
-            if (userAge < content.getEdadMinima()) {
-                return null;
-            }
-        }
-        
-        // Filtro 3: Tags coincidentes
-        List<String> matchingTags = findMatchingTags(user.getTags(), content.getTags());
-        if (matchingTags.isEmpty()) {
-            return null;
-        }
-        
-        // El usuario cumple todos los filtros
-        return matchingTags;
-    }
-    
-    /**
-     * Calcula la edad del usuario a partir de su fecha de nacimiento
-     */
-    private int calculateAge(String dateOfBirth) {
-        if (dateOfBirth == null || dateOfBirth.trim().isEmpty()) {
-            return 0; // Si no tiene fecha, asumir menor de edad por seguridad
-        }
-        
-        try {
-            LocalDate birthDate = LocalDate.parse(dateOfBirth);
-            return Period.between(birthDate, LocalDate.now()).getYears();
-        } catch (DateTimeParseException e) {
-            return 0;
+        // Filtros de acceso (VIP, edad mínima, tags coincidentes) con el contenido compilado una vez
+        ContentAccessPolicy.Rule rule = accessPolicy.rule(content);
+        for (ContentAccessPolicy.Viewer viewer : accessPolicy.audience(rule, candidateUsers)) {
+            createNotification(viewer.getUser(), content, accessPolicy.matchingTags(viewer, rule));
         }
     }
     
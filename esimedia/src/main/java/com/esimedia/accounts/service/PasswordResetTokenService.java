@@ -0,0 +1,100 @@
+package com.esimedia.accounts.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.esimedia.accounts.model.PasswordResetToken;
+import com.esimedia.accounts.repository.PasswordResetTokenRepository;
+
+/**
+ * Emisión y consulta de tokens de restablecimiento de contraseña.
+ *
+ * Sustituye a los campos resetToken de cada cuenta: una sola búsqueda por
+ * índice único (hash del token) en lugar de recorrer admins,
+ * content_creators y users. Mongo borra los caducados por TTL; como el
+ * borrado puede tardar hasta un minuto, la caducidad se comprueba también
+ * aquí (y se distingue "caducado" de "no existe").
+ */
+@Service
+public class PasswordResetTokenService {
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private final PasswordResetTokenRepository repository;
+
+    @Value("${security.reset-token.ttl-minutes:15}")
+    private long ttlMinutes = 15;
+
+    public PasswordResetTokenService(PasswordResetTokenRepository repository) {
+        this.repository = repository;
+    }
+
+    public long getTtlMinutes() {
+        return ttlMinutes;
+    }
+
+    /**
+     * Emite un token nuevo para la cuenta (invalida el anterior) y lo devuelve
+     * en claro; solo se guarda su hash.
+     */
+    public String issue(String role, String accountId) {
+        byte[] bytes = new byte[32];
+        SECURE_RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        issue(role, accountId, token, LocalDateTime.now().plusMinutes(ttlMinutes));
+        return token;
+    }
+
+    /**
+     * Guarda {@code token} como token vigente de la cuenta hasta {@code expiresAt}.
+     */
+    public void issue(String role, String accountId, String token, LocalDateTime expiresAt) {
+        PasswordResetToken entry = new PasswordResetToken();
+        entry.setId(role + ":" + accountId);
+        entry.setTokenHash(hash(token));
+        entry.setAccountId(accountId);
+        entry.setRole(role);
+        entry.setExpiresAt(expiresAt);
+        repository.save(entry);
+    }
+
+    /**
+     * Token guardado (caducado o no) para el valor recibido.
+     */
+    public Optional<PasswordResetToken> find(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        return repository.findByTokenHash(hash(token.trim()));
+    }
+
+    public static boolean isExpired(PasswordResetToken entry, LocalDateTime now) {
+        return entry.getExpiresAt() == null || entry.getExpiresAt().isBefore(now);
+    }
+
+    /**
+     * Borra el token tras usarlo. Se borra por hash: si entretanto se emitió
+     * otro para la misma cuenta, ese sigue valiendo.
+     */
+    public void consume(PasswordResetToken entry) {
+        repository.deleteByTokenHash(entry.getTokenHash());
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
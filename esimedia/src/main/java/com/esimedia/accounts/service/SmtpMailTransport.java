@@ -0,0 +1,60 @@
+package com.esimedia.accounts.service;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.stereotype.Component;
+
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Transporte por defecto: SMTP configurado con spring.mail.*. El lote se
+ * envía por una sola conexión.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.transport", havingValue = "smtp", matchIfMissing = true)
+public class SmtpMailTransport implements MailTransport {
+
+    private final JavaMailSender mailSender;
+
+    public SmtpMailTransport(JavaMailSender mailSender) {
+        this.mailSender = mailSender;
+    }
+
+    @Override
+    public void send(SimpleMailMessage... messages) throws MailException {
+        MimeMessage[] mimeMessages = new MimeMessage[messages.length];
+        Map<Object, SimpleMailMessage> originals = new IdentityHashMap<>();
+        for (int i = 0; i < messages.length; i++) {
+            MimeMailMessage mime = new MimeMailMessage(mailSender.createMimeMessage());
+            messages[i].copyTo(mime);
+            mimeMessages[i] = mime.getMimeMessage();
+            originals.put(mimeMessages[i], messages[i]);
+        }
+        try {
+            mailSender.send(mimeMessages);
+        } catch (MailSendException e) {
+            // JavaMailSender indexa los fallos por MimeMessage; se traducen al mensaje original
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            e.getFailedMessages().forEach((mime, cause) -> {
+                SimpleMailMessage original = originals.get(mime);
+                if (original != null) {
+                    failed.put(original, cause);
+                }
+            });
+            throw new MailSendException(e.getMessage(), e, failed);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "smtp";
+    }
+}
@@ -0,0 +1,272 @@
+package com.esimedia.accounts.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.esimedia.accounts.model.EmailVerificationCode;
+import com.esimedia.accounts.repository.VerificationCodeRepository;
+
+/**
+ * Códigos de tercer factor enviados por email.
+ *
+ * Solo se guarda el SHA-256 del código (con el email normalizado) y cada
+ * código lleva su caducidad y un contador de intentos; al agotar los intentos
+ * se invalida y hay que pedir otro.
+ *
+ * Con security.3fa.store.persist=true (por defecto, obligatorio con varios
+ * nodos) decide Mongo: el código se guarda en verification_codes al emitirlo
+ * y cada comprobación es una única operación condicional sobre el documento
+ * (borrarlo si el hash coincide y sigue vigente, o sumar un intento si aún
+ * quedan), así que un código consumido en un nodo no vale en otro y
+ * max-attempts cuenta para todo el clúster. El índice TTL sobre expiration
+ * limpia los documentos caducados.
+ *
+ * Con persist=false todo vive en un mapa en memoria de este proceso: solo
+ * sirve para un único nodo (desarrollo/tests).
+ */
+@Component
+public class VerificationCodeStore {
+
+    private static final Logger log = LoggerFactory.getLogger(VerificationCodeStore.class);
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    /** Código pendiente (modo memoria); inmutable, cada intento fallido crea una copia. */
+    static final class PendingCode {
+        final byte[] codeHash;
+        final long expiresAtMs;
+        final int attempts;
+
+        PendingCode(byte[] codeHash, long expiresAtMs, int attempts) {
+            this.codeHash = codeHash;
+            this.expiresAtMs = expiresAtMs;
+            this.attempts = attempts;
+        }
+
+        PendingCode withAttempt() {
+            return new PendingCode(codeHash, expiresAtMs, attempts + 1);
+        }
+    }
+
+    private enum Outcome { MISSING, EXPIRED, VALID, INVALID, LOCKED }
+
+    /** Solo con persist=false. */
+    private final Map<String, PendingCode> codes = new ConcurrentHashMap<>();
+    private final VerificationCodeRepository repository;
+    private final MongoTemplate mongoTemplate;
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder lockedOut = new LongAdder();
+    private final LongAdder storeErrors = new LongAdder();
+
+    @Value("${security.3fa.code-ttl-minutes:15}")
+    private long codeTtlMinutes = 15;
+
+    @Value("${security.3fa.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${security.3fa.store.persist:true}")
+    private boolean persist = true;
+
+    public VerificationCodeStore(VerificationCodeRepository repository, MongoTemplate mongoTemplate) {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Genera un código de 6 dígitos para el email, sustituyendo al anterior.
+     * Con persist=true se guarda en Mongo antes de devolverlo: si falla, el
+     * error sube y no se envía un código que nadie podría validar.
+     */
+    public String issue(String email) {
+        String key = AccountDirectory.normalize(email);
+        String code = String.format("%06d", SECURE_RANDOM.nextInt(1_000_000));
+        long expiresAt = System.currentTimeMillis() + codeTtlMinutes * 60_000L;
+        byte[] codeHash = hash(key, code);
+        if (persist) {
+            repository.save(toDocument(key, email, codeHash, expiresAt));
+            // Documentos antiguos del mismo email (id aleatorio)
+            mongoTemplate.remove(new Query(Criteria.where("email").is(email).and("_id").ne(key)),
+                EmailVerificationCode.class);
+        } else {
+            codes.put(key, new PendingCode(codeHash, expiresAt, 0));
+        }
+        issued.increment();
+        return code;
+    }
+
+    /**
+     * Comprueba el código. Si es correcto se consume; si falla se cuenta el
+     * intento y al llegar a max-attempts el código deja de valer.
+     */
+    public boolean verify(String email, String code) {
+        String key = AccountDirectory.normalize(email);
+        if (key == null || code == null) {
+            return false;
+        }
+        byte[] candidate = hash(key, code.trim());
+        Outcome outcome;
+        if (persist) {
+            try {
+                outcome = verifyInStore(key, email, code.trim(), candidate);
+            } catch (RuntimeException e) {
+                storeErrors.increment();
+                log.warn("⚠️ No se pudo comprobar el código 3FA en Mongo: {}", e.getMessage());
+                return false;
+            }
+        } else {
+            outcome = verifyInMemory(key, candidate);
+        }
+
+        switch (outcome) {
+            case VALID:
+                verified.increment();
+                return true;
+            case EXPIRED:
+                expired.increment();
+                return false;
+            case LOCKED:
+                lockedOut.increment();
+                log.warn("🔒 Código 3FA invalidado tras {} intentos fallidos", maxAttempts);
+                return false;
+            case INVALID:
+                rejected.increment();
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Mongo decide: el acierto borra el documento solo si el hash coincide,
+     * sigue vigente y le quedan intentos; un fallo suma un intento solo si
+     * aún quedan. Lo que otro nodo haya hecho antes ya está reflejado en el
+     * documento, y dos comprobaciones simultáneas no pueden consumir el mismo
+     * código ni pasar del límite.
+     */
+    private Outcome verifyInStore(String key, String email, String plainCode, byte[] candidate) {
+        LocalDateTime now = LocalDateTime.now();
+        Criteria usable = Criteria.where("_id").is(key)
+            .and("expiration").gt(now)
+            .and("attempts").lt(maxAttempts);
+
+        Query matching = new Query(Criteria.where("_id").is(key)
+            .and("codeHash").is(HexFormat.of().formatHex(candidate))
+            .and("expiration").gt(now)
+            .and("attempts").lt(maxAttempts));
+        if (mongoTemplate.findAndRemove(matching, EmailVerificationCode.class) != null) {
+            return Outcome.VALID;
+        }
+
+        EmailVerificationCode after = mongoTemplate.findAndModify(new Query(usable),
+            new Update().inc("attempts", 1), FindAndModifyOptions.options().returnNew(true),
+            EmailVerificationCode.class);
+        if (after != null) {
+            if (after.getAttempts() < maxAttempts) {
+                return Outcome.INVALID;
+            }
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(key)), EmailVerificationCode.class);
+            return Outcome.LOCKED;
+        }
+
+        // Documentos antiguos con el código en claro (id aleatorio, sin contador)
+        Query legacy = new Query(Criteria.where("email").is(email)
+            .and("code").is(plainCode)
+            .and("expiration").gt(now));
+        if (mongoTemplate.findAndRemove(legacy, EmailVerificationCode.class) != null) {
+            return Outcome.VALID;
+        }
+        // Sin código vigente: caducado, ya consumido o bloqueado; lo limpia el TTL
+        return mongoTemplate.exists(new Query(Criteria.where("_id").is(key)), EmailVerificationCode.class)
+            ? Outcome.EXPIRED : Outcome.MISSING;
+    }
+
+    private Outcome verifyInMemory(String key, byte[] candidate) {
+        long now = System.currentTimeMillis();
+        Outcome[] outcome = { Outcome.MISSING };
+        codes.computeIfPresent(key, (k, pending) -> {
+            if (pending.expiresAtMs <= now) {
+                outcome[0] = Outcome.EXPIRED;
+                return null;
+            }
+            if (MessageDigest.isEqual(pending.codeHash, candidate)) {
+                outcome[0] = Outcome.VALID;
+                return null;
+            }
+            PendingCode next = pending.withAttempt();
+            if (next.attempts >= maxAttempts) {
+                outcome[0] = Outcome.LOCKED;
+                return null;
+            }
+            outcome[0] = Outcome.INVALID;
+            return next;
+        });
+        return outcome[0];
+    }
+
+    private static EmailVerificationCode toDocument(String key, String email, byte[] codeHash, long expiresAtMs) {
+        EmailVerificationCode doc = new EmailVerificationCode();
+        doc.setId(key);
+        doc.setEmail(email);
+        doc.setCodeHash(HexFormat.of().formatHex(codeHash));
+        doc.setAttempts(0);
+        doc.setExpiration(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMs), ZONE));
+        return doc;
+    }
+
+    /**
+     * Elimina de memoria los códigos caducados (modo memoria; en Mongo los borra el TTL).
+     */
+    @Scheduled(fixedDelayString = "${security.3fa.store.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        long now = System.currentTimeMillis();
+        codes.entrySet().removeIf(e -> e.getValue().expiresAtMs <= now);
+    }
+
+    /** El email entra en el hash para que el mismo código no coincida entre cuentas. */
+    private static byte[] hash(String key, String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return digest.digest((key + ":" + code).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("persist", persist);
+        stats.put("pendingInMemory", codes.size());
+        stats.put("issued", issued.sum());
+        stats.put("verified", verified.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("expired", expired.sum());
+        stats.put("lockedOut", lockedOut.sum());
+        stats.put("storeErrors", storeErrors.sum());
+        return stats;
+    }
+}
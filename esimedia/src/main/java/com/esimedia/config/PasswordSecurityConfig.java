@@ -12,6 +12,20 @@ public class PasswordSecurityConfig {
     
     @Value("${security.bcrypt.rounds:12}")
     private int bcryptRounds;
+
+    // Calibración al arrancar: coste que más se acerca (sin pasarse) a este tiempo por hash; 0 = usar rounds fijo
+    @Value("${security.bcrypt.target-ms:0}")
+    private long bcryptTargetMs;
+
+    @Value("${security.bcrypt.min-rounds:10}")
+    private int bcryptMinRounds = 10;
+
+    @Value("${security.bcrypt.max-rounds:14}")
+    private int bcryptMaxRounds = 14;
+
+    // Diferencia de coste tolerada antes de regenerar un hash (nodos calibrados a costes cercanos)
+    @Value("${security.bcrypt.rehash-tolerance:1}")
+    private int bcryptRehashTolerance = 1;
     
     @Value("${security.login.max-attempts:5}")
     private int maxLoginAttempts;
@@ -30,6 +44,22 @@ public class PasswordSecurityConfig {
         return bcryptRounds;
     }
     
+    public long getBcryptTargetMs() {
+        return bcryptTargetMs;
+    }
+
+    public int getBcryptMinRounds() {
+        return bcryptMinRounds;
+    }
+
+    public int getBcryptMaxRounds() {
+        return bcryptMaxRounds;
+    }
+
+    public int getBcryptRehashTolerance() {
+        return bcryptRehashTolerance;
+    }
+
     public int getMaxLoginAttempts() {
         return maxLoginAttempts;
     }
@@ -6,10 +6,13 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 /**
  * Configuración para habilitar tareas programadas (HDU 493)
  * Permite el uso de @Scheduled en la aplicación
+ *
+ * El scheduler lo crea Spring Boot con spring.task.scheduling.pool.size hilos:
+ * hay más de una docena de jobs y ninguno debe esperar a que acabe otro.
  */
 @Configuration
 @EnableScheduling
 public class SchedulingConfig {
     // La configuración de scheduling se activa automáticamente
-    // Las tareas se definen con @Scheduled en ContentExpirationScheduler
+    // Las tareas se definen con @Scheduled en cada servicio (ContentExpirationScheduler, purgas, flush...)
 }
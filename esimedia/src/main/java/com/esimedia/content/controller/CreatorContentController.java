@@ -11,16 +11,22 @@ import org.springframework.web.server.ResponseStatusException;
 import com.esimedia.accounts.model.ContentCreator;
 import com.esimedia.accounts.model.ContentType;
 import com.esimedia.accounts.repository.ContentCreatorRepository;
+import com.esimedia.content.dto.ContentPage;
 import com.esimedia.content.dto.CreateContentRequestDTO;
 import com.esimedia.content.dto.UpdateContentRequestDTO;
 import com.esimedia.content.model.Content;
+import com.esimedia.content.service.ContentPagination;
 import com.esimedia.content.service.ContentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.util.Map;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/creator/contents")
@@ -34,21 +40,70 @@ public class CreatorContentController {
 
     private final ContentService service;
     private final ContentCreatorRepository creatorRepository;
+    private final ContentPagination pagination;
+    private final ObjectMapper objectMapper;
 
     public CreatorContentController(ContentService service,
-            ContentCreatorRepository creatorRepository) {
+            ContentCreatorRepository creatorRepository,
+            ContentPagination pagination,
+            ObjectMapper objectMapper) {
         this.service = service;
         this.creatorRepository = creatorRepository;
+        this.pagination = pagination;
+        this.objectMapper = objectMapper;
     }
 
+    // Sin cursor ni limit: array completo. Con alguno: página por cursor (orden de _id)
     @GetMapping
-    public List<Content> list() {
-        return service.findAll();
+    public ResponseEntity<Object> list(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (!pagination.requested(cursor, limit)) {
+            return ResponseEntity.ok(service.findAll());
+        }
+        return ResponseEntity.ok(page(null, cursor, limit));
+    }
+
+    @GetMapping(params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return stream(null);
     }
 
     @GetMapping("/creator/{alias}")
-    public List<Content> listByCreator(@PathVariable String alias) {
-        return service.findByCreatorAlias(alias);
+    public ResponseEntity<Object> listByCreator(@PathVariable String alias,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (!pagination.requested(cursor, limit)) {
+            return ResponseEntity.ok(service.findByCreatorAlias(alias));
+        }
+        return ResponseEntity.ok(page(alias, cursor, limit));
+    }
+
+    @GetMapping(path = "/creator/{alias}", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamByCreator(@PathVariable String alias) {
+        return stream(alias);
+    }
+
+    private ContentPage<Content> page(String alias, String cursor, Integer limit) {
+        int size = pagination.limit(limit);
+        List<Content> fetched = service.findPage(alias, pagination.decode(cursor), size + 1);
+        return pagination.page(fetched, size, items -> items);
+    }
+
+    /**
+     * NDJSON leyendo el cursor de Mongo según se escribe: la memoria por
+     * petición no depende del tamaño del catálogo.
+     */
+    private ResponseEntity<StreamingResponseBody> stream(String alias) {
+        return NdjsonWriter.response(out -> {
+            try (Stream<Content> contents = service.stream(alias)) {
+                NdjsonWriter writer = new NdjsonWriter(out, objectMapper);
+                Iterator<Content> it = contents.iterator();
+                while (it.hasNext()) {
+                    writer.write(it.next());
+                }
+                writer.flush();
+            }
+        });
     }
 
     @PostMapping
@@ -0,0 +1,50 @@
+package com.esimedia.content.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.esimedia.content.service.ContentPagination;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Escribe un objeto JSON por línea (application/x-ndjson) según se van
+ * leyendo, y vacía el buffer cada FLUSH_EVERY líneas para que el cliente
+ * reciba los resultados sin esperar al final.
+ */
+final class NdjsonWriter {
+
+    private static final int FLUSH_EVERY = 100;
+
+    private final OutputStream out;
+    private final ObjectMapper objectMapper;
+    private int pending;
+
+    NdjsonWriter(OutputStream out, ObjectMapper objectMapper) {
+        this.out = out;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Respuesta 200 application/x-ndjson que escribe {@code body} en el hilo async de MVC. */
+    static ResponseEntity<StreamingResponseBody> response(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(ContentPagination.NDJSON))
+            .body(body);
+    }
+
+    void write(Object item) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(item));
+        out.write('\n');
+        if (++pending >= FLUSH_EVERY) {
+            flush();
+        }
+    }
+
+    void flush() throws IOException {
+        pending = 0;
+        out.flush();
+    }
+}
@@ -6,20 +6,26 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.esimedia.accounts.model.User;
 import com.esimedia.accounts.repository.UserRepository;
+import com.esimedia.content.dto.ContentPage;
 import com.esimedia.content.dto.ContentWithRating;
 import com.esimedia.content.model.Content;
-import com.esimedia.content.model.ContentState;
 import com.esimedia.content.repository.CreatorContentRepository;
+import com.esimedia.content.service.ContentAccessPolicy;
+import com.esimedia.content.service.ContentPagination;
+import com.esimedia.content.service.PublicCatalog;
 import com.esimedia.service.RatingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.time.LocalDate;
-import java.time.Period;
-import java.time.format.DateTimeParseException;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @RestController
@@ -30,92 +36,131 @@ public class PublicContentViewController {
     private final CreatorContentRepository contentRepository;
     private final RatingService ratingService;
     private final UserRepository userRepository;
+    private final PublicCatalog publicCatalog;
+    private final ContentAccessPolicy accessPolicy;
+    private final ContentPagination pagination;
+    private final ObjectMapper objectMapper;
 
-    public PublicContentViewController(CreatorContentRepository contentRepository, RatingService ratingService, UserRepository userRepository) {
+    // Contenidos por tanda al escribir en streaming (una consulta de valoraciones por tanda)
+    private static final int STREAM_BATCH = 100;
+
+    public PublicContentViewController(CreatorContentRepository contentRepository, RatingService ratingService,
+            UserRepository userRepository, PublicCatalog publicCatalog, ContentAccessPolicy accessPolicy,
+            ContentPagination pagination, ObjectMapper objectMapper) {
         this.contentRepository = contentRepository;
         this.ratingService = ratingService;
         this.userRepository = userRepository;
+        this.publicCatalog = publicCatalog;
+        this.accessPolicy = accessPolicy;
+        this.pagination = pagination;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Verifica si el contenido es accesible por el usuario autenticado.
+     * Usuario autenticado, leído una vez por petición (antes se buscaba una vez
+     * por cada contenido filtrado).
      */
-private boolean isContentAccessible(Content content) {
-        // 1. Debe ser PUBLICO
-        if (content.getState() != ContentState.PUBLICO) {
-            return false;
+    private Optional<User> currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null) {
+            return Optional.empty();
         }
+        return userRepository.findById(auth.getName());
+    }
 
-        // Obtener el objeto User para la validación de Edad y VIP
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = auth.getName(); 
+    /** Añade la valoración media, con una sola consulta para toda la lista. */
+    private List<ContentWithRating> withRatings(List<Content> contents) {
+        Map<String, Double> averages = ratingService.getAverageRatingsByContentIds(
+            contents.stream().map(Content::getId).collect(Collectors.toList()));
+        return contents.stream()
+            .map(content -> new ContentWithRating(content, averages.getOrDefault(content.getId(), 0.0)))
+            .collect(Collectors.toList());
+    }
+
+    /** Accesibles para el usuario (ContentAccessPolicy: estado, edad, VIP). */
+    private Predicate<PublicCatalog.Entry> visibleTo(User user) {
+        ContentAccessPolicy.Viewer viewer = accessPolicy.viewer(user);
+        return entry -> accessPolicy.canView(viewer, entry.content());
+    }
 
-        Optional<User> userOpt = userRepository.findById(userEmail);
-        
+    /**
+     * Listado del catálogo filtrado por {@code match} y por accesibilidad.
+     * Sin cursor ni limit devuelve el array completo, como siempre; con alguno
+     * de los dos, una página (ContentPage) en orden de _id. Si el usuario
+     * autenticado no existe en la base de datos no ve nada.
+     */
+    private ResponseEntity<Object> listing(Predicate<PublicCatalog.Entry> match, String cursor, Integer limit) {
+        boolean paged = pagination.requested(cursor, limit);
+        int size = pagination.limit(limit);
+        String afterId = pagination.decode(cursor);
+
+        Optional<User> userOpt = currentUser();
         if (userOpt.isEmpty()) {
-             // El usuario autenticado (ROLE_USER) no existe en la base de datos
-             return false;
+            return ResponseEntity.ok(paged ? new ContentPage<>(List.of(), null, size) : List.of());
         }
+        Predicate<PublicCatalog.Entry> visible = match.and(visibleTo(userOpt.get()));
+        PublicCatalog.Snapshot snapshot = publicCatalog.snapshot();
+        if (!paged) {
+            return ResponseEntity.ok(withRatings(snapshot.filter(visible)));
+        }
+        return ResponseEntity.ok(pagination.page(snapshot.page(afterId, size + 1, visible), size, this::withRatings));
+    }
 
-        User user = userOpt.get();
-        
-        // 2. VALIDACIÓN DE EDAD: El usuario debe ser mayor o igual a la edad mínima
-        if (content.getEdadMinima() > 0) {
-            String dobString = user.getDateOfBirth(); 
-            
-            if (dobString == null || dobString.isBlank()) {
-                return false; // Denegar si no hay fecha de nacimiento para contenido restringido
-            }
-
-            try {
-                LocalDate dateOfBirth = LocalDate.parse(dobString); 
-                
-                // Calcular edad
-                LocalDate now = LocalDate.now();
-                int age = Period.between(dateOfBirth, now).getYears();
-                
-                if (age < content.getEdadMinima()) {
-                    return false; // Bloquear si el usuario es menor
+    /**
+     * El mismo listado en NDJSON (?format=ndjson): se recorre la instantánea y
+     * se escribe por tandas de STREAM_BATCH, con una consulta de valoraciones
+     * por tanda, sin montar la respuesta entera en memoria.
+     */
+    private ResponseEntity<StreamingResponseBody> stream(Predicate<PublicCatalog.Entry> match) {
+        Optional<User> userOpt = currentUser();
+        Predicate<PublicCatalog.Entry> visible = userOpt.isEmpty()
+            ? entry -> false
+            : match.and(visibleTo(userOpt.get()));
+        PublicCatalog.Snapshot snapshot = publicCatalog.snapshot();
+
+        return NdjsonWriter.response(out -> {
+            NdjsonWriter writer = new NdjsonWriter(out, objectMapper);
+            List<Content> batch = new ArrayList<>(STREAM_BATCH);
+            for (PublicCatalog.Entry entry : snapshot.entries()) {
+                if (visible.test(entry)) {
+                    batch.add(entry.content());
+                    if (batch.size() == STREAM_BATCH) {
+                        writeAll(writer, batch);
+                        batch.clear();
+                    }
                 }
-            } catch (DateTimeParseException e) {
-                // Si el formato del String es incorrecto, lo tratamos como denegado por seguridad
-                return false; 
             }
-        }
-
+            writeAll(writer, batch);
+            writer.flush();
+        });
+    }
 
-        // 3. VALIDACIÓN VIP (Si el contenido es VIP, el usuario debe ser VIP)
-        if (content.isVipOnly()) {
-            if (!user.isVip()) {
-                return false; // Bloquear si es VIP_ONLY y el usuario no es VIP
-            }
+    private void writeAll(NdjsonWriter writer, List<Content> batch) throws IOException {
+        for (ContentWithRating item : withRatings(batch)) {
+            writer.write(item);
         }
-
-        // Si pasó todos los filtros (Público, Rol, Edad, VIP), es accesible.
-        return true;
     }
 
     // Get all public (PUBLICO) contents with their average rating calculated from ratings table
+    // ?cursor=&limit= para paginar
     @GetMapping
-    public ResponseEntity<List<ContentWithRating>> getAllPublicContents() {
-        List<Content> allPublic = contentRepository.findByState(ContentState.PUBLICO);
-
+    public ResponseEntity<Object> getAllPublicContents(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         // ✅ FILTRAR: Solo se incluyen los contenidos accesibles para el usuario
-        List<ContentWithRating> contentsWithRating = allPublic.stream()
-            .filter(this::isContentAccessible)
-            .map(content -> {
-                double avgRating = ratingService.getAverageRatingByContentId(content.getId());
-                return new ContentWithRating(content, avgRating);
-            })
-            .toList();
-
-        return ResponseEntity.ok(contentsWithRating);
+        return listing(entry -> true, cursor, limit);
+    }
+
+    @GetMapping(params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllPublicContents() {
+        return stream(entry -> true);
     }
 
     // Get content by ID (only if public) with average rating
     @GetMapping("/{id}")
     public ResponseEntity<ContentWithRating> getContentById(@PathVariable String id) {
-        var contentOpt = contentRepository.findById(id);
+        // Los no públicos no están en el catálogo: se consulta Mongo para distinguir 404 de 403
+        var contentOpt = publicCatalog.snapshot().get(id).or(() -> contentRepository.findById(id));
         if (contentOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
@@ -123,7 +168,8 @@ private boolean isContentAccessible(Content content) {
         Content content = contentOpt.get();
 
         // ✅ VALIDACIÓN: Si el contenido no es accesible (ej. es VIP y el usuario no), devolver 403
-        if (!isContentAccessible(content)) {
+        Optional<User> userOpt = currentUser();
+        if (userOpt.isEmpty() || !accessPolicy.canView(accessPolicy.viewer(userOpt.get()), content)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -135,35 +181,30 @@ private boolean isContentAccessible(Content content) {
 
     // Search content by title (only public) with average ratings
     @GetMapping("/search")
-    public ResponseEntity<List<ContentWithRating>> searchContent(@RequestParam String query) {
-        List<Content> allPublic = contentRepository.findByState(ContentState.PUBLICO);
-
-        List<ContentWithRating> filtered = allPublic.stream()
-            .filter(c -> c.getTitle().toLowerCase().contains(query.toLowerCase()))
-            .filter(this::isContentAccessible)
-            .map(content -> {
-                double avgRating = ratingService.getAverageRatingByContentId(content.getId());
-                return new ContentWithRating(content, avgRating);
-            })
-            .toList();
-            
-        return ResponseEntity.ok(filtered);
+    public ResponseEntity<Object> searchContent(
+            @RequestParam String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return listing(PublicCatalog.titleContains(query), cursor, limit);
+    }
+
+    @GetMapping(path = "/search", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamSearch(@RequestParam String query) {
+        return stream(PublicCatalog.titleContains(query));
     }
 
     // Get contents by creator alias (only public) with average ratings
     @GetMapping("/creator/{alias}")
-    public ResponseEntity<List<ContentWithRating>> getContentsByCreator(@PathVariable String alias) {
-        List<Content> contents = contentRepository.findByCreatorAliasAndState(alias, ContentState.PUBLICO);
-
+    public ResponseEntity<Object> getContentsByCreator(
+            @PathVariable String alias,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         // ✅ FILTRAR: Se filtra por creador Y por accesibilidad VIP
-        List<ContentWithRating> contentsWithRating = contents.stream()
-            .filter(this::isContentAccessible)
-            .map(content -> {
-                double avgRating = ratingService.getAverageRatingByContentId(content.getId());
-                return new ContentWithRating(content, avgRating);
-            })
-            .collect(Collectors.toList());
-            
-        return ResponseEntity.ok(contentsWithRating);
+        return listing(PublicCatalog.createdBy(alias), cursor, limit);
+    }
+
+    @GetMapping(path = "/creator/{alias}", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamByCreator(@PathVariable String alias) {
+        return stream(PublicCatalog.createdBy(alias));
     }
 }
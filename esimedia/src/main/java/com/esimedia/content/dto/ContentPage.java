@@ -0,0 +1,14 @@
+package com.esimedia.content.dto;
+
+import java.util.List;
+
+/**
+ * Página de un listado paginado por cursor (keyset sobre el _id).
+ * nextCursor es null en la última página; para la siguiente se repite la
+ * petición con ?cursor=nextCursor.
+ */
+public record ContentPage<T>(
+    List<T> items,
+    String nextCursor,
+    int limit
+) {}
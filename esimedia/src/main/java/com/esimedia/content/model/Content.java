@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import com.esimedia.accounts.model.ContentType;
@@ -14,6 +15,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Document(collection = "contents")
+@CompoundIndex(name = "creator_id_idx", def = "{'creatorAlias': 1, '_id': 1}")
 public class Content {
 
     @Id
@@ -1,5 +1,6 @@
 package com.esimedia.content.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import com.esimedia.content.model.Content;
@@ -7,6 +8,7 @@ import com.esimedia.content.model.ContentState;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface CreatorContentRepository extends MongoRepository<Content, String> {
     List<Content> findByCreatorAlias(String alias);
@@ -21,4 +23,14 @@ public interface CreatorContentRepository extends MongoRepository<Content, Strin
     
     // HDU 493: Buscar contenidos públicos con fecha de caducidad definida
     List<Content> findByStateAndAvailableUntilIsNotNull(ContentState state);
+
+    // Paginación por cursor (keyset sobre _id); el Pageable lleva el tamaño y el orden por id
+    List<Content> findByIdNotNull(Pageable pageable);
+    List<Content> findByIdGreaterThan(String id, Pageable pageable);
+    List<Content> findByCreatorAlias(String alias, Pageable pageable);
+    List<Content> findByCreatorAliasAndIdGreaterThan(String alias, String id, Pageable pageable);
+
+    // Lectura con cursor de Mongo para respuestas en streaming (hay que cerrar el Stream)
+    Stream<Content> streamAllByOrderByIdAsc();
+    Stream<Content> streamByCreatorAliasOrderByIdAsc(String alias);
 }
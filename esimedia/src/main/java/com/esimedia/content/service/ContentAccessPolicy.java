@@ -0,0 +1,200 @@
+package com.esimedia.content.service;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.esimedia.accounts.model.User;
+import com.esimedia.content.model.Content;
+import com.esimedia.content.model.ContentState;
+
+/**
+ * Reglas de acceso a contenidos (VIP, edad mínima y tags), compartidas por
+ * el catálogo público, las notificaciones de contenido nuevo (HDU 492) y
+ * las alertas de caducidad (HDU 493).
+ *
+ * Cada usuario se compila una vez en un {@link Viewer} (VIP, edad en años a
+ * fecha de hoy, tags normalizados) y cada contenido en un {@link Rule}; a
+ * partir de ahí evaluar muchos contenidos para un usuario, o un contenido
+ * para muchos usuarios, son comparaciones en memoria: sin consultas ni
+ * volver a parsear dateOfBirth por elemento.
+ *
+ * Criterios (los mismos que tenían las tres copias):
+ * - VIP: un contenido vipOnly solo lo ve un usuario VIP.
+ * - Edad: con edadMinima > 0, sin fecha de nacimiento válida se deniega.
+ * - Tags (solo notificaciones/alertas): al menos un tag en común, sin
+ *   distinguir mayúsculas; un usuario sin tags no coincide con nada.
+ */
+@Component
+public class ContentAccessPolicy {
+
+    /** Edad desconocida (sin fecha o con formato inválido). */
+    static final int UNKNOWN_AGE = -1;
+
+    /** Perfil de acceso de un usuario, calculado una vez para una fecha. */
+    public static final class Viewer {
+        private final User user;
+        private final boolean vip;
+        private final int ageYears;
+        private final List<String> tags;
+        private final Set<String> normalizedTags;
+
+        Viewer(User user, boolean vip, int ageYears, List<String> tags, Set<String> normalizedTags) {
+            this.user = user;
+            this.vip = vip;
+            this.ageYears = ageYears;
+            this.tags = tags;
+            this.normalizedTags = normalizedTags;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public boolean isVip() {
+            return vip;
+        }
+
+        public int getAgeYears() {
+            return ageYears;
+        }
+    }
+
+    /** Requisitos de un contenido, con sus tags normalizados. */
+    public static final class Rule {
+        private final Content content;
+        private final boolean vipOnly;
+        private final int minAge;
+        private final Set<String> normalizedTags;
+
+        Rule(Content content, boolean vipOnly, int minAge, Set<String> normalizedTags) {
+            this.content = content;
+            this.vipOnly = vipOnly;
+            this.minAge = minAge;
+            this.normalizedTags = normalizedTags;
+        }
+
+        public Content getContent() {
+            return content;
+        }
+    }
+
+    public Viewer viewer(User user) {
+        return viewer(user, LocalDate.now());
+    }
+
+    public Viewer viewer(User user, LocalDate today) {
+        List<String> tags = user.getTags() == null ? List.of() : user.getTags();
+        return new Viewer(user, user.isVip(), ageYears(user.getDateOfBirth(), today), tags, normalize(tags));
+    }
+
+    public Rule rule(Content content) {
+        int minAge = content.getEdadMinima() == null ? 0 : content.getEdadMinima();
+        return new Rule(content, content.isVipOnly(), minAge, normalize(content.getTags()));
+    }
+
+    /** VIP y edad mínima (sin mirar estado ni tags). */
+    public boolean canAccess(Viewer viewer, Content content) {
+        return passes(viewer, content.isVipOnly(), content.getEdadMinima() == null ? 0 : content.getEdadMinima());
+    }
+
+    public boolean canAccess(Viewer viewer, Rule rule) {
+        return passes(viewer, rule.vipOnly, rule.minAge);
+    }
+
+    /** Visible en el catálogo público: PUBLICO y accesible. */
+    public boolean canView(Viewer viewer, Content content) {
+        return content.getState() == ContentState.PUBLICO && canAccess(viewer, content);
+    }
+
+    /** Contenidos de la lista visibles para el usuario, en el mismo orden. */
+    public List<Content> viewable(Viewer viewer, Collection<Content> contents) {
+        List<Content> result = new ArrayList<>();
+        for (Content content : contents) {
+            if (canView(viewer, content)) {
+                result.add(content);
+            }
+        }
+        return result;
+    }
+
+    public boolean sharesTag(Viewer viewer, Rule rule) {
+        Set<String> smaller = viewer.normalizedTags.size() <= rule.normalizedTags.size()
+            ? viewer.normalizedTags : rule.normalizedTags;
+        Set<String> larger = smaller == viewer.normalizedTags ? rule.normalizedTags : viewer.normalizedTags;
+        for (String tag : smaller) {
+            if (larger.contains(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Tags del usuario (tal como los escribió) que también tiene el contenido. */
+    public List<String> matchingTags(Viewer viewer, Rule rule) {
+        List<String> matching = new ArrayList<>();
+        for (String tag : viewer.tags) {
+            if (tag != null && rule.normalizedTags.contains(tag.toLowerCase(Locale.ROOT))) {
+                matching.add(tag);
+            }
+        }
+        return matching;
+    }
+
+    /** Accesible y con algún tag en común: destinatario de avisos sobre el contenido. */
+    public boolean isAudience(Viewer viewer, Rule rule) {
+        return canAccess(viewer, rule) && sharesTag(viewer, rule);
+    }
+
+    /** Usuarios de la lista que son audiencia del contenido. */
+    public List<Viewer> audience(Rule rule, Collection<User> users) {
+        LocalDate today = LocalDate.now();
+        List<Viewer> result = new ArrayList<>();
+        for (User user : users) {
+            Viewer viewer = viewer(user, today);
+            if (isAudience(viewer, rule)) {
+                result.add(viewer);
+            }
+        }
+        return result;
+    }
+
+    private static boolean passes(Viewer viewer, boolean vipOnly, int minAge) {
+        if (vipOnly && !viewer.vip) {
+            return false;
+        }
+        return minAge <= 0 || (viewer.ageYears != UNKNOWN_AGE && viewer.ageYears >= minAge);
+    }
+
+    static int ageYears(String dateOfBirth, LocalDate today) {
+        if (dateOfBirth == null || dateOfBirth.isBlank()) {
+            return UNKNOWN_AGE;
+        }
+        try {
+            return Period.between(LocalDate.parse(dateOfBirth.trim()), today).getYears();
+        } catch (DateTimeParseException e) {
+            return UNKNOWN_AGE;
+        }
+    }
+
+    private static Set<String> normalize(List<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> normalized = new HashSet<>();
+        for (String tag : tags) {
+            if (tag != null) {
+                normalized.add(tag.toLowerCase(Locale.ROOT));
+            }
+        }
+        return normalized;
+    }
+}
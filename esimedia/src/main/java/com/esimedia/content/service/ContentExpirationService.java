@@ -11,10 +11,7 @@ import com.esimedia.content.repository.CreatorContentRepository;
 
 import java.time.Instant;
 import java.time.LocalDate;
-import java.time.Period;
-import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Servicio para gestionar la caducidad de contenidos (HDU 493)
@@ -35,6 +32,12 @@ public class ContentExpirationService {
     
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private PublicCatalog publicCatalog;
+
+    @Autowired
+    private ContentAccessPolicy accessPolicy;
     
 
     
@@ -77,7 +80,7 @@ public class ContentExpirationService {
                 
                 content.setState(ContentState.PRIVADO);
                 content.setStateChangedAt(Instant.now());
-                contentRepository.save(content);
+                publicCatalog.upsert(contentRepository.save(content));
                 hidden++;
             }
         }
@@ -98,15 +101,11 @@ public class ContentExpirationService {
         List<User> candidateUsers = userRepository.findByTagsIn(content.getTags());
         int alertCount = 0;
         
-        for (User user : candidateUsers) {
-            // Aplicar filtros de acceso (VIP y Edad)
-            if (!canUserAccessContent(user, content)) {
-                continue;
-            }
-            
+        // Aplicar filtros de acceso (VIP, Edad y tags) con el contenido compilado una vez
+        for (ContentAccessPolicy.Viewer viewer : accessPolicy.audience(accessPolicy.rule(content), candidateUsers)) {
             // Crear notificación con anti-spam
             boolean created = notificationWithAntiSpamService.createNotificationIfNotExists(
-                user.getEmail(),
+                viewer.getUser().getEmail(),
                 content.getId(),
                 "⏰ Contenido próximo a caducar",
                 String.format("El contenido '%s' caducará en %d días. ¡No te lo pierdas!",
@@ -121,60 +120,4 @@ public class ContentExpirationService {
         
         return alertCount;
     }
-    
-    /**
-     * Verifica si el usuario puede acceder al contenido.
-     * Filtros: VIP (Premium) y Edad mínima.
-     */
-    private boolean canUserAccessContent(User user, Content content) {
-        // Filtro 1: Contenido VIP solo para usuarios VIP
-        if (content.isVipOnly() && !user.isVip()) {
-            return false; // Denegar acceso
-        }
-        
-        // Filtro 2: Edad mínima
-        if (content.getEdadMinima() != null && content.getEdadMinima() > 0) {
-            int userAge = calculateAge(user.getDateOfBirth());
-            if (userAge < content.getEdadMinima()) {
-                return false; // Denegar si es menor de edad
-            }
-        }
-        
-        // Filtro 3: Tags coincidentes (Refactorizado con Streams)
-        // La lógica original requiere que el usuario tenga tags Y que al menos uno coincida
-        List<String> userTags = Optional.ofNullable(user.getTags()).orElse(Collections.emptyList());
-        List<String> contentTags = Optional.ofNullable(content.getTags()).orElse(Collections.emptyList());
-
-        // Si el usuario no tiene tags, la lógica original deniega el acceso.
-        if (userTags.isEmpty()) {
-            return false; 
-        }
-
-        // Usamos Streams para encontrar cualquier coincidencia (más eficiente que bucles anidados)
-        boolean hasMatchingTag = contentTags.stream()
-            .anyMatch(contentTag -> userTags.stream()
-                .anyMatch(userTag -> contentTag.equalsIgnoreCase(userTag)));
-        
-        if (!hasMatchingTag) {
-            return false; // Denegar si no hay tags coincidentes
-        }
-        
-        // Si ha pasado todos los filtros, es accesible.
-        return true;
-    }
-    
-    /**
-     * Calcula la edad del usuario
-     */
-    private int calculateAge(String dateOfBirth) {
-        if (dateOfBirth == null || dateOfBirth.isEmpty()) {
-            return 0;
-        }
-        try {
-            LocalDate birthDate = LocalDate.parse(dateOfBirth);
-            return Period.between(birthDate, LocalDate.now()).getYears();
-        } catch (Exception e) {
-            return 0;
-        }
-    }
 }
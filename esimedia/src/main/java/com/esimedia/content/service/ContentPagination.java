@@ -0,0 +1,78 @@
+package com.esimedia.content.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.esimedia.content.dto.ContentPage;
+import com.esimedia.content.model.Content;
+
+/**
+ * Paginación por cursor de los listados de contenidos.
+ *
+ * El orden estable es el _id ascendente (único, y en ObjectId creciente con
+ * la fecha de alta), así que la página siguiente es "_id mayor que el último
+ * devuelto" y se sirve desde el índice sin saltarse documentos con skip.
+ * El cursor es ese último _id en base64url, para que el cliente lo trate
+ * como opaco.
+ */
+@Component
+public class ContentPagination {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    @Value("${content.pagination.default-limit:50}")
+    private int defaultLimit = 50;
+
+    @Value("${content.pagination.max-limit:200}")
+    private int maxLimit = 200;
+
+    /** true si la petición pide paginación (si no, se mantiene el array completo de siempre). */
+    public boolean requested(String cursor, Integer limit) {
+        return cursor != null || limit != null;
+    }
+
+    /** Tamaño de página: el pedido, entre 1 y max-limit; default-limit si no se indica. */
+    public int limit(Integer requested) {
+        if (requested == null) {
+            return Math.min(defaultLimit, maxLimit);
+        }
+        if (requested < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit debe ser mayor que 0");
+        }
+        return Math.min(requested, maxLimit);
+    }
+
+    public String encode(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** _id del cursor, o null para la primera página. */
+    public String decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+        }
+    }
+
+    /**
+     * Corta una consulta hecha con limit + 1 elementos: si sobra uno hay
+     * página siguiente y el cursor apunta al último que se devuelve.
+     */
+    public <T> ContentPage<T> page(List<Content> fetched, int limit, Function<List<Content>, List<T>> mapper) {
+        boolean more = fetched.size() > limit;
+        List<Content> items = more ? fetched.subList(0, limit) : fetched;
+        String next = more ? encode(items.get(items.size() - 1).getId()) : null;
+        return new ContentPage<>(mapper.apply(items), next, limit);
+    }
+}
@@ -7,7 +7,11 @@ import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -25,11 +29,14 @@ public class ContentService {
 
     private final CreatorContentRepository repository;
     private final NotificationService notificationService;
+    private final PublicCatalog publicCatalog;
     private static final String DEFAULT_COVER = "cover3.png";
 
-    public ContentService(CreatorContentRepository repository, NotificationService notificationService) {
+    public ContentService(CreatorContentRepository repository, NotificationService notificationService,
+            PublicCatalog publicCatalog) {
         this.repository = repository;
         this.notificationService = notificationService;
+        this.publicCatalog = publicCatalog;
     }
 
     public List<Content> findAll() {
@@ -41,9 +48,35 @@ public class ContentService {
     }
 
     public List<Content> findByCreatorAlias(String alias) {
-        return repository.findAll().stream()
-                .filter(c -> c.getCreatorAlias().equals(alias))
-                .toList();
+        return repository.findByCreatorAlias(alias);
+    }
+
+    /**
+     * Página de contenidos (de un creador si alias no es null) a partir del
+     * _id afterId (exclusivo; null = desde el principio), ordenada por _id.
+     * Devuelve hasta {@code size} elementos.
+     */
+    public List<Content> findPage(String alias, String afterId, int size) {
+        Pageable pageable = PageRequest.of(0, size, Sort.by(Sort.Direction.ASC, "id"));
+        if (alias == null) {
+            return afterId == null
+                    ? repository.findByIdNotNull(pageable)
+                    : repository.findByIdGreaterThan(afterId, pageable);
+        }
+        return afterId == null
+                ? repository.findByCreatorAlias(alias, pageable)
+                : repository.findByCreatorAliasAndIdGreaterThan(alias, afterId, pageable);
+    }
+
+    /**
+     * Todos los contenidos (de un creador si alias no es null) en orden de
+     * _id, leídos del cursor de Mongo según se consumen. El llamante debe
+     * cerrar el Stream.
+     */
+    public Stream<Content> stream(String alias) {
+        return alias == null
+                ? repository.streamAllByOrderByIdAsc()
+                : repository.streamByCreatorAliasOrderByIdAsc(alias);
     }
 
     public Content create(CreateContentRequestDTO req, ContentType actorType) {
@@ -97,6 +130,7 @@ public class ContentService {
         c.setCreatorAlias(req.getCreatorAlias());
 
         Content saved = repository.save(c);
+        publicCatalog.upsert(saved);
         
         // HDU 492 - Trigger: Notificar a usuarios con tags coincidentes
         // Solo notifica si el contenido tiene tags (las notificaciones se envían incluso en estado PRIVADO
@@ -295,7 +329,9 @@ public class ContentService {
             applyStateUpdate(existing, req);
 
             existing.setUpdatedAt(Instant.now());
-            return repository.save(existing);
+            Content saved = repository.save(existing);
+            publicCatalog.upsert(saved);
+            return saved;
         });
     }
 
@@ -318,6 +354,7 @@ public class ContentService {
     public boolean delete(String id) {
         if (repository.existsById(id)) {
             repository.deleteById(id);
+            publicCatalog.remove(id);
             return true;
         }
         return false;
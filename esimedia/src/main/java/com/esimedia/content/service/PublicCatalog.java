@@ -0,0 +1,363 @@
+package com.esimedia.content.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.esimedia.content.model.Content;
+import com.esimedia.content.model.ContentState;
+import com.esimedia.content.repository.CreatorContentRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Catálogo público (contenidos PUBLICO) en memoria para /api/public/contents.
+ *
+ * Cada versión es una instantánea inmutable: los lectores toman la referencia
+ * actual y recorren sin bloqueo. ContentService (create/update/delete) y
+ * ContentExpirationService (ocultar vencidos) avisan de lo que guardan o
+ * borran; esos cambios se acumulan como pendientes y la siguiente lectura
+ * los publica todos juntos en una sola copia, así que una ráfaga de ediciones
+ * (p. ej. ocultar muchos vencidos) no copia el catálogo una vez por elemento.
+ *
+ * Lo que se escribe por otros caminos (otro nodo, el contador de
+ * reproducciones, cambios a mano en Mongo) se recoge en la reconstrucción
+ * completa periódica. Si por lo que sea esta no corre, una lectura con la
+ * instantánea más vieja que max-staleness-ms lanza la reconstrucción en
+ * segundo plano y sigue sirviendo la actual.
+ */
+@Service
+public class PublicCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(PublicCatalog.class);
+
+    /** Contenido con el título ya pasado a minúsculas para la búsqueda. */
+    public record Entry(Content content, String titleLower) {
+
+        static Entry of(Content content) {
+            String title = content.getTitle() == null ? "" : content.getTitle();
+            return new Entry(content, title.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /** Versión inmutable del catálogo, ordenada por _id (orden estable para paginar). */
+    public record Snapshot(long version, long builtAtMs, long rebuiltAtMs, NavigableMap<String, Entry> byId) {
+
+        static final Snapshot EMPTY = new Snapshot(0, 0, 0, Collections.emptyNavigableMap());
+
+        public int size() {
+            return byId.size();
+        }
+
+        public Optional<Content> get(String id) {
+            Entry entry = id == null ? null : byId.get(id);
+            return entry == null ? Optional.empty() : Optional.of(entry.content());
+        }
+
+        /** Entradas en orden de _id. */
+        public Collection<Entry> entries() {
+            return byId.values();
+        }
+
+        /** Contenidos que cumplen {@code match}, en orden de _id. */
+        public List<Content> filter(Predicate<Entry> match) {
+            List<Content> result = new ArrayList<>();
+            for (Entry entry : byId.values()) {
+                if (match.test(entry)) {
+                    result.add(entry.content());
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Hasta {@code max} contenidos que cumplen {@code match} con _id
+         * posterior a afterId (null = desde el principio).
+         */
+        public List<Content> page(String afterId, int max, Predicate<Entry> match) {
+            Collection<Entry> from = afterId == null ? byId.values() : byId.tailMap(afterId, false).values();
+            List<Content> result = new ArrayList<>(Math.min(max, byId.size()));
+            for (Entry entry : from) {
+                if (result.size() >= max) {
+                    break;
+                }
+                if (match.test(entry)) {
+                    result.add(entry.content());
+                }
+            }
+            return result;
+        }
+
+        public List<Content> contents() {
+            return filter(entry -> true);
+        }
+
+        /** Contenidos cuyo título contiene {@code query}, sin distinguir mayúsculas. */
+        public List<Content> searchTitle(String query) {
+            return filter(titleContains(query));
+        }
+
+        public List<Content> byCreator(String alias) {
+            return filter(createdBy(alias));
+        }
+    }
+
+    public static Predicate<Entry> titleContains(String query) {
+        String needle = query == null ? "" : query.toLowerCase(Locale.ROOT);
+        return entry -> entry.titleLower().contains(needle);
+    }
+
+    public static Predicate<Entry> createdBy(String alias) {
+        return entry -> alias != null && alias.equals(entry.content().getCreatorAlias());
+    }
+
+    private final CreatorContentRepository repository;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY);
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private final AtomicBoolean staleRebuildQueued = new AtomicBoolean(false);
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "public-catalog-rebuild");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Object writeLock = new Object();
+
+    /**
+     * Cambios aún no publicados (id → contenido, o null si se quitó) y cuántos
+     * son, para que la versión siga contando cambios. Protegido por writeLock.
+     */
+    private final Map<String, Content> pending = new LinkedHashMap<>();
+    private long pendingChanges;
+    private volatile boolean hasPending;
+
+    /**
+     * Cambios incrementales llegados mientras una reconstrucción lee la
+     * colección (id → contenido, o null si se quitó). Se aplican encima del
+     * resultado para no perderlos. Protegido por writeLock.
+     */
+    private Map<String, Content> changesDuringRebuild;
+
+    private final LongAdder upserts = new LongAdder();
+    private final LongAdder removals = new LongAdder();
+    private final LongAdder publishes = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder staleRebuilds = new LongAdder();
+    private final LongAdder rebuildFailures = new LongAdder();
+    private volatile long lastRebuildMs;
+
+    @Value("${content.catalog.max-staleness-ms:300000}")
+    private long maxStalenessMs = 300_000;
+
+    public PublicCatalog(CreatorContentRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Instantánea vigente, con los cambios pendientes ya publicados. Solo la
+     * primera lectura (sin catálogo que servir) lo construye en el hilo de la
+     * petición; una instantánea más vieja que max-staleness-ms se sirve tal cual
+     * mientras se reconstruye en segundo plano.
+     */
+    public Snapshot snapshot() {
+        Snapshot snapshot = hasPending ? publishPending() : current.get();
+        if (snapshot.rebuiltAtMs() == 0) {
+            rebuild();
+            return current.get();
+        }
+        if (isStale(snapshot) && staleRebuildQueued.compareAndSet(false, true)) {
+            staleRebuilds.increment();
+            try {
+                rebuildExecutor.execute(() -> {
+                    try {
+                        if (isStale(current.get())) {
+                            rebuild();
+                        }
+                    } finally {
+                        staleRebuildQueued.set(false);
+                    }
+                });
+            } catch (RuntimeException e) {
+                staleRebuildQueued.set(false);
+                log.warn("⚠️ No se pudo lanzar la reconstrucción del catálogo público: {}", e.getMessage());
+            }
+        }
+        return snapshot;
+    }
+
+    private boolean isStale(Snapshot snapshot) {
+        return maxStalenessMs > 0 && System.currentTimeMillis() - snapshot.rebuiltAtMs() > maxStalenessMs;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Refleja un contenido recién guardado: entra (o se reemplaza) si es
+     * PUBLICO y sale en cualquier otro estado.
+     */
+    public void upsert(Content content) {
+        if (content == null || content.getId() == null) {
+            return;
+        }
+        Content value = content.getState() == ContentState.PUBLICO ? content : null;
+        apply(content.getId(), value);
+    }
+
+    /** Quita un contenido borrado. */
+    public void remove(String id) {
+        if (id != null) {
+            apply(id, null);
+        }
+    }
+
+    private void apply(String id, Content content) {
+        synchronized (writeLock) {
+            if (content == null && !current.get().byId().containsKey(id) && !pending.containsKey(id)
+                    && changesDuringRebuild == null) {
+                return;
+            }
+            if (content == null) {
+                removals.increment();
+            } else {
+                upserts.increment();
+            }
+            pending.put(id, content);
+            pendingChanges++;
+            hasPending = true;
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.put(id, content);
+            }
+        }
+    }
+
+    /**
+     * Publica de una vez todos los cambios pendientes: una sola copia del
+     * catálogo por lote, no por cambio.
+     */
+    private Snapshot publishPending() {
+        synchronized (writeLock) {
+            Snapshot prev = current.get();
+            if (pending.isEmpty()) {
+                return prev;
+            }
+            NavigableMap<String, Entry> next = new TreeMap<>(prev.byId());
+            applyTo(next, pending);
+            Snapshot published = new Snapshot(prev.version() + pendingChanges, System.currentTimeMillis(),
+                prev.rebuiltAtMs(), Collections.unmodifiableNavigableMap(next));
+            clearPending();
+            current.set(published);
+            publishes.increment();
+            return published;
+        }
+    }
+
+    private static void applyTo(NavigableMap<String, Entry> target, Map<String, Content> changes) {
+        changes.forEach((id, content) -> {
+            if (content == null) {
+                target.remove(id);
+            } else {
+                target.put(id, Entry.of(content));
+            }
+        });
+    }
+
+    private void clearPending() {
+        pending.clear();
+        pendingChanges = 0;
+        hasPending = false;
+    }
+
+    /**
+     * Reconstrucción completa desde Mongo: al arrancar y cada
+     * content.catalog.refresh-interval-ms.
+     *
+     * @return true si se publicó una instantánea nueva
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${content.catalog.refresh-interval-ms:60000}",
+               fixedDelayString = "${content.catalog.refresh-interval-ms:60000}")
+    public boolean rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            synchronized (writeLock) {
+                changesDuringRebuild = new LinkedHashMap<>();
+            }
+            List<Content> loaded = repository.findByState(ContentState.PUBLICO);
+            NavigableMap<String, Entry> next = new TreeMap<>();
+            for (Content content : loaded) {
+                if (content.getId() != null) {
+                    next.put(content.getId(), Entry.of(content));
+                }
+            }
+            synchronized (writeLock) {
+                // Los pendientes de antes de la lectura también, por si Mongo aún no los devolvía
+                applyTo(next, pending);
+                applyTo(next, changesDuringRebuild);
+                changesDuringRebuild = null;
+                long now = System.currentTimeMillis();
+                Snapshot prev = current.get();
+                current.set(new Snapshot(prev.version() + pendingChanges + 1, now, now,
+                    Collections.unmodifiableNavigableMap(next)));
+                clearPending();
+            }
+            rebuilds.increment();
+            lastRebuildMs = System.currentTimeMillis() - start;
+            log.debug("📚 Catálogo público reconstruido: {} contenidos en {} ms", next.size(), lastRebuildMs);
+            return true;
+        } catch (RuntimeException e) {
+            rebuildFailures.increment();
+            synchronized (writeLock) {
+                changesDuringRebuild = null;
+            }
+            log.warn("⚠️ No se pudo reconstruir el catálogo público: {}", e.getMessage());
+            return false;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot snapshot = hasPending ? publishPending() : current.get();
+        long now = System.currentTimeMillis();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", snapshot.version());
+        stats.put("size", snapshot.size());
+        stats.put("ageMs", snapshot.builtAtMs() == 0 ? -1 : now - snapshot.builtAtMs());
+        stats.put("sinceRebuildMs", snapshot.rebuiltAtMs() == 0 ? -1 : now - snapshot.rebuiltAtMs());
+        stats.put("maxStalenessMs", maxStalenessMs);
+        stats.put("upserts", upserts.sum());
+        stats.put("removals", removals.sum());
+        stats.put("publishes", publishes.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("staleRebuilds", staleRebuilds.sum());
+        stats.put("rebuildFailures", rebuildFailures.sum());
+        stats.put("lastRebuildMs", lastRebuildMs);
+        return stats;
+    }
+}
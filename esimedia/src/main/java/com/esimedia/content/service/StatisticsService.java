@@ -2,12 +2,12 @@ package com.esimedia.content.service;
 
 import org.springframework.stereotype.Service;
 
-import com.esimedia.accounts.repository.TokenRepository;
 import com.esimedia.content.dto.StatisticsDTO;
 import com.esimedia.content.model.Content;
 import com.esimedia.content.repository.CreatorContentRepository;
 import com.esimedia.model.Rating;
 import com.esimedia.repository.RatingRepository;
+import com.esimedia.security.AccessTokenService;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -17,15 +17,15 @@ public class StatisticsService {
 
     private final CreatorContentRepository contentRepository;
     private final RatingRepository ratingRepository;
-    private final TokenRepository tokenRepository;
+    private final AccessTokenService accessTokenService;
 
     public StatisticsService(
             CreatorContentRepository contentRepository,
             RatingRepository ratingRepository,
-            TokenRepository tokenRepository) {
+            AccessTokenService accessTokenService) {
         this.contentRepository = contentRepository;
         this.ratingRepository = ratingRepository;
-        this.tokenRepository = tokenRepository;
+        this.accessTokenService = accessTokenService;
     }
 
     /**
@@ -35,7 +35,7 @@ public class StatisticsService {
         if (tokenId == null || tokenId.isEmpty()) {
             throw new RuntimeException("No autenticado");
         }
-        if (!tokenRepository.findById(tokenId).isPresent()) {
+        if (accessTokenService.resolve(tokenId) == null) {
             throw new RuntimeException("Token inválido");
         }
     }
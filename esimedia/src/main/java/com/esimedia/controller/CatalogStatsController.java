@@ -0,0 +1,49 @@
+package com.esimedia.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.esimedia.content.service.PublicCatalog;
+
+/**
+ * Estado del catálogo público en memoria (solo administradores).
+ * GET /api/admins/catalog/stats
+ * POST /api/admins/catalog/rebuild
+ */
+@RestController
+@RequestMapping("/api/admins/catalog")
+@PreAuthorize("hasRole('ADMIN')")
+public class CatalogStatsController {
+
+    private final PublicCatalog publicCatalog;
+
+    public CatalogStatsController(PublicCatalog publicCatalog) {
+        this.publicCatalog = publicCatalog;
+    }
+
+    /**
+     * Versión, tamaño y antigüedad de la instantánea vigente.
+     */
+    @GetMapping(path = "/stats", produces = "application/json")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(publicCatalog.getStats());
+    }
+
+    /**
+     * Reconstruye el catálogo desde Mongo sin esperar al refresco programado.
+     */
+    @PostMapping(path = "/rebuild", produces = "application/json")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rebuilt", publicCatalog.rebuild());
+        result.putAll(publicCatalog.getStats());
+        return ResponseEntity.ok(result);
+    }
+}
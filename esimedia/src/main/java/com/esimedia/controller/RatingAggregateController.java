@@ -0,0 +1,56 @@
+package com.esimedia.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.esimedia.service.RatingAggregateService;
+
+/**
+ * Mantenimiento de los agregados de valoraciones (solo administradores).
+ * GET /api/admins/ratings/aggregates/stats
+ * POST /api/admins/ratings/aggregates/check?repair=false
+ * POST /api/admins/ratings/aggregates/rebuild
+ */
+@RestController
+@RequestMapping("/api/admins/ratings/aggregates")
+@PreAuthorize("hasRole('ADMIN')")
+public class RatingAggregateController {
+
+    private final RatingAggregateService ratingAggregates;
+
+    public RatingAggregateController(RatingAggregateService ratingAggregates) {
+        this.ratingAggregates = ratingAggregates;
+    }
+
+    @GetMapping(path = "/stats", produces = "application/json")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(ratingAggregates.getStats());
+    }
+
+    /**
+     * Compara los agregados con las valoraciones; con repair=true corrige los que no cuadran.
+     */
+    @PostMapping(path = "/check", produces = "application/json")
+    public ResponseEntity<Map<String, Object>> check(@RequestParam(defaultValue = "false") boolean repair) {
+        return ResponseEntity.ok(ratingAggregates.check(repair));
+    }
+
+    /**
+     * Reescribe todos los agregados desde la colección ratings.
+     */
+    @PostMapping(path = "/rebuild", produces = "application/json")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("aggregates", ratingAggregates.rebuildAll());
+        result.putAll(ratingAggregates.getStats());
+        return ResponseEntity.ok(result);
+    }
+}
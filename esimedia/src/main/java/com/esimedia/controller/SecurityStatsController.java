@@ -0,0 +1,114 @@
+package com.esimedia.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.esimedia.accounts.service.AccountDirectory;
+import com.esimedia.accounts.service.EmailOutbox;
+import com.esimedia.accounts.service.VerificationCodeStore;
+import com.esimedia.security.AccessTokenService;
+import com.esimedia.security.InMemorySessionRegistry;
+import com.esimedia.security.LoginAttemptService;
+import com.esimedia.security.LoginMetrics;
+import com.esimedia.security.RateLimitService;
+import com.esimedia.security.RevokedTokenRegistry;
+import com.esimedia.security.SecurityAuditLog;
+import com.esimedia.security.TokenPurgeService;
+import com.esimedia.security.TokenValidationCache;
+import com.esimedia.utils.HaveIBeenPwnedService;
+import com.esimedia.utils.PasswordHashingExecutor;
+
+/**
+ * Métricas internas de los componentes de seguridad (solo administradores).
+ * GET /api/admins/security/stats
+ * POST /api/admins/security/tokens/purge
+ */
+@RestController
+@RequestMapping("/api/admins/security")
+@PreAuthorize("hasRole('ADMIN')")
+public class SecurityStatsController {
+
+    private final TokenValidationCache tokenCache;
+    private final AccessTokenService accessTokenService;
+    private final RevokedTokenRegistry revokedTokens;
+    private final InMemorySessionRegistry sessionRegistry;
+    private final TokenPurgeService tokenPurge;
+    private final SecurityAuditLog auditLog;
+    private final LoginAttemptService loginAttempts;
+    private final RateLimitService rateLimits;
+    private final HaveIBeenPwnedService hibpService;
+    private final PasswordHashingExecutor passwordHashing;
+    private final AccountDirectory accountDirectory;
+    private final VerificationCodeStore verificationCodes;
+    private final EmailOutbox emailOutbox;
+    private final LoginMetrics loginMetrics;
+
+    public SecurityStatsController(
+            TokenValidationCache tokenCache,
+            AccessTokenService accessTokenService,
+            RevokedTokenRegistry revokedTokens,
+            InMemorySessionRegistry sessionRegistry,
+            TokenPurgeService tokenPurge,
+            SecurityAuditLog auditLog,
+            LoginAttemptService loginAttempts,
+            RateLimitService rateLimits,
+            HaveIBeenPwnedService hibpService,
+            PasswordHashingExecutor passwordHashing,
+            AccountDirectory accountDirectory,
+            VerificationCodeStore verificationCodes,
+            EmailOutbox emailOutbox,
+            LoginMetrics loginMetrics) {
+        this.tokenCache = tokenCache;
+        this.accessTokenService = accessTokenService;
+        this.revokedTokens = revokedTokens;
+        this.sessionRegistry = sessionRegistry;
+        this.tokenPurge = tokenPurge;
+        this.auditLog = auditLog;
+        this.loginAttempts = loginAttempts;
+        this.rateLimits = rateLimits;
+        this.hibpService = hibpService;
+        this.passwordHashing = passwordHashing;
+        this.accountDirectory = accountDirectory;
+        this.verificationCodes = verificationCodes;
+        this.emailOutbox = emailOutbox;
+        this.loginMetrics = loginMetrics;
+    }
+
+    @GetMapping(path = "/stats", produces = "application/json")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tokenMode", accessTokenService.isSignedMode() ? AccessTokenService.MODE_SIGNED : AccessTokenService.MODE_PERSISTED);
+        stats.put("tokenCache", tokenCache.getStats());
+        stats.put("revokedTokens", revokedTokens.size());
+        stats.put("sessions", sessionRegistry.getStats());
+        stats.put("tokenPurge", tokenPurge.getStats());
+        stats.put("audit", auditLog.getStats());
+        stats.put("loginAttempts", loginAttempts.getStats());
+        stats.put("rateLimits", rateLimits.getStats());
+        stats.put("hibpCache", hibpService.getCacheStats());
+        stats.put("passwordHashing", passwordHashing.getStats());
+        stats.put("accountDirectory", accountDirectory.getStats());
+        stats.put("verificationCodes", verificationCodes.getStats());
+        stats.put("emailOutbox", emailOutbox.getStats());
+        stats.put("loginPipeline", loginMetrics.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Lanza una purga de tokens caducados sin esperar al job programado.
+     */
+    @PostMapping(path = "/tokens/purge", produces = "application/json")
+    public ResponseEntity<Map<String, Object>> purgeTokens() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("removed", tokenPurge.purgeExpired());
+        result.putAll(tokenPurge.getStats());
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,19 @@
+package com.esimedia.exception;
+
+/**
+ * El servidor no puede atender la petición ahora mismo (cola llena o
+ * presupuesto de tiempo agotado). Se responde 503 con Retry-After.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
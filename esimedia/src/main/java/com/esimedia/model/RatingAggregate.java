@@ -0,0 +1,125 @@
+package com.esimedia.model;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Agregado de valoraciones de un contenido (_id = contentId): suma, número
+ * de valoraciones e histograma de 10 cubos, uno por valor de 0.5 a 5.0
+ * (claves b1..b10, cubo = rating * 2).
+ *
+ * Se mantiene con $inc al guardar o borrar una valoración, así que las
+ * estadísticas se leen con un único documento. average = sum / count se
+ * guarda aparte para poder ordenar el trending por índice.
+ */
+@Document(collection = "rating_aggregates")
+@CompoundIndex(name = "average_count_idx", def = "{'average': -1, 'count': -1}")
+public class RatingAggregate {
+
+    public static final int BUCKETS = 10;
+
+    @Id
+    private String id;
+
+    private double sum;
+    private long count;
+    private Map<String, Long> histogram = new LinkedHashMap<>();
+    private Double average;
+    private LocalDateTime updatedAt;
+
+    public RatingAggregate() {
+    }
+
+    public RatingAggregate(String contentId) {
+        this.id = contentId;
+    }
+
+    /** Clave del cubo de un valor válido (0.5 → b1, 5.0 → b10). */
+    public static String bucketKey(double rating) {
+        return "b" + Math.round(rating * 2);
+    }
+
+    /** Valor de estrellas del cubo i (1..10). */
+    public static double bucketRating(int bucket) {
+        return bucket / 2.0;
+    }
+
+    /** Suma una valoración (o la resta con delta = -1). */
+    public void add(double rating, int delta) {
+        sum += rating * delta;
+        count += delta;
+        histogram.merge(bucketKey(rating), (long) delta, Long::sum);
+        average = count > 0 ? sum / count : null;
+    }
+
+    public long bucketCount(int bucket) {
+        Long n = histogram == null ? null : histogram.get("b" + bucket);
+        return n == null ? 0 : n;
+    }
+
+    /** Mismo contenido en suma, número e histograma (ignora cubos a 0). */
+    public boolean sameCountsAs(RatingAggregate other) {
+        if (other == null || count != other.count || Math.abs(sum - other.sum) > 1e-9) {
+            return false;
+        }
+        for (int i = 1; i <= BUCKETS; i++) {
+            if (bucketCount(i) != other.bucketCount(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public void setSum(double sum) {
+        this.sum = sum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Map<String, Long> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(Map<String, Long> histogram) {
+        this.histogram = histogram;
+    }
+
+    public Double getAverage() {
+        return average;
+    }
+
+    public void setAverage(Double average) {
+        this.average = average;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,134 @@
+package com.esimedia.security;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.esimedia.accounts.model.Token;
+import com.esimedia.accounts.repository.TokenRepository;
+
+/**
+ * Emisión, validación y revocación de tokens de acceso.
+ * Dos modos seleccionables con {@code security.token.mode}:
+ * <ul>
+ *   <li>{@code persisted} (por defecto): UUID guardado en la colección tokens.</li>
+ *   <li>{@code signed}: token autocontenido firmado con HMAC, validado sin BD.</li>
+ * </ul>
+ * La validación acepta ambos formatos para que un cambio de modo no invalide
+ * las sesiones abiertas.
+ */
+@Service
+public class AccessTokenService {
+
+    public static final String MODE_PERSISTED = "persisted";
+    public static final String MODE_SIGNED = "signed";
+
+    private final TokenRepository tokenRepository;
+    private final TokenValidationCache tokenCache;
+    private final SignedTokenCodec signedTokenCodec;
+    private final RevokedTokenRegistry revokedTokens;
+
+    @Value("${security.token.mode:persisted}")
+    private String mode = MODE_PERSISTED;
+
+    @Value("${security.token.ttl-hours:8}")
+    private long ttlHours = 8;
+
+    public AccessTokenService(
+            TokenRepository tokenRepository,
+            TokenValidationCache tokenCache,
+            SignedTokenCodec signedTokenCodec,
+            RevokedTokenRegistry revokedTokens) {
+        this.tokenRepository = tokenRepository;
+        this.tokenCache = tokenCache;
+        this.signedTokenCodec = signedTokenCodec;
+        this.revokedTokens = revokedTokens;
+    }
+
+    public boolean isSignedMode() {
+        return MODE_SIGNED.equalsIgnoreCase(mode);
+    }
+
+    /**
+     * Crea un token nuevo para la cuenta y devuelve su valor (cookie / Bearer).
+     */
+    public String issue(String accountId, String role) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlHours * 3600_000L;
+
+        if (isSignedMode()) {
+            return signedTokenCodec.encode(accountId, role, now, expiresAt);
+        }
+
+        String tokenId = UUID.randomUUID().toString();
+        Token token = new Token();
+        token.setId(tokenId);
+        token.setAccountId(accountId);
+        token.setRole(role);
+        token.setExpiration(toLocalDateTime(expiresAt));
+        tokenRepository.save(token);
+        return tokenId;
+    }
+
+    /**
+     * Devuelve los datos del token si es válido, no ha expirado y no está revocado.
+     * Para tokens firmados el {@link Token} devuelto no está persistido.
+     */
+    public Token resolve(String tokenValue) {
+        if (tokenValue == null || tokenValue.isBlank()) {
+            return null;
+        }
+        if (!SignedTokenCodec.isSigned(tokenValue)) {
+            return tokenCache.findValid(tokenValue);
+        }
+
+        SignedTokenCodec.Claims claims = signedTokenCodec.decode(tokenValue, System.currentTimeMillis());
+        if (claims == null || revokedTokens.isRevoked(claims)) {
+            return null;
+        }
+        Token token = new Token();
+        token.setId(tokenValue);
+        token.setAccountId(claims.accountId);
+        token.setRole(claims.role);
+        token.setExpiration(toLocalDateTime(claims.expiresAtMs));
+        return token;
+    }
+
+    /**
+     * Invalida un token concreto (logout).
+     */
+    public void revoke(String tokenValue) {
+        if (tokenValue == null || tokenValue.isBlank()) {
+            return;
+        }
+        if (!SignedTokenCodec.isSigned(tokenValue)) {
+            tokenCache.delete(tokenValue);
+            return;
+        }
+        SignedTokenCodec.Claims claims = signedTokenCodec.decode(tokenValue, System.currentTimeMillis());
+        if (claims != null) {
+            revokedTokens.revoke(claims);
+        }
+    }
+
+    /**
+     * Invalida todos los tokens de una cuenta (desactivación por un administrador).
+     */
+    public void revokeAccount(String accountId) {
+        if (accountId == null) {
+            return;
+        }
+        tokenCache.invalidateAccount(accountId);
+        tokenRepository.deleteByAccountId(accountId);
+        // También en modo persisted: puede haber tokens firmados de antes de cambiar de modo
+        revokedTokens.revokeAccount(accountId, ttlHours * 3600_000L);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+}
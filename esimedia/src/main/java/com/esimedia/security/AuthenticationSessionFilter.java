@@ -0,0 +1,215 @@
+package com.esimedia.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.esimedia.accounts.model.Token;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Etapa única de autenticación por token (cookie / Bearer) y control de
+ * timeouts de sesión por rol. Sustituye a CookieAuthenticationFilter y
+ * SessionTimeoutFilter: cabeceras, cookies y rol se resuelven una vez por
+ * petición y las rutas públicas se comprueban con un {@link PublicPathMatcher}
+ * construido desde configuración.
+ */
+@Component
+public class AuthenticationSessionFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthenticationSessionFilter.class);
+
+    private static final String BEARER = "Bearer ";
+    private static final String ACCESS_TOKEN_COOKIE = "access_token";
+
+    private final AccessTokenService accessTokenService;
+    private final InMemorySessionRegistry registry;
+    private final SecurityAuditLog auditLog;
+    private final PublicPathMatcher publicPaths;
+
+    public AuthenticationSessionFilter(
+            AccessTokenService accessTokenService,
+            InMemorySessionRegistry registry,
+            SecurityAuditLog auditLog,
+            @Value("${security.filter.skip-auth-paths:/api/auth/login,/api/auth/register,/api/auth/recover,"
+                    + "/api/auth/reset-password,/api/auth/validate-reset-token,/api/auth/2fa/setup,"
+                    + "/api/auth/send-3fa-code,/api/auth/verify-3fa-code,/health,/cover/,/pfp/}")
+            List<String> skipAuthPaths,
+            @Value("${security.filter.skip-session-paths:/api/public,/api/auth/login,/api/auth/register,"
+                    + "/api/auth/recover,/api/auth/reset-password,/api/auth/validate-reset-token,/cover/,/pfp/}")
+            List<String> skipSessionPaths) {
+        this.accessTokenService = accessTokenService;
+        this.registry = registry;
+        this.auditLog = auditLog;
+        this.publicPaths = new PublicPathMatcher()
+                .add(skipAuthPaths, PublicPathMatcher.SKIP_AUTH)
+                .add(skipSessionPaths, PublicPathMatcher.SKIP_SESSION);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        int flags = publicPaths.match(request.getRequestURI());
+        return (flags & PublicPathMatcher.SKIP_AUTH) != 0 && (flags & PublicPathMatcher.SKIP_SESSION) != 0;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String path = request.getRequestURI();
+        int flags = publicPaths.match(path);
+        log.debug("🔐 AuthenticationSessionFilter - Processing: {}", path);
+
+        // 1. Token: prioridad header Authorization (móvil), después cookie (web)
+        String tokenValue = extractToken(request);
+
+        // 2. Autenticación
+        Token token = null;
+        if ((flags & PublicPathMatcher.SKIP_AUTH) == 0 && tokenValue != null) {
+            token = accessTokenService.resolve(tokenValue);
+            if (token == null) {
+                auditLog.tokenRejected(request.getRemoteAddr(), path);
+            } else {
+                authenticate(token, path);
+            }
+        }
+
+        String role = resolveRole(token, request);
+
+        // 3. Timeouts de sesión
+        String sessionKey = null;
+        InMemorySessionRegistry.SessionInfo session = null;
+        if ((flags & PublicPathMatcher.SKIP_SESSION) == 0) {
+            sessionKey = resolveSessionKey(tokenValue, request);
+            if (sessionKey == null) {
+                log.debug("⚠️ No session key found for path: {}", path);
+            } else {
+                // Solo la clave de un token queda bloqueada hasta su plazo absoluto al caducar
+                session = registry.getOrCreate(sessionKey, role, tokenValue != null);
+
+                if (session == null) {
+                    // Ya caducada (barrido u otro nodo). Sin lápida es que pasó su plazo absoluto
+                    String reason = registry.expiredReason(sessionKey);
+                    reason = reason != null ? reason : "absolute";
+                    log.warn("❌ Session expired ({}) - Key: {} | Role: {}", reason, sessionKey, role);
+                    writeExpired(response, reason);
+                    return;
+                }
+                if (registry.isAbsoluteExpired(session)) {
+                    log.warn("❌ Session expired (absolute) - Key: {} | Role: {}", sessionKey, role);
+                    registry.expire(sessionKey, "absolute");
+                    writeExpired(response, "absolute");
+                    return;
+                }
+                if (registry.isIdleExpired(session)) {
+                    log.warn("❌ Session expired (idle) - Key: {} | Role: {}", sessionKey, role);
+                    registry.expire(sessionKey, "idle");
+                    writeExpired(response, "idle");
+                    return;
+                }
+
+                log.debug("✅ Session valid - Key: {} | Role: {} | Path: {}", sessionKey, role, path);
+                registry.touch(session);
+            }
+        }
+
+        request.setAttribute(RequestAuthContext.ATTRIBUTE,
+                new RequestAuthContext(tokenValue, token, role, sessionKey, session));
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(Token token, String path) {
+        String role = token.getRole(); // "admin", "creator", "user"
+        String email = token.getAccountId();
+
+        log.debug("✅ Valid token - Email: {} | Role: {} | Path: {}", email, role, path);
+
+        // Authority con prefijo ROLE_ (requerido por Spring Security)
+        SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role.toUpperCase());
+        UsernamePasswordAuthenticationToken authentication =
+            new UsernamePasswordAuthenticationToken(email, null, Collections.singletonList(authority));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        log.debug("🔓 Authentication set - Principal: {} | Authorities: {}", email, authority);
+    }
+
+    private String extractToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith(BEARER)) {
+            String value = authHeader.substring(BEARER.length()).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (ACCESS_TOKEN_COOKIE.equals(cookie.getName())) {
+                    String value = cookie.getValue();
+                    return value == null || value.isBlank() ? null : value;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String resolveSessionKey(String tokenValue, HttpServletRequest request) {
+        if (tokenValue != null) return tokenValue;
+
+        // Sesión dev
+        String sid = request.getHeader("X-Session-Id");
+        if (sid != null && !sid.isBlank()) return sid;
+
+        // Fallback dev por email
+        String email = request.getHeader("X-User-Email");
+        if (email != null && !email.isBlank()) return "DEV:" + email;
+
+        return null;
+    }
+
+    private String resolveRole(Token token, HttpServletRequest request) {
+        if (token != null && token.getRole() != null) {
+            String role = mapRole(token.getRole().toLowerCase());
+            if (role != null) return role;
+        }
+
+        String hdr = request.getHeader("X-User-Role");
+        if (hdr != null && !hdr.isBlank()) return hdr.toLowerCase();
+
+        return "user";
+    }
+
+    private String mapRole(String roleLower) {
+        if (roleLower.contains("admin")) return "admin";
+        if (roleLower.contains("creator")) return "creator";
+        if (roleLower.contains("user")) return "user";
+        return null;
+    }
+
+    private void writeExpired(HttpServletResponse res, String kind) throws IOException {
+        res.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        res.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        res.setHeader("X-Session-Expired", kind);
+        String body = "{\"error\":\"session_expired\",\"reason\":\"" + kind + "\"}";
+        res.getWriter().write(body);
+    }
+}
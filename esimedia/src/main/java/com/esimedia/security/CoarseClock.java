@@ -0,0 +1,41 @@
+package com.esimedia.security;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Reloj de milisegundos cacheado: un hilo daemon actualiza un volatile cada
+ * resolution-ms, así el camino caliente lee un long sin llamadas al sistema
+ * ni objetos. Con timeouts de minutos, unos milisegundos de desfase son irrelevantes.
+ */
+@Component
+public class CoarseClock {
+
+    private final ScheduledExecutorService ticker;
+    private volatile long nowMs = System.currentTimeMillis();
+
+    public CoarseClock(@Value("${security.clock.resolution-ms:10}") long resolutionMs) {
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "coarse-clock");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, resolutionMs);
+        ticker.scheduleAtFixedRate(() -> nowMs = System.currentTimeMillis(), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public long millis() {
+        return nowMs;
+    }
+
+    @PreDestroy
+    public void close() {
+        ticker.shutdownNow();
+    }
+}
@@ -1,76 +1,377 @@
 package com.esimedia.security;
 
-import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Registro de sesiones con timeouts por rol. Siempre trabaja sobre una copia
+ * local; con un {@link SessionStore} compartido (p. ej. Mongo) la actividad se
+ * acumula en memoria y se vuelca por lotes cada flush-interval, y cada sesión
+ * se relee del backend como mucho una vez por intervalo.
+ *
+ * El camino por petición (getOrCreate de una sesión existente, comprobaciones
+ * de caducidad y touch) no reserva memoria: marcas de tiempo en long, reloj
+ * {@link CoarseClock} cacheado y límites por rol precalculados.
+ *
+ * Una sesión que termina por caducidad (en el barrido, en el filtro o porque
+ * otro nodo la borró del backend) deja una lápida clave → motivo hasta su
+ * plazo absoluto: mientras exista, getOrCreate no abre una sesión nueva con
+ * esa clave y el filtro responde session_expired con el motivo. Las claves
+ * que no salen de un token (X-Session-Id, DEV:email) son reutilizables por el
+ * cliente, así que su lápida solo dura dev-tombstone-ms: lo justo para que
+ * vea el motivo, sin dejar la clave bloqueada horas.
+ */
 @Component
 public class InMemorySessionRegistry {
 
+    private static final Logger log = LoggerFactory.getLogger(InMemorySessionRegistry.class);
+
+    // Estimación aproximada por sesión: entrada del mapa + SessionInfo + entrada de la cola
+    private static final long BASE_BYTES_PER_SESSION = 160;
+
+    /**
+     * Límites de un rol en milisegundos, resueltos una sola vez.
+     */
+    static final class RoleLimits {
+        final long idleMs;
+        final long absoluteMs;
+
+        RoleLimits(long idleMinutes, long absoluteHours) {
+            this.idleMs = idleMinutes * 60_000L;
+            this.absoluteMs = absoluteHours * 3_600_000L;
+        }
+    }
+
     public static class SessionInfo {
         public final String role;
-        public final Instant createdAt;
-        public volatile Instant lastActivity;
+        public volatile long createdAtMs;
+        public volatile long lastActivityMs;
+
+        final String key;
+        final RoleLimits limits;
+        // Clave derivada de un token (no reutilizable): su lápida dura hasta el plazo absoluto
+        final boolean tokenBound;
+        // Pendiente de volcar al backend compartido
+        final AtomicBoolean dirty = new AtomicBoolean();
+        // Última lectura o escritura contra el backend (ms)
+        volatile long syncedAtMs;
+
+        SessionInfo(String key, String role, RoleLimits limits, long nowMs) {
+            this(key, role, limits, nowMs, true);
+        }
 
-        public SessionInfo(String role, Instant now) {
+        SessionInfo(String key, String role, RoleLimits limits, long nowMs, boolean tokenBound) {
+            this.key = key;
             this.role = role;
-            this.createdAt = now;
-            this.lastActivity = now;
+            this.limits = limits;
+            this.tokenBound = tokenBound;
+            this.createdAtMs = nowMs;
+            this.lastActivityMs = nowMs;
+        }
+    }
+
+    /**
+     * Sesión terminada: motivo ("idle", "absolute") y hasta cuándo se recuerda.
+     */
+    private static final class Tombstone {
+        final String reason;
+        final long untilMs;
+
+        Tombstone(String reason, long untilMs) {
+            this.reason = reason;
+            this.untilMs = untilMs;
+        }
+    }
+
+    /**
+     * Entrada de la cola de caducidad. touch() no toca la cola: al vencer
+     * el plazo se comprueba la sesión real y, si sigue viva, se reprograma.
+     */
+    private static final class Expiry implements Comparable<Expiry> {
+        final String key;
+        final SessionInfo session;
+        final long deadlineMs;
+
+        Expiry(String key, SessionInfo session, long deadlineMs) {
+            this.key = key;
+            this.session = session;
+            this.deadlineMs = deadlineMs;
+        }
+
+        @Override
+        public int compareTo(Expiry other) {
+            return Long.compare(deadlineMs, other.deadlineMs);
         }
     }
+
+    private final SessionStore store;
+    private final CoarseClock clock;
+
     // Map of session key to SessionInfo
     private final Map<String, SessionInfo> sessions = new ConcurrentHashMap<>();
+    // Sesiones ordenadas por próximo vencimiento posible (protegida por su propio monitor)
+    private final PriorityQueue<Expiry> expiryQueue = new PriorityQueue<>();
+    // Sesiones con actividad pendiente de volcar (cada una aparece como mucho una vez)
+    private final Queue<SessionInfo> dirtySessions = new ConcurrentLinkedQueue<>();
+    // Sesiones caducadas que no deben volver a abrirse con la misma clave
+    private final Map<String, Tombstone> tombstones = new ConcurrentHashMap<>();
+
+    private final LongAdder idleEvictions = new LongAdder();
+    private final LongAdder absoluteEvictions = new LongAdder();
+    private final LongAdder capacityEvictions = new LongAdder();
+    private final LongAdder keyChars = new LongAdder();
+    private final LongAdder remoteReads = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedEntries = new LongAdder();
 
     @Value("${security.session.user.idle-minutes:20}")
-    private long userIdleMinutes;
+    private long userIdleMinutes = 20;
     @Value("${security.session.user.absolute-hours:8}")
-    private long userAbsoluteHours;
+    private long userAbsoluteHours = 8;
 
     @Value("${security.session.admin.idle-minutes:15}")
-    private long adminIdleMinutes;
+    private long adminIdleMinutes = 15;
     @Value("${security.session.admin.absolute-hours:7}")
-    private long adminAbsoluteHours;
+    private long adminAbsoluteHours = 7;
 
     @Value("${security.session.creator.idle-minutes:15}")
-    private long creatorIdleMinutes;
+    private long creatorIdleMinutes = 15;
     @Value("${security.session.creator.absolute-hours:7}")
-    private long creatorAbsoluteHours;
+    private long creatorAbsoluteHours = 7;
+
+    private RoleLimits userLimits;
+    private RoleLimits adminLimits;
+    private RoleLimits creatorLimits;
 
+    @Value("${security.session.max-entries:100000}")
+    private int maxEntries = 100000;
+
+    @Value("${security.session.store.flush-interval-ms:5000}")
+    private long flushIntervalMs = 5000;
+
+    // Vida de la lápida de una clave que no sale de un token (X-Session-Id, DEV:email)
+    @Value("${security.session.dev-tombstone-ms:60000}")
+    private long devTombstoneMs = 60000;
+
+    public InMemorySessionRegistry() {
+        this(new LocalSessionStore());
+    }
+
+    public InMemorySessionRegistry(SessionStore store) {
+        this(store, new CoarseClock(10));
+    }
+
+    @Autowired
+    public InMemorySessionRegistry(SessionStore store, CoarseClock clock) {
+        this.store = store;
+        this.clock = clock;
+        initLimits();
+    }
+
+    /**
+     * Precalcula los límites por rol a partir de la configuración.
+     */
+    @PostConstruct
+    void initLimits() {
+        userLimits = new RoleLimits(userIdleMinutes, userAbsoluteHours);
+        adminLimits = new RoleLimits(adminIdleMinutes, adminAbsoluteHours);
+        creatorLimits = new RoleLimits(creatorIdleMinutes, creatorAbsoluteHours);
+    }
+
+    /**
+     * Sesión de la clave (derivada de un token), creándola si no existe.
+     *
+     * @return null si la sesión de esa clave ya caducó (ver {@link #expiredReason})
+     */
     public SessionInfo getOrCreate(String key, String role) {
-        return sessions.computeIfAbsent(key, k -> new SessionInfo(normalizeRole(role), Instant.now()));
+        return getOrCreate(key, role, true);
     }
 
-    public void touch(SessionInfo s) {
-        s.lastActivity = Instant.now();
+    /**
+     * Como {@link #getOrCreate(String, String)}; con tokenBound=false (claves
+     * de desarrollo) la lápida al caducar solo dura dev-tombstone-ms.
+     */
+    public SessionInfo getOrCreate(String key, String role, boolean tokenBound) {
+        SessionInfo existing = sessions.get(key);
+        if (existing != null) {
+            if (store.isShared() && clock.millis() - existing.syncedAtMs >= flushIntervalMs) {
+                return refreshFromStore(key, existing);
+            }
+            return existing;
+        }
+        if (expiredReason(key) != null) {
+            return null;
+        }
+        if (sessions.size() >= maxEntries) {
+            enforceCapacity();
+        }
+        SessionStore.Entry remote = loadRemote(key);
+        String normalized = normalizeRole(remote != null ? remote.role : role);
+        long now = clock.millis();
+        SessionInfo created = new SessionInfo(key, normalized, limitsFor(normalized), now, tokenBound);
+        created.syncedAtMs = now;
+        if (remote != null) {
+            created.createdAtMs = remote.createdAtMs;
+            created.lastActivityMs = remote.lastActivityMs;
+        } else {
+            markDirty(created);
+        }
+        SessionInfo winner = sessions.putIfAbsent(key, created);
+        if (winner != null) {
+            return winner;
+        }
+        keyChars.add(key.length());
+        schedule(key, created, 0);
+        return created;
     }
 
-    public boolean isIdleExpired(SessionInfo s) {
-        Duration idle = getIdle(s.role);
-        return Duration.between(s.lastActivity, Instant.now()).compareTo(idle) > 0;
+    /**
+     * Relectura periódica (como mucho una por sesión y flush-interval) para ver
+     * la actividad registrada por otros nodos.
+     */
+    private SessionInfo refreshFromStore(String key, SessionInfo local) {
+        local.syncedAtMs = clock.millis();
+        SessionStore.Entry remote = loadRemote(key);
+        if (remote != null) {
+            if (remote.createdAtMs < local.createdAtMs) {
+                local.createdAtMs = remote.createdAtMs;
+            }
+            if (remote.lastActivityMs > local.lastActivityMs) {
+                local.lastActivityMs = remote.lastActivityMs;
+            }
+            return local;
+        }
+        if (local.dirty.get()) {
+            return local; // aún no volcada desde este nodo
+        }
+        // Borrada en otro nodo (caducidad, logout o TTL): aquí también ha terminado
+        if (removeLocal(key, local)) {
+            bury(key, local, isAbsoluteExpired(local) ? "absolute" : "idle");
+        }
+        return null;
     }
 
-    public boolean isAbsoluteExpired(SessionInfo s) {
-        Duration abs = getAbsolute(s.role);
-        return Duration.between(s.createdAt, Instant.now()).compareTo(abs) > 0;
+    /**
+     * Motivo por el que terminó la sesión de la clave ("idle", "absolute"),
+     * o null si no hay constancia de que haya caducado.
+     */
+    public String expiredReason(String key) {
+        Tombstone tombstone = tombstones.get(key);
+        if (tombstone == null) {
+            return null;
+        }
+        return clock.millis() < tombstone.untilMs ? tombstone.reason : null;
     }
 
-    private Duration getIdle(String role) {
-        switch (normalizeRole(role)) {
-            case "admin":   return Duration.ofMinutes(adminIdleMinutes);
-            case "creator": return Duration.ofMinutes(creatorIdleMinutes);
-            default:        return Duration.ofMinutes(userIdleMinutes);
+    /**
+     * Termina una sesión caducada: la elimina (también del backend compartido)
+     * y deja la lápida con el motivo.
+     */
+    public void expire(String key, String reason) {
+        SessionInfo session = sessions.get(key);
+        remove(key);
+        if (session != null) {
+            bury(key, session, reason);
         }
     }
 
-    private Duration getAbsolute(String role) {
-        switch (normalizeRole(role)) {
-            case "admin":   return Duration.ofHours(adminAbsoluteHours);
-            case "creator": return Duration.ofHours(creatorAbsoluteHours);
-            default:        return Duration.ofHours(userAbsoluteHours);
+    private void bury(String key, SessionInfo session, String reason) {
+        if (tombstones.size() >= maxEntries) {
+            return; // sin sitio: en el peor caso la clave abre sesión nueva, como antes
+        }
+        long untilMs = session.tokenBound
+                ? session.createdAtMs + session.limits.absoluteMs
+                : clock.millis() + devTombstoneMs;
+        tombstones.put(key, new Tombstone(reason, untilMs));
+    }
+
+    private SessionStore.Entry loadRemote(String key) {
+        if (!store.isShared()) {
+            return null;
+        }
+        remoteReads.increment();
+        try {
+            return store.load(key);
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo leer la sesión del backend {}: {}", store.name(), e.getMessage());
+            return null;
+        }
+    }
+
+    public void touch(SessionInfo s) {
+        s.lastActivityMs = clock.millis();
+        markDirty(s);
+    }
+
+    private void markDirty(SessionInfo s) {
+        if (store.isShared() && s.key != null && s.dirty.compareAndSet(false, true)) {
+            dirtySessions.add(s);
+        }
+    }
+
+    /**
+     * Vuelca por lotes la actividad acumulada al backend compartido.
+     */
+    @Scheduled(fixedDelayString = "${security.session.store.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        if (!store.isShared() || dirtySessions.isEmpty()) {
+            return;
+        }
+        List<SessionInfo> batch = new ArrayList<>();
+        List<SessionStore.Entry> entries = new ArrayList<>();
+        SessionInfo s;
+        while ((s = dirtySessions.poll()) != null) {
+            s.dirty.set(false);
+            if (sessions.get(s.key) != s) continue;
+            batch.add(s);
+            entries.add(new SessionStore.Entry(s.key, s.role, s.createdAtMs, s.lastActivityMs, deadlineOf(s)));
+        }
+        try {
+            store.flush(entries);
+            long now = clock.millis();
+            for (SessionInfo flushed : batch) {
+                flushed.syncedAtMs = now;
+            }
+            flushes.increment();
+            flushedEntries.add(entries.size());
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo volcar {} sesiones al backend {}: {}", entries.size(), store.name(), e.getMessage());
+            batch.forEach(this::markDirty);
+        }
+    }
+
+    public boolean isIdleExpired(SessionInfo s) {
+        return clock.millis() - s.lastActivityMs > s.limits.idleMs;
+    }
+
+    public boolean isAbsoluteExpired(SessionInfo s) {
+        return clock.millis() - s.createdAtMs > s.limits.absoluteMs;
+    }
+
+    private RoleLimits limitsFor(String normalizedRole) {
+        switch (normalizedRole) {
+            case "admin":   return adminLimits;
+            case "creator": return creatorLimits;
+            default:        return userLimits;
         }
     }
 
@@ -78,7 +379,137 @@ public class InMemorySessionRegistry {
         return role == null ? "user" : role.trim().toLowerCase();
     }
 
+    /**
+     * Elimina la sesión en este nodo y en el backend compartido.
+     */
     public void remove(String key) {
-        sessions.remove(key);
+        SessionInfo removed = sessions.remove(key);
+        if (removed != null) {
+            keyChars.add(-key.length());
+        }
+        if (store.isShared()) {
+            try {
+                store.delete(key);
+            } catch (Exception e) {
+                log.warn("⚠️ No se pudo borrar la sesión del backend {}: {}", store.name(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Elimina en segundo plano las sesiones caducadas (idle o absoluta) de
+     * clientes que no vuelven, dejando su lápida, y olvida las lápidas que ya
+     * han pasado su plazo absoluto. Solo revisa las entradas cuyo plazo ha
+     * vencido y solo libera la copia local: en el backend compartido caducan por TTL.
+     */
+    @Scheduled(fixedDelayString = "${security.session.sweep-interval-ms:30000}")
+    public void evictExpired() {
+        long now = clock.millis();
+        int evicted = 0;
+        while (true) {
+            Expiry head;
+            synchronized (expiryQueue) {
+                head = expiryQueue.peek();
+                if (head == null || head.deadlineMs > now) {
+                    break;
+                }
+                expiryQueue.poll();
+            }
+            if (sessions.get(head.key) != head.session) {
+                continue; // ya eliminada o sustituida
+            }
+            if (isAbsoluteExpired(head.session)) {
+                if (removeLocal(head.key, head.session)) {
+                    bury(head.key, head.session, "absolute");
+                    absoluteEvictions.increment();
+                    evicted++;
+                }
+            } else if (isIdleExpired(head.session)) {
+                if (removeLocal(head.key, head.session)) {
+                    bury(head.key, head.session, "idle");
+                    idleEvictions.increment();
+                    evicted++;
+                }
+            } else {
+                schedule(head.key, head.session, now + 1); // hubo actividad: nuevo plazo
+            }
+        }
+        if (!tombstones.isEmpty()) {
+            tombstones.values().removeIf(t -> t.untilMs <= now);
+        }
+        if (evicted > 0) {
+            log.debug("🧹 Sesiones caducadas eliminadas: {} | Activas: {}", evicted, sessions.size());
+        }
+    }
+
+    /**
+     * Tope duro de entradas: primero se purgan caducadas y, si no basta,
+     * se descartan las sesiones con vencimiento más próximo.
+     */
+    private void enforceCapacity() {
+        evictExpired();
+        while (sessions.size() >= maxEntries) {
+            Expiry head;
+            synchronized (expiryQueue) {
+                head = expiryQueue.poll();
+            }
+            if (head == null) {
+                break;
+            }
+            if (removeLocal(head.key, head.session)) {
+                capacityEvictions.increment();
+            }
+        }
+    }
+
+    private boolean removeLocal(String key, SessionInfo session) {
+        if (sessions.remove(key, session)) {
+            keyChars.add(-key.length());
+            return true;
+        }
+        return false;
+    }
+
+    private long deadlineOf(SessionInfo s) {
+        long idleDeadline = s.lastActivityMs + s.limits.idleMs;
+        long absoluteDeadline = s.createdAtMs + s.limits.absoluteMs;
+        return Math.min(idleDeadline, absoluteDeadline);
+    }
+
+    private void schedule(String key, SessionInfo s, long notBeforeMs) {
+        Expiry expiry = new Expiry(key, s, Math.max(notBeforeMs, deadlineOf(s)));
+        synchronized (expiryQueue) {
+            expiryQueue.add(expiry);
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Métricas: sesiones vivas, expulsiones, memoria estimada y backend.
+     */
+    public Map<String, Object> getStats() {
+        int live = sessions.size();
+        int queued;
+        synchronized (expiryQueue) {
+            queued = expiryQueue.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("store", store.name());
+        stats.put("liveSessions", live);
+        stats.put("maxEntries", maxEntries);
+        stats.put("expiryQueueSize", queued);
+        stats.put("idleEvictions", idleEvictions.sum());
+        stats.put("absoluteEvictions", absoluteEvictions.sum());
+        stats.put("capacityEvictions", capacityEvictions.sum());
+        stats.put("tombstones", tombstones.size());
+        stats.put("estimatedBytes", live * BASE_BYTES_PER_SESSION + Math.max(0, keyChars.sum()) * 2);
+        stats.put("remoteReads", remoteReads.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("flushedEntries", flushedEntries.sum());
+        stats.put("pendingFlush", dirtySessions.size());
+        return stats;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package com.esimedia.security;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.local.LocalBucketBuilder;
+
+/**
+ * Buckets en memoria del nodo, con un tope de entradas por tipo.
+ *
+ * Un bucket sin uso durante su periodo de recarga vuelve a estar lleno, así
+ * que descartarlo no pierde información: esas entradas se purgan en el barrido
+ * y son las primeras en salir al alcanzar el tope. Solo si no basta se
+ * descartan entradas activas (contadas en capacityEvictions).
+ */
+@Component
+@ConditionalOnProperty(name = "security.rate-limit.backend", havingValue = "local", matchIfMissing = true)
+public class LocalRateLimitBucketStore implements RateLimitBucketStore {
+
+    private static final class Entry {
+        final Bucket bucket;
+        final long capacity;
+        final long idleMs;
+        volatile long lastAccessMs;
+
+        Entry(Bucket bucket, long capacity, long idleMs, long now) {
+            this.bucket = bucket;
+            this.capacity = capacity;
+            this.idleMs = idleMs;
+            this.lastAccessMs = now;
+        }
+
+        /** true si eliminarlo equivale a recrearlo lleno. */
+        boolean isDisposable(long now) {
+            return now - lastAccessMs >= idleMs || bucket.getAvailableTokens() >= capacity;
+        }
+    }
+
+    private record Candidate(String key, Entry entry, double fill) {}
+
+    private final Map<String, Map<String, Entry>> tables = new ConcurrentHashMap<>();
+    private final int maxEntriesPerKind;
+
+    private final LongAdder idleEvictions = new LongAdder();
+    private final LongAdder capacityEvictions = new LongAdder();
+
+    public LocalRateLimitBucketStore(@Value("${security.rate-limit.max-entries:100000}") int maxEntriesPerKind) {
+        this.maxEntriesPerKind = Math.max(1, maxEntriesPerKind);
+    }
+
+    @Override
+    public Bucket bucket(String kind, String key, BucketConfiguration config, Duration refillPeriod) {
+        Map<String, Entry> table = tables.computeIfAbsent(kind, k -> new ConcurrentHashMap<>());
+        long now = System.currentTimeMillis();
+        Entry entry = table.get(key);
+        if (entry == null) {
+            if (table.size() >= maxEntriesPerKind) {
+                makeRoom(table, now);
+            }
+            entry = table.computeIfAbsent(key, k -> newEntry(config, refillPeriod, now));
+        }
+        entry.lastAccessMs = now;
+        return entry.bucket;
+    }
+
+    private static Entry newEntry(BucketConfiguration config, Duration refillPeriod, long now) {
+        LocalBucketBuilder builder = Bucket.builder();
+        long capacity = Long.MAX_VALUE;
+        for (Bandwidth bandwidth : config.getBandwidths()) {
+            builder.addLimit(bandwidth);
+            capacity = Math.min(capacity, bandwidth.getCapacity());
+        }
+        return new Entry(builder.build(), capacity, refillPeriod.toMillis(), now);
+    }
+
+    /**
+     * Primero las entradas que se pueden tirar sin perder estado; después,
+     * hasta dejar un 10% de margen, las que conservan más tokens disponibles.
+     * Los buckets agotados (los que de verdad están frenando a alguien) son
+     * los últimos en salir, así que inundar con claves nuevas no los resetea.
+     */
+    private void makeRoom(Map<String, Entry> table, long now) {
+        table.values().removeIf(entry -> {
+            boolean disposable = entry.isDisposable(now);
+            if (disposable) {
+                idleEvictions.increment();
+            }
+            return disposable;
+        });
+        int target = maxEntriesPerKind - Math.max(1, maxEntriesPerKind / 10);
+        int excess = table.size() - target;
+        if (excess <= 0) {
+            return;
+        }
+        // Foto de los tokens disponibles: los buckets cambian mientras se ordena
+        List<Candidate> candidates = new ArrayList<>(table.size());
+        table.forEach((key, entry) -> candidates.add(
+            new Candidate(key, entry, (double) entry.bucket.getAvailableTokens() / entry.capacity)));
+        candidates.sort(Comparator.comparingDouble(Candidate::fill).reversed());
+        for (int i = 0; i < excess && i < candidates.size(); i++) {
+            Candidate victim = candidates.get(i);
+            if (table.remove(victim.key(), victim.entry())) {
+                capacityEvictions.increment();
+            }
+        }
+    }
+
+    @Override
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (Map<String, Entry> table : tables.values()) {
+            table.values().removeIf(entry -> {
+                boolean idle = now - entry.lastAccessMs >= entry.idleMs;
+                if (idle) {
+                    idleEvictions.increment();
+                }
+                return idle;
+            });
+        }
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("backend", name());
+        stats.put("maxEntriesPerKind", maxEntriesPerKind);
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        tables.forEach((kind, table) -> sizes.put(kind, table.size()));
+        stats.put("buckets", sizes);
+        stats.put("idleEvictions", idleEvictions.sum());
+        stats.put("capacityEvictions", capacityEvictions.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,39 @@
+package com.esimedia.security;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backend por defecto: las sesiones viven solo en la memoria de cada nodo.
+ */
+@Component
+@ConditionalOnProperty(name = "security.session.store", havingValue = "local", matchIfMissing = true)
+public class LocalSessionStore implements SessionStore {
+
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+
+    @Override
+    public Entry load(String key) {
+        return null;
+    }
+
+    @Override
+    public void flush(List<Entry> entries) {
+        // Nada que persistir
+    }
+
+    @Override
+    public void delete(String key) {
+        // Nada que borrar
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+}
@@ -1,179 +1,245 @@
 package com.esimedia.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.esimedia.config.PasswordSecurityConfig;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class LoginAttemptService {
-    
-    private static final Logger log = LoggerFactory.getLogger(LoginAttemptService.class);
-    
+
     @Autowired
     private PasswordSecurityConfig securityConfig;
-    
-    // Almacenamiento en memoria: Clave = "email:ip"
-    private final Map<String, LoginAttempt> loginAttempts = new ConcurrentHashMap<>();
-    
-    // Contador global por email (para detectar ataques distribuidos)
-    private final Map<String, Integer> globalEmailAttempts = new ConcurrentHashMap<>();
-    
+
+    @Autowired
+    private SecurityAuditLog auditLog;
+
     /**
-     * Genera clave única: email + IP
+     * Intentos de un email: por IP y contador global (para detectar ataques
+     * distribuidos). Las modificaciones se hacen dentro de compute() sobre
+     * el email, así alta, reset y barrido no se pisan entre sí.
      */
-    private String getKey(String email, String ipAddress) {
-        return email + ":" + ipAddress;
+    private static final class EmailAttempts {
+        final Map<String, LoginAttempt> byIp = new ConcurrentHashMap<>();
+        volatile int globalAttempts;
+    }
+
+    // Almacenamiento en memoria: email -> (ip -> intento)
+    private final Map<String, EmailAttempts> attemptsByEmail = new ConcurrentHashMap<>();
+
+    private final LongAdder sweptEntries = new LongAdder();
+
+    private static String emailKey(String email) {
+        return email == null ? "" : email;
+    }
+
+    private static String ipKey(String ipAddress) {
+        return ipAddress == null ? "unknown" : ipAddress;
     }
-    
+
+    private LoginAttempt find(String email, String ipAddress) {
+        EmailAttempts entry = attemptsByEmail.get(emailKey(email));
+        return entry == null ? null : entry.byIp.get(ipKey(ipAddress));
+    }
+
     /**
      * Registrar intento fallido de login
      */
     public void recordFailedAttempt(String email, String ipAddress) {
         Instant now = Instant.now();
-        String key = getKey(email, ipAddress);
-        
-        // Incrementar contador global de email
-        globalEmailAttempts.merge(email, 1, Integer::sum);
-        
-        LoginAttempt attempt = loginAttempts.computeIfAbsent(key, k -> new LoginAttempt());
-        
-        // Resetear si pasó la ventana de tiempo
+        String ip = ipKey(ipAddress);
         long windowMs = securityConfig.getAttemptWindowMs();
-        if (now.toEpochMilli() - attempt.getFirstAttempt().toEpochMilli() > windowMs) {
-            attempt.setAttempts(1);
-            attempt.setFirstAttempt(now);
-            attempt.setLockedUntil(null);
-            attempt.getIpAddresses().clear();
-            attempt.addIpAddress(ipAddress);
-        } else {
-            // Incrementar intentos
-            attempt.incrementAttempts();
-            attempt.addIpAddress(ipAddress);
-            
-            // Bloquear si excede el máximo
-            if (attempt.getAttempts() >= securityConfig.getMaxLoginAttempts()) {
-                Instant lockUntil = now.plusMillis(securityConfig.getLockoutTimeMs());
-                attempt.setLockedUntil(lockUntil);
-                
-                // ⚠️ ALERTA DE SEGURIDAD
-                log.warn("⚠️ ALERTA DE SEGURIDAD: Cuenta bloqueada por múltiples intentos fallidos\n" +
-                        "  - Usuario/Email: {}\n" +
-                        "  - IP: {}\n" +
-                        "  - Intentos desde esta IP: {}\n" +
-                        "  - Intentos globales del email: {}\n" +
-                        "  - Bloqueado hasta: {}",
-                        email,
-                        ipAddress,
-                        attempt.getAttempts(),
-                        globalEmailAttempts.getOrDefault(email, 0),
-                        lockUntil);
-                
-                // Detectar ataque distribuido
-                int totalAttempts = globalEmailAttempts.getOrDefault(email, 0);
-                if (totalAttempts > securityConfig.getMaxLoginAttempts() * 3) {
-                    log.error("🚨 ATAQUE DISTRIBUIDO DETECTADO: Email '{}' tiene {} intentos desde múltiples IPs", 
-                             email, totalAttempts);
+        int maxAttempts = securityConfig.getMaxLoginAttempts();
+
+        LoginAttempt[] recorded = new LoginAttempt[1];
+        int[] global = new int[1];
+        boolean[] locked = new boolean[1];
+
+        attemptsByEmail.compute(emailKey(email), (k, entry) -> {
+            if (entry == null) {
+                entry = new EmailAttempts();
+            }
+            // Incrementar contador global de email
+            global[0] = ++entry.globalAttempts;
+
+            LoginAttempt attempt = entry.byIp.get(ip);
+            if (attempt == null) {
+                attempt = new LoginAttempt();
+                attempt.setFirstAttempt(now);
+                entry.byIp.put(ip, attempt);
+            }
+
+            // Resetear si pasó la ventana de tiempo
+            if (now.toEpochMilli() - attempt.getFirstAttempt().toEpochMilli() > windowMs) {
+                attempt.setAttempts(1);
+                attempt.setFirstAttempt(now);
+                attempt.setLockedUntil(null);
+                attempt.getIpAddresses().clear();
+                attempt.addIpAddress(ip);
+            } else {
+                // Incrementar intentos
+                attempt.incrementAttempts();
+                attempt.addIpAddress(ip);
+
+                // Bloquear si excede el máximo
+                if (attempt.getAttempts() >= maxAttempts) {
+                    attempt.setLockedUntil(now.plusMillis(securityConfig.getLockoutTimeMs()));
+                    locked[0] = true;
                 }
             }
+            recorded[0] = attempt;
+            return entry;
+        });
+
+        // ⚠️ ALERTAS DE SEGURIDAD (auditoría asíncrona, fuera del hilo de la petición)
+        LoginAttempt attempt = recorded[0];
+        if (locked[0]) {
+            auditLog.lockout(email, ipAddress, attempt.getAttempts(), attempt.getLockedUntil().toEpochMilli());
+
+            // Detectar ataque distribuido
+            if (global[0] > maxAttempts * 3) {
+                auditLog.distributedAttack(email, ipAddress, global[0]);
+            }
         }
-        
-        loginAttempts.put(key, attempt);
+        auditLog.loginFailure(email, ipAddress, attempt.getAttempts());
     }
-    
+
     /**
      * Verificar si está bloqueado (por email + IP)
      */
     public boolean isLocked(String email, String ipAddress) {
-        String key = getKey(email, ipAddress);
-        LoginAttempt attempt = loginAttempts.get(key);
-        
+        LoginAttempt attempt = find(email, ipAddress);
+
         if (attempt == null) {
             return false;
         }
-        
+
         // Si el bloqueo expiró, limpiar
         if (attempt.getLockedUntil() != null && !attempt.isLocked()) {
-            loginAttempts.remove(key);
+            removeIp(email, ipAddress, attempt);
             return false;
         }
-        
+
         return attempt.isLocked();
     }
-    
+
     /**
      * Obtener intentos restantes (por email + IP)
      */
     public int getRemainingAttempts(String email, String ipAddress) {
-        String key = getKey(email, ipAddress);
-        LoginAttempt attempt = loginAttempts.get(key);
-        
+        LoginAttempt attempt = find(email, ipAddress);
+
         if (attempt == null) {
             return securityConfig.getMaxLoginAttempts();
         }
-        
+
         return Math.max(0, securityConfig.getMaxLoginAttempts() - attempt.getAttempts());
     }
-    
+
     /**
-     * Resetear intentos (después de login exitoso)
+     * Resetear intentos (después de login exitoso). O(1): solo toca la
+     * entrada del email.
      */
     public void resetAttempts(String email, String ipAddress) {
-        String key = getKey(email, ipAddress);
-        loginAttempts.remove(key);
-        
         // Resetear también el contador global si no hay más intentos de otras IPs
-        boolean hasOtherAttempts = loginAttempts.keySet().stream()
-            .anyMatch(k -> k.startsWith(email + ":"));
-        
-        if (!hasOtherAttempts) {
-            globalEmailAttempts.remove(email);
-        }
-        
-        log.info("✓ Login exitoso - Intentos reseteados para: {} desde IP: {}", email, ipAddress);
+        removeIp(email, ipAddress, null);
+        auditLog.loginSuccess(email, ipAddress);
+    }
+
+    /**
+     * Quita el intento de una IP (solo si sigue siendo {@code expected}, si se
+     * indica) y elimina el email entero cuando no quedan IPs.
+     */
+    private void removeIp(String email, String ipAddress, LoginAttempt expected) {
+        String ip = ipKey(ipAddress);
+        attemptsByEmail.computeIfPresent(emailKey(email), (k, entry) -> {
+            if (expected == null) {
+                entry.byIp.remove(ip);
+            } else {
+                entry.byIp.remove(ip, expected);
+            }
+            return entry.byIp.isEmpty() ? null : entry;
+        });
     }
-    
+
     /**
      * Obtener tiempo de bloqueo restante en segundos
      */
     public long getLockoutTime(String email, String ipAddress) {
-        String key = getKey(email, ipAddress);
-        LoginAttempt attempt = loginAttempts.get(key);
-        
+        LoginAttempt attempt = find(email, ipAddress);
+
         if (attempt == null || !attempt.isLocked()) {
             return 0;
         }
-        
+
         return attempt.getRemainingLockoutSeconds();
     }
-    
+
     /**
      * Obtener información de intentos (para debugging/monitoreo)
      */
     public LoginAttempt getAttemptInfo(String email, String ipAddress) {
-        String key = getKey(email, ipAddress);
-        return loginAttempts.get(key);
+        return find(email, ipAddress);
     }
-    
+
     /**
      * Obtener total de intentos globales por email (todas las IPs)
      */
     public int getGlobalAttemptsForEmail(String email) {
-        return globalEmailAttempts.getOrDefault(email, 0);
+        EmailAttempts entry = attemptsByEmail.get(emailKey(email));
+        return entry == null ? 0 : entry.globalAttempts;
     }
-    
+
     /**
      * Verificar si hay ataque distribuido (múltiples IPs atacando el mismo email)
      */
     public boolean isDistributedAttack(String email) {
-        int totalAttempts = globalEmailAttempts.getOrDefault(email, 0);
-        return totalAttempts > securityConfig.getMaxLoginAttempts() * 3;
+        return getGlobalAttemptsForEmail(email) > securityConfig.getMaxLoginAttempts() * 3;
+    }
+
+    /**
+     * Barrido en segundo plano: elimina los intentos cuya ventana ha pasado y
+     * que no están bloqueados, y los emails que se quedan sin IPs (con su
+     * contador global). Así las entradas de un ataque no viven para siempre.
+     */
+    @Scheduled(fixedDelayString = "${security.login.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        long now = System.currentTimeMillis();
+        long windowMs = securityConfig.getAttemptWindowMs();
+        for (String email : attemptsByEmail.keySet()) {
+            attemptsByEmail.computeIfPresent(email, (k, entry) -> {
+                entry.byIp.values().removeIf(attempt -> {
+                    boolean expired = now - attempt.getFirstAttempt().toEpochMilli() > windowMs
+                        && !attempt.isLocked();
+                    if (expired) {
+                        sweptEntries.increment();
+                    }
+                    return expired;
+                });
+                return entry.byIp.isEmpty() ? null : entry;
+            });
+        }
+    }
+
+    /**
+     * Métricas: emails e IPs con intentos registrados.
+     */
+    public Map<String, Object> getStats() {
+        int ips = 0;
+        for (EmailAttempts entry : attemptsByEmail.values()) {
+            ips += entry.byIp.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedEmails", attemptsByEmail.size());
+        stats.put("trackedAttempts", ips);
+        stats.put("sweptEntries", sweptEntries.sum());
+        return stats;
     }
-}
\ No newline at end of file
+}
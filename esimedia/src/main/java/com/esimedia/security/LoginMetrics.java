@@ -0,0 +1,268 @@
+package com.esimedia.security;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tiempos por etapa del login (/api/auth/login) y recuento de resultados.
+ *
+ * El controlador llama a {@link #begin()} al entrar, {@link #mark(String)}
+ * al acabar cada etapa (se mide desde la marca anterior) y
+ * {@link #finish(String)} al responder. Todo el login corre en el hilo de la
+ * petición (bcrypt espera al pool), así que la traza en curso vive en un
+ * ThreadLocal y las etapas compartidas con otros endpoints no necesitan
+ * recibirla: sin traza activa, mark no hace nada.
+ *
+ * Cada etapa acumula un histograma de cubos fijos, del que salen p50/p95/p99
+ * para /api/admins/security/stats. Una fracción debug-sample-rate de los
+ * logins se escribe desglosada en el log de debug, y los que superan
+ * slow-threshold-ms siempre (en warn).
+ */
+@Component
+public class LoginMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginMetrics.class);
+
+    public static final String STAGE_RATE_LIMIT = "rate_limit";
+    public static final String STAGE_LOCKOUT = "lockout";
+    public static final String STAGE_DISTRIBUTED_ATTACK = "distributed_attack";
+    public static final String STAGE_ACCOUNT_LOOKUP = "account_lookup";
+    public static final String STAGE_PASSWORD = "password";
+    public static final String STAGE_ACCOUNT_LOAD = "account_load";
+    public static final String STAGE_TWO_FACTOR = "two_factor";
+    public static final String STAGE_THIRD_FACTOR = "third_factor";
+    public static final String STAGE_TOKEN = "token";
+    public static final String STAGE_COOKIE = "cookie";
+    public static final String STAGE_TOTAL = "total";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_INVALID_CREDENTIALS = "invalid_credentials";
+    public static final String OUTCOME_RATE_LIMITED = "rate_limited";
+    public static final String OUTCOME_LOCKED = "locked";
+    public static final String OUTCOME_INACTIVE = "inactive";
+    public static final String OUTCOME_TWO_FACTOR_REQUIRED = "two_factor_required";
+    public static final String OUTCOME_THIRD_FACTOR_REQUIRED = "third_factor_required";
+    public static final String OUTCOME_BAD_REQUEST = "bad_request";
+    public static final String OUTCOME_OVERLOADED = "overloaded";
+    public static final String OUTCOME_ERROR = "error";
+
+    private static final List<String> STAGES = List.of(
+        STAGE_RATE_LIMIT, STAGE_LOCKOUT, STAGE_DISTRIBUTED_ATTACK, STAGE_ACCOUNT_LOOKUP,
+        STAGE_PASSWORD, STAGE_ACCOUNT_LOAD, STAGE_TWO_FACTOR, STAGE_THIRD_FACTOR,
+        STAGE_TOKEN, STAGE_COOKIE, STAGE_TOTAL);
+
+    /** Límites superiores de los cubos en microsegundos; el último cubo es "más". */
+    static final long[] BUCKET_BOUNDS_MICROS = {
+        100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+        100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000 };
+
+    /** Histograma de una etapa. */
+    static final class StageTimer {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MICROS.length + 1];
+
+        StageTimer() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            long micros = nanos / 1000;
+            int i = 0;
+            while (i < BUCKET_BOUNDS_MICROS.length && micros > BUCKET_BOUNDS_MICROS[i]) {
+                i++;
+            }
+            buckets[i].increment();
+        }
+
+        /** Límite superior (ms) del cubo donde cae el cuantil q. */
+        double percentileMs(double q) {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0.0;
+            }
+            long rank = (long) Math.ceil(q * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i < BUCKET_BOUNDS_MICROS.length
+                        ? BUCKET_BOUNDS_MICROS[i] / 1000.0
+                        : maxNanos.get() / 1e6;
+                }
+            }
+            return maxNanos.get() / 1e6;
+        }
+
+        Map<String, Object> snapshot() {
+            long n = count.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", n);
+            stats.put("avgMs", n == 0 ? 0.0 : totalNanos.sum() / 1e6 / n);
+            stats.put("p50Ms", percentileMs(0.50));
+            stats.put("p95Ms", percentileMs(0.95));
+            stats.put("p99Ms", percentileMs(0.99));
+            stats.put("maxMs", maxNanos.get() / 1e6);
+            return stats;
+        }
+    }
+
+    /** Traza de un login en curso. */
+    private static final class Trace {
+        final long startNanos;
+        long lastNanos;
+        String outcome;
+        final String[] stages = new String[16];
+        final long[] nanos = new long[16];
+        int size;
+
+        Trace(long now) {
+            this.startNanos = now;
+            this.lastNanos = now;
+        }
+
+        void add(String stage, long elapsed) {
+            if (size < stages.length) {
+                stages[size] = stage;
+                nanos[size] = elapsed;
+                size++;
+            }
+        }
+
+        String breakdown() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    sb.append(' ');
+                }
+                sb.append(stages[i]).append('=').append(String.format("%.2f", nanos[i] / 1e6)).append("ms");
+            }
+            return sb.toString();
+        }
+    }
+
+    private final ThreadLocal<Trace> current = new ThreadLocal<>();
+    private final Map<String, StageTimer> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final List<LoginMetricsListener> listeners;
+
+    @Value("${security.login.metrics.debug-sample-rate:0.0}")
+    private double debugSampleRate = 0.0;
+
+    @Value("${security.login.metrics.slow-threshold-ms:0}")
+    private long slowThresholdMs = 0;
+
+    @Autowired
+    public LoginMetrics(ObjectProvider<LoginMetricsListener> listeners) {
+        this(listeners.orderedStream().toList());
+    }
+
+    LoginMetrics(List<LoginMetricsListener> listeners) {
+        this.listeners = List.copyOf(listeners);
+        for (String stage : STAGES) {
+            timers.put(stage, new StageTimer());
+        }
+    }
+
+    /** Empieza la traza del login en el hilo actual. */
+    public void begin() {
+        current.set(new Trace(System.nanoTime()));
+    }
+
+    /** Cierra una etapa: registra el tiempo desde la marca anterior. */
+    public void mark(String stage) {
+        Trace trace = current.get();
+        if (trace == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long elapsed = now - trace.lastNanos;
+        trace.lastNanos = now;
+        trace.add(stage, elapsed);
+        record(stage, elapsed);
+    }
+
+    /**
+     * Fija el resultado del login en curso cuando el código HTTP no basta
+     * para distinguirlo (p. ej. 429 por rate limit o por bloqueo).
+     */
+    public void outcome(String outcome) {
+        Trace trace = current.get();
+        if (trace != null) {
+            trace.outcome = outcome;
+        }
+    }
+
+    /**
+     * Termina la traza; {@code defaultOutcome} se usa si no se fijó otro.
+     */
+    public void finish(String defaultOutcome) {
+        Trace trace = current.get();
+        if (trace == null) {
+            return;
+        }
+        current.remove();
+        long total = System.nanoTime() - trace.startNanos;
+        String outcome = trace.outcome != null ? trace.outcome : defaultOutcome;
+        record(STAGE_TOTAL, total);
+        outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+        for (LoginMetricsListener listener : listeners) {
+            listener.recordOutcome(outcome);
+        }
+
+        double totalMs = total / 1e6;
+        if (slowThresholdMs > 0 && totalMs >= slowThresholdMs) {
+            log.warn("🐢 Login lento ({}) en {} ms: {}", outcome, String.format("%.1f", totalMs), trace.breakdown());
+        } else if (log.isDebugEnabled() && debugSampleRate > 0
+                && ThreadLocalRandom.current().nextDouble() < debugSampleRate) {
+            log.debug("⏱️ Login ({}) en {} ms: {}", outcome, String.format("%.1f", totalMs), trace.breakdown());
+        }
+    }
+
+    private void record(String stage, long nanos) {
+        timers.computeIfAbsent(stage, k -> new StageTimer()).record(nanos);
+        for (LoginMetricsListener listener : listeners) {
+            listener.recordStage(stage, nanos);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (String stage : STAGES) {
+            stages.put(stage, timers.get(stage).snapshot());
+        }
+        timers.forEach((stage, timer) -> stages.putIfAbsent(stage, timer.snapshot()));
+        Map<String, Object> results = new LinkedHashMap<>();
+        outcomes.forEach((outcome, count) -> results.put(outcome, count.sum()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stages", stages);
+        stats.put("outcomes", results);
+        stats.put("debugSampleRate", debugSampleRate);
+        stats.put("slowThresholdMs", slowThresholdMs);
+        return stats;
+    }
+}
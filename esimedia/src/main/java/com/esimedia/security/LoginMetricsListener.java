@@ -0,0 +1,15 @@
+package com.esimedia.security;
+
+/**
+ * Recibe cada medición de {@link LoginMetrics}, además de lo que se expone en
+ * /api/admins/security/stats. {@link MicrometerLoginMetricsListener} las publica
+ * en Micrometer (/actuator/metrics y /actuator/prometheus, en el puerto de gestión).
+ */
+public interface LoginMetricsListener {
+
+    /** Duración de una etapa del login (o "total"). */
+    void recordStage(String stage, long nanos);
+
+    /** Resultado de un login terminado. */
+    void recordOutcome(String outcome);
+}
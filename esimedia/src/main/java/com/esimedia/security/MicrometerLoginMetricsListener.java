@@ -0,0 +1,47 @@
+package com.esimedia.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Publica las mediciones de {@link LoginMetrics} en Micrometer:
+ * esimedia.login.stage (timer con histograma, etiqueta stage) y
+ * esimedia.login.outcome (contador, etiqueta result).
+ */
+@Component
+public class MicrometerLoginMetricsListener implements LoginMetricsListener {
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public MicrometerLoginMetricsListener(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void recordStage(String stage, long nanos) {
+        timers.computeIfAbsent(stage, s -> Timer.builder("esimedia.login.stage")
+                .description("Duración de cada etapa de /api/auth/login")
+                .tag("stage", s)
+                .publishPercentileHistogram()
+                .register(registry))
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordOutcome(String outcome) {
+        counters.computeIfAbsent(outcome, o -> Counter.builder("esimedia.login.outcome")
+                .description("Logins terminados por resultado")
+                .tag("result", o)
+                .register(registry))
+            .increment();
+    }
+}
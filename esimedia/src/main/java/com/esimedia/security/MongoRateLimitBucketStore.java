@@ -0,0 +1,211 @@
+package com.esimedia.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Buckets compartidos entre nodos en la colección {@code rate_limit_buckets},
+ * usando el proxy compare-and-swap genérico de bucket4j: se lee el estado
+ * serializado y se sustituye solo si nadie lo ha cambiado entretanto.
+ *
+ * Cada escritura fija {@code expiresAt} al momento en que el bucket volvería
+ * a estar lleno; un índice TTL borra entonces el documento, lo que acota el
+ * tamaño de la colección sin perder límites. El _id es el SHA-256 de la clave
+ * (no se guardan emails ni IPs en claro).
+ */
+@Component
+@ConditionalOnProperty(name = "security.rate-limit.backend", havingValue = "mongo")
+public class MongoRateLimitBucketStore implements RateLimitBucketStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoRateLimitBucketStore.class);
+
+    static final String COLLECTION = "rate_limit_buckets";
+    private static final String STATE = "state";
+    private static final String EXPIRES_AT = "expiresAt";
+    // Margen para no borrar un bucket justo antes de que un nodo lo vuelva a usar
+    private static final long EXPIRY_MARGIN_MS = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoCasProxyManager proxyManager;
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder casConflicts = new LongAdder();
+
+    public MongoRateLimitBucketStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        this.proxyManager = new MongoCasProxyManager();
+    }
+
+    @PostConstruct
+    void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(COLLECTION)
+                .createIndex(new Index().on(EXPIRES_AT, Sort.Direction.ASC).expire(0, TimeUnit.SECONDS));
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo crear el índice TTL de rate limit: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Bucket bucket(String kind, String key, BucketConfiguration config, Duration refillPeriod) {
+        return proxyManager.builder().build(hash(kind + ":" + key), config);
+    }
+
+    @Override
+    public void evictIdle() {
+        // Caducan por TTL en Mongo
+    }
+
+    @Override
+    public String name() {
+        return "mongo";
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("backend", name());
+        stats.put("reads", reads.sum());
+        stats.put("writes", writes.sum());
+        stats.put("casConflicts", casConflicts.sum());
+        return stats;
+    }
+
+    private static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * ProxyManager CAS sobre un documento {_id, state (binario), expiresAt}.
+     */
+    private final class MongoCasProxyManager extends AbstractCompareAndSwapBasedProxyManager<String> {
+
+        MongoCasProxyManager() {
+            super(ClientSideConfig.getDefault());
+        }
+
+        @Override
+        protected CompareAndSwapOperation beginCompareAndSwapOperation(String id) {
+            return new CompareAndSwapOperation() {
+                @Override
+                public Optional<byte[]> getStateData() {
+                    reads.increment();
+                    Document doc = mongoTemplate.findById(id, Document.class, COLLECTION);
+                    if (doc == null) {
+                        return Optional.empty();
+                    }
+                    Binary state = doc.get(STATE, Binary.class);
+                    return state == null ? Optional.empty() : Optional.of(state.getData());
+                }
+
+                @Override
+                public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                    writes.increment();
+                    Date expiresAt = expiresAt(newState);
+                    if (originalData == null) {
+                        try {
+                            mongoTemplate.insert(new Document("_id", id)
+                                .append(STATE, new Binary(newData))
+                                .append(EXPIRES_AT, expiresAt), COLLECTION);
+                            return true;
+                        } catch (DuplicateKeyException e) {
+                            casConflicts.increment();
+                            return false; // otro nodo lo creó antes: bucket4j reintenta
+                        }
+                    }
+                    Query expected = new Query(Criteria.where("_id").is(id).and(STATE).is(new Binary(originalData)));
+                    Update update = new Update().set(STATE, new Binary(newData)).set(EXPIRES_AT, expiresAt);
+                    if (mongoTemplate.updateFirst(expected, update, COLLECTION).getMatchedCount() == 1) {
+                        return true;
+                    }
+                    casConflicts.increment();
+                    return false;
+                }
+            };
+        }
+
+        private Date expiresAt(RemoteBucketState state) {
+            long nowMs = System.currentTimeMillis();
+            long refillMs = TimeUnit.NANOSECONDS.toMillis(state.calculateFullRefillingTime(nowMs * 1_000_000L));
+            return new Date(nowMs + refillMs + EXPIRY_MARGIN_MS);
+        }
+
+        /*
+         * bucket4j 7.6 declara abstractas las variantes asíncronas. Con
+         * isAsyncModeSupported()=false, asAsync() ya las rechaza en la clase base,
+         * así que aquí solo envuelven las operaciones síncronas.
+         */
+        @Override
+        protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(String id) {
+            CompareAndSwapOperation sync = beginCompareAndSwapOperation(id);
+            return new AsyncCompareAndSwapOperation() {
+                @Override
+                public CompletableFuture<Optional<byte[]>> getStateData() {
+                    return CompletableFuture.completedFuture(sync.getStateData());
+                }
+
+                @Override
+                public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData,
+                                                                 RemoteBucketState newState) {
+                    return CompletableFuture.completedFuture(sync.compareAndSwap(originalData, newData, newState));
+                }
+            };
+        }
+
+        @Override
+        public void removeProxy(String id) {
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(id)), COLLECTION);
+        }
+
+        @Override
+        protected CompletableFuture<Void> removeAsync(String id) {
+            removeProxy(id);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public boolean isAsyncModeSupported() {
+            return false;
+        }
+    }
+}
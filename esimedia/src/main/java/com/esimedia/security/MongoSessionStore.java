@@ -0,0 +1,111 @@
+package com.esimedia.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Backend compartido en la colección {@code sessions}. El _id es el SHA-256
+ * de la clave de sesión (el token nunca se guarda en claro). Un índice TTL
+ * sobre {@code expiresAt} borra las sesiones abandonadas sin barridos.
+ */
+@Component
+@ConditionalOnProperty(name = "security.session.store", havingValue = "mongo")
+public class MongoSessionStore implements SessionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoSessionStore.class);
+    private static final String COLLECTION = "sessions";
+    private static final String ROLE = "role";
+    private static final String CREATED_AT = "createdAt";
+    private static final String LAST_ACTIVITY = "lastActivity";
+    private static final String EXPIRES_AT = "expiresAt";
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoSessionStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @PostConstruct
+    void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(COLLECTION)
+                .createIndex(new Index().on(EXPIRES_AT, Sort.Direction.ASC).expire(0, TimeUnit.SECONDS));
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo crear el índice TTL de sesiones: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    @Override
+    public Entry load(String key) {
+        Document doc = mongoTemplate.findById(hash(key), Document.class, COLLECTION);
+        if (doc == null) {
+            return null;
+        }
+        return new Entry(key,
+            doc.getString(ROLE),
+            doc.getDate(CREATED_AT).getTime(),
+            doc.getLong(LAST_ACTIVITY),
+            doc.getDate(EXPIRES_AT).getTime());
+    }
+
+    @Override
+    public void flush(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        for (Entry e : entries) {
+            Update update = new Update()
+                .setOnInsert(ROLE, e.role)
+                .min(CREATED_AT, new Date(e.createdAtMs))
+                .max(LAST_ACTIVITY, e.lastActivityMs)
+                .max(EXPIRES_AT, new Date(e.expiresAtMs));
+            bulk.upsert(new Query(Criteria.where("_id").is(hash(e.key))), update);
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public void delete(String key) {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(hash(key))), COLLECTION);
+    }
+
+    @Override
+    public String name() {
+        return "mongo";
+    }
+
+    private static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
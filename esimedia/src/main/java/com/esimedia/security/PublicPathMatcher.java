@@ -0,0 +1,72 @@
+package com.esimedia.security;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Trie de prefijos de ruta precompilado a partir de la configuración.
+ * Cada prefijo lleva una máscara de flags (qué etapas se omiten) y
+ * {@link #match(String)} devuelve el OR de los flags de todos los prefijos
+ * que encajan con la ruta, recorriéndola una sola vez y sin reservar memoria.
+ */
+public final class PublicPathMatcher {
+
+    /** No exigir token de acceso. */
+    public static final int SKIP_AUTH = 1;
+    /** No aplicar los timeouts de sesión. */
+    public static final int SKIP_SESSION = 2;
+
+    private static final class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        int flags;
+
+        Node child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) return children[i];
+            }
+            return null;
+        }
+
+        Node addChild(char c) {
+            Node existing = child(c);
+            if (existing != null) return existing;
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            Node created = new Node();
+            children[children.length - 1] = created;
+            return created;
+        }
+    }
+
+    private final Node root = new Node();
+
+    public PublicPathMatcher add(List<String> prefixes, int flags) {
+        for (String prefix : prefixes) {
+            String p = prefix.trim();
+            if (p.isEmpty()) continue;
+            Node node = root;
+            for (int i = 0; i < p.length(); i++) {
+                node = node.addChild(p.charAt(i));
+            }
+            node.flags |= flags;
+        }
+        return this;
+    }
+
+    /**
+     * @return máscara con {@link #SKIP_AUTH} / {@link #SKIP_SESSION} (0 si ninguna)
+     */
+    public int match(String path) {
+        if (path == null) return 0;
+        int flags = root.flags;
+        Node node = root;
+        for (int i = 0; i < path.length(); i++) {
+            node = node.child(path.charAt(i));
+            if (node == null) break;
+            flags |= node.flags;
+        }
+        return flags;
+    }
+}
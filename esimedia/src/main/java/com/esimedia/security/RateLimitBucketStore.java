@@ -0,0 +1,30 @@
+package com.esimedia.security;
+
+import java.time.Duration;
+import java.util.Map;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+
+/**
+ * Almacenamiento de buckets detrás de {@link RateLimitService}. La versión
+ * local acota el número de buckets por tipo; la de Mongo comparte el estado
+ * entre nodos para que los límites sean globales.
+ */
+public interface RateLimitBucketStore {
+
+    /**
+     * Bucket para {@code kind}/{@code key}, creado con {@code config} si no
+     * existe. {@code refillPeriod} es el tiempo tras el cual un bucket sin uso
+     * vuelve a estar lleno y puede descartarse sin perder información.
+     */
+    Bucket bucket(String kind, String key, BucketConfiguration config, Duration refillPeriod);
+
+    /** Descarta buckets inactivos (si el backend no caduca solo). */
+    void evictIdle();
+
+    /** Nombre para métricas. */
+    String name();
+
+    Map<String, Object> getStats();
+}
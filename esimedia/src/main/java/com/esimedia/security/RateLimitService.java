@@ -1,57 +1,96 @@
 package com.esimedia.security;
 
 import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.Refill;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+
 import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class RateLimitService {
-    
-    private final Map<String, Bucket> loginBuckets = new ConcurrentHashMap<>();
-    private final Map<String, Bucket> otpBuckets = new ConcurrentHashMap<>();
-    private final Map<String, Bucket> otpDailyBuckets = new ConcurrentHashMap<>();
-    
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitService.class);
+
+    static final String LOGIN = "login";
+    static final String OTP_HOURLY = "otp-hourly";
+    static final String OTP_DAILY = "otp-daily";
+
+    private static final Duration LOGIN_PERIOD = Duration.ofMinutes(5);
+    private static final Duration OTP_HOURLY_PERIOD = Duration.ofHours(1);
+    private static final Duration OTP_DAILY_PERIOD = Duration.ofDays(1);
+
+    private static final BucketConfiguration LOGIN_CONFIG = config(5, LOGIN_PERIOD);
+    private static final BucketConfiguration OTP_HOURLY_CONFIG = config(3, OTP_HOURLY_PERIOD);
+    private static final BucketConfiguration OTP_DAILY_CONFIG = config(10, OTP_DAILY_PERIOD);
+
+    private final RateLimitBucketStore store;
+    // Si el backend compartido falla, se sigue limitando en local
+    private final RateLimitBucketStore fallback;
+
+    public RateLimitService() {
+        this(new LocalRateLimitBucketStore(100000));
+    }
+
+    @Autowired
+    public RateLimitService(RateLimitBucketStore store) {
+        this.store = store;
+        this.fallback = store instanceof LocalRateLimitBucketStore ? store : new LocalRateLimitBucketStore(100000);
+    }
+
     /**
      * Verificar rate limit para login: 5 intentos / 5 min por IP+email
      */
     public boolean allowLogin(String ipAddress, String email) {
-        String key = ipAddress + ":" + email;
-        Bucket bucket = loginBuckets.computeIfAbsent(key, k -> createLoginBucket());
-        return bucket.tryConsume(1);
+        return tryConsume(LOGIN, ipAddress + ":" + email, LOGIN_CONFIG, LOGIN_PERIOD);
     }
-    
+
     /**
      * Verificar rate limit para OTP: 3 envíos / hora
      */
     public boolean allowOtpHourly(String email) {
-        Bucket bucket = otpBuckets.computeIfAbsent(email, k -> createOtpHourlyBucket());
-        return bucket.tryConsume(1);
+        return tryConsume(OTP_HOURLY, email, OTP_HOURLY_CONFIG, OTP_HOURLY_PERIOD);
     }
-    
+
     /**
      * Verificar rate limit para OTP: 10 envíos / día
      */
     public boolean allowOtpDaily(String email) {
-        Bucket bucket = otpDailyBuckets.computeIfAbsent(email, k -> createOtpDailyBucket());
-        return bucket.tryConsume(1);
+        return tryConsume(OTP_DAILY, email, OTP_DAILY_CONFIG, OTP_DAILY_PERIOD);
+    }
+
+    private boolean tryConsume(String kind, String key, BucketConfiguration config, Duration period) {
+        try {
+            return store.bucket(kind, key, config, period).tryConsume(1);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Backend de rate limit {} no disponible, se usa el local: {}", store.name(), e.getMessage());
+            return fallback.bucket(kind, key, config, period).tryConsume(1);
+        }
     }
-    
-    private Bucket createLoginBucket() {
-        Bandwidth limit = Bandwidth.classic(5, Refill.intervally(5, Duration.ofMinutes(5)));
-        return Bucket.builder().addLimit(limit).build();
+
+    /**
+     * Barrido de buckets inactivos (ya recargados por completo).
+     */
+    @Scheduled(fixedDelayString = "${security.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        store.evictIdle();
+        if (fallback != store) {
+            fallback.evictIdle();
+        }
     }
-    
-    private Bucket createOtpHourlyBucket() {
-        Bandwidth limit = Bandwidth.classic(3, Refill.intervally(3, Duration.ofHours(1)));
-        return Bucket.builder().addLimit(limit).build();
+
+    public Map<String, Object> getStats() {
+        return store.getStats();
     }
-    
-    private Bucket createOtpDailyBucket() {
-        Bandwidth limit = Bandwidth.classic(10, Refill.intervally(10, Duration.ofDays(1)));
-        return Bucket.builder().addLimit(limit).build();
+
+    private static BucketConfiguration config(long capacity, Duration period) {
+        Bandwidth limit = Bandwidth.classic(capacity, Refill.intervally(capacity, period));
+        return BucketConfiguration.builder().addLimit(limit).build();
     }
-}
\ No newline at end of file
+}
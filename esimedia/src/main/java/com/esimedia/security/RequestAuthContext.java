@@ -0,0 +1,63 @@
+package com.esimedia.security;
+
+import com.esimedia.accounts.model.Token;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resultado de autenticación y sesión resuelto una sola vez por
+ * {@link AuthenticationSessionFilter}. Se publica como atributo de la petición
+ * para que controladores y servicios no vuelvan a leer cabeceras, cookies ni BD.
+ */
+public final class RequestAuthContext {
+
+    public static final String ATTRIBUTE = RequestAuthContext.class.getName();
+
+    private final String tokenValue;
+    private final Token token;
+    private final String role;
+    private final String sessionKey;
+    private final InMemorySessionRegistry.SessionInfo session;
+
+    RequestAuthContext(String tokenValue, Token token, String role, String sessionKey,
+                       InMemorySessionRegistry.SessionInfo session) {
+        this.tokenValue = tokenValue;
+        this.token = token;
+        this.role = role;
+        this.sessionKey = sessionKey;
+        this.session = session;
+    }
+
+    public static RequestAuthContext from(HttpServletRequest request) {
+        Object value = request.getAttribute(ATTRIBUTE);
+        return value instanceof RequestAuthContext ? (RequestAuthContext) value : null;
+    }
+
+    /** Valor crudo del token (Bearer o cookie access_token), o null. */
+    public String getTokenValue() {
+        return tokenValue;
+    }
+
+    /** Token validado, o null si no había token o no era válido. */
+    public Token getToken() {
+        return token;
+    }
+
+    public boolean isAuthenticated() {
+        return token != null;
+    }
+
+    /** Rol normalizado: "admin", "creator" o "user". */
+    public String getRole() {
+        return role;
+    }
+
+    public String getSessionKey() {
+        return sessionKey;
+    }
+
+    /** Sesión asociada, o null si la ruta no aplica timeouts o no hay clave. */
+    public InMemorySessionRegistry.SessionInfo getSession() {
+        return session;
+    }
+}
@@ -0,0 +1,148 @@
+package com.esimedia.security;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.esimedia.accounts.model.RevokedToken;
+import com.esimedia.accounts.repository.RevokedTokenRepository;
+
+/**
+ * Conjunto pequeño de revocaciones de tokens firmados.
+ * Solo se escribe en logout y desactivación de cuentas; la comprobación en cada
+ * petición es una búsqueda en memoria. Las revocaciones se guardan también en
+ * Mongo, se cargan al arrancar y se recargan periódicamente (solo las nuevas)
+ * para que el resto de nodos las vean.
+ *
+ * Se cargan en cualquier modo: AccessTokenService acepta tokens firmados
+ * también en modo persisted (emitidos antes de cambiar de modo) y sus
+ * revocaciones tienen que seguir valiendo tras un reinicio o en otro nodo.
+ */
+@Component
+public class RevokedTokenRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(RevokedTokenRegistry.class);
+    private static final String ACCOUNT_PREFIX = "account:";
+
+    private final RevokedTokenRepository repository;
+
+    // Margen para relojes desfasados entre nodos: se vuelve a pedir este tramo
+    @Value("${security.token.revocation-skew-ms:60000}")
+    private long skewMs = 60_000;
+
+    // revokedAtMs más alto visto en Mongo; -1 = aún no se ha cargado nada
+    private volatile long lastSeenRevokedAtMs = -1;
+
+    // jti -> expiración (ms) del token revocado
+    private final Map<String, Long> revokedIds = new ConcurrentHashMap<>();
+    // accountId (minúsculas) -> tokens emitidos antes de revokedAtMs están revocados
+    private final Map<String, AccountRevocation> revokedAccounts = new ConcurrentHashMap<>();
+
+    private static final class AccountRevocation {
+        final long revokedAtMs;
+        final long expiresAtMs;
+
+        AccountRevocation(long revokedAtMs, long expiresAtMs) {
+            this.revokedAtMs = revokedAtMs;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+
+    public RevokedTokenRegistry(RevokedTokenRepository repository) {
+        this.repository = repository;
+    }
+
+    public boolean isRevoked(SignedTokenCodec.Claims claims) {
+        if (revokedIds.containsKey(claims.jti)) {
+            return true;
+        }
+        if (revokedAccounts.isEmpty()) {
+            return false;
+        }
+        AccountRevocation revocation = revokedAccounts.get(claims.accountId.toLowerCase());
+        return revocation != null && claims.issuedAtMs <= revocation.revokedAtMs;
+    }
+
+    public void revoke(SignedTokenCodec.Claims claims) {
+        revokedIds.put(claims.jti, claims.expiresAtMs);
+
+        RevokedToken doc = new RevokedToken();
+        doc.setId(claims.jti);
+        doc.setAccountId(claims.accountId);
+        doc.setRevokedAtMs(System.currentTimeMillis());
+        doc.setExpiration(toLocalDateTime(claims.expiresAtMs));
+        repository.save(doc);
+    }
+
+    /**
+     * Revoca todos los tokens emitidos hasta ahora para la cuenta.
+     * @param maxTokenLifetimeMs vida máxima de un token, para caducar la revocación
+     */
+    public void revokeAccount(String accountId, long maxTokenLifetimeMs) {
+        long now = System.currentTimeMillis();
+        revokedAccounts.put(accountId.toLowerCase(), new AccountRevocation(now, now + maxTokenLifetimeMs));
+
+        RevokedToken doc = new RevokedToken();
+        doc.setId(ACCOUNT_PREFIX + accountId.toLowerCase());
+        doc.setAccountId(accountId);
+        doc.setWholeAccount(true);
+        doc.setRevokedAtMs(now);
+        doc.setExpiration(toLocalDateTime(now + maxTokenLifetimeMs));
+        repository.save(doc);
+    }
+
+    /**
+     * Carga las revocaciones hechas en otros nodos (o antes de reiniciar) y
+     * descarta las caducadas. La primera pasada, al arrancar, lee todas; las
+     * siguientes solo las que tienen revokedAtMs posterior a la última vista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${security.token.revocation-refresh-ms:30000}",
+               fixedDelayString = "${security.token.revocation-refresh-ms:30000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        revokedIds.values().removeIf(exp -> exp <= now);
+        revokedAccounts.values().removeIf(r -> r.expiresAtMs <= now);
+        try {
+            long since = lastSeenRevokedAtMs < 0 ? -1 : lastSeenRevokedAtMs - skewMs;
+            long newest = lastSeenRevokedAtMs;
+            for (RevokedToken doc : repository.findByRevokedAtMsGreaterThan(since)) {
+                newest = Math.max(newest, doc.getRevokedAtMs());
+                long exp = doc.getExpiration() == null ? 0 : toEpochMs(doc.getExpiration());
+                if (exp <= now) continue;
+                if (doc.isWholeAccount()) {
+                    revokedAccounts.merge(doc.getAccountId().toLowerCase(),
+                            new AccountRevocation(doc.getRevokedAtMs(), exp),
+                            (a, b) -> a.revokedAtMs >= b.revokedAtMs ? a : b);
+                } else {
+                    revokedIds.putIfAbsent(doc.getId(), exp);
+                }
+            }
+            lastSeenRevokedAtMs = Math.max(newest, 0);
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudieron recargar los tokens revocados: {}", e.getMessage());
+        }
+    }
+
+    public int size() {
+        return revokedIds.size() + revokedAccounts.size();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMs(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,63 @@
+package com.esimedia.security;
+
+/**
+ * Evento de auditoría de seguridad. Se construye en el hilo de la petición y
+ * se formatea y escribe más tarde en el hilo de {@link SecurityAuditLog}.
+ */
+public record SecurityAuditEvent(
+    long timestampMs,
+    Type type,
+    String subject,
+    String ip,
+    int count,
+    String detail
+) {
+
+    public enum Type {
+        LOGIN_SUCCESS,
+        LOGIN_FAILURE,
+        LOCKOUT,
+        DISTRIBUTED_ATTACK,
+        TOKEN_REJECTED
+    }
+
+    /**
+     * Línea JSON sin salto final.
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("{\"ts\":").append(timestampMs)
+          .append(",\"type\":\"").append(type.name()).append('"');
+        appendField(sb, "subject", subject);
+        appendField(sb, "ip", ip);
+        if (count > 0) {
+            sb.append(",\"count\":").append(count);
+        }
+        appendField(sb, "detail", detail);
+        return sb.append('}').toString();
+    }
+
+    private static void appendField(StringBuilder sb, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        sb.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,280 @@
+package com.esimedia.security;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Auditoría de seguridad asíncrona. Los hilos de petición solo publican un
+ * {@link SecurityAuditEvent} en un ring buffer acotado sin locks (reserva del
+ * hueco por CAS); un único hilo escritor vacía el buffer por lotes a un
+ * fichero JSON-lines con rotación por tamaño. Si el buffer está lleno el
+ * evento se descarta y se cuenta: durante un ataque la auditoría nunca frena
+ * ni bloquea el login.
+ */
+@Component
+public class SecurityAuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityAuditLog.class);
+
+    private final boolean enabled;
+    private final Path file;
+    private final int batchSize;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final long idleParkNanos;
+
+    // Ring buffer MPSC: los productores reservan con CAS sobre tail, el escritor avanza head
+    private final AtomicReferenceArray<SecurityAuditEvent> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder writeErrors = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writerThread;
+    private BufferedWriter out;
+    private long currentBytes;
+
+    public SecurityAuditLog(
+            @Value("${security.audit.enabled:true}") boolean enabled,
+            @Value("${security.audit.file:logs/security-audit.log}") String file,
+            @Value("${security.audit.buffer-size:8192}") int bufferSize,
+            @Value("${security.audit.batch-size:256}") int batchSize,
+            @Value("${security.audit.max-file-mb:20}") long maxFileMb,
+            @Value("${security.audit.max-files:5}") int maxFiles,
+            @Value("${security.audit.flush-interval-ms:200}") long flushIntervalMs) {
+        this.enabled = enabled;
+        this.file = Paths.get(file);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxFileBytes = Math.max(1, maxFileMb) * 1024 * 1024;
+        this.maxFiles = Math.max(1, maxFiles);
+        this.idleParkNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::writeLoop, "security-audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // ---- API para productores (hilos de petición) ----
+
+    public void loginSuccess(String email, String ip) {
+        record(SecurityAuditEvent.Type.LOGIN_SUCCESS, email, ip, 0, null);
+    }
+
+    public void loginFailure(String email, String ip, int attempts) {
+        record(SecurityAuditEvent.Type.LOGIN_FAILURE, email, ip, attempts, null);
+    }
+
+    public void lockout(String email, String ip, int attempts, long lockedUntilMs) {
+        record(SecurityAuditEvent.Type.LOCKOUT, email, ip, attempts, "lockedUntilMs=" + lockedUntilMs);
+    }
+
+    public void distributedAttack(String email, String ip, int globalAttempts) {
+        record(SecurityAuditEvent.Type.DISTRIBUTED_ATTACK, email, ip, globalAttempts, null);
+    }
+
+    public void tokenRejected(String ip, String path) {
+        record(SecurityAuditEvent.Type.TOKEN_REJECTED, null, ip, 0, path);
+    }
+
+    /**
+     * Publica un evento sin bloquear. Devuelve false si se descartó.
+     */
+    public boolean record(SecurityAuditEvent.Type type, String subject, String ip, int count, String detail) {
+        if (!enabled) {
+            return false;
+        }
+        SecurityAuditEvent event = new SecurityAuditEvent(System.currentTimeMillis(), type, subject, ip, count, detail);
+        while (true) {
+            long t = tail.get();
+            if (t - head.get() >= slots.length()) {
+                dropped.increment();
+                return false;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                slots.lazySet((int) (t & mask), event);
+                published.increment();
+                return true;
+            }
+        }
+    }
+
+    // ---- Escritor ----
+
+    private void writeLoop() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(idleParkNanos);
+            }
+        }
+        drain();
+        closeQuietly();
+    }
+
+    /**
+     * Escribe los eventos pendientes por lotes. Solo lo llama el hilo escritor
+     * (o los tests cuando no se ha arrancado).
+     */
+    int drain() {
+        int total = 0;
+        int n;
+        do {
+            n = writeBatch();
+            total += n;
+        } while (n == batchSize);
+        return total;
+    }
+
+    private int writeBatch() {
+        long h = head.get();
+        int n = 0;
+        StringBuilder batch = null;
+        while (n < batchSize) {
+            int idx = (int) ((h + n) & mask);
+            SecurityAuditEvent event = slots.get(idx);
+            if (event == null) {
+                break; // hueco reservado pero aún no publicado, o buffer vacío
+            }
+            slots.lazySet(idx, null);
+            if (batch == null) {
+                batch = new StringBuilder(batchSize * 96);
+            }
+            batch.append(event.toJson()).append('\n');
+            n++;
+        }
+        if (n == 0) {
+            return 0;
+        }
+        head.set(h + n);
+        try {
+            write(batch.toString());
+            written.add(n);
+            batches.increment();
+        } catch (IOException e) {
+            writeErrors.increment();
+            closeQuietly();
+            log.warn("⚠️ No se pudo escribir la auditoría de seguridad en {}: {}", file, e.getMessage());
+        }
+        return n;
+    }
+
+    private void write(String chunk) throws IOException {
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        if (out == null) {
+            open();
+        }
+        if (currentBytes > 0 && currentBytes + bytes.length > maxFileBytes) {
+            rotate();
+        }
+        out.write(chunk);
+        out.flush();
+        currentBytes += bytes.length;
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        currentBytes = Files.size(file);
+    }
+
+    /**
+     * security-audit.log -> .1 -> .2 ... -> .max-files (se borra el más antiguo).
+     */
+    private void rotate() throws IOException {
+        closeQuietly();
+        Files.deleteIfExists(rolled(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path from = rolled(i);
+            if (Files.exists(from)) {
+                Files.move(from, rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeQuietly() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // ya se está descartando el writer
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * Métricas: publicados, descartados por buffer lleno, escritos y pendientes.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("file", file.toString());
+        stats.put("capacity", slots.length());
+        stats.put("pending", Math.max(0, tail.get() - head.get()));
+        stats.put("published", published.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("written", written.sum());
+        stats.put("batches", batches.sum());
+        stats.put("writeErrors", writeErrors.sum());
+        return stats;
+    }
+}
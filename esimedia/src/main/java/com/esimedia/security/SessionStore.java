@@ -0,0 +1,45 @@
+package com.esimedia.security;
+
+import java.util.List;
+
+/**
+ * Backend de sesiones detrás de {@link InMemorySessionRegistry}.
+ * El registro mantiene siempre una copia local; un backend compartido permite
+ * que todos los nodos apliquen los mismos timeouts. Las actualizaciones de
+ * actividad llegan agrupadas en {@link #flush(List)}, nunca una por petición.
+ */
+public interface SessionStore {
+
+    /**
+     * Estado persistido de una sesión.
+     */
+    final class Entry {
+        public final String key;
+        public final String role;
+        public final long createdAtMs;
+        public final long lastActivityMs;
+        public final long expiresAtMs;
+
+        public Entry(String key, String role, long createdAtMs, long lastActivityMs, long expiresAtMs) {
+            this.key = key;
+            this.role = role;
+            this.createdAtMs = createdAtMs;
+            this.lastActivityMs = lastActivityMs;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+
+    /** true si el backend es compartido entre nodos (si no, el registro no lo consulta). */
+    boolean isShared();
+
+    /** Lectura remota de una sesión; null si no existe. */
+    Entry load(String key);
+
+    /** Alta o actualización por lotes; lastActivity nunca retrocede. */
+    void flush(List<Entry> entries);
+
+    void delete(String key);
+
+    /** Nombre para métricas. */
+    String name();
+}
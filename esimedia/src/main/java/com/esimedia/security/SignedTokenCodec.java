@@ -0,0 +1,126 @@
+package com.esimedia.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Formato de token de acceso autocontenido firmado con HMAC-SHA256:
+ * {@code v1.<payload base64url>.<firma base64url>}, donde el payload es
+ * {@code accountId \n role \n issuedAtMs \n expiresAtMs \n jti}.
+ * Se verifica solo con CPU, sin consultar la base de datos.
+ */
+@Component
+public class SignedTokenCodec {
+
+    public static final String PREFIX = "v1.";
+
+    private static final Logger log = LoggerFactory.getLogger(SignedTokenCodec.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64_DECODER = Base64.getUrlDecoder();
+
+    /**
+     * Datos contenidos en un token firmado ya verificado.
+     */
+    public static final class Claims {
+        public final String accountId;
+        public final String role;
+        public final long issuedAtMs;
+        public final long expiresAtMs;
+        public final String jti;
+
+        Claims(String accountId, String role, long issuedAtMs, long expiresAtMs, String jti) {
+            this.accountId = accountId;
+            this.role = role;
+            this.issuedAtMs = issuedAtMs;
+            this.expiresAtMs = expiresAtMs;
+            this.jti = jti;
+        }
+    }
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public SignedTokenCodec(@Value("${security.token.signing-secret:}") String secret) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            SECURE_RANDOM.nextBytes(keyBytes);
+            log.warn("⚠️ security.token.signing-secret no configurado: se usa una clave aleatoria " +
+                     "(los tokens firmados no sobreviven a reinicios ni son válidos entre nodos)");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public static boolean isSigned(String token) {
+        return token != null && token.startsWith(PREFIX);
+    }
+
+    public String encode(String accountId, String role, long issuedAtMs, long expiresAtMs) {
+        byte[] jtiBytes = new byte[12];
+        SECURE_RANDOM.nextBytes(jtiBytes);
+        String payload = accountId + "\n" + role + "\n" + issuedAtMs + "\n" + expiresAtMs + "\n" + B64.encodeToString(jtiBytes);
+        String encodedPayload = B64.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return PREFIX + encodedPayload + "." + B64.encodeToString(sign(encodedPayload));
+    }
+
+    /**
+     * Verifica firma y caducidad. Devuelve null si el token no es válido.
+     */
+    public Claims decode(String token, long nowMs) {
+        if (!isSigned(token)) {
+            return null;
+        }
+        int dot = token.indexOf('.', PREFIX.length());
+        if (dot < 0) {
+            return null;
+        }
+        String encodedPayload = token.substring(PREFIX.length(), dot);
+        try {
+            byte[] signature = B64_DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(encodedPayload))) {
+                return null;
+            }
+            String[] parts = new String(B64_DECODER.decode(encodedPayload), StandardCharsets.UTF_8).split("\n", -1);
+            if (parts.length != 5) {
+                return null;
+            }
+            long expiresAtMs = Long.parseLong(parts[3]);
+            if (expiresAtMs <= nowMs) {
+                return null;
+            }
+            return new Claims(parts[0], parts[1], Long.parseLong(parts[2]), expiresAtMs, parts[4]);
+        } catch (IllegalArgumentException e) {
+            // Base64 o números mal formados
+            return null;
+        }
+    }
+
+    private byte[] sign(String encodedPayload) {
+        return macs.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo inicializar " + ALGORITHM, e);
+        }
+    }
+}
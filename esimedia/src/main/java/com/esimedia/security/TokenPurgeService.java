@@ -0,0 +1,136 @@
+package com.esimedia.security;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.esimedia.accounts.model.Token;
+
+/**
+ * Purga de respaldo de la colección {@code tokens}. El índice TTL sobre
+ * {@code expiration} borra los tokens caducados, pero su monitor solo pasa
+ * cada ~60 s y no informa de nada; este job borra por lotes de ids (con pausa
+ * entre lotes para no competir con los logins) y deja métricas de la última
+ * ejecución y del tamaño de la colección.
+ */
+@Component
+public class TokenPurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenPurgeService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder totalRemoved = new LongAdder();
+    private final LongAdder runs = new LongAdder();
+
+    private volatile long lastRemoved;
+    private volatile long lastDurationMs;
+    private volatile long lastRunAtMs;
+    private volatile long collectionSize = -1;
+
+    @Value("${security.token.purge.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${security.token.purge.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${security.token.purge.max-batches:20}")
+    private int maxBatches = 20;
+
+    @Value("${security.token.purge.pause-ms:100}")
+    private long pauseMs = 100;
+
+    public TokenPurgeService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Scheduled(initialDelayString = "${security.token.purge.interval-ms:600000}",
+               fixedDelayString = "${security.token.purge.interval-ms:600000}")
+    public void scheduledPurge() {
+        if (enabled) {
+            purgeExpired();
+        }
+    }
+
+    /**
+     * Borra tokens caducados en lotes acotados. Devuelve el número de
+     * documentos eliminados; si ya hay una purga en curso devuelve 0.
+     */
+    public long purgeExpired() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        long removed = 0;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (int batch = 0; batch < maxBatches; batch++) {
+                Query expired = new Query(Criteria.where("expiration").lt(now)).limit(batchSize);
+                expired.fields().include("_id");
+                List<Token> tokens = mongoTemplate.find(expired, Token.class);
+                if (tokens.isEmpty()) {
+                    break;
+                }
+                List<String> ids = tokens.stream().map(Token::getId).toList();
+                removed += mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), Token.class).getDeletedCount();
+                if (tokens.size() < batchSize || !pause()) {
+                    break;
+                }
+            }
+            collectionSize = mongoTemplate.estimatedCount(Token.class);
+            if (removed > 0) {
+                log.info("🧹 Tokens caducados eliminados: {} | Tokens en colección: {}", removed, collectionSize);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Error purgando tokens caducados: {}", e.getMessage());
+        } finally {
+            lastRemoved = removed;
+            lastRunAtMs = start;
+            lastDurationMs = System.currentTimeMillis() - start;
+            totalRemoved.add(removed);
+            runs.increment();
+            running.set(false);
+        }
+        return removed;
+    }
+
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Métricas: eliminados en la última ejecución y en total, y tamaño de la colección.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("runs", runs.sum());
+        stats.put("lastRunAtMs", lastRunAtMs);
+        stats.put("lastRemoved", lastRemoved);
+        stats.put("lastDurationMs", lastDurationMs);
+        stats.put("totalRemoved", totalRemoved.sum());
+        stats.put("collectionSize", collectionSize);
+        return stats;
+    }
+}
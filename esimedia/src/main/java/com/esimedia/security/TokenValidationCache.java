@@ -0,0 +1,259 @@
+package com.esimedia.security;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.esimedia.accounts.model.Token;
+import com.esimedia.accounts.repository.TokenRepository;
+
+/**
+ * Caché en memoria de tokens válidos delante de {@link TokenRepository}.
+ * Evita un acceso a Mongo por cada petición autenticada. Cada entrada caduca
+ * en el mínimo entre {@code Token.expiration} y el TTL configurado, de modo
+ * que un token borrado desde otro nodo deja de aceptarse como mucho tras ese TTL.
+ * Solo se cachean aciertos: un token desconocido siempre se consulta en BD.
+ *
+ * Al llenarse se expulsan primero las caducadas y después, por lotes, las
+ * menos usadas recientemente (LRU). Un índice cuenta → tokens permite
+ * invalidar una cuenta sin recorrer la caché entera.
+ */
+@Component
+public class TokenValidationCache {
+
+    private static final class Entry {
+        final Token token;
+        final String accountKey;
+        final long expiresAtMs;
+        // Último acierto (System.nanoTime), para elegir qué expulsar
+        volatile long lastAccessNanos;
+
+        Entry(Token token, long expiresAtMs) {
+            this.token = token;
+            this.accountKey = accountKey(token.getAccountId());
+            this.expiresAtMs = expiresAtMs;
+            this.lastAccessNanos = System.nanoTime();
+        }
+    }
+
+    private final TokenRepository tokenRepository;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Cuenta (en minúsculas) → ids de sus tokens en caché
+    private final Map<String, Set<String>> tokensByAccount = new ConcurrentHashMap<>();
+    // Una sola expulsión por lotes a la vez; el resto de hilos sigue insertando
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Value("${security.token-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${security.token-cache.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    @Value("${security.token-cache.ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    public TokenValidationCache(TokenRepository tokenRepository) {
+        this.tokenRepository = tokenRepository;
+    }
+
+    /**
+     * Devuelve el token si existe y no ha expirado; null en caso contrario.
+     */
+    public Token findValid(String tokenId) {
+        if (tokenId == null || tokenId.isBlank()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+
+        if (enabled) {
+            Entry cached = entries.get(tokenId);
+            if (cached != null) {
+                if (cached.expiresAtMs > now) {
+                    cached.lastAccessNanos = System.nanoTime();
+                    hits.increment();
+                    return cached.token;
+                }
+                if (removeEntry(tokenId, cached)) {
+                    evictions.increment();
+                }
+            }
+        }
+
+        misses.increment();
+        Token token = tokenRepository.findById(tokenId).orElse(null);
+        if (token == null || token.getExpiration() == null) {
+            return null;
+        }
+        long tokenExpiresAtMs = toEpochMs(token.getExpiration());
+        if (tokenExpiresAtMs <= now) {
+            return null;
+        }
+
+        if (enabled) {
+            put(tokenId, new Entry(token, Math.min(tokenExpiresAtMs, now + ttlSeconds * 1000L)));
+        }
+        return token;
+    }
+
+    /**
+     * Borra el token de BD e invalida su entrada en caché.
+     */
+    public void delete(String tokenId) {
+        if (tokenId == null || tokenId.isBlank()) {
+            return;
+        }
+        invalidate(tokenId);
+        tokenRepository.deleteById(tokenId);
+    }
+
+    /**
+     * Invalida una entrada concreta (sin tocar la BD).
+     */
+    public void invalidate(String tokenId) {
+        if (tokenId == null) {
+            return;
+        }
+        Entry entry = entries.get(tokenId);
+        if (entry != null && removeEntry(tokenId, entry)) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Invalida todas las entradas de una cuenta (p. ej. al desactivarla).
+     */
+    public void invalidateAccount(String accountId) {
+        if (accountId == null) {
+            return;
+        }
+        Set<String> tokenIds = tokensByAccount.get(accountKey(accountId));
+        if (tokenIds == null) {
+            return;
+        }
+        for (String tokenId : tokenIds.toArray(new String[0])) {
+            invalidate(tokenId);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        tokensByAccount.clear();
+    }
+
+    /**
+     * Métricas de la caché (aciertos, fallos, expulsiones) para monitorización.
+     */
+    public Map<String, Object> getStats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private void put(String tokenId, Entry entry) {
+        if (entries.size() >= maxEntries && evicting.compareAndSet(false, true)) {
+            try {
+                evictOverflow(System.currentTimeMillis());
+            } finally {
+                evicting.set(false);
+            }
+        }
+        entries.put(tokenId, entry);
+        if (entry.accountKey != null) {
+            tokensByAccount.computeIfAbsent(entry.accountKey, k -> ConcurrentHashMap.newKeySet()).add(tokenId);
+        }
+    }
+
+    /**
+     * Quita la entrada (si sigue siendo esa) y su rastro en el índice por cuenta.
+     * El índice se actualiza con compute sobre la cuenta para no perder el id
+     * si otro hilo vuelve a cachear el mismo token a la vez.
+     */
+    private boolean removeEntry(String tokenId, Entry entry) {
+        if (!entries.remove(tokenId, entry)) {
+            return false;
+        }
+        if (entry.accountKey != null) {
+            tokensByAccount.computeIfPresent(entry.accountKey, (k, ids) -> {
+                if (!entries.containsKey(tokenId)) {
+                    ids.remove(tokenId);
+                }
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Libera espacio: primero entradas caducadas; si no basta, las menos usadas
+     * recientemente hasta dejar un 10 % de hueco, para que la pasada completa
+     * se amortice entre muchas inserciones.
+     */
+    private void evictOverflow(long now) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            if (e.getValue().expiresAtMs <= now && removeEntry(e.getKey(), e.getValue())) {
+                evictions.increment();
+            }
+        }
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        int excess = entries.size() - target;
+        if (excess <= 0) {
+            return;
+        }
+        long[] accesses = new long[entries.size()];
+        int n = 0;
+        for (Entry e : entries.values()) {
+            if (n == accesses.length) {
+                break;
+            }
+            accesses[n++] = e.lastAccessNanos;
+        }
+        if (n == 0) {
+            return;
+        }
+        Arrays.sort(accesses, 0, n);
+        long cutoff = accesses[Math.min(excess, n) - 1];
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (entries.size() <= target) {
+                break;
+            }
+            if (e.getValue().lastAccessNanos - cutoff <= 0 && removeEntry(e.getKey(), e.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static String accountKey(String accountId) {
+        return accountId == null ? null : accountId.toLowerCase(Locale.ROOT);
+    }
+
+    private static long toEpochMs(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
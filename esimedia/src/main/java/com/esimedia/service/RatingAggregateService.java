@@ -0,0 +1,322 @@
+package com.esimedia.service;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.esimedia.model.Rating;
+import com.esimedia.model.RatingAggregate;
+
+/**
+ * Mantiene los agregados de valoraciones por contenido (rating_aggregates).
+ *
+ * Cada alta, cambio o borrado de una valoración se aplica con un único
+ * findAndModify con $inc (suma, número y cubo del histograma; en un cambio,
+ * el cubo viejo baja y el nuevo sube), de modo que no hace falta releer las
+ * valoraciones. Después se fija average con una condición sobre la suma y el
+ * número leídos: si otro cambio se ha colado entremedias, su propia
+ * actualización deja el valor correcto.
+ *
+ * Para datos previos (o si algo se ha escrito por fuera del servicio) hay una
+ * reconstrucción completa desde ratings, que corre sola al arrancar si la
+ * colección está vacía, y un comprobador periódico que compara cada agregado
+ * con las valoraciones y, si auto-repair está activo, corrige los que no
+ * cuadran.
+ */
+@Service
+public class RatingAggregateService {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingAggregateService.class);
+
+    private static final String RATINGS = "ratings";
+    private static final int MAX_REPORTED_IDS = 20;
+
+    private final MongoTemplate mongoTemplate;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+    private final LongAdder repaired = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private volatile LocalDateTime lastCheckAt;
+    private volatile long lastCheckMismatches;
+
+    @Value("${ratings.aggregates.auto-repair:true}")
+    private boolean autoRepair = true;
+
+    @Value("${ratings.aggregates.backfill-on-startup:true}")
+    private boolean backfillOnStartup = true;
+
+    public RatingAggregateService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Aplica a un contenido el paso de oldRating a newRating (null = no había
+     * valoración / se ha borrado).
+     */
+    public void applyChange(String contentId, Double oldRating, Double newRating) {
+        if (contentId == null || (oldRating == null && newRating == null)) {
+            return;
+        }
+        if (oldRating != null && oldRating.equals(newRating)) {
+            return;
+        }
+        Update update = new Update().set("updatedAt", LocalDateTime.now());
+        double sumDelta = 0;
+        long countDelta = 0;
+        if (oldRating != null) {
+            sumDelta -= oldRating;
+            countDelta--;
+            update.inc("histogram." + RatingAggregate.bucketKey(oldRating), -1L);
+        }
+        if (newRating != null) {
+            sumDelta += newRating;
+            countDelta++;
+            update.inc("histogram." + RatingAggregate.bucketKey(newRating), 1L);
+        }
+        update.inc("sum", sumDelta).inc("count", countDelta);
+
+        RatingAggregate after = mongoTemplate.findAndModify(
+            byId(contentId), update,
+            FindAndModifyOptions.options().upsert(true).returnNew(true),
+            RatingAggregate.class);
+        updates.increment();
+        if (after != null) {
+            refreshAverage(after);
+        }
+    }
+
+    /**
+     * Fija average si nadie ha cambiado el agregado desde que se leyó; si
+     * count ha llegado a 0 el documento sobra.
+     */
+    private void refreshAverage(RatingAggregate after) {
+        Query unchanged = new Query(Criteria.where("_id").is(after.getId())
+            .and("sum").is(after.getSum())
+            .and("count").is(after.getCount()));
+        if (after.getCount() <= 0) {
+            mongoTemplate.remove(unchanged, RatingAggregate.class);
+            return;
+        }
+        mongoTemplate.updateFirst(unchanged,
+            new Update().set("average", after.getSum() / after.getCount()), RatingAggregate.class);
+    }
+
+    public Optional<RatingAggregate> find(String contentId) {
+        return Optional.ofNullable(mongoTemplate.findById(contentId, RatingAggregate.class));
+    }
+
+    /** Agregados de varios contenidos (los que no tienen valoraciones no aparecen). */
+    public Map<String, RatingAggregate> findAll(Collection<String> contentIds) {
+        Map<String, RatingAggregate> result = new HashMap<>();
+        if (contentIds.isEmpty()) {
+            return result;
+        }
+        for (RatingAggregate aggregate : mongoTemplate.find(
+                new Query(Criteria.where("_id").in(contentIds)), RatingAggregate.class)) {
+            result.put(aggregate.getId(), aggregate);
+        }
+        return result;
+    }
+
+    /** Mejor valorados con al menos minRatings valoraciones, por el índice de average. */
+    public List<RatingAggregate> findTopRated(int minRatings, int limit) {
+        Query query = new Query(Criteria.where("count").gte(Math.max(1, minRatings)).and("average").ne(null))
+            .with(Sort.by(Sort.Order.desc("average"), Sort.Order.desc("count")))
+            .limit(limit);
+        return mongoTemplate.find(query, RatingAggregate.class);
+    }
+
+    /**
+     * Agregados calculados desde las valoraciones, de los contenidos indicados
+     * o de todos (contentIds null): una agrupación por (contentId, rating).
+     */
+    Map<String, RatingAggregate> computeFromRatings(Collection<String> contentIds) {
+        List<AggregationOperation> ops = new ArrayList<>();
+        if (contentIds != null) {
+            ops.add(match(Criteria.where("contentId").in(contentIds)));
+        }
+        ops.add(group("contentId", "rating").count().as("n"));
+        Aggregation aggregation = newAggregation(ops);
+
+        Map<String, RatingAggregate> result = new LinkedHashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, RATINGS, Document.class).getMappedResults()) {
+            Document key = (Document) row.get("_id");
+            String contentId = key.getString("contentId");
+            Number rating = (Number) key.get("rating");
+            Number n = (Number) row.get("n");
+            if (contentId == null || rating == null || n == null) {
+                continue;
+            }
+            result.computeIfAbsent(contentId, RatingAggregate::new).add(rating.doubleValue(), n.intValue());
+        }
+        return result;
+    }
+
+    /**
+     * Reconstrucción completa: reescribe todos los agregados desde ratings y
+     * borra los de contenidos sin valoraciones.
+     *
+     * @return número de agregados escritos, o -1 si ya había otra pasada en marcha
+     */
+    public int rebuildAll() {
+        if (!running.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            Map<String, RatingAggregate> computed = computeFromRatings(null);
+            LocalDateTime now = LocalDateTime.now();
+            for (RatingAggregate aggregate : computed.values()) {
+                aggregate.setUpdatedAt(now);
+                mongoTemplate.save(aggregate);
+            }
+            mongoTemplate.remove(new Query(Criteria.where("_id").nin(computed.keySet())), RatingAggregate.class);
+            rebuilds.increment();
+            log.info("⭐ Agregados de valoraciones reconstruidos: {} contenidos", computed.size());
+            return computed.size();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (backfillOnStartup
+                    && mongoTemplate.count(new Query(), RatingAggregate.class) == 0
+                    && mongoTemplate.count(new Query(), Rating.class) > 0) {
+                rebuildAll();
+            }
+        } catch (RuntimeException e) {
+            log.warn("⚠️ No se pudieron inicializar los agregados de valoraciones: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Compara cada agregado con las valoraciones. Un contenido que no cuadra
+     * se vuelve a comprobar solo (por si un cambio llegó durante la pasada)
+     * antes de contarlo y, con repair, reescribirlo.
+     */
+    public Map<String, Object> check(boolean repair) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        if (!running.compareAndSet(false, true)) {
+            report.put("skipped", true);
+            return report;
+        }
+        try {
+            Map<String, RatingAggregate> computed = computeFromRatings(null);
+            Map<String, RatingAggregate> stored = new HashMap<>();
+            for (RatingAggregate aggregate : mongoTemplate.findAll(RatingAggregate.class)) {
+                stored.put(aggregate.getId(), aggregate);
+            }
+            List<String> suspects = new ArrayList<>();
+            for (Map.Entry<String, RatingAggregate> entry : computed.entrySet()) {
+                if (!entry.getValue().sameCountsAs(stored.get(entry.getKey()))) {
+                    suspects.add(entry.getKey());
+                }
+            }
+            for (RatingAggregate aggregate : stored.values()) {
+                if (aggregate.getCount() != 0 && !computed.containsKey(aggregate.getId())) {
+                    suspects.add(aggregate.getId());
+                }
+            }
+
+            List<String> wrong = new ArrayList<>();
+            int fixed = 0;
+            for (String contentId : suspects) {
+                RatingAggregate expected = computeFromRatings(List.of(contentId)).get(contentId);
+                RatingAggregate current = find(contentId).orElse(null);
+                boolean matches = expected == null
+                    ? current == null || current.getCount() == 0
+                    : expected.sameCountsAs(current);
+                if (matches) {
+                    continue;
+                }
+                wrong.add(contentId);
+                if (repair) {
+                    if (expected == null) {
+                        mongoTemplate.remove(byId(contentId), RatingAggregate.class);
+                    } else {
+                        expected.setUpdatedAt(LocalDateTime.now());
+                        mongoTemplate.save(expected);
+                    }
+                    fixed++;
+                }
+            }
+
+            checks.increment();
+            mismatches.add(wrong.size());
+            repaired.add(fixed);
+            lastCheckAt = LocalDateTime.now();
+            lastCheckMismatches = wrong.size();
+            if (!wrong.isEmpty()) {
+                log.warn("⚠️ {} agregados de valoraciones no cuadraban ({} corregidos)", wrong.size(), fixed);
+            }
+
+            report.put("checked", computed.size());
+            report.put("mismatches", wrong.size());
+            report.put("repaired", fixed);
+            report.put("contentIds", wrong.subList(0, Math.min(MAX_REPORTED_IDS, wrong.size())));
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${ratings.aggregates.check-interval-ms:3600000}",
+               fixedDelayString = "${ratings.aggregates.check-interval-ms:3600000}")
+    public void scheduledCheck() {
+        try {
+            check(autoRepair);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Fallo comprobando agregados de valoraciones: {}", e.getMessage());
+        }
+    }
+
+    private static Query byId(String contentId) {
+        return new Query(Criteria.where("_id").is(contentId));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("updates", updates.sum());
+        stats.put("checks", checks.sum());
+        stats.put("mismatches", mismatches.sum());
+        stats.put("repaired", repaired.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("lastCheckAt", lastCheckAt);
+        stats.put("lastCheckMismatches", lastCheckMismatches);
+        stats.put("autoRepair", autoRepair);
+        return stats;
+    }
+}
@@ -8,6 +8,7 @@ import com.esimedia.dto.RatingRequestDTO;
 import com.esimedia.dto.RatingResponseDTO;
 import com.esimedia.dto.RatingStatsDTO;
 import com.esimedia.model.Rating;
+import com.esimedia.model.RatingAggregate;
 import com.esimedia.repository.RatingRepository;
 
 import java.util.*;
@@ -21,10 +22,15 @@ public class RatingService {
 
     private static final String AVERAGERATINGS = "averageRating";
     private static final String TOTALRATINGS = "totalRatings";
+    // Tope de ids por $in al leer agregados
+    private static final int AVERAGE_BATCH_SIZE = 500;
 
     @Autowired
     private RatingRepository ratingRepository;
 
+    @Autowired
+    private RatingAggregateService ratingAggregates;
+
     /**
      * Crea o actualiza una valoración de un usuario para un contenido.
      */
@@ -36,9 +42,11 @@ public class RatingService {
         );
 
         Rating rating;
+        Double previous = null;
         if (existingRating.isPresent()) {
             // Actualizar valoración existente
             rating = existingRating.get();
+            previous = rating.getRating();
             rating.setRating(request.getRating());
         } else {
             // Crear nueva valoración
@@ -46,6 +54,7 @@ public class RatingService {
         }
 
         rating = ratingRepository.save(rating);
+        ratingAggregates.applyChange(rating.getContentId(), previous, rating.getRating());
         return convertToResponseDTO(rating);
     }
 
@@ -68,89 +77,40 @@ public class RatingService {
 
     /**
      * Obtiene las estadísticas completas de valoraciones de un contenido.
+     * Se leen del agregado del contenido, sin recorrer sus valoraciones.
      */
     public RatingStatsDTO getContentRatingStats(String contentId) {
-        // Obtener todas las valoraciones del contenido
-        List<Rating> ratings = ratingRepository.findByContentId(contentId);
-        
-        if (ratings.isEmpty()) {
+        Optional<RatingAggregate> aggregate = ratingAggregates.find(contentId);
+        if (aggregate.isEmpty() || aggregate.get().getCount() <= 0) {
             return new RatingStatsDTO(contentId, 0.0, 0L, new LinkedHashMap<>());
         }
-        
-        // Calcular promedio manualmente
-        double sum = 0.0;
-        for (Rating rating : ratings) {
-            sum += rating.getRating();
-        }
-        double average = Math.round((sum / ratings.size()) * 10.0) / 10.0;
-        long total = ratings.size();
-        
-        // Calcular distribución manualmente
+        RatingAggregate stats = aggregate.get();
+
+        // Distribución ordenada por rating descendente (solo valores con votos)
         Map<Double, Long> distribution = new LinkedHashMap<>();
-        for (Rating rating : ratings) {
-            Double ratingValue = rating.getRating();
-            distribution.put(ratingValue, distribution.getOrDefault(ratingValue, 0L) + 1);
+        for (int bucket = RatingAggregate.BUCKETS; bucket >= 1; bucket--) {
+            long n = stats.bucketCount(bucket);
+            if (n > 0) {
+                distribution.put(RatingAggregate.bucketRating(bucket), n);
+            }
         }
-        
-        // Ordenar por rating descendente
-        Map<Double, Long> sortedDistribution = distribution.entrySet().stream()
-            .sorted(Map.Entry.<Double, Long>comparingByKey().reversed())
-            .collect(Collectors.toMap(
-                Map.Entry::getKey,
-                Map.Entry::getValue,
-                (e1, e2) -> e1,
-                LinkedHashMap::new
-            ));
-
-        return new RatingStatsDTO(contentId, average, total, sortedDistribution);
+
+        return new RatingStatsDTO(contentId, round(stats.getSum() / stats.getCount()), stats.getCount(), distribution);
     }
 
     /**
      * Obtiene los contenidos con mejor valoración (trending).
      */
     public List<Map<String, Object>> getTopRatedContent(int minRatings, int limit) {
-        // Obtener todas las valoraciones
-        List<Rating> allRatings = ratingRepository.findAll();
-        
-        // Agrupar por contentId y calcular estadísticas
-        Map<String, List<Rating>> groupedByContent = allRatings.stream()
-            .collect(Collectors.groupingBy(Rating::getContentId));
-        
-        // Calcular promedio y filtrar por mínimo de valoraciones
         List<Map<String, Object>> contentStats = new ArrayList<>();
-        for (Map.Entry<String, List<Rating>> entry : groupedByContent.entrySet()) {
-            List<Rating> contentRatings = entry.getValue();
-            if (contentRatings.size() >= minRatings) {
-                double average = contentRatings.stream()
-                    .mapToDouble(Rating::getRating)
-                    .average()
-                    .orElse(0.0);
-                
-                Map<String, Object> map = new HashMap<>();
-                map.put("contentId", entry.getKey());
-                map.put(AVERAGERATINGS, Math.round(average * 10.0) / 10.0);
-                map.put(TOTALRATINGS, (long) contentRatings.size());
-                contentStats.add(map);
-            }
+        for (RatingAggregate aggregate : ratingAggregates.findTopRated(minRatings, limit)) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("contentId", aggregate.getId());
+            map.put(AVERAGERATINGS, round(aggregate.getSum() / aggregate.getCount()));
+            map.put(TOTALRATINGS, aggregate.getCount());
+            contentStats.add(map);
         }
-        
-        // Ordenar por promedio descendente y luego por total
-        contentStats.sort((a, b) -> {
-            int avgCompare = Double.compare(
-                (Double) b.get(AVERAGERATINGS), 
-                (Double) a.get(AVERAGERATINGS)
-            );
-            if (avgCompare != 0) return avgCompare;
-            return Long.compare(
-                (Long) b.get(TOTALRATINGS), 
-                (Long) a.get(TOTALRATINGS)
-            );
-        });
-        
-        // Limitar resultados
-        return contentStats.stream()
-            .limit(limit)
-            .collect(Collectors.toList());
+        return contentStats;
     }
 
     /**
@@ -158,8 +118,10 @@ public class RatingService {
      */
     @Transactional
     public boolean deleteRating(String userId, String contentId) {
-        if (ratingRepository.existsByUserIdAndContentId(userId, contentId)) {
-            ratingRepository.deleteByUserIdAndContentId(userId, contentId);
+        Optional<Rating> existing = ratingRepository.findByUserIdAndContentId(userId, contentId);
+        if (existing.isPresent()) {
+            ratingRepository.delete(existing.get());
+            ratingAggregates.applyChange(contentId, existing.get().getRating(), null);
             return true;
         }
         return false;
@@ -183,25 +145,43 @@ public class RatingService {
 
     /**
      * Calcula el promedio de valoraciones para un contenido específico.
-     * Consulta la tabla ratings y calcula la media de todas las valoraciones para ese contentId.
      * @param contentId ID del contenido
      * @return Promedio de valoraciones (0.0 si no tiene valoraciones)
      */
     public double getAverageRatingByContentId(String contentId) {
-        List<Rating> ratings = ratingRepository.findByContentId(contentId);
-        
-        if (ratings.isEmpty()) {
-            return 0.0;
+        return getAverageRatingsByContentIds(List.of(contentId)).getOrDefault(contentId, 0.0);
+    }
+
+    /**
+     * Promedios de valoración de una página de contenidos, leídos de sus
+     * agregados (por tandas de AVERAGE_BATCH_SIZE ids) en lugar de una
+     * consulta por contenido que además traía todas sus valoraciones.
+     * @param contentIds IDs de los contenidos
+     * @return contentId → promedio redondeado a 1 decimal (0.0 si no tiene valoraciones)
+     */
+    public Map<String, Double> getAverageRatingsByContentIds(Collection<String> contentIds) {
+        List<String> ids = contentIds.stream()
+            .filter(Objects::nonNull)
+            .distinct()
+            .collect(Collectors.toList());
+        Map<String, Double> averages = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += AVERAGE_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(ids.size(), from + AVERAGE_BATCH_SIZE));
+            for (RatingAggregate aggregate : ratingAggregates.findAll(batch).values()) {
+                if (aggregate.getCount() > 0) {
+                    averages.put(aggregate.getId(), round(aggregate.getSum() / aggregate.getCount()));
+                }
+            }
         }
-        
-        double sum = 0.0;
-        for (Rating rating : ratings) {
-            sum += rating.getRating();
+        for (String id : ids) {
+            averages.putIfAbsent(id, 0.0);
         }
-        
-        double average = sum / ratings.size();
-        // Redondear a 1 decimal
-        return Math.round(average * 10.0) / 10.0;
+        return averages;
+    }
+
+    // Redondear a 1 decimal
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
     }
 
     /**
@@ -1,17 +1,30 @@
 package com.esimedia.utils;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service; // <-- añadido
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 @Service
 public class HaveIBeenPwnedService {
     
@@ -19,6 +32,43 @@ public class HaveIBeenPwnedService {
     private static final String HIBP_API_URL = "https://api.pwnedpasswords.com/range/";
     
     private final HttpClient httpClient;
+
+    /**
+     * Rango cacheado por prefijo SHA-1 (5 hex). Solo se cachean respuestas 200:
+     * los errores siguen siendo fail-open sin cachear.
+     */
+    private static final class CachedRange {
+        final PwnedRange range;
+        final long fetchedAtMs;
+
+        CachedRange(PwnedRange range, long fetchedAtMs) {
+            this.range = range;
+            this.fetchedAtMs = fetchedAtMs;
+        }
+    }
+
+    private final Map<String, CachedRange> rangeCache = new ConcurrentHashMap<>();
+    // Una sola petición HTTP por prefijo aunque lleguen varias a la vez
+    private final Map<String, CompletableFuture<PwnedRange>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Value("${security.hibp.cache.ttl-minutes:360}")
+    private long cacheTtlMinutes = 360;
+
+    @Value("${security.hibp.cache.max-entries:2000}")
+    private int cacheMaxEntries = 2000;
+
+    // online: API de rangos de HIBP; offline: índice local mapeado en memoria
+    @Value("${security.hibp.mode:online}")
+    private String mode = "online";
+
+    @Value("${security.hibp.offline.index-file:}")
+    private String offlineIndexFile = "";
+
+    private volatile PwnedPasswordIndex offlineIndex;
     
     public HaveIBeenPwnedService() {
         this.httpClient = HttpClient.newBuilder()
@@ -26,6 +76,40 @@ public class HaveIBeenPwnedService {
             .build();
     }
     
+    /**
+     * En modo offline abre el índice local. Si no se puede abrir, las
+     * comprobaciones se permiten (fail-open, igual que con la API caída).
+     */
+    @PostConstruct
+    public void init() {
+        if (!isOfflineMode()) {
+            return;
+        }
+        if (offlineIndexFile == null || offlineIndexFile.isBlank()) {
+            log.error("❌ security.hibp.mode=offline sin security.hibp.offline.index-file: no se comprobarán filtraciones");
+            return;
+        }
+        try {
+            offlineIndex = PwnedPasswordIndex.open(Paths.get(offlineIndexFile));
+            log.info("✅ Índice offline de contraseñas filtradas cargado: {} hashes", offlineIndex.size());
+        } catch (IOException e) {
+            log.error("❌ No se pudo abrir el índice offline {}: {}", offlineIndexFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        PwnedPasswordIndex index = offlineIndex;
+        offlineIndex = null;
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    public boolean isOfflineMode() {
+        return "offline".equalsIgnoreCase(mode);
+    }
+
     /**
      * 🔒 Verifica si una contraseña ha sido comprometida en filtraciones de datos
      * Usa k-Anonymity: solo envía los primeros 5 caracteres del hash SHA-1
@@ -36,12 +120,26 @@ public class HaveIBeenPwnedService {
     public boolean isPasswordPwned(String password) {
         try {
             // 1. Generar hash SHA-1 de la contraseña
-            String sha1Hash = generateSHA1(password);
+            byte[] sha1 = generateSHA1(password);
             
-            if (sha1Hash == null) {
+            if (sha1 == null) {
                 log.warn("⚠️ No se pudo generar hash SHA-1, permitiendo contraseña por seguridad");
                 return false; // Fail-open: permitir en caso de error
             }
+
+            // Modo offline: búsqueda en el índice local, sin red
+            if (isOfflineMode()) {
+                PwnedPasswordIndex index = offlineIndex;
+                if (index == null) {
+                    return false; // Fail-open: índice no disponible
+                }
+                boolean pwned = index.contains(sha1);
+                if (pwned) {
+                    log.warn("🚨 Contraseña COMPROMETIDA (índice offline)");
+                }
+                return pwned;
+            }
+            String sha1Hash = HexFormat.of().formatHex(sha1);
             
             // 2. Dividir en prefix (primeros 5) y suffix (resto)
             String prefix = sha1Hash.substring(0, 5).toUpperCase();
@@ -49,40 +147,21 @@ public class HaveIBeenPwnedService {
             
             log.debug("🔍 Verificando contraseña en HIBP (prefix: {})", prefix);
             
-            // 3. Consultar API con el prefix (k-Anonymity)
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(HIBP_API_URL + prefix))
-                .header("User-Agent", "ESIMEDIA-Password-Validator/1.0")
-                .header("Add-Padding", "true") // Mejora privacidad
-                .timeout(Duration.ofSeconds(5))
-                .GET()
-                .build();
-            
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            if (response.statusCode() == 200) {
-                // 4. Buscar el suffix en la respuesta
-                String[] hashes = response.body().split("\n");
-                for (String line : hashes) {
-                    String[] parts = line.split(":");
-                    if (parts.length == 2 && parts[0].equalsIgnoreCase(suffix)) {
-                        int count = Integer.parseInt(parts[1].trim());
-                        log.warn("🚨 Contraseña COMPROMETIDA: aparece {} veces en filtraciones", count);
-                        return true;
-                    }
-                }
-                
-                log.info("✅ Contraseña NO encontrada en filtraciones (HIBP)");
-                return false;
-                
-            } else if (response.statusCode() == 429) {
-                log.warn("⚠️ Rate limit alcanzado en HIBP API, permitiendo contraseña");
-                return false; // Fail-open
-                
-            } else {
-                log.error("❌ Error al consultar HIBP API: HTTP {}", response.statusCode());
-                return false; // Fail-open
+            // 3. Rango del prefix (caché local o API con k-Anonymity)
+            PwnedRange range = getRange(prefix);
+            if (range == null) {
+                return false; // Fail-open: ya registrado en fetchRange
             }
+
+            // 4. Buscar el suffix en el rango (búsqueda binaria)
+            int count = range.count(suffix);
+            if (count > 0) {
+                log.warn("🚨 Contraseña COMPROMETIDA: aparece {} veces en filtraciones", count);
+                return true;
+            }
+
+            log.info("✅ Contraseña NO encontrada en filtraciones (HIBP)");
+            return false;
             
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -95,6 +174,104 @@ public class HaveIBeenPwnedService {
         }
     }
     
+    /**
+     * Rango del prefijo desde la caché o, si no está o ha caducado, desde la API.
+     * Devuelve null si la API no respondió con 200.
+     */
+    private PwnedRange getRange(String prefix) throws InterruptedException {
+        long now = System.currentTimeMillis();
+        CachedRange cached = rangeCache.get(prefix);
+        if (cached != null && now - cached.fetchedAtMs < cacheTtlMinutes * 60_000L) {
+            cacheHits.increment();
+            return cached.range;
+        }
+        cacheMisses.increment();
+
+        CompletableFuture<PwnedRange> mine = new CompletableFuture<>();
+        CompletableFuture<PwnedRange> pending = inFlight.putIfAbsent(prefix, mine);
+        if (pending != null) {
+            try {
+                return pending.get();
+            } catch (ExecutionException e) {
+                return null;
+            }
+        }
+        try {
+            PwnedRange range = fetchRange(prefix);
+            if (range != null) {
+                if (rangeCache.size() >= cacheMaxEntries) {
+                    evictForSpace(now);
+                }
+                rangeCache.put(prefix, new CachedRange(range, System.currentTimeMillis()));
+            }
+            mine.complete(range);
+            return range;
+        } catch (InterruptedException | RuntimeException e) {
+            mine.complete(null);
+            throw e;
+        } finally {
+            inFlight.remove(prefix, mine);
+        }
+    }
+
+    /**
+     * Consulta la API de rangos. Devuelve null (sin cachear) si no hay 200.
+     */
+    PwnedRange fetchRange(String prefix) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(HIBP_API_URL + prefix))
+            .header("User-Agent", "ESIMEDIA-Password-Validator/1.0")
+            .header("Add-Padding", "true") // Mejora privacidad
+            .timeout(Duration.ofSeconds(5))
+            .GET()
+            .build();
+
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            log.error("❌ Error al verificar contraseña en HIBP: {}", e.getMessage());
+            return null; // Fail-open: permitir en caso de error de red
+        }
+
+        if (response.statusCode() == 200) {
+            return PwnedRange.parse(response.body());
+        } else if (response.statusCode() == 429) {
+            log.warn("⚠️ Rate limit alcanzado en HIBP API, permitiendo contraseña");
+        } else {
+            log.error("❌ Error al consultar HIBP API: HTTP {}", response.statusCode());
+        }
+        return null; // Fail-open
+    }
+
+    /**
+     * Al llegar al tope: fuera los caducados y, si no basta, el más antiguo.
+     */
+    private void evictForSpace(long now) {
+        long ttlMs = cacheTtlMinutes * 60_000L;
+        rangeCache.entrySet().removeIf(e -> {
+            boolean expired = now - e.getValue().fetchedAtMs >= ttlMs;
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+        while (rangeCache.size() >= cacheMaxEntries) {
+            String oldest = null;
+            long oldestAt = Long.MAX_VALUE;
+            for (Map.Entry<String, CachedRange> e : rangeCache.entrySet()) {
+                if (e.getValue().fetchedAtMs < oldestAt) {
+                    oldestAt = e.getValue().fetchedAtMs;
+                    oldest = e.getKey();
+                }
+            }
+            if (oldest == null || rangeCache.remove(oldest) == null) {
+                break;
+            }
+            evictions.increment();
+        }
+    }
+
     /**
      * Genera hash SHA-1 de la contraseña EXCLUSIVAMENTE para la API k-Anonymity de HIBP.
      * No se usa para almacenar ni verificar contraseñas.
@@ -102,19 +279,10 @@ public class HaveIBeenPwnedService {
      * Ver: https://haveibeenpwned.com/API/v3#PwnedPasswords
      */
     @SuppressWarnings({"java:S2070", "java:S4790"}) // Uso intencional de SHA-1 solo para HIBP (no sensible)
-    private String generateSHA1(String password) {
+    private byte[] generateSHA1(String password) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-1");
-            byte[] hash = digest.digest(password.getBytes(StandardCharsets.UTF_8)); // sin cambios funcionales
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
+            return digest.digest(password.getBytes(StandardCharsets.UTF_8)); // sin cambios funcionales
         } catch (Exception e) {
             log.error("Error al generar SHA-1", e);
             return null;
@@ -127,4 +295,33 @@ public class HaveIBeenPwnedService {
     public String getStats() {
         return "Have I Been Pwned API - 847+ millones de contraseñas comprometidas";
     }
+
+    /**
+     * Métricas de la caché de rangos y del índice offline
+     */
+    public Map<String, Object> getCacheStats() {
+        long entries = 0;
+        long bytes = 0;
+        for (CachedRange cached : rangeCache.values()) {
+            entries += cached.range.size();
+            bytes += cached.range.estimatedBytes();
+        }
+        long hits = cacheHits.sum();
+        long misses = cacheMisses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", isOfflineMode() ? "offline" : "online");
+        PwnedPasswordIndex index = offlineIndex;
+        if (index != null) {
+            stats.put("offlineHashes", index.size());
+        }
+        stats.put("prefixes", rangeCache.size());
+        stats.put("maxPrefixes", cacheMaxEntries);
+        stats.put("suffixes", entries);
+        stats.put("estimatedBytes", bytes);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
 }
\ No newline at end of file
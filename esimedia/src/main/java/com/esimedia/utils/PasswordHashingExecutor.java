@@ -0,0 +1,166 @@
+package com.esimedia.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.esimedia.exception.ServiceOverloadedException;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pool acotado para bcrypt, separado de los hilos de Tomcat.
+ *
+ * bcrypt es CPU pura: con más hilos que núcleos solo se reparte el mismo
+ * tiempo de CPU entre más esperas. Aquí hay tantos hilos como núcleos (por
+ * defecto) y una cola de tamaño fijo; si la cola está llena la petición se
+ * rechaza al momento con 503 en lugar de bloquear un hilo de Tomcat, así
+ * que un pico de logins no deja sin hilos al resto del tráfico.
+ *
+ * Quien espera el resultado lo hace con un plazo; si se agota, la tarea se
+ * retira de la cola (si aún no había empezado) y también se responde 503.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+
+    private final ThreadPoolExecutor pool;
+    private final int threads;
+    private final int queueCapacity;
+    private final long maxWaitMs;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+
+    public PasswordHashingExecutor(
+            @Value("${security.bcrypt.pool.threads:0}") int threads,
+            @Value("${security.bcrypt.pool.queue-capacity:64}") int queueCapacity,
+            @Value("${security.bcrypt.pool.max-wait-ms:2000}") long maxWaitMs) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxWaitMs = Math.max(1, maxWaitMs);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(this.queueCapacity),
+            r -> {
+                Thread t = new Thread(r, "bcrypt-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        log.info("🔐 Pool de hashing de contraseñas: {} hilos, cola {}", this.threads, this.queueCapacity);
+    }
+
+    /**
+     * Ejecuta la tarea en el pool con el plazo por defecto.
+     */
+    public <T> T call(Callable<T> task) {
+        return call(task, maxWaitMs);
+    }
+
+    /**
+     * Ejecuta la tarea en el pool y espera como mucho {@code budgetMs}
+     * (acotado por el plazo configurado). Lanza
+     * {@link ServiceOverloadedException} si la cola está llena o no da tiempo.
+     */
+    public <T> T call(Callable<T> task, long budgetMs) {
+        long waitMs = Math.min(budgetMs, maxWaitMs);
+        if (waitMs <= 0) {
+            timedOut.increment();
+            throw overloaded();
+        }
+        long enqueuedAt = System.nanoTime();
+        FutureTask<T> future = new FutureTask<>(() -> {
+            long startedAt = System.nanoTime();
+            record(queueWaitNanos, maxQueueWaitNanos, startedAt - enqueuedAt);
+            try {
+                return task.call();
+            } finally {
+                record(hashNanos, maxHashNanos, System.nanoTime() - startedAt);
+                completed.increment();
+            }
+        });
+        try {
+            pool.execute(future);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw overloaded();
+        }
+        try {
+            return future.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Si aún estaba en cola no llega a ejecutarse; si ya corría, termina y se descarta
+            future.cancel(false);
+            pool.remove(future);
+            timedOut.increment();
+            throw overloaded();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            pool.remove(future);
+            throw overloaded();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Error al procesar la contraseña", cause);
+        }
+    }
+
+    private static void record(LongAdder total, LongAccumulator max, long nanos) {
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    private ServiceOverloadedException overloaded() {
+        return new ServiceOverloadedException(
+            "Servidor saturado procesando credenciales. Inténtalo de nuevo en unos segundos.",
+            Math.max(1, maxWaitMs / 1000));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public Map<String, Object> getStats() {
+        long done = completed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", threads);
+        stats.put("active", pool.getActiveCount());
+        stats.put("queued", pool.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("maxWaitMs", maxWaitMs);
+        stats.put("completed", done);
+        stats.put("rejected", rejected.sum());
+        stats.put("timedOut", timedOut.sum());
+        stats.put("avgQueueWaitMs", done == 0 ? 0.0 : queueWaitNanos.sum() / 1e6 / done);
+        stats.put("maxQueueWaitMs", maxQueueWaitNanos.get() / 1e6);
+        stats.put("avgHashMs", done == 0 ? 0.0 : hashNanos.sum() / 1e6 / done);
+        stats.put("maxHashMs", maxHashNanos.get() / 1e6);
+        return stats;
+    }
+}
@@ -4,6 +4,9 @@ import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,11 +17,16 @@ import org.springframework.stereotype.Component;
 
 import com.esimedia.config.PasswordSecurityConfig;
 
+import jakarta.annotation.PostConstruct;
+
 @Component
 public class PasswordUtils {
 
     private static final String SEPARADOR = " ═══════════════════════════════════════════════════════ ";
     private static final String UTF = "UTF-8";
+    private static final int DEFAULT_ROUNDS = 10;
+    // $2a$12$... / $2b$ / $2y$
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
     
     private static final Logger log = LoggerFactory.getLogger(PasswordUtils.class);
     
@@ -27,6 +35,9 @@ public class PasswordUtils {
     
     @Autowired
     private HaveIBeenPwnedService hibpService; // ✅ NUEVO: 847M+ contraseñas comprometidas
+
+    @Autowired
+    private PasswordHashingExecutor hashingExecutor; // bcrypt fuera de los hilos de Tomcat
     
     @Value("${app.environment:production}")
     private String environment;
@@ -34,8 +45,100 @@ public class PasswordUtils {
     @Value("${security.password.check-hibp:true}")
     private boolean checkHibp;
     
-    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    // Coste efectivo de bcrypt (fijo o calibrado al arrancar) y su encoder
+    private volatile int bcryptRounds = DEFAULT_ROUNDS;
+    private volatile BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(DEFAULT_ROUNDS);
+    // Hash real con el coste actual para igualar tiempos cuando el email no existe
+    private volatile String dummyHash;
     
+    /**
+     * Fija el coste de bcrypt: el configurado en security.bcrypt.rounds o, si
+     * hay security.bcrypt.target-ms, el calibrado en esta máquina. La
+     * calibración nunca baja de security.bcrypt.rounds: en una máquina lenta
+     * se queda en ese coste en vez de abaratar (y regenerar a la baja) los hashes.
+     */
+    @PostConstruct
+    void initBcryptCost() {
+        int rounds = securityConfig.getBcryptRounds();
+        long targetMs = securityConfig.getBcryptTargetMs();
+        if (targetMs > 0) {
+            int floor = Math.max(rounds, securityConfig.getBcryptMinRounds());
+            rounds = calibrateRounds(targetMs, floor, securityConfig.getBcryptMaxRounds());
+        }
+        useRounds(rounds);
+    }
+
+    /**
+     * Mide el coste mínimo y sube de uno en uno (cada round duplica el tiempo)
+     * mientras la estimación no supere el objetivo.
+     */
+    int calibrateRounds(long targetMs, int minRounds, int maxRounds) {
+        int min = Math.max(4, Math.min(minRounds, 31));
+        int max = Math.max(min, Math.min(maxRounds, 31));
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(min);
+        String sample = preHashPassword("calibracion-bcrypt");
+        probe.encode(sample); // calentamiento (JIT)
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode(sample);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double estimatedMs = best / 1_000_000.0;
+        int rounds = min;
+        while (rounds < max && estimatedMs * 2 <= targetMs) {
+            estimatedMs *= 2;
+            rounds++;
+        }
+        log.info("⏱️ bcrypt calibrado: {} rounds (~{} ms por hash, objetivo {} ms)",
+                 rounds, Math.round(estimatedMs), targetMs);
+        return rounds;
+    }
+
+    private void useRounds(int rounds) {
+        BCryptPasswordEncoder newEncoder = new BCryptPasswordEncoder(rounds);
+        this.encoder = newEncoder;
+        this.bcryptRounds = rounds;
+        this.dummyHash = newEncoder.encode(preHashPassword(UUID.randomUUID().toString()));
+    }
+
+    public int getBcryptRounds() {
+        return bcryptRounds;
+    }
+
+    /**
+     * Hash con el coste actual y una contraseña aleatoria: verificar contra él
+     * cuesta lo mismo que contra un hash real, así que un email inexistente no
+     * se distingue por el tiempo de respuesta.
+     */
+    public String getDummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = encoder.encode(preHashPassword(UUID.randomUUID().toString()));
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * true si el hash almacenado se sale de la banda de security.bcrypt.rehash-tolerance
+     * alrededor del coste actual y conviene regenerarlo (tras un login correcto,
+     * que es cuando se tiene la contraseña). Con calibración cada nodo puede
+     * quedar en un coste distinto; la banda evita que dos nodos cercanos
+     * regeneren la misma cuenta una y otra vez, cada uno a su coste.
+     */
+    public boolean needsRehash(String hashedPassword) {
+        if (hashedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(hashedPassword);
+        if (!matcher.find()) {
+            return false;
+        }
+        int tolerance = Math.max(0, securityConfig.getBcryptRehashTolerance());
+        return Math.abs(Integer.parseInt(matcher.group(1)) - bcryptRounds) > tolerance;
+    }
+
     private boolean isDebugMode() {
         return "development".equalsIgnoreCase(environment) || "dev".equalsIgnoreCase(environment);
     }
@@ -91,8 +194,9 @@ public class PasswordUtils {
     
     /**
      * Pre-hashea la contraseña + pepper con SHA-256 para evitar límite de 72 bytes de bcrypt
+     * (visible en el paquete para los benchmarks de src/jmh)
      */
-    private String preHashPassword(String plainPassword) {
+    String preHashPassword(String plainPassword) {
         try {
             String passwordWithPepper = plainPassword + securityConfig.getPasswordPepper();
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
@@ -105,9 +209,22 @@ public class PasswordUtils {
     }
     
     /**
-     * Hash de contraseña con SHA-256 + bcrypt + pepper
+     * Hash de contraseña con SHA-256 + bcrypt + pepper.
+     * Se ejecuta en el pool de hashing; si está saturado lanza
+     * {@link com.esimedia.exception.ServiceOverloadedException} (503).
      */
     public String hashPassword(String plainPassword) {
+        return hashingExecutor.call(() -> doHashPassword(plainPassword));
+    }
+
+    /**
+     * Igual que {@link #hashPassword(String)} esperando como mucho {@code budgetMs}.
+     */
+    public String hashPassword(String plainPassword, long budgetMs) {
+        return hashingExecutor.call(() -> doHashPassword(plainPassword), budgetMs);
+    }
+
+    private String doHashPassword(String plainPassword) {
         try {
             if (isDebugMode()) {
                 log.info(SEPARADOR);
@@ -142,6 +259,18 @@ public class PasswordUtils {
      * Verificar contraseña con SHA-256 + bcrypt + pepper
      */
     public boolean verifyPassword(String plainPassword, String hashedPassword) {
+        return verifyPassword(plainPassword, hashedPassword, Long.MAX_VALUE);
+    }
+
+    /**
+     * Igual que {@link #verifyPassword(String, String)} pero esperando como
+     * mucho {@code budgetMs} al pool de hashing (presupuesto del login).
+     */
+    public boolean verifyPassword(String plainPassword, String hashedPassword, long budgetMs) {
+        return hashingExecutor.call(() -> doVerifyPassword(plainPassword, hashedPassword), budgetMs);
+    }
+
+    private boolean doVerifyPassword(String plainPassword, String hashedPassword) {
         try {
             if (isDebugMode()) {
                 log.info(SEPARADOR);
@@ -0,0 +1,137 @@
+package com.esimedia.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Genera el fichero de {@link PwnedPasswordIndex} a partir del volcado de
+ * texto de HIBP ("SHA1:CONTADOR" por línea, ordenado por hash, como el que
+ * produce PwnedPasswordsDownloader o la descarga "ordered by hash").
+ *
+ * Uso:
+ * <pre>
+ *   java -cp esimedia.jar -Dloader.main=com.esimedia.utils.PwnedIndexBuilder \
+ *        org.springframework.boot.loader.launch.PropertiesLauncher \
+ *        pwnedpasswords.txt pwned.idx [contador-mínimo]
+ * </pre>
+ * o, desde el proyecto, {@code java -cp target/classes com.esimedia.utils.PwnedIndexBuilder ...}.
+ *
+ * El volcado se procesa en streaming (memoria constante); si no está ordenado
+ * se aborta, porque el índice depende de ese orden.
+ */
+public final class PwnedIndexBuilder {
+
+    private PwnedIndexBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Uso: PwnedIndexBuilder <volcado.txt> <salida.idx> [contador-mínimo]");
+            System.exit(2);
+        }
+        int minCount = args.length == 3 ? Integer.parseInt(args[2]) : 1;
+        long start = System.currentTimeMillis();
+        long written = build(Paths.get(args[0]), Paths.get(args[1]), minCount);
+        System.out.printf("Índice generado: %d hashes en %d s -> %s%n",
+            written, (System.currentTimeMillis() - start) / 1000, args[1]);
+    }
+
+    /**
+     * Construye el índice. Devuelve el número de hashes escritos.
+     */
+    public static long build(Path dump, Path output, int minCount) throws IOException {
+        Path tmp = output.resolveSibling(output.getFileName() + ".tmp");
+        long[] bucketCounts = new long[PwnedPasswordIndex.BUCKETS];
+        long count = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(dump, StandardCharsets.US_ASCII);
+             RandomAccessFile raf = new RandomAccessFile(tmp.toFile(), "rw")) {
+            raf.setLength(0);
+            raf.seek(PwnedPasswordIndex.DATA_OFFSET);
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(raf.getChannel()), 1 << 20);
+
+            byte[] current = new byte[PwnedPasswordIndex.SHA1_LENGTH];
+            byte[] previous = null;
+            String line;
+            long lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (!parseLine(line, current, minCount)) {
+                    continue;
+                }
+                if (previous != null) {
+                    int cmp = Arrays.compareUnsigned(previous, current);
+                    if (cmp > 0) {
+                        throw new IOException("El volcado no está ordenado por hash (línea " + lineNo + ")");
+                    }
+                    if (cmp == 0) {
+                        continue; // duplicado
+                    }
+                } else {
+                    previous = new byte[PwnedPasswordIndex.SHA1_LENGTH];
+                }
+                out.write(current, PwnedPasswordIndex.PREFIX_BYTES, PwnedPasswordIndex.RECORD_LENGTH);
+                bucketCounts[((current[0] & 0xff) << 8) | (current[1] & 0xff)]++;
+                System.arraycopy(current, 0, previous, 0, current.length);
+                count++;
+            }
+            out.flush();
+
+            // Cabecera y tabla de offsets al final, cuando ya se conocen los totales
+            raf.seek(0);
+            byte[] header = new byte[(int) PwnedPasswordIndex.DATA_OFFSET];
+            ByteBuffer buf = ByteBuffer.wrap(header);
+            buf.put(PwnedPasswordIndex.MAGIC);
+            buf.putLong(count);
+            long offset = 0;
+            for (long bucketCount : bucketCounts) {
+                buf.putLong(offset);
+                offset += bucketCount;
+            }
+            buf.putLong(offset);
+            raf.write(header);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * "HEX40:CONTADOR" (contador opcional). false si no es válida o no llega
+     * al mínimo.
+     */
+    private static boolean parseLine(String line, byte[] out, int minCount) {
+        if (line.length() < 40) {
+            return false;
+        }
+        for (int i = 0; i < PwnedPasswordIndex.SHA1_LENGTH; i++) {
+            int hi = Character.digit(line.charAt(2 * i), 16);
+            int lo = Character.digit(line.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0) {
+                return false;
+            }
+            out[i] = (byte) ((hi << 4) | lo);
+        }
+        if (line.length() > 41 && line.charAt(40) == ':' && minCount > 1) {
+            try {
+                return Long.parseLong(line.substring(41).trim()) >= minCount;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
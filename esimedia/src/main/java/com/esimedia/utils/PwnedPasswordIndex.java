@@ -0,0 +1,142 @@
+package com.esimedia.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Índice offline de contraseñas filtradas (hashes SHA-1) mapeado en memoria.
+ * Lo genera {@link PwnedIndexBuilder} a partir del volcado de texto de HIBP.
+ *
+ * Formato del fichero:
+ * <pre>
+ *   [0]   magic "ESIPWND1" (8 bytes)
+ *   [8]   número de registros (long)
+ *   [16]  tabla de offsets: 65537 long, índice del primer registro de cada
+ *         prefijo de 2 bytes (la entrada 65536 es el total)
+ *   [...] registros de 18 bytes (bytes 2..19 del SHA-1), ordenados
+ * </pre>
+ * Una consulta mira la tabla por los 2 primeros bytes y hace búsqueda binaria
+ * solo dentro de ese tramo (~14k registros con el volcado completo). El
+ * fichero se mapea en segmentos de menos de 2 GB; las páginas las gestiona el
+ * sistema operativo, así que el heap no crece con el tamaño del volcado.
+ */
+public final class PwnedPasswordIndex implements Closeable {
+
+    static final byte[] MAGIC = "ESIPWND1".getBytes(StandardCharsets.US_ASCII);
+    static final int SHA1_LENGTH = 20;
+    static final int PREFIX_BYTES = 2;
+    static final int RECORD_LENGTH = SHA1_LENGTH - PREFIX_BYTES;
+    static final int BUCKETS = 1 << (8 * PREFIX_BYTES);
+    static final long TABLE_OFFSET = 16;
+    static final long DATA_OFFSET = TABLE_OFFSET + (BUCKETS + 1L) * Long.BYTES;
+
+    // Registros por segmento mapeado (cada segmento < 2 GB y sin cortar registros)
+    private static final int RECORDS_PER_SEGMENT = Integer.MAX_VALUE / RECORD_LENGTH;
+
+    private final FileChannel channel;
+    private final long[] bucketStart;
+    private final MappedByteBuffer[] segments;
+    private final long recordCount;
+
+    private PwnedPasswordIndex(FileChannel channel, long[] bucketStart, MappedByteBuffer[] segments, long recordCount) {
+        this.channel = channel;
+        this.bucketStart = bucketStart;
+        this.segments = segments;
+        this.recordCount = recordCount;
+    }
+
+    public static PwnedPasswordIndex open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate((int) DATA_OFFSET);
+            // Cabecera y tabla completas (posición del buffer = posición en el fichero)
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    break;
+                }
+            }
+            if (header.hasRemaining()) {
+                throw new IOException("Índice truncado: " + file);
+            }
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("No es un índice de contraseñas filtradas: " + file);
+            }
+            long count = header.getLong();
+            if (channel.size() != DATA_OFFSET + count * RECORD_LENGTH) {
+                throw new IOException("Tamaño de índice inconsistente: " + file);
+            }
+            long[] table = new long[BUCKETS + 1];
+            for (int i = 0; i <= BUCKETS; i++) {
+                table[i] = header.getLong();
+            }
+
+            int segmentCount = (int) ((count + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int s = 0; s < segmentCount; s++) {
+                long first = (long) s * RECORDS_PER_SEGMENT;
+                long records = Math.min(RECORDS_PER_SEGMENT, count - first);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    DATA_OFFSET + first * RECORD_LENGTH, records * RECORD_LENGTH);
+            }
+            return new PwnedPasswordIndex(channel, table, segments, count);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * true si el SHA-1 (20 bytes) está en el índice.
+     */
+    public boolean contains(byte[] sha1) {
+        if (sha1 == null || sha1.length != SHA1_LENGTH) {
+            return false;
+        }
+        int bucket = ((sha1[0] & 0xff) << 8) | (sha1[1] & 0xff);
+        long lo = bucketStart[bucket];
+        long hi = bucketStart[bucket + 1] - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            int cmp = compareRecord(mid, sha1);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int compareRecord(long index, byte[] sha1) {
+        MappedByteBuffer segment = segments[(int) (index / RECORDS_PER_SEGMENT)];
+        int base = (int) (index % RECORDS_PER_SEGMENT) * RECORD_LENGTH;
+        for (int i = 0; i < RECORD_LENGTH; i++) {
+            int cmp = Integer.compare(segment.get(base + i) & 0xff, sha1[PREFIX_BYTES + i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    public long size() {
+        return recordCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
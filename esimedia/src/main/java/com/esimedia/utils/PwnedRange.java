@@ -0,0 +1,189 @@
+package com.esimedia.utils;
+
+import java.util.Arrays;
+
+/**
+ * Respuesta de rango de HIBP (sufijos SHA-1 de un prefijo de 5 caracteres)
+ * en forma compacta y ordenada. Cada sufijo de 35 caracteres hex se guarda
+ * como tres long (16 + 16 + 3 hex) en un único array y se busca por búsqueda
+ * binaria, sin trocear ni crear Strings por consulta.
+ *
+ * Las entradas de relleno (Add-Padding, contador 0) se descartan al parsear.
+ */
+final class PwnedRange {
+
+    static final int SUFFIX_LENGTH = 35;
+
+    private static final PwnedRange EMPTY = new PwnedRange(new long[0], new int[0]);
+
+    // Sufijo i en words[3i], words[3i+1], words[3i+2]
+    private final long[] words;
+    private final int[] counts;
+
+    private PwnedRange(long[] words, int[] counts) {
+        this.words = words;
+        this.counts = counts;
+    }
+
+    /**
+     * Parsea el cuerpo "SUFIJO:CONTADOR\r\n..." en una sola pasada.
+     * Las líneas mal formadas se ignoran.
+     */
+    static PwnedRange parse(String body) {
+        if (body == null || body.isEmpty()) {
+            return EMPTY;
+        }
+        int estimate = body.length() / 38 + 1; // 35 hex + ':' + contador corto + CRLF
+        long[] words = new long[estimate * 3];
+        int[] counts = new int[estimate];
+        int n = 0;
+        boolean sorted = true;
+        int pos = 0;
+        int len = body.length();
+        long[] parsed = new long[3];
+        while (pos < len) {
+            int lineEnd = body.indexOf('\n', pos);
+            if (lineEnd < 0) {
+                lineEnd = len;
+            }
+            int count = parseLine(body, pos, lineEnd, parsed);
+            if (count > 0) {
+                if (n == counts.length) {
+                    counts = Arrays.copyOf(counts, n * 2);
+                    words = Arrays.copyOf(words, n * 6);
+                }
+                int base = n * 3;
+                words[base] = parsed[0];
+                words[base + 1] = parsed[1];
+                words[base + 2] = parsed[2];
+                counts[n] = count;
+                if (n > 0 && compare(words, base - 3, parsed) >= 0) {
+                    sorted = false;
+                }
+                n++;
+            }
+            pos = lineEnd + 1;
+        }
+        PwnedRange range = new PwnedRange(Arrays.copyOf(words, n * 3), Arrays.copyOf(counts, n));
+        return sorted ? range : range.sorted();
+    }
+
+    /**
+     * Devuelve el contador del sufijo (35 hex, mayúsculas o minúsculas) o 0.
+     */
+    int count(String suffix) {
+        if (suffix == null || suffix.length() != SUFFIX_LENGTH) {
+            return 0;
+        }
+        long[] key = new long[3];
+        if (!parseSuffix(suffix, 0, key)) {
+            return 0;
+        }
+        int lo = 0;
+        int hi = counts.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compare(words, mid * 3, key);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return counts[mid];
+            }
+        }
+        return 0;
+    }
+
+    int size() {
+        return counts.length;
+    }
+
+    /** Memoria aproximada ocupada por los arrays. */
+    long estimatedBytes() {
+        return 32L + words.length * 8L + counts.length * 4L;
+    }
+
+    private PwnedRange sorted() {
+        int n = counts.length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            for (int w = 0; w < 3; w++) {
+                int cmp = Long.compareUnsigned(words[a * 3 + w], words[b * 3 + w]);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        });
+        long[] w = new long[words.length];
+        int[] c = new int[n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(words, order[i] * 3, w, i * 3, 3);
+            c[i] = counts[order[i]];
+        }
+        return new PwnedRange(w, c);
+    }
+
+    private static int compare(long[] words, int base, long[] key) {
+        for (int w = 0; w < 3; w++) {
+            int cmp = Long.compareUnsigned(words[base + w], key[w]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Parsea "SUFIJO:CONTADOR" entre start y end. Devuelve el contador, o 0
+     * si la línea no es válida o es relleno.
+     */
+    private static int parseLine(String body, int start, int end, long[] out) {
+        if (end > start && body.charAt(end - 1) == '\r') {
+            end--;
+        }
+        if (end - start < SUFFIX_LENGTH + 2 || body.charAt(start + SUFFIX_LENGTH) != ':') {
+            return 0;
+        }
+        if (!parseSuffix(body, start, out)) {
+            return 0;
+        }
+        long count = 0;
+        for (int i = start + SUFFIX_LENGTH + 1; i < end; i++) {
+            char c = body.charAt(i);
+            if (c < '0' || c > '9') {
+                if (c == ' ') continue;
+                return 0;
+            }
+            count = Math.min(Integer.MAX_VALUE, count * 10 + (c - '0'));
+        }
+        return (int) count;
+    }
+
+    private static boolean parseSuffix(String s, int start, long[] out) {
+        long w0 = 0;
+        long w1 = 0;
+        long w2 = 0;
+        for (int i = 0; i < SUFFIX_LENGTH; i++) {
+            int v = Character.digit(s.charAt(start + i), 16);
+            if (v < 0) {
+                return false;
+            }
+            if (i < 16) {
+                w0 = (w0 << 4) | v;
+            } else if (i < 32) {
+                w1 = (w1 << 4) | v;
+            } else {
+                w2 = (w2 << 4) | v;
+            }
+        }
+        out[0] = w0;
+        out[1] = w1;
+        out[2] = w2;
+        return true;
+    }
+}
@@ -4,7 +4,6 @@ import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -13,6 +12,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -38,6 +38,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -51,9 +55,12 @@ import com.esimedia.accounts.model.Token;
 import com.esimedia.accounts.model.User;
 import com.esimedia.accounts.repository.AdminRepository;
 import com.esimedia.accounts.repository.ContentCreatorRepository;
+import com.esimedia.accounts.repository.PasswordResetTokenRepository;
 import com.esimedia.accounts.repository.TokenRepository;
 import com.esimedia.accounts.repository.UserRepository;
+import com.esimedia.accounts.service.AccountDirectory;
 import com.esimedia.accounts.service.EmailService;
+import com.esimedia.accounts.service.PasswordResetTokenService;
 import com.esimedia.accounts.service.ThreeFactorAuthService;
 import com.esimedia.accounts.service.TwoFactorAuthService;
 import com.esimedia.security.LoginAttemptService;
@@ -82,9 +89,18 @@ class AuthControllerAdditionalTests {
     @Autowired
     private TokenRepository tokenRepository;
 
+    @Autowired
+    private PasswordResetTokenRepository resetTokenRepository;
+
+    @Autowired
+    private PasswordResetTokenService resetTokens;
+
     @Autowired
     private PasswordUtils passwordUtils;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Autowired
     private AuthController authController;
 
@@ -111,6 +127,7 @@ class AuthControllerAdditionalTests {
     @BeforeEach
     void setUp() {
         tokenRepository.deleteAll();
+        resetTokenRepository.deleteAll();
         userRepository.deleteAll();
         adminRepository.deleteAll();
         creatorRepository.deleteAll();
@@ -210,6 +227,48 @@ class AuthControllerAdditionalTests {
         verify(loginAttemptService).recordFailedAttempt(eq("wrongpass@login.com"), anyString());
     }
 
+    @Test
+    void loginAcceptsNewPasswordWhenDirectoryEntryIsStale() throws Exception {
+        Admin admin = new Admin();
+        admin.setEmail("stale@login.com");
+        admin.setPassword(passwordUtils.hashPassword("Antigua#123"));
+        admin.setDepartment(Department.LEGAL_TEAM);
+        adminRepository.save(admin);
+        // Cambio de contraseña que no pasa por el repositorio: la entrada del directorio queda atrasada
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is("stale@login.com")),
+                new Update().set("password", passwordUtils.hashPassword("Nueva#12345")), Admin.class);
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(Map.of(
+                        "email", "stale@login.com",
+                        "password", "Nueva#12345"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.role", is("admin")));
+
+        verify(loginAttemptService, never()).recordFailedAttempt(eq("stale@login.com"), anyString());
+    }
+
+    @Test
+    void loginRejectsAdminDeactivatedBehindAStaleDirectoryEntry() throws Exception {
+        Admin admin = new Admin();
+        admin.setEmail("baja@login.com");
+        admin.setPassword(passwordUtils.hashPassword("Clave#24680"));
+        admin.setDepartment(Department.LEGAL_TEAM);
+        adminRepository.save(admin);
+        // Desactivación que no pasa por el repositorio: la entrada sigue marcada como activa
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is("baja@login.com")),
+                new Update().set("isActive", false), Admin.class);
+
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(Map.of(
+                        "email", "baja@login.com",
+                        "password", "Clave#24680"))))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.error", containsString("Cuenta inactiva")));
+    }
+
     @Test
     void loginFindsAdminIgnoringCase() throws Exception {
         Admin admin = new Admin();
@@ -555,8 +614,7 @@ class AuthControllerAdditionalTests {
                 .andExpect(content().string(containsString("Si el correo está registrado")));
 
         User refreshed = userRepository.findById("alice@test.com").orElseThrow();
-        assertNotNull(refreshed.getResetToken());
-        assertNotNull(refreshed.getTokenExpiration());
+        assertTrue(resetTokenRepository.existsById(AccountDirectory.ROLE_USER + ":alice@test.com"));
         verify(emailService, times(1)).sendEmail(anyString(), anyString(), anyString());
     }
 
@@ -587,9 +645,8 @@ class AuthControllerAdditionalTests {
     void validateResetTokenEndpointReflectsStoredState() throws Exception {
         User user = new User();
         user.setEmail("token@test.com");
-        user.setResetToken("valid-token");
-        user.setTokenExpiration(LocalDateTime.now().plusMinutes(10));
         userRepository.save(user);
+        resetTokens.issue(AccountDirectory.ROLE_USER, user.getEmail(), "valid-token", LocalDateTime.now().plusMinutes(10));
 
         mockMvc.perform(get("/api/auth/validate-reset-token").param("token", "valid-token"))
                 .andExpect(status().isOk())
@@ -600,9 +657,8 @@ class AuthControllerAdditionalTests {
     void validateResetTokenReturnsFalseWhenExpired() throws Exception {
         User user = new User();
         user.setEmail("expired-token@test.com");
-        user.setResetToken("expired-token");
-        user.setTokenExpiration(LocalDateTime.now().minusMinutes(1));
         userRepository.save(user);
+        resetTokens.issue(AccountDirectory.ROLE_USER, user.getEmail(), "expired-token", LocalDateTime.now().minusMinutes(1));
 
         mockMvc.perform(get("/api/auth/validate-reset-token").param("token", "expired-token"))
                 .andExpect(status().isOk())
@@ -936,9 +992,8 @@ class AuthControllerAdditionalTests {
         user.setName("Reset");
         user.setSurname("User");
         user.setAlias("resetAlias");
-        user.setResetToken("reset-token");
-        user.setTokenExpiration(LocalDateTime.now().plusMinutes(5));
         userRepository.save(user);
+        resetTokens.issue(AccountDirectory.ROLE_USER, user.getEmail(), "reset-token", LocalDateTime.now().plusMinutes(5));
 
         mockMvc.perform(post("/api/auth/reset-password")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -948,7 +1003,7 @@ class AuthControllerAdditionalTests {
 
         User refreshed = userRepository.findById("reset@test.com").orElseThrow();
         assertNotNull(refreshed.getPassword());
-        assertNull(refreshed.getResetToken());
+        assertEquals(0, resetTokenRepository.count());
     }
 
     @Test
@@ -958,9 +1013,8 @@ class AuthControllerAdditionalTests {
         user.setName("Expired");
         user.setSurname("User");
         user.setAlias("expAlias");
-        user.setResetToken("expired-token");
-        user.setTokenExpiration(LocalDateTime.now().minusMinutes(1));
         userRepository.save(user);
+        resetTokens.issue(AccountDirectory.ROLE_USER, user.getEmail(), "expired-token", LocalDateTime.now().minusMinutes(1));
 
         mockMvc.perform(post("/api/auth/reset-password")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -976,9 +1030,8 @@ class AuthControllerAdditionalTests {
         user.setName("Info");
         user.setSurname("User");
         user.setAlias("infoAlias");
-        user.setResetToken("info-token");
-        user.setTokenExpiration(LocalDateTime.now().plusMinutes(5));
         userRepository.save(user);
+        resetTokens.issue(AccountDirectory.ROLE_USER, user.getEmail(), "info-token", LocalDateTime.now().plusMinutes(5));
 
         mockMvc.perform(post("/api/auth/reset-password")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -994,9 +1047,8 @@ class AuthControllerAdditionalTests {
         admin.setName("Ada");
         admin.setSurname("Root");
         admin.setDepartment(Department.DATA_ANALYTICS);
-        admin.setResetToken("admin-token");
-        admin.setTokenExpiration(LocalDateTime.now().plusMinutes(5));
         adminRepository.save(admin);
+        resetTokens.issue(AccountDirectory.ROLE_ADMIN, admin.getEmail(), "admin-token", LocalDateTime.now().plusMinutes(5));
 
         mockMvc.perform(post("/api/auth/reset-password")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -1006,7 +1058,7 @@ class AuthControllerAdditionalTests {
 
         Admin refreshed = adminRepository.findById("admin-reset@test.com").orElseThrow();
         assertNotNull(refreshed.getPassword());
-        assertNull(refreshed.getResetToken());
+        assertEquals(0, resetTokenRepository.count());
     }
 
     @Test
@@ -1018,9 +1070,8 @@ class AuthControllerAdditionalTests {
         creator.setAlias("resetAlias2");
         creator.setSpecialty(Specialty.ART);
         creator.setContentType(ContentType.AUDIO);
-        creator.setResetToken("creator-token");
-        creator.setTokenExpiration(LocalDateTime.now().plusMinutes(5));
         creatorRepository.save(creator);
+        resetTokens.issue(AccountDirectory.ROLE_CREATOR, creator.getEmail(), "creator-token", LocalDateTime.now().plusMinutes(5));
 
         mockMvc.perform(post("/api/auth/reset-password")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -1030,6 +1081,6 @@ class AuthControllerAdditionalTests {
 
         ContentCreator refreshed = creatorRepository.findById("creator-reset@test.com").orElseThrow();
         assertNotNull(refreshed.getPassword());
-        assertNull(refreshed.getResetToken());
+        assertEquals(0, resetTokenRepository.count());
     }
 }
@@ -39,9 +39,12 @@ import com.esimedia.accounts.model.Token;
 import com.esimedia.accounts.model.User;
 import com.esimedia.accounts.repository.AdminRepository;
 import com.esimedia.accounts.repository.ContentCreatorRepository;
+import com.esimedia.accounts.repository.PasswordResetTokenRepository;
 import com.esimedia.accounts.repository.TokenRepository;
 import com.esimedia.accounts.repository.UserRepository;
+import com.esimedia.accounts.service.AccountDirectory;
 import com.esimedia.accounts.service.EmailService;
+import com.esimedia.accounts.service.PasswordResetTokenService;
 import com.esimedia.utils.HaveIBeenPwnedService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -65,6 +68,12 @@ class UserControllerTests {
     @Autowired
     private TokenRepository tokenRepository;
 
+    @Autowired
+    private PasswordResetTokenRepository resetTokenRepository;
+
+    @Autowired
+    private PasswordResetTokenService resetTokens;
+
     @MockBean
     private EmailService emailService;
 
@@ -76,6 +85,7 @@ class UserControllerTests {
     @BeforeEach
     void setUp() {
         tokenRepository.deleteAll();
+        resetTokenRepository.deleteAll();
         userRepository.deleteAll();
         adminRepository.deleteAll();
         creatorRepository.deleteAll();
@@ -246,9 +256,8 @@ class UserControllerTests {
     @Test
     void recoverPasswordRejectsExpiredToken() throws Exception {
         User user = buildUser("token@test.com");
-        user.setResetToken("expired-token");
-        user.setTokenExpiration(LocalDateTime.now().minusMinutes(5));
         userRepository.save(user);
+        resetTokens.issue(AccountDirectory.ROLE_USER, user.getEmail(), "expired-token", LocalDateTime.now().minusMinutes(5));
 
         Map<String, Object> payload = Map.of(
                 "token", "expired-token",
@@ -264,9 +273,8 @@ class UserControllerTests {
     @Test
     void recoverPasswordUpdatesCredentialsAndSendsEmail() throws Exception {
         User user = buildUser("reset@test.com");
-        user.setResetToken("valid-token");
-        user.setTokenExpiration(LocalDateTime.now().plusMinutes(10));
         userRepository.save(user);
+        resetTokens.issue(AccountDirectory.ROLE_USER, user.getEmail(), "valid-token", LocalDateTime.now().plusMinutes(10));
 
         Map<String, Object> payload = Map.of(
                 "token", "valid-token",
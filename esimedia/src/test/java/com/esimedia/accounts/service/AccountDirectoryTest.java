@@ -0,0 +1,189 @@
+package com.esimedia.accounts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.esimedia.accounts.model.Account;
+import com.esimedia.accounts.model.AccountDirectoryEntry;
+import com.esimedia.accounts.model.Admin;
+import com.esimedia.accounts.model.ContentCreator;
+import com.esimedia.accounts.model.User;
+
+class AccountDirectoryTest {
+
+    private MongoTemplate mongoTemplate;
+    private AccountDirectory directory;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        directory = new AccountDirectory(mongoTemplate);
+        ReflectionTestUtils.setField(directory, "ready", true);
+    }
+
+    private static AccountDirectoryEntry entry(String role, String accountId) {
+        AccountDirectoryEntry e = new AccountDirectoryEntry();
+        e.setId(role + ":" + AccountDirectory.normalize(accountId));
+        e.setEmail(AccountDirectory.normalize(accountId));
+        e.setAccountId(accountId);
+        e.setRole(role);
+        e.setActive(true);
+        e.setPasswordHash("$2a$10$hash");
+        return e;
+    }
+
+    @Test
+    void resolvePrefersAdminOverCreatorOverUser() {
+        when(mongoTemplate.find(any(Query.class), eq(AccountDirectoryEntry.class))).thenReturn(List.of(
+            entry(AccountDirectory.ROLE_USER, "Ana@Test.com"),
+            entry(AccountDirectory.ROLE_ADMIN, "ana@test.com")));
+
+        AccountDirectoryEntry resolved = directory.resolve("  ANA@test.com ").orElseThrow();
+
+        assertEquals(AccountDirectory.ROLE_ADMIN, resolved.getRole());
+        assertEquals("Ana@Test.com",
+            directory.find("ana@test.com", AccountDirectory.ROLE_USER).orElseThrow().getAccountId());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(query.capture(), eq(AccountDirectoryEntry.class));
+        assertEquals("ana@test.com", query.getValue().getQueryObject().get("email"));
+    }
+
+    @Test
+    void missAfterReconcileDoesNotProbeCollections() {
+        when(mongoTemplate.find(any(Query.class), eq(AccountDirectoryEntry.class))).thenReturn(List.of());
+
+        assertTrue(directory.resolve("nadie@test.com").isEmpty());
+        verify(mongoTemplate, never()).findById(anyString(), eq(User.class), anyString());
+    }
+
+    @Test
+    void missBeforeReconcileProbesById() {
+        ReflectionTestUtils.setField(directory, "ready", false);
+        User user = new User();
+        user.setEmail("luis@test.com");
+        user.setPassword("$2a$10$hash");
+        when(mongoTemplate.find(any(Query.class), eq(AccountDirectoryEntry.class))).thenReturn(List.of());
+        when(mongoTemplate.findById("luis@test.com", User.class, "users")).thenReturn(user);
+
+        AccountDirectoryEntry resolved = directory.resolve("Luis@test.com").orElseThrow();
+
+        assertEquals(AccountDirectory.ROLE_USER, resolved.getRole());
+        assertEquals("users", resolved.getCollection());
+        verify(mongoTemplate).save(any(AccountDirectoryEntry.class));
+    }
+
+    @Test
+    void saveAndDeleteEventsKeepDirectoryInSync() {
+        Admin admin = new Admin();
+        admin.setEmail("Root@Test.com");
+        admin.setPassword("$2a$10$hash");
+        admin.setActive(false);
+
+        directory.onAfterSave(new AfterSaveEvent<Account>(admin, new Document(), "admins"));
+
+        ArgumentCaptor<AccountDirectoryEntry> saved = ArgumentCaptor.forClass(AccountDirectoryEntry.class);
+        verify(mongoTemplate).save(saved.capture());
+        assertEquals("admin:root@test.com", saved.getValue().getId());
+        assertEquals("Root@Test.com", saved.getValue().getAccountId());
+        assertFalse(saved.getValue().isActive());
+
+        directory.onAfterDelete(new AfterDeleteEvent<Account>(new Document("_id", "Root@Test.com"), Account.class, "admins"));
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(AccountDirectoryEntry.class));
+        assertEquals("admin:root@test.com", removed.getValue().getQueryObject().get("_id"));
+    }
+
+    @Test
+    void deleteAllRemovesEveryEntryOfThatRole() {
+        directory.onAfterDelete(new AfterDeleteEvent<Account>(new Document(), Account.class, "users"));
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(AccountDirectoryEntry.class));
+        assertEquals(AccountDirectory.ROLE_USER, removed.getValue().getQueryObject().get("role"));
+    }
+
+    @Test
+    void optionalCacheServesRepeatedLookupsUntilInvalidated() {
+        ReflectionTestUtils.setField(directory, "cacheEnabled", true);
+        when(mongoTemplate.find(any(Query.class), eq(AccountDirectoryEntry.class)))
+            .thenReturn(List.of(entry(AccountDirectory.ROLE_USER, "eva@test.com")));
+
+        directory.resolve("eva@test.com");
+        directory.resolve("EVA@test.com");
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(AccountDirectoryEntry.class));
+
+        directory.unregister(AccountDirectory.ROLE_USER, "eva@test.com");
+        directory.resolve("eva@test.com");
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(AccountDirectoryEntry.class));
+    }
+
+    @Test
+    void reconcileWritesOnlyChangedEntriesAndNeverOverNewerOnes() {
+        AccountDirectoryEntry unchanged = entry(AccountDirectory.ROLE_USER, "igual@test.com");
+        unchanged.setSyncedAtMs(100);
+        AccountDirectoryEntry stale = entry(AccountDirectory.ROLE_USER, "vieja@test.com");
+        stale.setSyncedAtMs(200);
+        AccountDirectoryEntry orphan = entry(AccountDirectory.ROLE_USER, "borrada@test.com");
+        orphan.setSyncedAtMs(300);
+        when(mongoTemplate.stream(any(Query.class), eq(AccountDirectoryEntry.class))).thenAnswer(inv -> {
+            Query q = inv.getArgument(0);
+            return AccountDirectory.ROLE_USER.equals(q.getQueryObject().get("role"))
+                ? Stream.of(unchanged, stale, orphan) : Stream.empty();
+        });
+        when(mongoTemplate.stream(any(Query.class), eq(Admin.class), eq("admins"))).thenReturn(Stream.empty());
+        when(mongoTemplate.stream(any(Query.class), eq(ContentCreator.class), eq("content_creators")))
+            .thenReturn(Stream.empty());
+        when(mongoTemplate.stream(any(Query.class), eq(User.class), eq("users"))).thenReturn(Stream.of(
+            user("igual@test.com", "$2a$10$hash"),
+            user("vieja@test.com", "$2a$10$nuevo"),
+            user("nueva@test.com", "$2a$10$hash")));
+
+        directory.reconcile();
+
+        ArgumentCaptor<Query> updated = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(1)).updateFirst(updated.capture(), any(Update.class), eq(AccountDirectoryEntry.class));
+        assertEquals("user:vieja@test.com", updated.getValue().getQueryObject().get("_id"));
+        assertEquals(200L, updated.getValue().getQueryObject().get("syncedAtMs"));
+
+        ArgumentCaptor<Update> inserted = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(1)).upsert(any(Query.class), inserted.capture(), eq(AccountDirectoryEntry.class));
+        assertTrue(inserted.getValue().getUpdateObject().containsKey("$setOnInsert"));
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(1)).remove(removed.capture(), eq(AccountDirectoryEntry.class));
+        assertEquals("user:borrada@test.com", removed.getValue().getQueryObject().get("_id"));
+        verify(mongoTemplate, never()).save(any(AccountDirectoryEntry.class));
+        assertEquals(3L, directory.getStats().get("lastReconcileWrites"));
+    }
+
+    private static User user(String email, String hash) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword(hash);
+        return user;
+    }
+}
@@ -0,0 +1,151 @@
+package com.esimedia.accounts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.esimedia.accounts.model.OutboxEmail;
+
+class EmailOutboxTest {
+
+    private MongoTemplate mongoTemplate;
+    private LocalMailTransport transport;
+    private EmailOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        transport = new LocalMailTransport(10);
+        outbox = new EmailOutbox(mongoTemplate, transport);
+    }
+
+    private static OutboxEmail email(String id, String to, int attempts) {
+        OutboxEmail email = new OutboxEmail();
+        email.setId(id);
+        email.setTo(to);
+        email.setSubject("Asunto");
+        email.setBody("Cuerpo " + id);
+        email.setAttempts(attempts);
+        return email;
+    }
+
+    private Document updateFor(int times) {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(times)).updateFirst(any(Query.class), update.capture(), eq(OutboxEmail.class));
+        return update.getValue().getUpdateObject();
+    }
+
+    @Test
+    void enqueueOnlyInsertsWithoutSending() {
+        outbox.enqueue("ana@test.com", "Asunto", "Cuerpo");
+
+        ArgumentCaptor<OutboxEmail> inserted = ArgumentCaptor.forClass(OutboxEmail.class);
+        verify(mongoTemplate).insert(inserted.capture());
+        assertEquals(OutboxEmail.STATUS_PENDING, inserted.getValue().getStatus());
+        assertTrue(inserted.getValue().getExpiresAt().after(inserted.getValue().getCreatedAt()));
+        assertTrue(transport.getSent().isEmpty());
+    }
+
+    @Test
+    void repeatedNoticesCollapseIntoOneUpsert() {
+        for (int i = 0; i < 50; i++) {
+            outbox.enqueueCoalesced("rate-limit", "Ana@Test.com", "Aviso", "Cuerpo");
+        }
+
+        verify(mongoTemplate, times(1)).upsert(any(Query.class), any(Update.class), eq(OutboxEmail.class));
+        assertEquals(49L, outbox.getStats().get("coalesced"));
+    }
+
+    @Test
+    void sentBatchIsMarkedSentAndBodyCleared() {
+        outbox.process(List.of(email("1", "ana@test.com", 0)));
+
+        assertEquals(1, transport.getSent().size());
+        Document update = updateFor(1);
+        assertEquals(OutboxEmail.STATUS_SENT, ((Document) update.get("$set")).get("status"));
+        assertTrue(((Document) update.get("$unset")).containsKey("body"));
+    }
+
+    @Test
+    void failedSendIsRetriedWithBackoff() {
+        EmailOutbox failing = new EmailOutbox(mongoTemplate, new MailTransport() {
+            @Override
+            public void send(SimpleMailMessage... messages) {
+                throw new MailSendException("SMTP caído");
+            }
+
+            @Override
+            public String name() {
+                return "failing";
+            }
+        });
+
+        failing.process(List.of(email("1", "ana@test.com", 0)));
+
+        Document set = (Document) updateFor(1).get("$set");
+        assertEquals(OutboxEmail.STATUS_PENDING, set.get("status"));
+        assertEquals(1, set.get("attempts"));
+        assertEquals(1L, failing.getStats().get("retried"));
+    }
+
+    @Test
+    void partialFailureOnlyRetriesFailedMessages() {
+        EmailOutbox partial = new EmailOutbox(mongoTemplate, new MailTransport() {
+            @Override
+            public void send(SimpleMailMessage... messages) {
+                throw new MailSendException(Map.of(messages[1], new RuntimeException("buzón lleno")));
+            }
+
+            @Override
+            public String name() {
+                return "partial";
+            }
+        });
+        ReflectionTestUtils.setField(partial, "maxAttempts", 2);
+
+        partial.process(List.of(email("1", "ana@test.com", 0), email("2", "luis@test.com", 1)));
+
+        assertEquals(1L, partial.getStats().get("sent"));
+        assertEquals(1L, partial.getStats().get("failed"), "el segundo agota sus intentos");
+    }
+
+    @Test
+    void backoffGrowsAndIsCapped() {
+        ReflectionTestUtils.setField(outbox, "backoffBaseMs", 1000L);
+        ReflectionTestUtils.setField(outbox, "backoffMaxMs", 10_000L);
+
+        long first = outbox.backoffMs(1);
+        long fourth = outbox.backoffMs(4);
+        assertTrue(first >= 500 && first <= 1000);
+        assertTrue(fourth >= 4000 && fourth <= 8000);
+        assertTrue(outbox.backoffMs(30) <= 10_000);
+    }
+
+    @Test
+    void disabledOutboxSendsImmediately() {
+        ReflectionTestUtils.setField(outbox, "enabled", false);
+
+        outbox.enqueue("ana@test.com", "Asunto", "Cuerpo");
+
+        assertEquals(1, transport.getSent().size());
+        verify(mongoTemplate, times(0)).insert(any(OutboxEmail.class));
+    }
+}
@@ -0,0 +1,79 @@
+package com.esimedia.accounts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.esimedia.accounts.model.PasswordResetToken;
+import com.esimedia.accounts.repository.PasswordResetTokenRepository;
+
+class PasswordResetTokenServiceTest {
+
+    private PasswordResetTokenRepository repository;
+    private PasswordResetTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(PasswordResetTokenRepository.class);
+        service = new PasswordResetTokenService(repository);
+    }
+
+    private PasswordResetToken saved() {
+        ArgumentCaptor<PasswordResetToken> captor = ArgumentCaptor.forClass(PasswordResetToken.class);
+        verify(repository).save(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void issueStoresOnlyHashKeyedByAccount() {
+        String token = service.issue(AccountDirectory.ROLE_USER, "ana@test.com");
+
+        PasswordResetToken entry = saved();
+        assertEquals("user:ana@test.com", entry.getId());
+        assertNotEquals(token, entry.getTokenHash());
+        assertEquals(64, entry.getTokenHash().length());
+        assertTrue(entry.getExpiresAt().isAfter(LocalDateTime.now().plusMinutes(14)));
+    }
+
+    @Test
+    void findLooksUpByHashOfTrimmedToken() {
+        service.issue(AccountDirectory.ROLE_ADMIN, "root@test.com", "abc", LocalDateTime.now().plusMinutes(5));
+        PasswordResetToken entry = saved();
+        when(repository.findByTokenHash(anyString())).thenAnswer(inv ->
+            entry.getTokenHash().equals(inv.getArgument(0)) ? Optional.of(entry) : Optional.empty());
+
+        assertTrue(service.find(" abc ").isPresent());
+        assertFalse(service.find("otro").isPresent());
+    }
+
+    @Test
+    void blankTokenNeverHitsRepository() {
+        assertFalse(service.find(" ").isPresent());
+        assertFalse(service.find(null).isPresent());
+        verify(repository, never()).findByTokenHash(anyString());
+    }
+
+    @Test
+    void expiryAndConsumeUseStoredEntry() {
+        PasswordResetToken entry = new PasswordResetToken();
+        entry.setTokenHash("h");
+        entry.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+
+        assertTrue(PasswordResetTokenService.isExpired(entry, LocalDateTime.now()));
+        service.consume(entry);
+        verify(repository).deleteByTokenHash("h");
+    }
+}
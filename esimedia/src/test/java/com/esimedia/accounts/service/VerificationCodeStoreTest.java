@@ -0,0 +1,160 @@
+package com.esimedia.accounts.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.esimedia.accounts.model.EmailVerificationCode;
+import com.esimedia.accounts.repository.VerificationCodeRepository;
+
+class VerificationCodeStoreTest {
+
+    private VerificationCodeRepository repository;
+    private MongoTemplate mongoTemplate;
+    private VerificationCodeStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(VerificationCodeRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        store = new VerificationCodeStore(repository, mongoTemplate);
+    }
+
+    private static String wrong(String code) {
+        return code.equals("000000") ? "111111" : "000000";
+    }
+
+    private static EmailVerificationCode withAttempts(int attempts) {
+        EmailVerificationCode doc = new EmailVerificationCode();
+        doc.setId("ana@test.com");
+        doc.setAttempts(attempts);
+        return doc;
+    }
+
+    private String issuedHash(String email) {
+        ArgumentCaptor<EmailVerificationCode> saved = ArgumentCaptor.forClass(EmailVerificationCode.class);
+        verify(repository).save(saved.capture());
+        return saved.getValue().getCodeHash();
+    }
+
+    @Test
+    void memoryModeIssuesAndConsumesWithoutTouchingMongo() {
+        ReflectionTestUtils.setField(store, "persist", false);
+        String code = store.issue("Ana@Test.com");
+
+        assertTrue(store.verify("ana@test.com", code));
+        assertFalse(store.verify("ana@test.com", code), "el código se consume al validarlo");
+        verifyNoInteractions(repository, mongoTemplate);
+    }
+
+    @Test
+    void memoryModeInvalidatesCodeAfterMaxAttempts() {
+        ReflectionTestUtils.setField(store, "persist", false);
+        ReflectionTestUtils.setField(store, "maxAttempts", 3);
+        String code = store.issue("ana@test.com");
+
+        assertFalse(store.verify("ana@test.com", wrong(code)));
+        assertFalse(store.verify("ana@test.com", wrong(code)));
+        assertFalse(store.verify("ana@test.com", wrong(code)));
+        assertFalse(store.verify("ana@test.com", code), "tras agotar los intentos el código deja de valer");
+        assertEquals(1L, store.getStats().get("lockedOut"));
+    }
+
+    @Test
+    void memoryModeRejectsExpiredCode() {
+        ReflectionTestUtils.setField(store, "persist", false);
+        ReflectionTestUtils.setField(store, "codeTtlMinutes", 0L);
+        String code = store.issue("ana@test.com");
+
+        assertFalse(store.verify("ana@test.com", code));
+    }
+
+    @Test
+    void issueWritesOnlyTheHashBeforeReturning() {
+        store.issue("Ana@Test.com");
+
+        ArgumentCaptor<EmailVerificationCode> saved = ArgumentCaptor.forClass(EmailVerificationCode.class);
+        verify(repository).save(saved.capture());
+        assertEquals("ana@test.com", saved.getValue().getId());
+        assertNull(saved.getValue().getCode(), "no se guarda el código en claro");
+        assertEquals(64, saved.getValue().getCodeHash().length());
+        assertEquals(0, saved.getValue().getAttempts());
+        verify(mongoTemplate).remove(any(Query.class), eq(EmailVerificationCode.class));
+    }
+
+    @Test
+    void correctCodeIsConsumedByOneConditionalDelete() {
+        String code = store.issue("ana@test.com");
+        String hash = issuedHash("ana@test.com");
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(EmailVerificationCode.class)))
+            .thenReturn(withAttempts(0));
+
+        assertTrue(store.verify("ana@test.com", code));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndRemove(query.capture(), eq(EmailVerificationCode.class));
+        Document filter = query.getValue().getQueryObject();
+        assertEquals("ana@test.com", filter.get("_id"));
+        assertEquals(hash, filter.get("codeHash"));
+        assertEquals(5, ((Document) filter.get("attempts")).get("$lt"));
+    }
+
+    @Test
+    void codeConsumedOnAnotherNodeIsRejected() {
+        String code = store.issue("ana@test.com");
+        // Ninguna operación condicional encuentra el documento: ya no existe
+
+        assertFalse(store.verify("ana@test.com", code));
+        assertEquals(0L, store.getStats().get("verified"));
+    }
+
+    @Test
+    void wrongCodeCountsAttemptInMongoAndLocksAtMax() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(EmailVerificationCode.class)))
+            .thenReturn(withAttempts(1), withAttempts(5));
+
+        assertFalse(store.verify("ana@test.com", "000000"));
+        assertEquals(1L, store.getStats().get("rejected"));
+
+        assertFalse(store.verify("ana@test.com", "000000"));
+        assertEquals(1L, store.getStats().get("lockedOut"));
+        verify(mongoTemplate).remove(any(Query.class), eq(EmailVerificationCode.class));
+    }
+
+    @Test
+    void legacyPlaintextDocumentsStillValidate() {
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(EmailVerificationCode.class))).thenAnswer(inv -> {
+            Query q = inv.getArgument(0);
+            return "123456".equals(q.getQueryObject().get("code")) ? withAttempts(0) : null;
+        });
+
+        assertTrue(store.verify("ana@test.com", "123456"));
+    }
+
+    @Test
+    void storeFailureRejectsTheCode() {
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(EmailVerificationCode.class)))
+            .thenThrow(new IllegalStateException("mongo caído"));
+
+        assertFalse(store.verify("ana@test.com", "123456"));
+        assertEquals(1L, store.getStats().get("storeErrors"));
+    }
+}
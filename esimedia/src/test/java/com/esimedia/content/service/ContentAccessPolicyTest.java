@@ -0,0 +1,89 @@
+package com.esimedia.content.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.esimedia.accounts.model.User;
+import com.esimedia.content.model.Content;
+import com.esimedia.content.model.ContentState;
+
+class ContentAccessPolicyTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+
+    private final ContentAccessPolicy policy = new ContentAccessPolicy();
+
+    private static User user(String email, String dateOfBirth, boolean vip, List<String> tags) {
+        User user = new User();
+        user.setEmail(email);
+        user.setDateOfBirth(dateOfBirth);
+        user.setVip(vip);
+        user.setTags(tags);
+        return user;
+    }
+
+    private static Content content(String id, int edadMinima, boolean vipOnly, List<String> tags) {
+        Content content = new Content();
+        content.setId(id);
+        content.setState(ContentState.PUBLICO);
+        content.setEdadMinima(edadMinima);
+        content.setVipOnly(vipOnly);
+        content.setTags(tags);
+        return content;
+    }
+
+    @Test
+    void ageIsComputedOnceAndComparedInYears() {
+        ContentAccessPolicy.Viewer turns18Today = policy.viewer(user("a", "2007-06-15", false, null), TODAY);
+        ContentAccessPolicy.Viewer turns18Tomorrow = policy.viewer(user("b", "2007-06-16", false, null), TODAY);
+        Content adult = content("1", 18, false, null);
+
+        assertEquals(18, turns18Today.getAgeYears());
+        assertTrue(policy.canAccess(turns18Today, adult));
+        assertFalse(policy.canAccess(turns18Tomorrow, adult));
+    }
+
+    @Test
+    void missingOrInvalidBirthDateOnlyBlocksRestrictedContent() {
+        ContentAccessPolicy.Viewer noDate = policy.viewer(user("a", null, false, null), TODAY);
+        ContentAccessPolicy.Viewer badDate = policy.viewer(user("b", "15/06/2000", false, null), TODAY);
+
+        assertTrue(policy.canAccess(noDate, content("1", 0, false, null)));
+        assertFalse(policy.canAccess(noDate, content("2", 12, false, null)));
+        assertFalse(policy.canAccess(badDate, content("2", 12, false, null)));
+    }
+
+    @Test
+    void viewableFiltersVipAndNonPublicInOrder() {
+        ContentAccessPolicy.Viewer viewer = policy.viewer(user("a", "1990-01-01", false, null), TODAY);
+        Content hidden = content("3", 0, false, null);
+        hidden.setState(ContentState.PRIVADO);
+
+        List<Content> visible = policy.viewable(viewer,
+            List.of(content("1", 0, false, null), content("2", 0, true, null), hidden, content("4", 18, false, null)));
+
+        assertEquals(List.of("1", "4"), visible.stream().map(Content::getId).toList());
+    }
+
+    @Test
+    void audienceNeedsAccessAndSharedTag() {
+        ContentAccessPolicy.Rule rule = policy.rule(content("1", 16, false, List.of("Rock", "jazz")));
+        List<User> users = List.of(
+            user("fan@test.com", "1990-01-01", false, List.of("ROCK", "pop")),
+            user("teen@test.com", "2015-01-01", false, List.of("rock")),
+            user("other@test.com", "1990-01-01", false, List.of("pop")),
+            user("notags@test.com", "1990-01-01", false, null));
+
+        List<ContentAccessPolicy.Viewer> audience = policy.audience(rule, users);
+
+        assertEquals(1, audience.size());
+        assertEquals("fan@test.com", audience.get(0).getUser().getEmail());
+        assertEquals(List.of("ROCK"), policy.matchingTags(audience.get(0), rule));
+    }
+}
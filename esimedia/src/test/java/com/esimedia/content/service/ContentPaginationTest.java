@@ -0,0 +1,63 @@
+package com.esimedia.content.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.esimedia.content.dto.ContentPage;
+import com.esimedia.content.model.Content;
+
+class ContentPaginationTest {
+
+    private final ContentPagination pagination = new ContentPagination();
+
+    private static Content content(String id) {
+        Content content = new Content();
+        content.setId(id);
+        return content;
+    }
+
+    @Test
+    void limitIsDefaultedAndCapped() {
+        assertEquals(50, pagination.limit(null));
+        assertEquals(10, pagination.limit(10));
+        assertEquals(200, pagination.limit(10_000));
+        assertThrows(ResponseStatusException.class, () -> pagination.limit(0));
+    }
+
+    @Test
+    void cursorRoundTripsAndRejectsGarbage() {
+        String cursor = pagination.encode("6650f1c2a1b2c3d4e5f60718");
+
+        assertEquals("6650f1c2a1b2c3d4e5f60718", pagination.decode(cursor));
+        assertNull(pagination.decode(null));
+        assertThrows(ResponseStatusException.class, () -> pagination.decode("no es base64!"));
+    }
+
+    @Test
+    void extraElementMeansThereIsANextPage() {
+        ContentPage<String> first = pagination.page(List.of(content("a"), content("b"), content("c")), 2,
+            items -> items.stream().map(Content::getId).toList());
+        ContentPage<String> last = pagination.page(List.of(content("c")), 2,
+            items -> items.stream().map(Content::getId).toList());
+
+        assertEquals(List.of("a", "b"), first.items());
+        assertEquals("b", pagination.decode(first.nextCursor()));
+        assertEquals(List.of("c"), last.items());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void paginationIsOptIn() {
+        assertFalse(pagination.requested(null, null));
+        assertTrue(pagination.requested(null, 20));
+        assertTrue(pagination.requested("YQ", null));
+    }
+}
@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -22,6 +23,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -42,6 +45,9 @@ class ContentServiceTests {
     @Mock
     private NotificationService notificationService;
 
+    @Mock
+    private PublicCatalog publicCatalog;
+
     @InjectMocks
     private ContentService service;
 
@@ -191,6 +197,7 @@ class ContentServiceTests {
         assertEquals(ContentState.PUBLICO, updated.getState());
         assertTrue(updated.isVipOnly());
         assertNotNull(updated.getStateChangedAt());
+        verify(publicCatalog).upsert(updated);
     }
 
     @Test
@@ -211,6 +218,20 @@ class ContentServiceTests {
 
         assertTrue(service.delete("content-4"));
         verify(repository).deleteById("content-4");
+        verify(publicCatalog).remove("content-4");
+    }
+
+    @Test
+    void findPageUsesKeysetQueryAfterCursor() {
+        when(repository.findByCreatorAliasAndIdGreaterThan(eq("alias"), eq("id-5"), any(Pageable.class)))
+                .thenReturn(List.of(buildContent(ContentType.VIDEO)));
+
+        assertEquals(1, service.findPage("alias", "id-5", 11).size());
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(repository).findByCreatorAliasAndIdGreaterThan(eq("alias"), eq("id-5"), pageable.capture());
+        assertEquals(11, pageable.getValue().getPageSize());
+        assertEquals(Sort.Direction.ASC, pageable.getValue().getSort().getOrderFor("id").getDirection());
     }
 
     @Test
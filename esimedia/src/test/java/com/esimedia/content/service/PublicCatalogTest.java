@@ -0,0 +1,182 @@
+package com.esimedia.content.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.esimedia.content.model.Content;
+import com.esimedia.content.model.ContentState;
+import com.esimedia.content.repository.CreatorContentRepository;
+
+class PublicCatalogTest {
+
+    private CreatorContentRepository repository;
+    private PublicCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(CreatorContentRepository.class);
+        catalog = new PublicCatalog(repository);
+    }
+
+    private static Content content(String id, String title, ContentState state) {
+        Content content = new Content();
+        content.setId(id);
+        content.setTitle(title);
+        content.setState(state);
+        content.setCreatorAlias("alias");
+        return content;
+    }
+
+    @Test
+    void firstReadBuildsAndLaterReadsDoNotQuery() {
+        when(repository.findByState(ContentState.PUBLICO))
+            .thenReturn(List.of(content("1", "Jazz en vivo", ContentState.PUBLICO)));
+
+        PublicCatalog.Snapshot first = catalog.snapshot();
+        PublicCatalog.Snapshot second = catalog.snapshot();
+
+        assertEquals(1, first.size());
+        assertEquals(first, second);
+        verify(repository, times(1)).findByState(ContentState.PUBLICO);
+    }
+
+    @Test
+    void upsertAndRemoveBumpVersion() {
+        when(repository.findByState(ContentState.PUBLICO)).thenReturn(List.of());
+        long version = catalog.snapshot().version();
+
+        catalog.upsert(content("1", "Rock", ContentState.PUBLICO));
+        catalog.upsert(content("2", "Pop", ContentState.PUBLICO));
+        assertEquals(version + 2, catalog.snapshot().version());
+        assertEquals(List.of("1", "2"), catalog.snapshot().contents().stream().map(Content::getId).toList());
+
+        catalog.upsert(content("1", "Rock", ContentState.PRIVADO));
+        catalog.remove("2");
+        assertEquals(0, catalog.snapshot().size());
+        assertEquals(version + 4, catalog.snapshot().version());
+    }
+
+    @Test
+    void oldSnapshotIsNotAffectedByLaterChanges() {
+        when(repository.findByState(ContentState.PUBLICO))
+            .thenReturn(List.of(content("1", "Rock", ContentState.PUBLICO)));
+        PublicCatalog.Snapshot before = catalog.snapshot();
+
+        catalog.remove("1");
+
+        assertEquals(1, before.size());
+        assertTrue(before.get("1").isPresent());
+        assertTrue(catalog.snapshot().get("1").isEmpty());
+    }
+
+    @Test
+    void searchIsCaseInsensitive() {
+        when(repository.findByState(ContentState.PUBLICO)).thenReturn(List.of(
+            content("1", "Jazz en Vivo", ContentState.PUBLICO),
+            content("2", "Rock", ContentState.PUBLICO),
+            content("3", null, ContentState.PUBLICO)));
+
+        List<Content> found = catalog.snapshot().searchTitle("VIVO");
+
+        assertEquals(1, found.size());
+        assertEquals("1", found.get(0).getId());
+        assertEquals(3, catalog.snapshot().byCreator("alias").size());
+    }
+
+    @Test
+    void changesDuringRebuildAreKept() {
+        List<Content> stored = new ArrayList<>(List.of(content("1", "Rock", ContentState.PUBLICO)));
+        when(repository.findByState(ContentState.PUBLICO)).thenAnswer(invocation -> {
+            List<Content> read = List.copyOf(stored);
+            // Llega un alta mientras la reconstrucción ya ha leído la colección
+            catalog.upsert(content("2", "Pop", ContentState.PUBLICO));
+            return read;
+        });
+
+        catalog.rebuild();
+
+        assertEquals(2, catalog.snapshot().size());
+    }
+
+    @Test
+    void staleSnapshotIsRebuiltInBackground() throws InterruptedException {
+        when(repository.findByState(ContentState.PUBLICO)).thenReturn(List.of());
+        ReflectionTestUtils.setField(catalog, "maxStalenessMs", 1L);
+        catalog.snapshot();
+        Thread.sleep(5);
+
+        catalog.snapshot();
+
+        verify(repository, timeout(2000).times(2)).findByState(ContentState.PUBLICO);
+        assertEquals(1L, catalog.getStats().get("staleRebuilds"));
+    }
+
+    @Test
+    void staleReadServesCurrentSnapshotWhileRebuilding() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findByState(ContentState.PUBLICO))
+            .thenReturn(List.of(content("1", "Rock", ContentState.PUBLICO)))
+            .thenAnswer(invocation -> {
+                release.await(5, TimeUnit.SECONDS);
+                return List.of();
+            });
+        PublicCatalog.Snapshot built = catalog.snapshot();
+        ReflectionTestUtils.setField(catalog, "maxStalenessMs", 1L);
+        Thread.sleep(5);
+
+        // La reconstrucción queda bloqueada en Mongo y la lectura no la espera
+        PublicCatalog.Snapshot served = catalog.snapshot();
+
+        assertSame(built, served);
+        release.countDown();
+        verify(repository, timeout(2000).times(2)).findByState(ContentState.PUBLICO);
+    }
+
+    @Test
+    void burstOfChangesIsPublishedInOneCopy() {
+        when(repository.findByState(ContentState.PUBLICO)).thenReturn(List.of());
+        long version = catalog.snapshot().version();
+
+        for (int i = 0; i < 10; i++) {
+            catalog.upsert(content("c" + i, "Rock", ContentState.PUBLICO));
+        }
+        catalog.remove("c0");
+
+        PublicCatalog.Snapshot snapshot = catalog.snapshot();
+        assertEquals(9, snapshot.size());
+        assertEquals(version + 11, snapshot.version());
+        assertSame(snapshot, catalog.snapshot());
+        assertEquals(1L, catalog.getStats().get("publishes"));
+    }
+
+    @Test
+    void pagesFollowIdOrderAndApplyFilter() {
+        when(repository.findByState(ContentState.PUBLICO)).thenReturn(List.of(
+            content("c", "Rock", ContentState.PUBLICO),
+            content("a", "Rock", ContentState.PUBLICO),
+            content("b", "Pop", ContentState.PUBLICO),
+            content("d", "Rock", ContentState.PUBLICO)));
+        PublicCatalog.Snapshot snapshot = catalog.snapshot();
+
+        List<Content> first = snapshot.page(null, 2, PublicCatalog.titleContains("rock"));
+        List<Content> second = snapshot.page("c", 2, PublicCatalog.titleContains("rock"));
+
+        assertEquals(List.of("a", "c"), first.stream().map(Content::getId).toList());
+        assertEquals(List.of("d"), second.stream().map(Content::getId).toList());
+    }
+}
@@ -0,0 +1,97 @@
+package com.esimedia.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.esimedia.accounts.model.Token;
+import com.esimedia.accounts.repository.RevokedTokenRepository;
+import com.esimedia.accounts.repository.TokenRepository;
+
+class AccessTokenServiceTest {
+
+    private TokenRepository tokenRepository;
+    private AccessTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        tokenRepository = mock(TokenRepository.class);
+        service = new AccessTokenService(
+            tokenRepository,
+            new TokenValidationCache(tokenRepository),
+            new SignedTokenCodec("unit-test-secret"),
+            new RevokedTokenRegistry(mock(RevokedTokenRepository.class)));
+        ReflectionTestUtils.setField(service, "mode", AccessTokenService.MODE_SIGNED);
+    }
+
+    @Test
+    void signedTokenResolvesWithoutDatabase() {
+        String value = service.issue("creator@test.com", "creator");
+
+        Token token = service.resolve(value);
+
+        assertNotNull(token);
+        assertEquals("creator@test.com", token.getAccountId());
+        assertEquals("creator", token.getRole());
+        verify(tokenRepository, never()).save(any());
+        verify(tokenRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void tamperedSignatureIsRejected() {
+        String value = service.issue("user@test.com", "user");
+        String tampered = value.substring(0, value.length() - 2) + (value.endsWith("A") ? "BB" : "AA");
+
+        assertNull(service.resolve(tampered));
+        assertNull(service.resolve(SignedTokenCodec.PREFIX + "garbage"));
+    }
+
+    @Test
+    void tokenSignedWithOtherKeyIsRejected() {
+        String foreign = new SignedTokenCodec("other-secret")
+            .encode("admin@test.com", "admin", System.currentTimeMillis(), System.currentTimeMillis() + 60_000);
+
+        assertNull(service.resolve(foreign));
+    }
+
+    @Test
+    void logoutRevokesOnlyThatToken() {
+        String first = service.issue("user@test.com", "user");
+        String second = service.issue("user@test.com", "user");
+
+        service.revoke(first);
+
+        assertNull(service.resolve(first));
+        assertNotNull(service.resolve(second));
+    }
+
+    @Test
+    void accountDeactivationRevokesExistingTokens() {
+        String value = service.issue("user@test.com", "user");
+
+        service.revokeAccount("User@Test.com");
+
+        assertNull(service.resolve(value));
+        verify(tokenRepository).deleteByAccountId("User@Test.com");
+    }
+
+    @Test
+    void persistedModeStillIssuesUuidTokens() {
+        ReflectionTestUtils.setField(service, "mode", AccessTokenService.MODE_PERSISTED);
+
+        String value = service.issue("user@test.com", "user");
+
+        assertTrue(!SignedTokenCodec.isSigned(value));
+        verify(tokenRepository).save(any(Token.class));
+    }
+}
@@ -0,0 +1,153 @@
+package com.esimedia.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.esimedia.accounts.model.Token;
+
+import jakarta.servlet.http.Cookie;
+
+class AuthenticationSessionFilterTest {
+
+    private AccessTokenService accessTokenService;
+    private InMemorySessionRegistry registry;
+    private AuthenticationSessionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        accessTokenService = mock(AccessTokenService.class);
+        registry = new InMemorySessionRegistry();
+        for (String role : List.of("user", "admin", "creator")) {
+            ReflectionTestUtils.setField(registry, role + "IdleMinutes", 20L);
+            ReflectionTestUtils.setField(registry, role + "AbsoluteHours", 8L);
+        }
+        registry.initLimits();
+        filter = new AuthenticationSessionFilter(accessTokenService, registry, mock(SecurityAuditLog.class),
+            List.of("/api/auth/login", "/actuator"),
+            List.of("/api/public", "/api/auth/login"));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private Token token(String role) {
+        Token token = new Token();
+        token.setId("tok");
+        token.setAccountId("admin@test.com");
+        token.setRole(role);
+        token.setExpiration(LocalDateTime.now().plusHours(1));
+        return token;
+    }
+
+    @Test
+    void matcherCombinesFlagsOfAllMatchingPrefixes() {
+        PublicPathMatcher matcher = new PublicPathMatcher()
+            .add(List.of("/api/auth/login", "/cover/"), PublicPathMatcher.SKIP_AUTH)
+            .add(List.of("/api/auth/login", "/api/public"), PublicPathMatcher.SKIP_SESSION);
+
+        assertEquals(3, matcher.match("/api/auth/login"));
+        assertEquals(PublicPathMatcher.SKIP_SESSION, matcher.match("/api/public/contents"));
+        assertEquals(PublicPathMatcher.SKIP_AUTH, matcher.match("/cover/a.png"));
+        assertEquals(0, matcher.match("/api/auth/logout"));
+        assertEquals(0, matcher.match("/cover"));
+    }
+
+    @Test
+    void resolvesTokenOnceAndPublishesContext() throws Exception {
+        when(accessTokenService.resolve("tok")).thenReturn(token("admin"));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/admins/admins");
+        request.setCookies(new Cookie("access_token", "tok"));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        RequestAuthContext ctx = RequestAuthContext.from((MockHttpServletRequest) chain.getRequest());
+        assertNotNull(ctx);
+        assertTrue(ctx.isAuthenticated());
+        assertEquals("admin", ctx.getRole());
+        assertEquals("tok", ctx.getSessionKey());
+        assertEquals("admin", ctx.getSession().role);
+        assertEquals("admin@test.com", SecurityContextHolder.getContext().getAuthentication().getName());
+    }
+
+    @Test
+    void publicPathSkipsSessionButStillAuthenticates() throws Exception {
+        when(accessTokenService.resolve("tok")).thenReturn(token("user"));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/public/contents");
+        request.addHeader("Authorization", "Bearer tok");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        RequestAuthContext ctx = RequestAuthContext.from(request);
+        assertTrue(ctx.isAuthenticated());
+        assertNull(ctx.getSession());
+    }
+
+    @Test
+    void idleExpiredSessionIsRejected() throws Exception {
+        ReflectionTestUtils.setField(registry, "adminIdleMinutes", 0L);
+        registry.initLimits();
+        when(accessTokenService.resolve("tok")).thenReturn(token("admin"));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/admins/admins");
+        request.addHeader("Authorization", "Bearer tok");
+        registry.getOrCreate("tok", "admin").lastActivityMs -= 5_000;
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(401, response.getStatus());
+        assertEquals("idle", response.getHeader("X-Session-Expired"));
+    }
+
+    @Test
+    void sessionEvictedBySweepStaysExpired() throws Exception {
+        AtomicLong now = new AtomicLong(1_000_000L);
+        CoarseClock clock = mock(CoarseClock.class);
+        when(clock.millis()).thenAnswer(inv -> now.get());
+        registry = new InMemorySessionRegistry(new LocalSessionStore(), clock);
+        ReflectionTestUtils.setField(registry, "adminIdleMinutes", 15L);
+        ReflectionTestUtils.setField(registry, "adminAbsoluteHours", 7L);
+        registry.initLimits();
+        filter = new AuthenticationSessionFilter(accessTokenService, registry, mock(SecurityAuditLog.class),
+            List.of("/api/auth/login"), List.of("/api/auth/login"));
+        when(accessTokenService.resolve("tok")).thenReturn(token("admin"));
+
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/api/admins/admins");
+        first.addHeader("Authorization", "Bearer tok");
+        filter.doFilter(first, new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals(1, registry.size());
+
+        now.addAndGet(16 * 60_000L);
+        registry.evictExpired();
+        assertEquals(0, registry.size());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/admins/admins");
+        request.addHeader("Authorization", "Bearer tok");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(401, response.getStatus());
+        assertEquals("idle", response.getHeader("X-Session-Expired"));
+        assertEquals(0, registry.size(), "no se abre una sesión nueva con la misma clave");
+    }
+}
@@ -0,0 +1,193 @@
+package com.esimedia.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class InMemorySessionRegistryTest {
+
+    private InMemorySessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InMemorySessionRegistry();
+        for (String role : List.of("user", "admin", "creator")) {
+            ReflectionTestUtils.setField(registry, role + "IdleMinutes", 20L);
+            ReflectionTestUtils.setField(registry, role + "AbsoluteHours", 8L);
+        }
+        registry.initLimits();
+    }
+
+    @Test
+    void sweepRemovesAbandonedSessionsWithoutNewRequests() {
+        ReflectionTestUtils.setField(registry, "userIdleMinutes", 0L);
+        registry.initLimits();
+        registry.getOrCreate("abandoned", "user").lastActivityMs -= 5_000;
+        registry.getOrCreate("admin-session", "admin");
+
+        registry.evictExpired();
+
+        assertEquals(1, registry.size());
+        assertEquals(1L, registry.getStats().get("idleEvictions"));
+    }
+
+    @Test
+    void sweptSessionLeavesTombstoneUntilAbsoluteDeadline() {
+        ReflectionTestUtils.setField(registry, "userIdleMinutes", 0L);
+        registry.initLimits();
+        registry.getOrCreate("abandoned", "user").lastActivityMs -= 5_000;
+
+        registry.evictExpired();
+
+        assertEquals("idle", registry.expiredReason("abandoned"));
+        assertNull(registry.getOrCreate("abandoned", "user"));
+        assertEquals(0, registry.size());
+        assertEquals(1, registry.getStats().get("tombstones"));
+    }
+
+    @Test
+    void devKeyTombstoneOnlyLastsDevTombstoneMs() {
+        ReflectionTestUtils.setField(registry, "userIdleMinutes", 0L);
+        ReflectionTestUtils.setField(registry, "devTombstoneMs", 0L);
+        registry.initLimits();
+        registry.getOrCreate("DEV:ana@test.com", "user", false).lastActivityMs -= 5_000;
+
+        registry.evictExpired();
+
+        // La clave de desarrollo no queda bloqueada hasta el plazo absoluto (8 h)
+        assertNull(registry.expiredReason("DEV:ana@test.com"));
+        assertNotNull(registry.getOrCreate("DEV:ana@test.com", "user", false));
+    }
+
+    @Test
+    void devKeyTombstoneStillReportsReasonWhileItLasts() {
+        registry.getOrCreate("sid-123", "user", false);
+
+        registry.expire("sid-123", "idle");
+
+        assertEquals("idle", registry.expiredReason("sid-123"));
+        assertNull(registry.getOrCreate("sid-123", "user", false));
+    }
+
+    @Test
+    void sweepKeepsActiveSessions() {
+        InMemorySessionRegistry.SessionInfo s = registry.getOrCreate("active", "user");
+        registry.touch(s);
+
+        registry.evictExpired();
+
+        assertEquals(1, registry.size());
+        assertFalse(registry.isIdleExpired(s));
+    }
+
+    @Test
+    void capacityLimitEvictsSessionsClosestToExpiry() {
+        ReflectionTestUtils.setField(registry, "maxEntries", 2);
+        InMemorySessionRegistry.SessionInfo first = registry.getOrCreate("a", "admin");
+        first.lastActivityMs -= 600_000;
+        registry.getOrCreate("b", "user");
+
+        registry.getOrCreate("c", "user");
+
+        assertEquals(2, registry.size());
+        assertEquals(1L, registry.getStats().get("capacityEvictions"));
+        assertTrue((long) registry.getStats().get("estimatedBytes") > 0);
+    }
+
+    @Test
+    void sharedStoreCoalescesTouchesAndReadsAtMostOncePerInterval() {
+        RecordingStore store = new RecordingStore();
+        InMemorySessionRegistry shared = new InMemorySessionRegistry(store);
+        ReflectionTestUtils.setField(shared, "userIdleMinutes", 20L);
+        ReflectionTestUtils.setField(shared, "userAbsoluteHours", 8L);
+        ReflectionTestUtils.setField(shared, "flushIntervalMs", 60_000L);
+        shared.initLimits();
+
+        for (int i = 0; i < 50; i++) {
+            InMemorySessionRegistry.SessionInfo s = shared.getOrCreate("tok", "user");
+            shared.isIdleExpired(s);
+            shared.touch(s);
+        }
+        shared.flush();
+
+        assertEquals(1, store.loads, "una sola lectura remota por sesión e intervalo");
+        assertEquals(1, store.flushed.size(), "los touch se agrupan en una única entrada");
+        assertEquals("user", store.flushed.get(0).role);
+
+        shared.flush();
+        assertEquals(1, store.flushed.size());
+    }
+
+    @Test
+    void sharedStoreAdoptsActivityFromOtherNodes() {
+        RecordingStore store = new RecordingStore();
+        long created = Instant.now().minusSeconds(3600).toEpochMilli();
+        store.remote = new SessionStore.Entry("tok", "admin", created, created, created);
+        InMemorySessionRegistry shared = new InMemorySessionRegistry(store);
+        ReflectionTestUtils.setField(shared, "adminIdleMinutes", 15L);
+        ReflectionTestUtils.setField(shared, "adminAbsoluteHours", 7L);
+        shared.initLimits();
+
+        InMemorySessionRegistry.SessionInfo s = shared.getOrCreate("tok", "admin");
+
+        assertEquals(created, s.createdAtMs);
+        assertTrue(shared.isIdleExpired(s));
+    }
+
+    @Test
+    void sessionDeletedOnAnotherNodeIsNotRecreated() {
+        RecordingStore store = new RecordingStore();
+        InMemorySessionRegistry shared = new InMemorySessionRegistry(store);
+        ReflectionTestUtils.setField(shared, "userIdleMinutes", 20L);
+        ReflectionTestUtils.setField(shared, "userAbsoluteHours", 8L);
+        ReflectionTestUtils.setField(shared, "flushIntervalMs", 0L);
+        shared.initLimits();
+        InMemorySessionRegistry.SessionInfo s = shared.getOrCreate("tok", "user");
+        shared.flush();
+        s.lastActivityMs -= 21 * 60_000L;
+
+        store.remote = null; // el otro nodo la ha dado por caducada
+
+        assertNull(shared.getOrCreate("tok", "user"));
+        assertEquals("idle", shared.expiredReason("tok"));
+        assertEquals(0, shared.size());
+    }
+
+    private static final class RecordingStore implements SessionStore {
+        int loads;
+        SessionStore.Entry remote;
+        final List<SessionStore.Entry> flushed = new ArrayList<>();
+
+        @Override public boolean isShared() { return true; }
+        @Override public SessionStore.Entry load(String key) { loads++; return remote; }
+        @Override public void flush(List<SessionStore.Entry> entries) { flushed.addAll(entries); }
+        @Override public void delete(String key) { remote = null; }
+        @Override public String name() { return "test"; }
+    }
+
+    @Test
+    void limitsAreResolvedOncePerSessionFromItsRole() {
+        ReflectionTestUtils.setField(registry, "adminIdleMinutes", 1L);
+        registry.initLimits();
+        InMemorySessionRegistry.SessionInfo admin = registry.getOrCreate("adm", " ADMIN ");
+        InMemorySessionRegistry.SessionInfo user = registry.getOrCreate("usr", "user");
+
+        admin.lastActivityMs -= 90_000;
+        user.lastActivityMs -= 90_000;
+
+        assertEquals("admin", admin.role);
+        assertTrue(registry.isIdleExpired(admin));
+        assertFalse(registry.isIdleExpired(user));
+        assertFalse(registry.isAbsoluteExpired(admin));
+    }
+}
@@ -3,6 +3,10 @@ package com.esimedia.security;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.time.Instant;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,6 +28,7 @@ class LoginAttemptServiceTest {
         ReflectionTestUtils.setField(securityConfig, "attemptWindowMinutes", 30);
 
         ReflectionTestUtils.setField(service, "securityConfig", securityConfig);
+        ReflectionTestUtils.setField(service, "auditLog", mock(SecurityAuditLog.class));
     }
 
     @Test
@@ -76,4 +81,38 @@ class LoginAttemptServiceTest {
         assertTrue(service.isDistributedAttack(email));
         assertTrue(service.getGlobalAttemptsForEmail(email) > 9);
     }
+
+    @Test
+    void resetOnlyClearsGlobalCounterWhenNoOtherIpRemains() {
+        String email = "multi@test.com";
+        service.recordFailedAttempt(email, "10.0.0.1");
+        service.recordFailedAttempt(email, "10.0.0.2");
+        service.recordFailedAttempt("other@test.com", "10.0.0.1");
+
+        service.resetAttempts(email, "10.0.0.1");
+        assertEquals(2, service.getGlobalAttemptsForEmail(email));
+        assertEquals(2, service.getRemainingAttempts(email, "10.0.0.2"));
+
+        service.resetAttempts(email, "10.0.0.2");
+        assertEquals(0, service.getGlobalAttemptsForEmail(email));
+        assertEquals(1, service.getGlobalAttemptsForEmail("other@test.com"));
+    }
+
+    @Test
+    void sweeperRemovesAttemptsOutsideTheWindowButKeepsLockouts() {
+        service.recordFailedAttempt("old@test.com", "1.1.1.1");
+        for (int i = 0; i < 3; i++) {
+            service.recordFailedAttempt("locked@test.com", "2.2.2.2");
+        }
+        Instant past = Instant.now().minus(Duration.ofMinutes(31));
+        service.getAttemptInfo("old@test.com", "1.1.1.1").setFirstAttempt(past);
+        service.getAttemptInfo("locked@test.com", "2.2.2.2").setFirstAttempt(past);
+
+        service.sweepExpired();
+
+        assertEquals(0, service.getGlobalAttemptsForEmail("old@test.com"));
+        assertTrue(service.isLocked("locked@test.com", "2.2.2.2"));
+        assertEquals(1, service.getStats().get("trackedEmails"));
+        assertEquals(1L, service.getStats().get("sweptEntries"));
+    }
 }
@@ -0,0 +1,88 @@
+package com.esimedia.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class LoginMetricsTest {
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> stage(LoginMetrics metrics, String stage) {
+        Map<String, Object> stages = (Map<String, Object>) metrics.getStats().get("stages");
+        return (Map<String, Object>) stages.get(stage);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> outcomes(LoginMetrics metrics) {
+        return (Map<String, Object>) metrics.getStats().get("outcomes");
+    }
+
+    @Test
+    void recordsStagesAndOutcome() {
+        List<String> seen = new ArrayList<>();
+        LoginMetrics metrics = new LoginMetrics(List.of(new LoginMetricsListener() {
+            @Override
+            public void recordStage(String stage, long nanos) {
+                seen.add(stage);
+            }
+
+            @Override
+            public void recordOutcome(String outcome) {
+                seen.add("outcome:" + outcome);
+            }
+        }));
+
+        metrics.begin();
+        metrics.mark(LoginMetrics.STAGE_RATE_LIMIT);
+        metrics.mark(LoginMetrics.STAGE_PASSWORD);
+        metrics.finish(LoginMetrics.OUTCOME_SUCCESS);
+
+        assertEquals(1L, stage(metrics, LoginMetrics.STAGE_RATE_LIMIT).get("count"));
+        assertEquals(1L, stage(metrics, LoginMetrics.STAGE_TOTAL).get("count"));
+        assertEquals(0L, stage(metrics, LoginMetrics.STAGE_TOKEN).get("count"));
+        assertEquals(1L, outcomes(metrics).get(LoginMetrics.OUTCOME_SUCCESS));
+        assertEquals(List.of("rate_limit", "password", "total", "outcome:success"), seen);
+    }
+
+    @Test
+    void explicitOutcomeWinsOverDefault() {
+        LoginMetrics metrics = new LoginMetrics(List.of());
+
+        metrics.begin();
+        metrics.outcome(LoginMetrics.OUTCOME_LOCKED);
+        metrics.finish(LoginMetrics.OUTCOME_RATE_LIMITED);
+
+        assertEquals(1L, outcomes(metrics).get(LoginMetrics.OUTCOME_LOCKED));
+        assertEquals(null, outcomes(metrics).get(LoginMetrics.OUTCOME_RATE_LIMITED));
+    }
+
+    @Test
+    void marksWithoutActiveTraceAreIgnored() {
+        LoginMetrics metrics = new LoginMetrics(List.of());
+
+        metrics.mark(LoginMetrics.STAGE_TOKEN);
+        metrics.finish(LoginMetrics.OUTCOME_SUCCESS);
+
+        assertEquals(0L, stage(metrics, LoginMetrics.STAGE_TOKEN).get("count"));
+        assertTrue(outcomes(metrics).isEmpty());
+    }
+
+    @Test
+    void percentilesComeFromBuckets() {
+        LoginMetrics.StageTimer timer = new LoginMetrics.StageTimer();
+        for (int i = 0; i < 99; i++) {
+            timer.record(2_000_000); // 2 ms -> cubo de 2,5 ms
+        }
+        timer.record(400_000_000); // 400 ms -> cubo de 500 ms
+
+        assertEquals(2.5, timer.percentileMs(0.50));
+        assertEquals(2.5, timer.percentileMs(0.99));
+        assertEquals(500.0, timer.percentileMs(1.0));
+        assertEquals(400.0, (double) timer.snapshot().get("maxMs"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.esimedia.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MicrometerLoginMetricsListenerTest {
+
+    @Test
+    void publishesStageTimersAndOutcomeCountersWithTags() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerLoginMetricsListener listener = new MicrometerLoginMetricsListener(registry);
+
+        listener.recordStage("bcrypt", TimeUnit.MILLISECONDS.toNanos(40));
+        listener.recordStage("bcrypt", TimeUnit.MILLISECONDS.toNanos(60));
+        listener.recordStage("lookup", TimeUnit.MILLISECONDS.toNanos(2));
+        listener.recordOutcome("success");
+        listener.recordOutcome("success");
+        listener.recordOutcome("invalid_credentials");
+
+        Timer bcrypt = registry.get("esimedia.login.stage").tag("stage", "bcrypt").timer();
+        assertEquals(2, bcrypt.count());
+        assertEquals(100.0, bcrypt.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(1, registry.get("esimedia.login.stage").tag("stage", "lookup").timer().count());
+        assertEquals(2.0, registry.get("esimedia.login.outcome").tag("result", "success").counter().count());
+        assertEquals(1.0, registry.get("esimedia.login.outcome").tag("result", "invalid_credentials").counter().count());
+        assertNull(registry.find("esimedia.login.outcome").tag("result", "locked").counter());
+    }
+
+    @Test
+    void receivesMeasurementsFromLoginMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LoginMetrics metrics = new LoginMetrics(List.of(new MicrometerLoginMetricsListener(registry)));
+
+        metrics.begin();
+        metrics.mark(LoginMetrics.STAGE_PASSWORD);
+        metrics.finish(LoginMetrics.OUTCOME_SUCCESS);
+
+        assertEquals(1, registry.get("esimedia.login.stage").tag("stage", LoginMetrics.STAGE_PASSWORD).timer().count());
+        assertEquals(1, registry.get("esimedia.login.stage").tag("stage", LoginMetrics.STAGE_TOTAL).timer().count());
+        assertEquals(1.0, registry.get("esimedia.login.outcome")
+                .tag("result", LoginMetrics.OUTCOME_SUCCESS).counter().count());
+    }
+}
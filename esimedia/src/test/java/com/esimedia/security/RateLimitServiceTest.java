@@ -1,10 +1,28 @@
 package com.esimedia.security;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.Document;
+import org.bson.types.Binary;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.client.result.UpdateResult;
 
 class RateLimitServiceTest {
 
@@ -48,4 +66,77 @@ class RateLimitServiceTest {
 
         assertFalse(service.allowOtpDaily(email));
     }
+
+    @Test
+    void localStoreCapsBucketsPerKind() {
+        LocalRateLimitBucketStore store = new LocalRateLimitBucketStore(10);
+        RateLimitService capped = new RateLimitService(store);
+
+        for (int i = 0; i < 50; i++) {
+            capped.allowLogin("10.0.0.1", "spray" + i + "@test.com");
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Integer> sizes = (Map<String, Integer>) store.getStats().get("buckets");
+        assertTrue(sizes.get(RateLimitService.LOGIN) <= 10);
+    }
+
+    @Test
+    void exhaustedBucketsSurviveCapacityEviction() {
+        LocalRateLimitBucketStore store = new LocalRateLimitBucketStore(2);
+        RateLimitService capped = new RateLimitService(store);
+        for (int i = 0; i < 5; i++) {
+            capped.allowLogin("1.1.1.1", "busy@test.com");
+        }
+
+        capped.allowLogin("2.2.2.2", "a@test.com");
+        capped.allowLogin("3.3.3.3", "b@test.com");
+
+        assertFalse(capped.allowLogin("1.1.1.1", "busy@test.com"));
+        assertEquals(1L, store.getStats().get("capacityEvictions"));
+    }
+
+    @Test
+    void mongoStoreSharesLimitsAcrossServiceInstances() {
+        MongoTemplate mongo = inMemoryMongo();
+        RateLimitService nodeA = new RateLimitService(new MongoRateLimitBucketStore(mongo));
+        RateLimitService nodeB = new RateLimitService(new MongoRateLimitBucketStore(mongo));
+
+        assertTrue(nodeA.allowOtpHourly("shared@test.com"));
+        assertTrue(nodeB.allowOtpHourly("shared@test.com"));
+        assertTrue(nodeA.allowOtpHourly("shared@test.com"));
+        assertFalse(nodeB.allowOtpHourly("shared@test.com"));
+    }
+
+    /**
+     * MongoTemplate mínimo sobre un mapa: findById, insert y updateFirst con
+     * comparación del estado binario (lo que usa el proxy CAS).
+     */
+    private static MongoTemplate inMemoryMongo() {
+        Map<Object, Document> docs = new ConcurrentHashMap<>();
+        MongoTemplate mongo = mock(MongoTemplate.class);
+        when(mongo.findById(any(), eq(Document.class), anyString()))
+            .thenAnswer(inv -> docs.get(inv.getArgument(0)));
+        when(mongo.insert(any(Document.class), anyString())).thenAnswer(inv -> {
+            Document doc = inv.getArgument(0);
+            if (docs.putIfAbsent(doc.get("_id"), doc) != null) {
+                throw new DuplicateKeyException("dup");
+            }
+            return doc;
+        });
+        when(mongo.updateFirst(any(Query.class), any(Update.class), anyString())).thenAnswer(inv -> {
+            Document query = ((Query) inv.getArgument(0)).getQueryObject();
+            Document set = (Document) ((Update) inv.getArgument(1)).getUpdateObject().get("$set");
+            synchronized (docs) {
+                Document current = docs.get(query.get("_id"));
+                byte[] expected = ((Binary) query.get("state")).getData();
+                if (current == null || !Arrays.equals(expected, current.get("state", Binary.class).getData())) {
+                    return UpdateResult.acknowledged(0, 0L, null);
+                }
+                current.putAll(set);
+                return UpdateResult.acknowledged(1, 1L, null);
+            }
+        });
+        return mongo;
+    }
 }
@@ -0,0 +1,49 @@
+package com.esimedia.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.esimedia.accounts.model.RevokedToken;
+import com.esimedia.accounts.repository.RevokedTokenRepository;
+
+class RevokedTokenRegistryTest {
+
+    private static RevokedToken accountRevocation(String accountId, long revokedAtMs) {
+        RevokedToken doc = new RevokedToken();
+        doc.setId("account:" + accountId);
+        doc.setAccountId(accountId);
+        doc.setWholeAccount(true);
+        doc.setRevokedAtMs(revokedAtMs);
+        doc.setExpiration(LocalDateTime.now().plusHours(1));
+        return doc;
+    }
+
+    @Test
+    void loadsAllRevocationsOnStartupAndOnlyNewerOnesAfterwards() {
+        RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+        long revokedAt = System.currentTimeMillis() - 1_000;
+        when(repository.findByRevokedAtMsGreaterThan(anyLong()))
+            .thenReturn(List.of(accountRevocation("ana@test.com", revokedAt)), List.of());
+        RevokedTokenRegistry registry = new RevokedTokenRegistry(repository);
+        SignedTokenCodec codec = new SignedTokenCodec("secreto-de-pruebas-suficientemente-largo");
+        SignedTokenCodec.Claims before = codec.decode(
+            codec.encode("Ana@Test.com", "user", revokedAt - 60_000, revokedAt + 3_600_000), revokedAt);
+
+        assertFalse(registry.isRevoked(before));
+        registry.refresh();
+        assertTrue(registry.isRevoked(before), "la revocación de otro nodo o previa al reinicio vale aquí");
+
+        registry.refresh();
+        verify(repository).findByRevokedAtMsGreaterThan(-1);
+        verify(repository).findByRevokedAtMsGreaterThan(revokedAt - 60_000);
+    }
+}
@@ -0,0 +1,58 @@
+package com.esimedia.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SecurityAuditLogTest {
+
+    @TempDir
+    Path dir;
+
+    private SecurityAuditLog audit(int bufferSize, long maxFileMb) {
+        return new SecurityAuditLog(true, dir.resolve("audit.log").toString(), bufferSize, 4, maxFileMb, 2, 10);
+    }
+
+    @Test
+    void writesEventsAsJsonLinesInBatches() throws Exception {
+        SecurityAuditLog audit = audit(64, 1);
+        audit.loginFailure("a@test.com", "10.0.0.1", 2);
+        audit.lockout("a@test.com", "10.0.0.1", 3, 123L);
+        audit.tokenRejected("10.0.0.2", "/api/\"x\"");
+
+        assertEquals(3, audit.drain());
+
+        List<String> lines = Files.readAllLines(dir.resolve("audit.log"));
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).contains("\"type\":\"LOGIN_FAILURE\""));
+        assertTrue(lines.get(1).contains("\"detail\":\"lockedUntilMs=123\""));
+        assertTrue(lines.get(2).contains("\"detail\":\"/api/\\\"x\\\"\""));
+        assertEquals(3L, audit.getStats().get("written"));
+    }
+
+    @Test
+    void dropsAndCountsEventsWhenBufferIsFull() {
+        SecurityAuditLog audit = audit(4, 1);
+        for (int i = 0; i < 6; i++) {
+            audit.loginSuccess("u" + i, "ip");
+        }
+
+        assertEquals(2L, audit.getStats().get("dropped"));
+        assertEquals(4, audit.drain());
+        assertTrue(audit.record(SecurityAuditEvent.Type.LOGIN_SUCCESS, "again", "ip", 0, null));
+    }
+
+    @Test
+    void disabledAuditPublishesNothing() {
+        SecurityAuditLog audit = new SecurityAuditLog(false, dir.resolve("off.log").toString(), 8, 4, 1, 2, 10);
+        assertFalse(audit.record(SecurityAuditEvent.Type.TOKEN_REJECTED, null, "ip", 0, "/"));
+        assertEquals(0, audit.drain());
+    }
+}
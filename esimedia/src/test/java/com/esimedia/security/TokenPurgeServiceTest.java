@@ -0,0 +1,69 @@
+package com.esimedia.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.esimedia.accounts.model.Token;
+import com.mongodb.client.result.DeleteResult;
+
+class TokenPurgeServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private TokenPurgeService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        service = new TokenPurgeService(mongoTemplate);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "pauseMs", 0L);
+    }
+
+    private static List<Token> tokens(int n) {
+        List<Token> list = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Token t = new Token();
+            t.setId("t" + i);
+            list.add(t);
+        }
+        return list;
+    }
+
+    @Test
+    void removesExpiredTokensInBatchesAndReportsCollectionSize() {
+        when(mongoTemplate.find(any(Query.class), eq(Token.class))).thenReturn(tokens(2), tokens(1));
+        when(mongoTemplate.remove(any(Query.class), eq(Token.class)))
+            .thenReturn(DeleteResult.acknowledged(2), DeleteResult.acknowledged(1));
+        when(mongoTemplate.estimatedCount(Token.class)).thenReturn(42L);
+
+        assertEquals(3, service.purgeExpired());
+
+        verify(mongoTemplate, times(2)).remove(any(Query.class), eq(Token.class));
+        assertEquals(3L, service.getStats().get("lastRemoved"));
+        assertEquals(42L, service.getStats().get("collectionSize"));
+    }
+
+    @Test
+    void stopsAfterMaxBatchesPerRun() {
+        ReflectionTestUtils.setField(service, "maxBatches", 3);
+        when(mongoTemplate.find(any(Query.class), eq(Token.class))).thenReturn(tokens(2));
+        when(mongoTemplate.remove(any(Query.class), eq(Token.class))).thenReturn(DeleteResult.acknowledged(2));
+
+        assertEquals(6, service.purgeExpired());
+        verify(mongoTemplate, times(3)).find(any(Query.class), eq(Token.class));
+    }
+}
@@ -0,0 +1,130 @@
+package com.esimedia.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.esimedia.accounts.model.Token;
+import com.esimedia.accounts.repository.TokenRepository;
+
+class TokenValidationCacheTest {
+
+    private TokenRepository tokenRepository;
+    private TokenValidationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        tokenRepository = mock(TokenRepository.class);
+        cache = new TokenValidationCache(tokenRepository);
+    }
+
+    private Token token(String id, LocalDateTime expiration) {
+        return token(id, "user@test.com", expiration);
+    }
+
+    private Token token(String id, String accountId, LocalDateTime expiration) {
+        Token token = new Token();
+        token.setId(id);
+        token.setAccountId(accountId);
+        token.setRole("user");
+        token.setExpiration(expiration);
+        return token;
+    }
+
+    @Test
+    void repeatedLookupsHitDatabaseOnce() {
+        when(tokenRepository.findById("t1")).thenReturn(Optional.of(token("t1", LocalDateTime.now().plusHours(1))));
+
+        assertNotNull(cache.findValid("t1"));
+        assertNotNull(cache.findValid("t1"));
+        assertNotNull(cache.findValid("t1"));
+
+        verify(tokenRepository, times(1)).findById("t1");
+        assertEquals(2L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void expiredTokenIsRejectedAndNotCached() {
+        when(tokenRepository.findById("old")).thenReturn(Optional.of(token("old", LocalDateTime.now().minusMinutes(1))));
+
+        assertNull(cache.findValid("old"));
+        assertNull(cache.findValid("old"));
+
+        verify(tokenRepository, times(2)).findById("old");
+        assertEquals(0, cache.getStats().get("size"));
+    }
+
+    @Test
+    void deleteInvalidatesImmediately() {
+        when(tokenRepository.findById("t2")).thenReturn(Optional.of(token("t2", LocalDateTime.now().plusHours(1))));
+        assertNotNull(cache.findValid("t2"));
+
+        cache.delete("t2");
+        when(tokenRepository.findById("t2")).thenReturn(Optional.empty());
+
+        assertNull(cache.findValid("t2"));
+        verify(tokenRepository).deleteById("t2");
+    }
+
+    @Test
+    void invalidateAccountRemovesAllItsTokens() {
+        when(tokenRepository.findById("a")).thenReturn(Optional.of(token("a", LocalDateTime.now().plusHours(1))));
+        when(tokenRepository.findById("b")).thenReturn(Optional.of(token("b", LocalDateTime.now().plusHours(1))));
+        cache.findValid("a");
+        cache.findValid("b");
+
+        cache.invalidateAccount("USER@test.com");
+
+        assertEquals(0, cache.getStats().get("size"));
+        assertEquals(2L, cache.getStats().get("invalidations"));
+    }
+
+    @Test
+    void invalidateAccountKeepsOtherAccountsTokens() {
+        when(tokenRepository.findById("mine")).thenReturn(Optional.of(token("mine", LocalDateTime.now().plusHours(1))));
+        when(tokenRepository.findById("other")).thenReturn(
+                Optional.of(token("other", "other@test.com", LocalDateTime.now().plusHours(1))));
+        cache.findValid("mine");
+        cache.findValid("other");
+
+        cache.invalidateAccount("user@test.com");
+        cache.invalidateAccount("nobody@test.com");
+
+        assertEquals(1, cache.getStats().get("size"));
+        assertNotNull(cache.findValid("other"));
+        verify(tokenRepository, times(1)).findById("other");
+    }
+
+    @Test
+    void overflowEvictsLeastRecentlyUsedToken() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 3);
+        for (String id : new String[] {"a", "b", "c", "d"}) {
+            when(tokenRepository.findById(id)).thenReturn(Optional.of(token(id, LocalDateTime.now().plusHours(1))));
+        }
+        cache.findValid("a");
+        cache.findValid("b");
+        cache.findValid("c");
+        cache.findValid("a"); // "b" pasa a ser la menos usada
+
+        cache.findValid("d");
+
+        assertEquals(3, cache.getStats().get("size"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+        cache.findValid("a");
+        cache.findValid("c");
+        verify(tokenRepository, times(1)).findById("a");
+        verify(tokenRepository, times(1)).findById("c");
+    }
+}
@@ -0,0 +1,124 @@
+package com.esimedia.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.esimedia.model.RatingAggregate;
+
+class RatingAggregateServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private RatingAggregateService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        service = new RatingAggregateService(mongoTemplate);
+    }
+
+    private Document incFor() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(),
+            any(FindAndModifyOptions.class), eq(RatingAggregate.class));
+        return (Document) update.getValue().getUpdateObject().get("$inc");
+    }
+
+    private static Document row(String contentId, double rating, int n) {
+        return new Document("_id", new Document("contentId", contentId).append("rating", rating)).append("n", n);
+    }
+
+    private void ratingsAre(Document... rows) {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("ratings"), eq(Document.class)))
+            .thenReturn(new AggregationResults<>(List.of(rows), new Document()));
+    }
+
+    @Test
+    void newRatingIncrementsSumCountAndBucket() {
+        service.applyChange("c1", null, 4.0);
+
+        Document inc = incFor();
+        assertEquals(4.0, inc.get("sum"));
+        assertEquals(1L, inc.get("count"));
+        assertEquals(1L, inc.get("histogram.b8"));
+    }
+
+    @Test
+    void changedRatingMovesBetweenBuckets() {
+        service.applyChange("c1", 2.0, 4.5);
+
+        Document inc = incFor();
+        assertEquals(2.5, inc.get("sum"));
+        assertEquals(0L, inc.get("count"));
+        assertEquals(-1L, inc.get("histogram.b4"));
+        assertEquals(1L, inc.get("histogram.b9"));
+    }
+
+    @Test
+    void unchangedRatingDoesNotWrite() {
+        service.applyChange("c1", 3.0, 3.0);
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void computeBuildsHistogramFromGroupedRows() {
+        ratingsAre(row("c1", 5.0, 2), row("c1", 1.0, 1), row("c2", 3.5, 4));
+
+        Map<String, RatingAggregate> computed = service.computeFromRatings(null);
+
+        RatingAggregate c1 = computed.get("c1");
+        assertEquals(3L, c1.getCount());
+        assertEquals(11.0, c1.getSum());
+        assertEquals(2L, c1.bucketCount(10));
+        assertEquals(1L, c1.bucketCount(2));
+        assertEquals(14.0, computed.get("c2").getSum());
+    }
+
+    @Test
+    void checkRepairsOnlyMismatchedAggregates() {
+        ratingsAre(row("c1", 5.0, 2));
+        RatingAggregate stale = new RatingAggregate("c1");
+        stale.add(5.0, 1);
+        when(mongoTemplate.findAll(RatingAggregate.class)).thenReturn(List.of(stale));
+        when(mongoTemplate.findById("c1", RatingAggregate.class)).thenReturn(stale);
+
+        Map<String, Object> report = service.check(true);
+
+        assertEquals(1, report.get("mismatches"));
+        assertEquals(1, report.get("repaired"));
+        ArgumentCaptor<RatingAggregate> saved = ArgumentCaptor.forClass(RatingAggregate.class);
+        verify(mongoTemplate).save(saved.capture());
+        assertEquals(2L, saved.getValue().getCount());
+    }
+
+    @Test
+    void checkWithoutRepairOnlyReports() {
+        ratingsAre(row("c1", 5.0, 2));
+        when(mongoTemplate.findAll(RatingAggregate.class)).thenReturn(List.of());
+
+        Map<String, Object> report = service.check(false);
+
+        assertEquals(1, report.get("mismatches"));
+        verify(mongoTemplate, never()).save(any(RatingAggregate.class));
+    }
+}
@@ -0,0 +1,131 @@
+package com.esimedia.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.esimedia.dto.RatingRequestDTO;
+import com.esimedia.dto.RatingStatsDTO;
+import com.esimedia.model.Rating;
+import com.esimedia.model.RatingAggregate;
+import com.esimedia.repository.RatingRepository;
+
+@ExtendWith(MockitoExtension.class)
+class RatingServiceTest {
+
+    @Mock
+    private RatingRepository ratingRepository;
+
+    @Mock
+    private RatingAggregateService ratingAggregates;
+
+    @InjectMocks
+    private RatingService ratingService;
+
+    private static RatingAggregate aggregate(String id, double... ratings) {
+        RatingAggregate aggregate = new RatingAggregate(id);
+        for (double rating : ratings) {
+            aggregate.add(rating, 1);
+        }
+        return aggregate;
+    }
+
+    private static RatingRequestDTO request(String contentId, double rating) {
+        RatingRequestDTO request = new RatingRequestDTO();
+        request.setContentId(contentId);
+        request.setRating(rating);
+        return request;
+    }
+
+    @Test
+    void averagesComeFromAggregates() {
+        when(ratingAggregates.findAll(any())).thenReturn(Map.of(
+            "a", aggregate("a", 4.0, 4.5, 4.5, 4.0), "b", aggregate("b", 3.0)));
+
+        Map<String, Double> averages = ratingService.getAverageRatingsByContentIds(List.of("a", "b", "c", "a"));
+
+        assertEquals(4.3, averages.get("a"));
+        assertEquals(3.0, averages.get("b"));
+        assertEquals(0.0, averages.get("c"), "sin valoraciones");
+        verify(ratingAggregates, times(1)).findAll(any());
+        verify(ratingRepository, never()).findByContentId(anyString());
+    }
+
+    @Test
+    void largePagesAreSplitIntoBatches() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            ids.add("c" + i);
+        }
+        List<Integer> batchSizes = new ArrayList<>();
+        when(ratingAggregates.findAll(any())).thenAnswer(invocation -> {
+            batchSizes.add(((Collection<?>) invocation.getArgument(0)).size());
+            return new HashMap<>();
+        });
+
+        Map<String, Double> averages = ratingService.getAverageRatingsByContentIds(ids);
+
+        assertEquals(List.of(500, 500, 200), batchSizes);
+        assertEquals(1200, averages.size());
+    }
+
+    @Test
+    void statsAreReadFromTheAggregate() {
+        when(ratingAggregates.find("a")).thenReturn(Optional.of(aggregate("a", 5.0, 5.0, 0.5)));
+
+        RatingStatsDTO stats = ratingService.getContentRatingStats("a");
+
+        assertEquals(3.5, stats.getAverageRating());
+        assertEquals(3L, stats.getTotalRatings());
+        assertEquals(List.of(5.0, 0.5), new ArrayList<>(stats.getDistribution().keySet()));
+        assertEquals(2L, stats.getDistribution().get(5.0));
+        verify(ratingRepository, never()).findByContentId(anyString());
+    }
+
+    @Test
+    void updatePassesOldValueToAggregate() {
+        Rating existing = new Rating("ana", "a", 2.0);
+        when(ratingRepository.findByUserIdAndContentId("ana", "a")).thenReturn(Optional.of(existing));
+        when(ratingRepository.save(any(Rating.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ratingService.saveOrUpdateRating("ana", request("a", 4.5));
+
+        verify(ratingAggregates).applyChange("a", 2.0, 4.5);
+    }
+
+    @Test
+    void newRatingAndDeleteAdjustAggregate() {
+        when(ratingRepository.findByUserIdAndContentId("ana", "a")).thenReturn(Optional.empty());
+        when(ratingRepository.save(any(Rating.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        ratingService.saveOrUpdateRating("ana", request("a", 3.0));
+        verify(ratingAggregates).applyChange("a", null, 3.0);
+
+        Rating stored = new Rating("ana", "a", 3.0);
+        when(ratingRepository.findByUserIdAndContentId("ana", "a")).thenReturn(Optional.of(stored));
+        assertTrue(ratingService.deleteRating("ana", "a"));
+        verify(ratingRepository).delete(stored);
+        verify(ratingAggregates).applyChange("a", 3.0, null);
+
+        when(ratingRepository.findByUserIdAndContentId("ana", "b")).thenReturn(Optional.empty());
+        assertFalse(ratingService.deleteRating("ana", "b"));
+    }
+}
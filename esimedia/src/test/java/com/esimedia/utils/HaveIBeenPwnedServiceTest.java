@@ -0,0 +1,97 @@
+package com.esimedia.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class HaveIBeenPwnedServiceTest {
+
+    // SHA-1("password") = 5BAA6 1E4C9B93F3F0682250B6CF8331B7EE68FD8
+    private static final String PASSWORD_SUFFIX = "1E4C9B93F3F0682250B6CF8331B7EE68FD8";
+
+    private static final String RANGE_BODY =
+        "0018A45C4D1DEF81644B54AB7F969B88D65:1\r\n"
+        + PASSWORD_SUFFIX + ":9545824\r\n"
+        + "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF:0\r\n";
+
+    private static final class CountingService extends HaveIBeenPwnedService {
+        final AtomicInteger fetches = new AtomicInteger();
+        String body = RANGE_BODY;
+
+        @Override
+        PwnedRange fetchRange(String prefix) {
+            fetches.incrementAndGet();
+            return body == null ? null : PwnedRange.parse(body);
+        }
+    }
+
+    @Test
+    void repeatedPrefixIsServedFromCache() {
+        CountingService service = new CountingService();
+
+        assertTrue(service.isPasswordPwned("password"));
+        assertTrue(service.isPasswordPwned("password"));
+
+        assertEquals(1, service.fetches.get());
+        assertEquals(1L, service.getCacheStats().get("hits"));
+    }
+
+    @Test
+    void expiredEntriesAreFetchedAgain() {
+        CountingService service = new CountingService();
+        ReflectionTestUtils.setField(service, "cacheTtlMinutes", 0L);
+
+        service.isPasswordPwned("password");
+        service.isPasswordPwned("password");
+
+        assertEquals(2, service.fetches.get());
+    }
+
+    @Test
+    void failedFetchIsNotCachedAndFailsOpen() {
+        CountingService service = new CountingService();
+        service.body = null;
+
+        assertFalse(service.isPasswordPwned("password"));
+        assertFalse(service.isPasswordPwned("password"));
+
+        assertEquals(2, service.fetches.get());
+        assertEquals(0, service.getCacheStats().get("prefixes"));
+    }
+
+    @Test
+    void cacheIsBoundedByMaxEntries() {
+        CountingService service = new CountingService();
+        ReflectionTestUtils.setField(service, "cacheMaxEntries", 2);
+
+        for (String pwd : new String[] {"a1", "b2", "c3", "d4"}) {
+            service.isPasswordPwned(pwd);
+        }
+
+        assertTrue((int) service.getCacheStats().get("prefixes") <= 2);
+    }
+
+    @Test
+    void rangeLookupIgnoresPaddingAndCase() {
+        PwnedRange range = PwnedRange.parse(RANGE_BODY);
+
+        assertEquals(2, range.size());
+        assertEquals(9545824, range.count(PASSWORD_SUFFIX.toLowerCase()));
+        assertEquals(0, range.count("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF"));
+        assertEquals(0, range.count("not-a-suffix"));
+    }
+
+    @Test
+    void unsortedBodiesAreSortedForBinarySearch() {
+        PwnedRange range = PwnedRange.parse(
+            "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF1:3\n0000000000000000000000000000000000A:2\n");
+
+        assertEquals(3, range.count("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF1"));
+        assertEquals(2, range.count("0000000000000000000000000000000000A"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.esimedia.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.esimedia.exception.ServiceOverloadedException;
+
+class PasswordHashingExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private Thread blockWorker(CountDownLatch started) {
+        Thread caller = new Thread(() -> {
+            try {
+                executor.call(() -> {
+                    started.countDown();
+                    release.await();
+                    return true;
+                });
+            } catch (ServiceOverloadedException ignored) {
+                // el test puede haber agotado el plazo
+            }
+        });
+        caller.start();
+        return caller;
+    }
+
+    @Test
+    void runsTaskAndRecordsTimings() {
+        executor = new PasswordHashingExecutor(1, 4, 1000);
+
+        assertEquals("ok", executor.call(() -> "ok"));
+        assertEquals(1L, executor.getStats().get("completed"));
+    }
+
+    @Test
+    void shedsImmediatelyWhenQueueIsFull() throws Exception {
+        executor = new PasswordHashingExecutor(1, 1, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        blockWorker(started);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        // Ocupa la única plaza de la cola
+        Thread queued = new Thread(() -> {
+            try {
+                executor.call(() -> true);
+            } catch (ServiceOverloadedException ignored) {
+                // no esperado, pero no debe romper el test
+            }
+        });
+        queued.start();
+        long deadline = System.currentTimeMillis() + 2000;
+        while ((int) executor.getStats().get("queued") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        long start = System.nanoTime();
+        assertThrows(ServiceOverloadedException.class, () -> executor.call(() -> true));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000, "el rechazo debe ser inmediato");
+        assertEquals(1L, executor.getStats().get("rejected"));
+    }
+
+    @Test
+    void exhaustedBudgetFailsWithoutRunningTask() throws Exception {
+        executor = new PasswordHashingExecutor(1, 4, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        blockWorker(started);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        assertThrows(ServiceOverloadedException.class, () -> executor.call(() -> true, 50));
+        assertThrows(ServiceOverloadedException.class, () -> executor.call(() -> true, 0));
+        assertEquals(2L, executor.getStats().get("timedOut"));
+        assertEquals(0, executor.getStats().get("queued"), "la tarea caducada se retira de la cola");
+    }
+
+    @Test
+    void taskExceptionsPropagate() {
+        executor = new PasswordHashingExecutor(1, 4, 1000);
+
+        assertThrows(IllegalArgumentException.class, () -> executor.call(() -> {
+            throw new IllegalArgumentException("boom");
+        }));
+    }
+}
@@ -20,13 +20,14 @@ class PasswordUtilsTest {
 
     private PasswordUtils passwordUtils;
     private HaveIBeenPwnedService hibpService;
+    private PasswordSecurityConfig securityConfig;
 
     @BeforeEach
     void setUp() {
         passwordUtils = new PasswordUtils();
         hibpService = mock(HaveIBeenPwnedService.class);
 
-        PasswordSecurityConfig securityConfig = new PasswordSecurityConfig();
+        securityConfig = new PasswordSecurityConfig();
         ReflectionTestUtils.setField(securityConfig, "passwordPepper", "UNIT_TEST_PEPPER");
         ReflectionTestUtils.setField(securityConfig, "bcryptRounds", 10);
         ReflectionTestUtils.setField(securityConfig, "maxLoginAttempts", 5);
@@ -35,6 +36,7 @@ class PasswordUtilsTest {
 
         ReflectionTestUtils.setField(passwordUtils, "securityConfig", securityConfig);
         ReflectionTestUtils.setField(passwordUtils, "hibpService", hibpService);
+        ReflectionTestUtils.setField(passwordUtils, "hashingExecutor", new PasswordHashingExecutor(2, 8, 5000));
         ReflectionTestUtils.setField(passwordUtils, "environment", "production");
         ReflectionTestUtils.setField(passwordUtils, "checkHibp", true);
 
@@ -70,4 +72,81 @@ class PasswordUtilsTest {
         assertTrue(passwordUtils.verifyPassword("Sup3r$ecretPwd!", hash));
         assertFalse(passwordUtils.verifyPassword("WrongPassword", hash));
     }
+
+    @Test
+    void initUsesConfiguredRoundsWhenNoTarget() {
+        ReflectionTestUtils.setField(securityConfig, "bcryptRounds", 5);
+        passwordUtils.initBcryptCost();
+
+        String hash = passwordUtils.hashPassword("Sup3r$ecretPwd!");
+
+        assertEquals(5, passwordUtils.getBcryptRounds());
+        assertTrue(hash.startsWith("$2a$05$"));
+        assertFalse(passwordUtils.needsRehash(hash));
+        assertTrue(passwordUtils.getDummyHash().startsWith("$2a$05$"));
+    }
+
+    @Test
+    void calibrationStaysWithinBounds() {
+        assertEquals(4, passwordUtils.calibrateRounds(0, 4, 6), "objetivo inalcanzable: coste mínimo");
+        int rounds = passwordUtils.calibrateRounds(60_000, 4, 6);
+        assertEquals(6, rounds, "objetivo holgado: coste máximo");
+    }
+
+    @Test
+    void calibrationNeverGoesBelowConfiguredRounds() {
+        ReflectionTestUtils.setField(securityConfig, "bcryptRounds", 6);
+        ReflectionTestUtils.setField(securityConfig, "bcryptTargetMs", 1L);
+        ReflectionTestUtils.setField(securityConfig, "bcryptMinRounds", 4);
+        ReflectionTestUtils.setField(securityConfig, "bcryptMaxRounds", 8);
+
+        passwordUtils.initBcryptCost();
+
+        assertEquals(6, passwordUtils.getBcryptRounds(), "objetivo inalcanzable: se queda en security.bcrypt.rounds");
+        assertFalse(passwordUtils.needsRehash(passwordUtils.getDummyHash()));
+    }
+
+    @Test
+    void needsRehashDetectsCostChangesInBothDirections() {
+        ReflectionTestUtils.setField(securityConfig, "bcryptRehashTolerance", 0);
+        ReflectionTestUtils.setField(securityConfig, "bcryptRounds", 4);
+        passwordUtils.initBcryptCost();
+        String cheap = passwordUtils.hashPassword("Sup3r$ecretPwd!");
+
+        ReflectionTestUtils.setField(securityConfig, "bcryptRounds", 6);
+        passwordUtils.initBcryptCost();
+        String stronger = passwordUtils.hashPassword("Sup3r$ecretPwd!");
+
+        assertTrue(passwordUtils.needsRehash(cheap), "subir coste");
+        assertFalse(passwordUtils.needsRehash(stronger));
+        assertTrue(passwordUtils.verifyPassword("Sup3r$ecretPwd!", cheap), "el hash antiguo sigue siendo válido");
+
+        ReflectionTestUtils.setField(securityConfig, "bcryptRounds", 5);
+        passwordUtils.initBcryptCost();
+        assertTrue(passwordUtils.needsRehash(stronger), "bajar coste");
+        assertFalse(passwordUtils.needsRehash("no-es-bcrypt"));
+        assertFalse(passwordUtils.needsRehash(null));
+    }
+
+    @Test
+    void needsRehashIgnoresCostsWithinTheToleranceBand() {
+        ReflectionTestUtils.setField(securityConfig, "bcryptRehashTolerance", 1);
+        ReflectionTestUtils.setField(securityConfig, "bcryptRounds", 5);
+        passwordUtils.initBcryptCost();
+        String nodeA = passwordUtils.hashPassword("Sup3r$ecretPwd!");
+
+        // Otro nodo calibrado un round por encima no regenera el hash y viceversa
+        ReflectionTestUtils.setField(securityConfig, "bcryptRounds", 6);
+        passwordUtils.initBcryptCost();
+        String nodeB = passwordUtils.hashPassword("Sup3r$ecretPwd!");
+        assertFalse(passwordUtils.needsRehash(nodeA));
+
+        ReflectionTestUtils.setField(securityConfig, "bcryptRounds", 5);
+        passwordUtils.initBcryptCost();
+        assertFalse(passwordUtils.needsRehash(nodeB));
+
+        ReflectionTestUtils.setField(securityConfig, "bcryptRounds", 7);
+        passwordUtils.initBcryptCost();
+        assertTrue(passwordUtils.needsRehash(nodeA), "fuera de la banda: subir coste");
+    }
 }
@@ -0,0 +1,92 @@
+package com.esimedia.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PwnedPasswordIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] sha1(String password) throws Exception {
+        return MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path dump(List<String> passwords, int count) throws Exception {
+        TreeSet<String> lines = new TreeSet<>();
+        for (String p : passwords) {
+            lines.add(HexFormat.of().withUpperCase().formatHex(sha1(p)) + ":" + count);
+        }
+        Path file = dir.resolve("dump.txt");
+        Files.write(file, lines);
+        return file;
+    }
+
+    @Test
+    void buildsAndSearchesSortedDump() throws Exception {
+        Path idx = dir.resolve("pwned.idx");
+        long written = PwnedIndexBuilder.build(dump(List.of("password", "123456", "qwerty", "letmein"), 10), idx, 1);
+
+        try (PwnedPasswordIndex index = PwnedPasswordIndex.open(idx)) {
+            assertEquals(4, written);
+            assertEquals(4, index.size());
+            assertTrue(index.contains(sha1("password")));
+            assertTrue(index.contains(sha1("letmein")));
+            assertFalse(index.contains(sha1("Un4-Clave-Muy-Rara!")));
+        }
+    }
+
+    @Test
+    void minCountFiltersRareHashes() throws Exception {
+        Path idx = dir.resolve("pwned.idx");
+        assertEquals(0, PwnedIndexBuilder.build(dump(List.of("password"), 1), idx, 5));
+    }
+
+    @Test
+    void unsortedDumpIsRejected() throws Exception {
+        Path file = dir.resolve("unsorted.txt");
+        Files.write(file, List.of(
+            "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF:1",
+            "0000000000000000000000000000000000000000:1"));
+
+        assertThrows(IOException.class, () -> PwnedIndexBuilder.build(file, dir.resolve("x.idx"), 1));
+        assertFalse(Files.exists(dir.resolve("x.idx.tmp")));
+    }
+
+    @Test
+    void serviceUsesOfflineIndexWithoutNetwork() throws Exception {
+        Path idx = dir.resolve("pwned.idx");
+        PwnedIndexBuilder.build(dump(List.of("password"), 3), idx, 1);
+
+        HaveIBeenPwnedService service = new HaveIBeenPwnedService() {
+            @Override
+            PwnedRange fetchRange(String prefix) {
+                throw new AssertionError("modo offline no debe llamar a la API");
+            }
+        };
+        ReflectionTestUtils.setField(service, "mode", "offline");
+        ReflectionTestUtils.setField(service, "offlineIndexFile", idx.toString());
+        service.init();
+        try {
+            assertTrue(service.isPasswordPwned("password"));
+            assertFalse(service.isPasswordPwned("otra-clave"));
+        } finally {
+            service.close();
+        }
+    }
+}